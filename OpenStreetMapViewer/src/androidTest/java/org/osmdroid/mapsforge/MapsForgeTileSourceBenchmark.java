@@ -0,0 +1,183 @@
+package org.osmdroid.mapsforge;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osmdroid.StarterMapActivity;
+import org.osmdroid.api.IMapView;
+import org.osmdroid.tileprovider.util.StreamUtils;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.ActivityTestRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Renders a fixed tile set from the bundled world.map, one tile at a time then in parallel,
+ * and checks that metatile by metatile renders the same tiles as tile by tile
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class MapsForgeTileSourceBenchmark {
+
+    private static final String MAP_FILE = "world.map";
+    private static final int ZOOM_MIN = 2;
+    private static final int ZOOM_MAX = 4;
+    private static final int METATILE_SIZE = 4;
+    private static final int RUNS = 3;
+
+    @Rule
+    public ActivityTestRule<StarterMapActivity> activityRule =
+            new ActivityTestRule<>(StarterMapActivity.class);
+
+    private final List<Long> mTiles = new ArrayList<>();
+    private File mMapFile;
+
+    @Before
+    public void setUp() throws IOException {
+        MapsForgeTileSource.createInstance(activityRule.getActivity().getApplication());
+        mMapFile = new File(activityRule.getActivity().getCacheDir(), MAP_FILE);
+        final InputStream inputStream = InstrumentationRegistry.getInstrumentation().getContext().getAssets().open(MAP_FILE);
+        final OutputStream outputStream = new FileOutputStream(mMapFile);
+        try {
+            StreamUtils.copy(inputStream, outputStream);
+        } finally {
+            StreamUtils.closeStream(inputStream);
+            StreamUtils.closeStream(outputStream);
+        }
+        for (int zoom = ZOOM_MIN; zoom <= ZOOM_MAX; zoom++) {
+            for (int x = 0; x < 1 << zoom; x++) {
+                for (int y = 0; y < 1 << zoom; y++) {
+                    mTiles.add(MapTileIndex.getTileIndex(zoom, x, y));
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mMapFile.delete();
+    }
+
+    /**
+     * On several cores, rendering in parallel is faster than one tile at a time.
+     * Each way is measured {@link #RUNS} times and the best duration is kept, so that a single
+     * slow run (GC, another app) doesn't decide.
+     */
+    @Test
+    public void testParallelRendering() throws Exception {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        assumeTrue("one core: nothing to render in parallel", threads > 1);
+
+        long duration1 = Long.MAX_VALUE;
+        long duration2 = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final MapsForgeTileSource single = MapsForgeTileSource.createFromFiles(new File[]{mMapFile});
+            single.setMaxConcurrentRenders(1);
+            final long[] result1 = render(single, threads);
+            single.dispose();
+
+            final MapsForgeTileSource parallel = MapsForgeTileSource.createFromFiles(new File[]{mMapFile});
+            parallel.setMaxConcurrentRenders(threads);
+            final long[] result2 = render(parallel, threads);
+            parallel.dispose();
+
+            assertTrue(result1[0] > 0);
+            assertEquals(result1[0], result2[0]);
+            duration1 = Math.min(duration1, result1[1]);
+            duration2 = Math.min(duration2, result2[1]);
+        }
+        Log.i(IMapView.LOGTAG, "MapsForge rendering of " + mTiles.size() + " tiles on " + threads + " threads: "
+                + duration2 / 1000000 + "ms, " + duration1 / 1000000 + "ms one tile at a time");
+        assertTrue(duration2 < duration1);
+    }
+
+    /**
+     * Metatile by metatile, the same tiles are rendered as tile by tile, each tile once.
+     * Not timed: on the bundled world.map the data reads are a small part of the rendering,
+     * therefore sharing them doesn't make a measurable difference.
+     */
+    @Test
+    public void testMetatileRendering() {
+        final MapsForgeTileSource tileSource = MapsForgeTileSource.createFromFiles(new File[]{mMapFile});
+        tileSource.renderTile(mTiles.get(0)); // waiting for the render theme
+
+        long rendered1 = 0;
+        for (final long mapTileIndex : mTiles) {
+            if (tileSource.renderTile(mapTileIndex) != null) {
+                rendered1++;
+            }
+        }
+
+        tileSource.setMetatileSize(METATILE_SIZE);
+        final Set<Long> rendered2 = new HashSet<>();
+        for (final long mapTileIndex : mTiles) {
+            if (rendered2.contains(mapTileIndex)) {
+                continue;
+            }
+            final Map<Long, Drawable> metatile = tileSource.renderMetatile(mapTileIndex);
+            assertTrue(metatile.containsKey(mapTileIndex));
+            for (final long index : metatile.keySet()) {
+                assertEquals(tileSource.getMetatileIndex(mapTileIndex), tileSource.getMetatileIndex(index));
+                assertTrue(rendered2.add(index));
+            }
+        }
+        tileSource.dispose();
+
+        assertTrue(rendered1 > 0);
+        assertEquals(rendered1, rendered2.size());
+    }
+
+    /**
+     * @return the number of tiles rendered, and the duration in nanoseconds
+     */
+    private long[] render(final MapsForgeTileSource pTileSource, final int pThreads) throws Exception {
+        pTileSource.renderTile(mTiles.get(0)); // waiting for the render theme
+        final ExecutorService executor = Executors.newFixedThreadPool(pThreads);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            final long start = System.nanoTime();
+            for (final long mapTileIndex : mTiles) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        final Drawable drawable = pTileSource.renderTile(mapTileIndex);
+                        return drawable != null;
+                    }
+                }));
+            }
+            long rendered = 0;
+            for (final Future<Boolean> future : futures) {
+                if (future.get()) {
+                    rendered++;
+                }
+            }
+            return new long[]{rendered, System.nanoTime() - start};
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -9,6 +9,8 @@ import android.os.Environment;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
+import org.osmdroid.tileprovider.modules.HttpURLConnectionTileTransport;
+import org.osmdroid.tileprovider.modules.ITileHttpTransport;
 import org.osmdroid.tileprovider.modules.SqlTileWriter;
 import org.osmdroid.tileprovider.util.StorageUtils;
 
@@ -45,6 +47,8 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
     protected String userAgentHttpHeader = "User-Agent";
     private final Map<String, String> mAdditionalHttpRequestProperties = new HashMap<>();
     protected short cacheMapTileCount = 9;
+    protected float cacheMapTileMemoryFraction = 0;
+    protected float bitmapPoolMemoryFraction = 0.0625f;
     protected short tileDownloadThreads = 2;
     protected short tileFileSystemThreads = 8;
     protected short tileDownloadMaxQueueSize = 40;
@@ -64,6 +68,16 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
     protected long mTileGCFrequencyInMillis = 300000;
     protected int mTileGCBulkSize = 20;
     protected long mTileGCBulkPauseInMillis = 500;
+    protected int mTileWriteBatchSize = 20;
+    protected long mTileWriteBatchDelayInMillis = 1000;
+    protected boolean mTileCacheWriteAheadLogging = true;
+    protected int mTileCachePageSize = 8192;
+    protected String mTileCacheSynchronous = null;
+    protected long mTileCacheMmapSize = 0;
+    protected boolean mTileArchiveMemoryMapped = false;
+    protected ITileHttpTransport mTileHttpTransport = new HttpURLConnectionTileTransport();
+    protected int mCacheManagerThreads = 2;
+    protected boolean mTileDownloadAdaptiveConcurrency = true;
     protected boolean mTileDownloaderFollowRedirects = true;
     protected boolean enforceTileSystemBounds = false;
 
@@ -167,6 +181,26 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
         this.cacheMapTileCount = cacheMapTileCount;
     }
 
+    @Override
+    public float getCacheMapTileMemoryFraction() {
+        return cacheMapTileMemoryFraction;
+    }
+
+    @Override
+    public void setCacheMapTileMemoryFraction(float cacheMapTileMemoryFraction) {
+        this.cacheMapTileMemoryFraction = cacheMapTileMemoryFraction;
+    }
+
+    @Override
+    public float getBitmapPoolMemoryFraction() {
+        return bitmapPoolMemoryFraction;
+    }
+
+    @Override
+    public void setBitmapPoolMemoryFraction(float bitmapPoolMemoryFraction) {
+        this.bitmapPoolMemoryFraction = bitmapPoolMemoryFraction;
+    }
+
     @Override
     public short getTileDownloadThreads() {
         return tileDownloadThreads;
@@ -369,6 +403,8 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
             setAnimationSpeedDefault(prefs.getInt("osmdroid.ZoomSpeedDefault", animationSpeedDefault));
             setAnimationSpeedShort(prefs.getInt("osmdroid.animationSpeedShort", animationSpeedShort));
             setCacheMapTileOvershoot((short) (prefs.getInt("osmdroid.cacheTileOvershoot", cacheTileOvershoot)));
+            setCacheMapTileMemoryFraction(prefs.getFloat("osmdroid.cacheMapTileMemoryFraction", cacheMapTileMemoryFraction));
+            setBitmapPoolMemoryFraction(prefs.getFloat("osmdroid.bitmapPoolMemoryFraction", bitmapPoolMemoryFraction));
             setMapTileDownloaderFollowRedirects(prefs.getBoolean("osmdroid.TileDownloaderFollowRedirects", mTileDownloaderFollowRedirects));
             setEnforceTileSystemBounds(prefs.getBoolean("osmdroid.enforceTileSystemBounds", false));
             if (prefs.contains("osmdroid.ExpirationOverride")) {
@@ -431,6 +467,8 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
         edit.putInt("osmdroid.animationSpeedShort", animationSpeedShort);
         edit.putBoolean("osmdroid.mapViewRecycler", mapViewRecycler);
         edit.putInt("osmdroid.cacheTileOvershoot", cacheTileOvershoot);
+        edit.putFloat("osmdroid.cacheMapTileMemoryFraction", cacheMapTileMemoryFraction);
+        edit.putFloat("osmdroid.bitmapPoolMemoryFraction", bitmapPoolMemoryFraction);
         edit.putBoolean("osmdroid.enforceTileSystemBounds", enforceTileSystemBounds);
         commit(edit);
     }
@@ -579,6 +617,106 @@ public class DefaultConfigurationProvider implements IConfigurationProvider {
         mTileGCBulkPauseInMillis = pMillis;
     }
 
+    @Override
+    public int getTileWriteBatchSize() {
+        return mTileWriteBatchSize;
+    }
+
+    @Override
+    public void setTileWriteBatchSize(final int pSize) {
+        mTileWriteBatchSize = pSize;
+    }
+
+    @Override
+    public long getTileWriteBatchDelayInMillis() {
+        return mTileWriteBatchDelayInMillis;
+    }
+
+    @Override
+    public void setTileWriteBatchDelayInMillis(final long pMillis) {
+        mTileWriteBatchDelayInMillis = pMillis;
+    }
+
+    @Override
+    public boolean isTileCacheWriteAheadLogging() {
+        return mTileCacheWriteAheadLogging;
+    }
+
+    @Override
+    public void setTileCacheWriteAheadLogging(final boolean pWriteAheadLogging) {
+        mTileCacheWriteAheadLogging = pWriteAheadLogging;
+    }
+
+    @Override
+    public int getTileCachePageSize() {
+        return mTileCachePageSize;
+    }
+
+    @Override
+    public void setTileCachePageSize(final int pPageSize) {
+        mTileCachePageSize = pPageSize;
+    }
+
+    @Override
+    public String getTileCacheSynchronous() {
+        return mTileCacheSynchronous;
+    }
+
+    @Override
+    public void setTileCacheSynchronous(final String pSynchronous) {
+        mTileCacheSynchronous = pSynchronous;
+    }
+
+    @Override
+    public long getTileCacheMmapSize() {
+        return mTileCacheMmapSize;
+    }
+
+    @Override
+    public void setTileCacheMmapSize(final long pMmapSize) {
+        mTileCacheMmapSize = pMmapSize;
+    }
+
+    @Override
+    public boolean isTileArchiveMemoryMapped() {
+        return mTileArchiveMemoryMapped;
+    }
+
+    @Override
+    public void setTileArchiveMemoryMapped(final boolean pMemoryMapped) {
+        mTileArchiveMemoryMapped = pMemoryMapped;
+    }
+
+    @Override
+    public ITileHttpTransport getTileHttpTransport() {
+        return mTileHttpTransport;
+    }
+
+    @Override
+    public void setTileHttpTransport(final ITileHttpTransport pTileHttpTransport) {
+        mTileHttpTransport = pTileHttpTransport;
+    }
+
+    @Override
+    public int getCacheManagerThreads() {
+        return mCacheManagerThreads;
+    }
+
+    @Override
+    public void setCacheManagerThreads(final int pThreads) {
+        mCacheManagerThreads = pThreads;
+    }
+
+    @Override
+    public boolean isTileDownloadAdaptiveConcurrency() {
+        return mTileDownloadAdaptiveConcurrency;
+    }
+
+    @Override
+    public void setTileDownloadAdaptiveConcurrency(final boolean pAdaptive) {
+        mTileDownloadAdaptiveConcurrency = pAdaptive;
+    }
+
     @Override
     public void setMapTileDownloaderFollowRedirects(boolean value) {
         mTileDownloaderFollowRedirects = value;
@@ -6,6 +6,7 @@ import android.content.SharedPreferences;
 
 import org.osmdroid.tileprovider.MapTileCache;
 import org.osmdroid.tileprovider.MapTileProviderBase;
+import org.osmdroid.tileprovider.modules.ITileHttpTransport;
 
 import java.io.File;
 import java.net.Proxy;
@@ -141,6 +142,40 @@ public interface IConfigurationProvider {
      */
     void setCacheMapTileCount(short cacheMapTileCount);
 
+    /**
+     * Fraction of the maximum heap size (e.g. 0.125 for 1/8th) used as a byte budget
+     * for the tile cache in memory, instead of the tile count.
+     * Relevant when the tiles have very different sizes (256px, 512px, rendered tiles, ...).
+     * The tiles currently displayed and their neighbours are kept anyway.
+     * Default is 0, meaning that the tile count is used instead.
+     *
+     * @see MapTileCache#setMaxBytes(long)
+     * @since 6.2.0
+     */
+    float getCacheMapTileMemoryFraction();
+
+    /**
+     * @see #getCacheMapTileMemoryFraction()
+     * @since 6.2.0
+     */
+    void setCacheMapTileMemoryFraction(float cacheMapTileMemoryFraction);
+
+    /**
+     * Fraction of the maximum heap size (e.g. 0.0625 for 1/16th) used as a byte budget
+     * for the bitmaps kept in the {@link org.osmdroid.tileprovider.BitmapPool} for reuse.
+     * Beyond that budget the oldest pooled bitmaps are recycled.
+     * Default is 0.0625; 0 disables the pool.
+     *
+     * @since 6.2.0
+     */
+    float getBitmapPoolMemoryFraction();
+
+    /**
+     * @see #getBitmapPoolMemoryFraction()
+     * @since 6.2.0
+     */
+    void setBitmapPoolMemoryFraction(float bitmapPoolMemoryFraction);
+
     /**
      * number of tile download threads, conforming to OSM policy:
      * http://wiki.openstreetmap.org/wiki/Tile_usage_policy
@@ -471,6 +506,139 @@ public interface IConfigurationProvider {
      */
     void setTileGCBulkPauseInMillis(final long pMillis);
 
+    /**
+     * Number of tiles written in the same transaction by the sqlite tile cache;
+     * 1 means one transaction per tile, as before
+     *
+     * @since 6.2.0
+     */
+    int getTileWriteBatchSize();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileWriteBatchSize(final int pSize);
+
+    /**
+     * Maximum delay before tiles waiting in a batch are written in the sqlite tile cache
+     *
+     * @since 6.2.0
+     */
+    long getTileWriteBatchDelayInMillis();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileWriteBatchDelayInMillis(final long pMillis);
+
+    /**
+     * Should the sqlite tile cache use write-ahead logging, so that tile reads don't wait for
+     * tile writes, with a pool of reader connections. Default is true.
+     *
+     * @since 6.2.0
+     */
+    boolean isTileCacheWriteAheadLogging();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileCacheWriteAheadLogging(final boolean pWriteAheadLogging);
+
+    /**
+     * Page size of the sqlite tile cache, only effective when the database is created;
+     * 0 for the sqlite default
+     *
+     * @since 6.2.0
+     */
+    int getTileCachePageSize();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileCachePageSize(final int pPageSize);
+
+    /**
+     * Value of the "synchronous" pragma of the sqlite tile cache (e.g. "NORMAL", "OFF"),
+     * or null for the default value
+     *
+     * @since 6.2.0
+     */
+    String getTileCacheSynchronous();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileCacheSynchronous(final String pSynchronous);
+
+    /**
+     * Value of the "mmap_size" pragma of the sqlite tile cache in bytes, or 0 for the default value
+     * Applied to all the connections of the tile cache since Android 11, and only to the writing one before
+     *
+     * @since 6.2.0
+     */
+    long getTileCacheMmapSize();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileCacheMmapSize(final long pMmapSize);
+
+    /**
+     * Should the offline tile archives be memory-mapped when possible (e.g. GEMF),
+     * for tile reads without file handles nor copies. Default is false
+     *
+     * @since 6.2.0
+     */
+    boolean isTileArchiveMemoryMapped();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileArchiveMemoryMapped(final boolean pMemoryMapped);
+
+    /**
+     * HTTP layer of the tile downloads; by default based on {@link java.net.HttpURLConnection},
+     * with connections kept alive
+     *
+     * @since 6.2.0
+     */
+    ITileHttpTransport getTileHttpTransport();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileHttpTransport(final ITileHttpTransport pTileHttpTransport);
+
+    /**
+     * Number of threads of the bulk downloads of {@link org.osmdroid.tileprovider.cachemanager.CacheManager},
+     * capped by {@link org.osmdroid.tileprovider.tilesource.TileSourcePolicy#getMaxConcurrent()}. Default is 2
+     * The task thread is one of them, the others are taken from the shared download thread pool
+     *
+     * @since 6.2.0
+     */
+    int getCacheManagerThreads();
+
+    /**
+     * @since 6.2.0
+     */
+    void setCacheManagerThreads(final int pThreads);
+
+    /**
+     * If true, the number of concurrent downloads of each online tile source adapts to how its
+     * server responds: more downloads while the response time stays low, fewer when it rises,
+     * and a pause on "429 Too Many Requests" / "503 Service Unavailable", as long as "Retry-After" says.
+     * Never more than {@link org.osmdroid.tileprovider.tilesource.TileSourcePolicy#getMaxConcurrent()}.
+     * If false, a fixed number of concurrent downloads, as before. Default is true
+     *
+     * @since 6.2.0
+     */
+    boolean isTileDownloadAdaptiveConcurrency();
+
+    /**
+     * @since 6.2.0
+     */
+    void setTileDownloadAdaptiveConcurrency(final boolean pAdaptive);
+
     /**
      * enables/disables tile downloading following redirects. default is true
      *
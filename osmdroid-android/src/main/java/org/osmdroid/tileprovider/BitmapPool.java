@@ -8,17 +8,39 @@ import android.os.Build;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
-import org.osmdroid.tileprovider.modules.ConfigurablePriorityThreadFactory;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.MapTileExecutors;
+import org.osmdroid.tileprovider.util.Counters;
 
-import java.util.LinkedList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pool of bitmaps that can be reused instead of allocated, typically for tile decoding.
+ * As of 6.2.0:
+ * * the bitmaps are sorted in buckets by {@link Bitmap.Config} and size class,
+ * with lock-free queues
+ * * from KitKat on, a bitmap is reused as long as it has enough allocated bytes;
+ * before KitKat, only for the exact same width and height
+ * * the total size of the pooled bitmaps is limited,
+ * cf. {@link org.osmdroid.config.IConfigurationProvider#getBitmapPoolMemoryFraction()}
+ * * hits, misses and evictions are counted in {@link Counters}
+ */
 public class BitmapPool {
 
-    private final LinkedList<Bitmap> mPool = new LinkedList<>();
-    private final ExecutorService mExecutor = Executors.newFixedThreadPool(1,
-            new ConfigurablePriorityThreadFactory(Thread.MIN_PRIORITY, getClass().getName()));
+    /**
+     * How many size classes above the requested one we accept, each one doubling the size
+     *
+     * @since 6.2.0
+     */
+    private static final int SIZE_CLASS_TOLERANCE = 1;
+
+    private final ConcurrentHashMap<Long, Queue<Bitmap>> mBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong mBytes = new AtomicLong();
+    private final AtomicInteger mSize = new AtomicInteger();
 
     //singleton: begin
     private BitmapPool() {
@@ -34,9 +56,7 @@ public class BitmapPool {
     public void returnDrawableToPool(ReusableBitmapDrawable drawable) {
         Bitmap b = drawable.tryRecycle();
         if (b != null && !b.isRecycled() && b.isMutable() && b.getConfig() != null) {
-            synchronized (mPool) {
-                mPool.addLast(b);
-            }
+            put(b);
         } else if (b != null) {
             Log.d(IMapView.LOGTAG, "Rejected bitmap from being added to BitmapPool.");
         }
@@ -59,10 +79,11 @@ public class BitmapPool {
 
     public void applyReusableOptions(final BitmapFactory.Options aBitmapOptions, final int width, final int height) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-            // This could be optimized for KK and up, as from there on the only requirement is that
-            // the reused bitmap's allocatedbytes are >= the size of new one. Since the pool is
-            // almost only used for tiles of the same dimensions, the gains will probably be small.
-            aBitmapOptions.inBitmap = obtainSizedBitmapFromPool(width, height);
+            // From KitKat on, the reused bitmap is reconfigured by the decoder:
+            // the only requirement is that its allocated bytes are >= the size of the new one.
+            final Bitmap.Config config = aBitmapOptions.inPreferredConfig != null
+                    ? aBitmapOptions.inPreferredConfig : Bitmap.Config.ARGB_8888;
+            aBitmapOptions.inBitmap = obtain(width, height, config);
             aBitmapOptions.inSampleSize = 1;
             aBitmapOptions.inMutable = true;
         }
@@ -74,58 +95,85 @@ public class BitmapPool {
      */
     @Deprecated
     public Bitmap obtainBitmapFromPool() {
-        synchronized (mPool) {
-            if (mPool.isEmpty()) {
-                return null;
-            } else {
-                final Bitmap bitmap = mPool.removeFirst();
-                if (bitmap.isRecycled()) {
-                    return obtainBitmapFromPool(); // recurse
-                } else {
-                    return bitmap;
-                }
+        for (final Queue<Bitmap> bucket : mBuckets.values()) {
+            final Bitmap bitmap = poll(bucket);
+            if (bitmap != null) {
+                Counters.bitmapPoolHits++;
+                return bitmap;
             }
         }
+        Counters.bitmapPoolMisses++;
+        return null;
     }
 
     public Bitmap obtainSizedBitmapFromPool(final int aWidth, final int aHeight) {
-        synchronized (mPool) {
-            if (mPool.isEmpty()) {
-                return null;
-            } else {
-                for (final Bitmap bitmap : mPool) {
-                    if (bitmap.isRecycled()) {
-                        mPool.remove(bitmap);
-                        return obtainSizedBitmapFromPool(aWidth, aHeight); // recurse to prevent ConcurrentModificationException
-                    } else if (bitmap.getWidth() == aWidth && bitmap.getHeight() == aHeight) {
-                        mPool.remove(bitmap);
-                        return bitmap;
-                    }
-                }
-            }
-        }
+        return obtainSizedBitmapFromPool(aWidth, aHeight, Bitmap.Config.ARGB_8888);
+    }
 
-        return null;
+    /**
+     * @return a bitmap of that exact size and config, or null if none available
+     * @since 6.2.0
+     */
+    public Bitmap obtainSizedBitmapFromPool(final int aWidth, final int aHeight, final Bitmap.Config pConfig) {
+        final Bitmap bitmap = obtain(aWidth, aHeight, pConfig);
+        if (bitmap == null) {
+            return null;
+        }
+        if (bitmap.getWidth() == aWidth && bitmap.getHeight() == aHeight && bitmap.getConfig() == pConfig) {
+            return bitmap;
+        }
+        try { // only possible from KitKat on, as before that we only pool by exact size
+            bitmap.reconfigure(aWidth, aHeight, pConfig);
+            return bitmap;
+        } catch (final IllegalArgumentException e) {
+            bitmap.recycle();
+            return null;
+        }
     }
 
     public void clearBitmapPool() {
-        synchronized (sInstance.mPool) {
-            while (!sInstance.mPool.isEmpty()) {
-                Bitmap bitmap = sInstance.mPool.remove();
+        for (final Queue<Bitmap> bucket : mBuckets.values()) {
+            Bitmap bitmap;
+            while ((bitmap = poll(bucket)) != null) {
                 bitmap.recycle();
             }
         }
     }
 
+    /**
+     * @return the number of pooled bitmaps
+     * @since 6.2.0
+     */
+    public int getSize() {
+        return mSize.get();
+    }
+
+    /**
+     * @return the number of bytes of the pooled bitmaps
+     * @since 6.2.0
+     */
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    /**
+     * @return the memory budget of the pool, in bytes
+     * @since 6.2.0
+     */
+    public long getMaxBytes() {
+        return (long) (Runtime.getRuntime().maxMemory() * Configuration.getInstance().getBitmapPoolMemoryFraction());
+    }
+
     /**
      * @since 6.0.0
      * The same code was duplicated in many places: now there's a unique entry point and it's async
+     * As of 6.2.0, runs on the shared recycling thread
      */
     public void asyncRecycle(final Drawable pDrawable) {
         if (pDrawable == null) {
             return;
         }
-        mExecutor.execute(new Runnable() {
+        MapTileExecutors.getInstance().getRecycleExecutor().execute(new Runnable() {
             @Override
             public void run() {
                 syncRecycle(pDrawable);
@@ -152,4 +200,182 @@ public class BitmapPool {
             returnDrawableToPool((ReusableBitmapDrawable) pDrawable);
         }
     }
+
+    /**
+     * @return a bitmap that can be reused for that size and config, or null
+     * @since 6.2.0
+     */
+    private Bitmap obtain(final int pWidth, final int pHeight, final Bitmap.Config pConfig) {
+        if (!isByteCountReuse()) {
+            final Bitmap bitmap = poll(mBuckets.get(getKey(pConfig, pWidth, pHeight)));
+            count(bitmap);
+            return bitmap;
+        }
+        final long needed = (long) pWidth * pHeight * getBytesPerPixel(pConfig);
+        final int sizeClass = getSizeClass(needed);
+        for (int i = sizeClass; i <= sizeClass + SIZE_CLASS_TOLERANCE; i++) {
+            final Queue<Bitmap> bucket = mBuckets.get(getKey(pConfig, i));
+            final Bitmap bitmap = poll(bucket);
+            if (bitmap == null) {
+                continue;
+            }
+            if (getByteCount(bitmap) >= needed) {
+                count(bitmap);
+                return bitmap;
+            }
+            // same size class but too small: back to the pool
+            offer(bucket, bitmap);
+        }
+        count(null);
+        return null;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private void put(final Bitmap pBitmap) {
+        final long maxBytes = getMaxBytes();
+        final long bytes = getByteCount(pBitmap);
+        if (bytes > maxBytes) {
+            pBitmap.recycle();
+            Counters.bitmapPoolEvictions++;
+            return;
+        }
+        final long key = isByteCountReuse()
+                ? getKey(pBitmap.getConfig(), getSizeClass(bytes))
+                : getKey(pBitmap.getConfig(), pBitmap.getWidth(), pBitmap.getHeight());
+        Queue<Bitmap> bucket = mBuckets.get(key);
+        if (bucket == null) {
+            bucket = new ConcurrentLinkedQueue<>();
+            final Queue<Bitmap> previous = mBuckets.putIfAbsent(key, bucket);
+            if (previous != null) {
+                bucket = previous;
+            }
+        }
+        offer(bucket, pBitmap);
+        trim(maxBytes);
+    }
+
+    /**
+     * Recycle the oldest bitmaps of each bucket in turn until we're within budget
+     *
+     * @since 6.2.0
+     */
+    private void trim(final long pMaxBytes) {
+        while (mBytes.get() > pMaxBytes) {
+            boolean found = false;
+            for (final Queue<Bitmap> bucket : mBuckets.values()) {
+                final Bitmap bitmap = poll(bucket);
+                if (bitmap != null) {
+                    found = true;
+                    bitmap.recycle();
+                    Counters.bitmapPoolEvictions++;
+                    if (mBytes.get() <= pMaxBytes) {
+                        return;
+                    }
+                }
+            }
+            if (!found) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private void offer(final Queue<Bitmap> pBucket, final Bitmap pBitmap) {
+        mBytes.addAndGet(getByteCount(pBitmap));
+        mSize.incrementAndGet();
+        pBucket.offer(pBitmap);
+    }
+
+    /**
+     * @return the first bitmap of the bucket that is not recycled, or null
+     * @since 6.2.0
+     */
+    private Bitmap poll(final Queue<Bitmap> pBucket) {
+        if (pBucket == null) {
+            return null;
+        }
+        Bitmap bitmap;
+        while ((bitmap = pBucket.poll()) != null) {
+            mBytes.addAndGet(-getByteCount(bitmap));
+            mSize.decrementAndGet();
+            if (!bitmap.isRecycled()) {
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private void count(final Bitmap pBitmap) {
+        if (pBitmap != null) {
+            Counters.bitmapPoolHits++;
+        } else {
+            Counters.bitmapPoolMisses++;
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private boolean isByteCountReuse() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    /**
+     * Key for the exact size, before KitKat
+     *
+     * @since 6.2.0
+     */
+    private long getKey(final Bitmap.Config pConfig, final int pWidth, final int pHeight) {
+        return ((long) pConfig.ordinal() << 56) | ((long) pWidth << 28) | pHeight;
+    }
+
+    /**
+     * Key for the size class, from KitKat on
+     *
+     * @since 6.2.0
+     */
+    private long getKey(final Bitmap.Config pConfig, final int pSizeClass) {
+        return ((long) pConfig.ordinal() << 56) | pSizeClass;
+    }
+
+    /**
+     * @return the size class, i.e. the highest power of 2 that is not bigger than the size
+     * @since 6.2.0
+     */
+    static int getSizeClass(final long pBytes) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(1, pBytes));
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private long getByteCount(final Bitmap pBitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return pBitmap.getAllocationByteCount();
+        }
+        return (long) pBitmap.getRowBytes() * pBitmap.getHeight();
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private int getBytesPerPixel(final Bitmap.Config pConfig) {
+        if (pConfig == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        if (pConfig == Bitmap.Config.RGB_565 || pConfig == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        if ("RGBA_F16".equals(pConfig.name())) {
+            return 8;
+        }
+        return 4;
+    }
 }
@@ -1,20 +1,26 @@
 // Created by plusminus on 17:58:57 - 25.09.2008
 package org.osmdroid.tileprovider;
 
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
 import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.MapTileAreaRequestScheduler;
 import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileAreaComputer;
 import org.osmdroid.util.MapTileAreaList;
 import org.osmdroid.util.MapTileContainer;
-import org.osmdroid.util.MapTileList;
+import org.osmdroid.util.MapTileHashMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * In memory cache of tiles
@@ -39,7 +45,10 @@ public class MapTileCache {
     }
 
     private TileRemovedListener mTileRemovedListener;
-    private final HashMap<Long, Drawable> mCachedTiles = new HashMap<>();
+    /**
+     * Writes are synchronized on this map; reads are lock-free, cf. {@link MapTileHashMap}
+     */
+    private final MapTileHashMap<Drawable> mCachedTiles = new MapTileHashMap<>();
     /**
      * Tiles currently displayed
      */
@@ -48,17 +57,41 @@ public class MapTileCache {
      * Tiles neighbouring the tiles currently displayed (borders, zoom +-1, ...)
      */
     private final MapTileAreaList mAdditionalMapTileList = new MapTileAreaList();
+    private final List<MapTileAreaComputer> mComputers = new ArrayList<>();
+
+    private int mCapacity;
+
     /**
-     * Tiles currently in the cache, without the concurrency side effects
+     * Byte budget of the cache; 0 means that the tile count {@link #mCapacity} is used instead
+     *
+     * @since 6.2.0
      */
-    private final MapTileList mGC = new MapTileList();
+    private long mMaxBytes;
 
-    private final List<MapTileAreaComputer> mComputers = new ArrayList<>();
+    /**
+     * Sum of the sizes of the cached tiles, maintained under the {@link #mCachedTiles} lock
+     *
+     * @since 6.2.0
+     */
+    private volatile long mCachedBytes;
 
-    private int mCapacity;
+    /**
+     * For each cached bitmap: its number of cache entries, and its size as recorded at insertion.
+     * A bitmap shared by several tiles (e.g. the "not found" tile) is counted once,
+     * and a bitmap recycled meanwhile is still removed with its recorded size.
+     * Maintained under the {@link #mCachedTiles} lock
+     *
+     * @since 6.2.0
+     */
+    private final Map<Bitmap, long[]> mCachedBitmaps = new IdentityHashMap<>();
 
     private final MapTilePreCache mPreCache;
 
+    /**
+     * @since 6.2.0
+     */
+    private final MapTileAreaRequestScheduler mRequestScheduler;
+
     /**
      * @since 6.0.2
      */
@@ -80,6 +113,10 @@ public class MapTileCache {
 
     public MapTileCache() {
         this(Configuration.getInstance().getCacheMapTileCount());
+        final float fraction = Configuration.getInstance().getCacheMapTileMemoryFraction();
+        if (fraction > 0) {
+            setMaxBytes((long) (Runtime.getRuntime().maxMemory() * fraction));
+        }
     }
 
     /**
@@ -88,6 +125,7 @@ public class MapTileCache {
     public MapTileCache(final int aMaximumCacheSize) {
         ensureCapacity(aMaximumCacheSize);
         mPreCache = new MapTilePreCache(this);
+        mRequestScheduler = new MapTileAreaRequestScheduler(this);
     }
 
     /**
@@ -137,16 +175,47 @@ public class MapTileCache {
         return false;
     }
 
+    /**
+     * Lock-free, so that the drawing thread never waits for the tile loading threads
+     */
     public Drawable getMapTile(final long pMapTileIndex) {
-        synchronized (mCachedTiles) {
-            return this.mCachedTiles.get(pMapTileIndex);
-        }
+        return this.mCachedTiles.get(pMapTileIndex);
+    }
+
+    /**
+     * Switches the cache to a byte budget instead of a tile count:
+     * the garbage collection removes tiles until their total size fits in the budget.
+     * The protected tiles (displayed, neighbours, protectors) are kept anyway.
+     *
+     * @param pMaxBytes maximum size in bytes, or 0 to use the tile count again
+     * @since 6.2.0
+     */
+    public void setMaxBytes(final long pMaxBytes) {
+        Log.i(IMapView.LOGTAG, "Tile cache byte budget set to " + pMaxBytes);
+        mMaxBytes = pMaxBytes;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * @return the total size in bytes of the cached tiles
+     * @since 6.2.0
+     */
+    public long getSizeInBytes() {
+        return mCachedBytes;
     }
 
     public void putTile(final long pMapTileIndex, final Drawable aDrawable) {
         if (aDrawable != null) {
             synchronized (mCachedTiles) {
-                this.mCachedTiles.put(pMapTileIndex, aDrawable);
+                final Drawable previous = this.mCachedTiles.put(pMapTileIndex, aDrawable);
+                addBytes(aDrawable);
+                removeBytes(previous);
             }
         }
     }
@@ -157,19 +226,28 @@ public class MapTileCache {
      * @since 6.0.0
      */
     public void garbageCollection() {
+        // always up to date, as also used by the pre-cache and the tile request schedulers
+        refreshAdditionalLists();
+        mRequestScheduler.refresh();
+
         // number of tiles to remove from cache
         int toBeRemoved = Integer.MAX_VALUE; // MAX_VALUE for stressed memory case
-        final int size = mCachedTiles.size();
+        final int size = mCachedTiles.getSize();
+        final boolean byteBudget = mMaxBytes > 0;
         if (!mStressedMemory) {
-            toBeRemoved = size - mCapacity;
-            if (toBeRemoved <= 0) {
-                return;
+            if (byteBudget) {
+                if (mCachedBytes <= mMaxBytes) {
+                    return;
+                }
+            } else {
+                toBeRemoved = size - mCapacity;
+                if (toBeRemoved <= 0) {
+                    return;
+                }
             }
         }
 
-        refreshAdditionalLists();
-
-        if (mAutoEnsureCapacity) {
+        if (mAutoEnsureCapacity && !byteBudget) {
             final int target = mMapTileArea.size() + mAdditionalMapTileList.size();
             if (ensureCapacity(target)) {
                 if (!mStressedMemory) {
@@ -180,9 +258,17 @@ public class MapTileCache {
                 }
             }
         }
-        populateSyncCachedTiles(mGC);
-        for (int i = 0; i < mGC.getSize(); i++) {
-            final long index = mGC.get(i);
+        // parsing the slots without copying the indices; removing tiles while parsing is safe
+        int slot = 0;
+        while (true) {
+            final long index;
+            synchronized (mCachedTiles) {
+                slot = mCachedTiles.nextSlot(slot);
+                if (slot == -1) {
+                    break;
+                }
+                index = mCachedTiles.getKeyAt(slot++);
+            }
             if (shouldKeepTile(index)) {
                 continue;
             }
@@ -190,7 +276,9 @@ public class MapTileCache {
             if (--toBeRemoved == 0) {
                 break;
             }
-            ;
+            if (byteBudget && !mStressedMemory && mCachedBytes <= mMaxBytes) {
+                break;
+            }
         }
     }
 
@@ -240,6 +328,19 @@ public class MapTileCache {
         return mMapTileArea;
     }
 
+    /**
+     * Sets the displayed area, e.g. when the projection changes, and publishes it at once
+     * with its neighbouring areas to the request scheduler, so that the pending requests
+     * are ranked against the new viewport without waiting for the next garbage collection
+     *
+     * @since 6.2.0
+     */
+    public void setMapTileArea(final int pZoom, final Rect pRect) {
+        mMapTileArea.set(pZoom, pRect);
+        refreshAdditionalLists();
+        mRequestScheduler.refresh();
+    }
+
     /**
      * @since 6.0.3
      */
@@ -256,9 +357,7 @@ public class MapTileCache {
     // ===========================================================
 
     public boolean containsTile(final long pMapTileIndex) {
-        synchronized (mCachedTiles) {
-            return this.mCachedTiles.containsKey(pMapTileIndex);
-        }
+        return this.mCachedTiles.contains(pMapTileIndex);
     }
 
     /**
@@ -267,15 +366,25 @@ public class MapTileCache {
      */
     public void clear() {
         // remove them all individually so that they get recycled
-        final MapTileList list = new MapTileList();
-        populateSyncCachedTiles(list);
-        for (int i = 0; i < list.getSize(); i++) {
-            final long index = list.get(i);
+        int slot = 0;
+        while (true) {
+            final long index;
+            synchronized (mCachedTiles) {
+                slot = mCachedTiles.nextSlot(slot);
+                if (slot == -1) {
+                    break;
+                }
+                index = mCachedTiles.getKeyAt(slot++);
+            }
             remove(index);
         }
 
         // and then clear
-        mCachedTiles.clear();
+        synchronized (mCachedTiles) {
+            mCachedTiles.clear();
+            mCachedBitmaps.clear();
+            mCachedBytes = 0;
+        }
     }
 
     /**
@@ -286,6 +395,7 @@ public class MapTileCache {
         final Drawable drawable;
         synchronized (mCachedTiles) {
             drawable = mCachedTiles.remove(pMapTileIndex);
+            removeBytes(drawable);
         }
         if (getTileRemovedListener() != null)
             getTileRemovedListener().onTileRemoved(pMapTileIndex);
@@ -309,25 +419,80 @@ public class MapTileCache {
     }
 
     /**
-     * Just a helper method in order to parse all indices without concurrency side effects
+     * To be called under the {@link #mCachedTiles} lock, when a tile is put in the cache
      *
-     * @since 6.0.0
+     * @since 6.2.0
      */
-    private void populateSyncCachedTiles(final MapTileList pList) {
-        synchronized (mCachedTiles) {
-            pList.ensureCapacity(mCachedTiles.size());
-            pList.clear();
-            for (final long index : mCachedTiles.keySet()) {
-                pList.put(index);
+    private void addBytes(final Drawable pDrawable) {
+        if (!(pDrawable instanceof BitmapDrawable)) {
+            return;
+        }
+        final Bitmap bitmap = ((BitmapDrawable) pDrawable).getBitmap();
+        if (bitmap == null) {
+            return;
+        }
+        long[] entry = mCachedBitmaps.get(bitmap);
+        if (entry == null) {
+            final long size = getSizeInBytes(pDrawable);
+            if (size == 0) {
+                return;
             }
+            entry = new long[]{0, size};
+            mCachedBitmaps.put(bitmap, entry);
+            mCachedBytes += size;
+        }
+        entry[0]++;
+    }
+
+    /**
+     * To be called under the {@link #mCachedTiles} lock, when a tile is removed from the cache
+     *
+     * @since 6.2.0
+     */
+    private void removeBytes(final Drawable pDrawable) {
+        if (!(pDrawable instanceof BitmapDrawable)) {
+            return;
+        }
+        final Bitmap bitmap = ((BitmapDrawable) pDrawable).getBitmap();
+        if (bitmap == null) {
+            return;
+        }
+        final long[] entry = mCachedBitmaps.get(bitmap);
+        if (entry == null) {
+            return;
+        }
+        if (--entry[0] == 0) {
+            mCachedBitmaps.remove(bitmap);
+            mCachedBytes -= entry[1];
+        }
+    }
+
+    /**
+     * @return the memory size of the tile bitmap, or 0 if not relevant
+     * @since 6.2.0
+     */
+    public static long getSizeInBytes(final Drawable pDrawable) {
+        if (!(pDrawable instanceof BitmapDrawable)) {
+            return 0;
+        }
+        final Bitmap bitmap = ((BitmapDrawable) pDrawable).getBitmap();
+        if (bitmap == null || bitmap.isRecycled()) {
+            return 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
         }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+            return bitmap.getByteCount();
+        }
+        return (long) bitmap.getRowBytes() * bitmap.getHeight();
     }
 
     /**
      * @since 6.0.0
      */
     public int getSize() {
-        return mCachedTiles.size();
+        return mCachedTiles.getSize();
     }
 
     /**
@@ -346,4 +511,13 @@ public class MapTileCache {
     public MapTilePreCache getPreCache() {
         return mPreCache;
     }
+
+    /**
+     * @return the request scheduler based on the areas of this cache, refreshed when they are set
+     * with {@link #setMapTileArea(int, Rect)} and at each garbage collection
+     * @since 6.2.0
+     */
+    public MapTileAreaRequestScheduler getRequestScheduler() {
+        return mRequestScheduler;
+    }
 }
@@ -4,16 +4,18 @@ import android.graphics.drawable.Drawable;
 
 import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.IMapTileRequestScheduler;
 import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.util.Counters;
 import org.osmdroid.util.MapTileContainer;
+import org.osmdroid.util.MapTileHashMap;
 import org.osmdroid.util.MapTileIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This top-level tile provider allows a consumer to provide an array of modular asynchronous tile
@@ -32,10 +34,26 @@ import java.util.Map;
  */
 public class MapTileProviderArray extends MapTileProviderBase implements MapTileContainer {
 
-    private final Map<Long, Integer> mWorking = new HashMap<>();
+    private final MapTileHashMap<Integer> mWorking = new MapTileHashMap<>();
+    /**
+     * Lock on {@link #mWorking}
+     * As a {@link ReentrantLock} and not a synchronized block, in order to know
+     * when the drawing thread has to wait for the tile loading threads
+     *
+     * @since 6.2.0
+     */
+    private final ReentrantLock mWorkingLock = new ReentrantLock();
     private IRegisterReceiver mRegisterReceiver = null;
     protected final List<MapTileModuleProviderBase> mTileProviderList;
 
+    /**
+     * Default scheduler for the providers that don't have one:
+     * visible tiles first, and cancellation of the tiles that are not relevant anymore
+     *
+     * @since 6.2.0
+     */
+    private final IMapTileRequestScheduler mRequestScheduler;
+
     /**
      * @since 6.0.2
      */
@@ -66,6 +84,7 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
         mRegisterReceiver = aRegisterReceiver;
         mTileProviderList = new ArrayList<>();
         Collections.addAll(mTileProviderList, pTileProviderArray);
+        mRequestScheduler = getTileCache().getRequestScheduler();
     }
 
     @Override
@@ -76,8 +95,11 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
 
             }
         }
-        synchronized (mWorking) {
+        mWorkingLock.lock();
+        try {
             mWorking.clear();
+        } finally {
+            mWorkingLock.unlock();
         }
         if (mRegisterReceiver != null) {
             mRegisterReceiver.destroy();
@@ -91,9 +113,7 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
      */
     @Override
     public boolean contains(long pTileIndex) {
-        synchronized (mWorking) {
-            return mWorking.containsKey(pTileIndex);
-        }
+        return mWorking.contains(pTileIndex);
     }
 
     /**
@@ -124,11 +144,20 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
             }
         }
 
-        synchronized (mWorking) {
-            if (mWorking.containsKey(pMapTileIndex)) {
+        if (mWorking.contains(pMapTileIndex)) { // lock-free early check
+            return tile;
+        }
+        if (!mWorkingLock.tryLock()) {
+            Counters.tileDrawWaits++;
+            mWorkingLock.lock();
+        }
+        try {
+            if (mWorking.contains(pMapTileIndex)) {
                 return tile;
             }
             mWorking.put(pMapTileIndex, WORKING_STATUS_STARTED);
+        } finally {
+            mWorkingLock.unlock();
         }
 
         final MapTileRequestState state = new MapTileRequestState(pMapTileIndex, mTileProviderList, MapTileProviderArray.this);
@@ -141,8 +170,11 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
      * @since 6.0.0
      */
     private void remove(final long pMapTileIndex) {
-        synchronized (mWorking) {
+        mWorkingLock.lock();
+        try {
             mWorking.remove(pMapTileIndex);
+        } finally {
+            mWorkingLock.unlock();
         }
     }
 
@@ -166,8 +198,11 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
     @Override
     public void mapTileRequestExpiredTile(MapTileRequestState aState, Drawable aDrawable) {
         super.mapTileRequestExpiredTile(aState, aDrawable);
-        synchronized (mWorking) {
+        mWorkingLock.lock();
+        try {
             mWorking.put(aState.getMapTile(), WORKING_STATUS_FOUND);
+        } finally {
+            mWorkingLock.unlock();
         }
 
         // Continue through the provider chain
@@ -181,9 +216,7 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
 
     @Override
     public long getQueueSize() {
-        synchronized (mWorking) {
-            return mWorking.size();
-        }
+        return mWorking.getSize();
     }
 
     /**
@@ -219,13 +252,13 @@ public class MapTileProviderArray extends MapTileProviderBase implements MapTile
     private void runAsyncNextProvider(final MapTileRequestState pState) {
         final MapTileModuleProviderBase nextProvider = findNextAppropriateProvider(pState);
         if (nextProvider != null) {
+            if (nextProvider.getRequestScheduler() == null) {
+                nextProvider.setRequestScheduler(mRequestScheduler);
+            }
             nextProvider.loadMapTileAsync(pState);
             return;
         }
-        final Integer status; // as Integer (and not int) for concurrency reasons
-        synchronized (mWorking) {
-            status = mWorking.get(pState.getMapTile());
-        }
+        final Integer status = mWorking.get(pState.getMapTile()); // as Integer (and not int) for concurrency reasons
         if (status != null && status == WORKING_STATUS_STARTED) {
             super.mapTileRequestFailed(pState);
         }
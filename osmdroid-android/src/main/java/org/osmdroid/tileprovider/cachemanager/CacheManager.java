@@ -19,6 +19,7 @@ import org.osmdroid.tileprovider.MapTileProviderBase;
 import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
 import org.osmdroid.tileprovider.modules.CantContinueException;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.MapTileExecutors;
 import org.osmdroid.tileprovider.modules.TileDownloader;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
@@ -28,7 +29,11 @@ import org.osmdroid.util.GeoPoint;
 import org.osmdroid.util.IterableWithSize;
 import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileAreaList;
+import org.osmdroid.util.MapTileCorridor;
 import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.util.MapTileIndexIterable;
+import org.osmdroid.util.MapTileIndexIterator;
+import org.osmdroid.util.MapTileList;
 import org.osmdroid.util.MyMath;
 import org.osmdroid.util.TileSystem;
 import org.osmdroid.util.constants.GeoConstants;
@@ -36,12 +41,19 @@ import org.osmdroid.views.MapView;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides various methods for managing the local filesystem cache of osmdroid tiles: <br>
@@ -166,11 +178,18 @@ public class CacheManager {
      * @since 5.6.5
      */
     public boolean forceLoadTile(final OnlineTileSourceBase tileSource, final long pMapTileIndex) {
+        try {
+            tileSource.acquire(); // shared with the map views: never more than the policy allows
+        } catch (InterruptedException e) {
+            return false;
+        }
         try {
             final Drawable drawable = mTileDownloader.downloadTile(pMapTileIndex, mTileWriter, tileSource);
             return drawable != null;
         } catch (CantContinueException e) {
             return false;
+        } finally {
+            tileSource.release();
         }
     }
 
@@ -204,7 +223,10 @@ public class CacheManager {
      * Computes the theoretical tiles covered by the bounding box
      *
      * @return list of tiles, sorted by ascending zoom level
+     * @deprecated Use {@link #getTilesCoverageIterable(BoundingBox, int, int)} instead,
+     * that doesn't keep all the tiles in memory
      */
+    @Deprecated
     public static List<Long> getTilesCoverage(final BoundingBox pBB,
                                               final int pZoomMin, final int pZoomMax) {
         final List<Long> result = new ArrayList<>();
@@ -234,9 +256,9 @@ public class CacheManager {
      * @param pBB      the given bounding box
      * @param pZoomMin the given minimum zoom level
      * @param pZoomMax the given maximum zoom level
-     * @return the iterable described above
+     * @return the iterable described above, in constant memory
      */
-    static IterableWithSize<Long> getTilesCoverageIterable(final BoundingBox pBB,
+    public static MapTileAreaList getTilesCoverageIterable(final BoundingBox pBB,
                                                            final int pZoomMin, final int pZoomMax) {
         final MapTileAreaList list = new MapTileAreaList();
         for (int zoomLevel = pZoomMin; zoomLevel <= pZoomMax; zoomLevel++) {
@@ -275,7 +297,10 @@ public class CacheManager {
      * Computes the theoretical tiles covered by the list of points
      *
      * @return list of tiles, sorted by ascending zoom level
+     * @deprecated Use {@link #getTilesCoverageIterable(ArrayList, int, int)} instead,
+     * that only keeps the tiles of one zoom level in memory
      */
+    @Deprecated
     public static List<Long> getTilesCoverage(final ArrayList<GeoPoint> pGeoPoints,
                                               final int pZoomMin, final int pZoomMax) {
         final List<Long> result = new ArrayList<>();
@@ -292,7 +317,45 @@ public class CacheManager {
      */
     public static Collection<Long> getTilesCoverage(final ArrayList<GeoPoint> pGeoPoints,
                                                     final int pZoomLevel) {
-        final Set<Long> result = new HashSet<>();
+        final long[] tiles = getTilesCoverageArray(pGeoPoints, pZoomLevel);
+        final Set<Long> result = new HashSet<>(tiles.length * 2);
+        for (final long tile : tiles) {
+            result.add(tile);
+        }
+        return result;
+    }
+
+    /**
+     * Iterable returning tiles covered by the list of points, sorted by ascending zoom level.
+     * Only the tiles of the current zoom level are kept in memory, as primitive values.
+     *
+     * @since 6.2.0
+     */
+    public static MapTileIndexIterable getTilesCoverageIterable(final ArrayList<GeoPoint> pGeoPoints,
+                                                                final int pZoomMin, final int pZoomMax) {
+        return new GeoPointsCoverage(pGeoPoints, pZoomMin, pZoomMax);
+    }
+
+    /**
+     * Tiles along the route, within the buffer distance, sorted by ascending zoom level.
+     * Much faster than the other coverages of a list of points for long routes, and deduplicated
+     * as computed; the zoom levels are computed in parallel.
+     *
+     * @param pBufferMeters distance from the route to be covered on both sides
+     * @since 6.2.0
+     */
+    public static MapTileCorridor getTilesCoverageIterable(final List<GeoPoint> pGeoPoints,
+                                                           final int pZoomMin, final int pZoomMax,
+                                                           final double pBufferMeters) {
+        return new MapTileCorridor(pGeoPoints, pZoomMin, pZoomMax, pBufferMeters);
+    }
+
+    /**
+     * @return the tiles covered by the list of points for that zoom level, sorted, without duplicates
+     * @since 6.2.0
+     */
+    static long[] getTilesCoverageArray(final ArrayList<GeoPoint> pGeoPoints, final int pZoomLevel) {
+        final MapTileList result = new MapTileList();
 
         GeoPoint prevPoint = null;
         Point tile, prevTile = null;
@@ -302,7 +365,7 @@ public class CacheManager {
 
             final double d = TileSystem.GroundResolution(geoPoint.getLatitude(), pZoomLevel);
 
-            if (result.size() != 0) {
+            if (result.getSize() != 0) {
 
                 if (prevPoint != null) {
 
@@ -342,7 +405,7 @@ public class CacheManager {
                                 for (int yAround = tile.y + ofsy; yAround <= tile.y + 1 + ofsy; yAround++) {
                                     final int tileY = MyMath.mod(yAround, mapTileUpperBound);
                                     final int tileX = MyMath.mod(xAround, mapTileUpperBound);
-                                    result.add(MapTileIndex.getTileIndex(pZoomLevel, tileX, tileY));
+                                    result.put(MapTileIndex.getTileIndex(pZoomLevel, tileX, tileY));
                                 }
                             }
 
@@ -363,14 +426,22 @@ public class CacheManager {
                     for (int yAround = tile.y + ofsy; yAround <= tile.y + 1 + ofsy; yAround++) {
                         final int tileY = MyMath.mod(yAround, mapTileUpperBound);
                         final int tileX = MyMath.mod(xAround, mapTileUpperBound);
-                        result.add(MapTileIndex.getTileIndex(pZoomLevel, tileX, tileY));
+                        result.put(MapTileIndex.getTileIndex(pZoomLevel, tileX, tileY));
                     }
                 }
             }
 
             prevPoint = geoPoint;
         }
-        return result;
+        final long[] tiles = result.toArray();
+        Arrays.sort(tiles);
+        int size = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (size == 0 || tiles[size - 1] != tiles[i]) {
+                tiles[size++] = tiles[i];
+            }
+        }
+        return size == tiles.length ? tiles : Arrays.copyOf(tiles, size);
     }
 
     /**
@@ -386,7 +457,17 @@ public class CacheManager {
      */
     public int possibleTilesCovered(final ArrayList<GeoPoint> pGeoPoints,
                                     final int pZoomMin, final int pZoomMax) {
-        return getTilesCoverage(pGeoPoints, pZoomMin, pZoomMax).size();
+        return getTilesCoverageIterable(pGeoPoints, pZoomMin, pZoomMax).size();
+    }
+
+    /**
+     * @return the number of tiles along the route, within the buffer distance
+     * Computes the whole corridor: not to be called on the UI thread for long routes
+     * @since 6.2.0
+     */
+    public int possibleTilesCovered(final ArrayList<GeoPoint> pGeoPoints,
+                                    final int pZoomMin, final int pZoomMax, final double pBufferMeters) {
+        return getTilesCoverageIterable(pGeoPoints, pZoomMin, pZoomMax, pBufferMeters).size();
     }
 
     public CacheManagerTask execute(final CacheManagerTask pTask) {
@@ -514,6 +595,46 @@ public class CacheManager {
         return task;
     }
 
+    /**
+     * Download in background all tiles along the route, within the buffer distance,
+     * in osmdroid cache without a user interface.
+     *
+     * @param pBufferMeters distance from the route to be covered on both sides
+     * @since 6.2.0
+     */
+    public CacheManagerTask downloadAreaAsyncNoUI(Context ctx, ArrayList<GeoPoint> geoPoints, final int zoomMin, final int zoomMax,
+                                                  final double pBufferMeters, final CacheManagerCallback callback) {
+        final CacheManagerTask task = new CacheManagerTask(
+                this,
+                getDownloadingAction(ctx),
+                geoPoints,
+                zoomMin,
+                zoomMax,
+                pBufferMeters);
+        task.addCallback(callback);
+        return execute(task);
+    }
+
+    /**
+     * Download in background all tiles of the specified area in osmdroid cache without a user interface,
+     * resuming where the previous download of the same area stopped, if any.
+     *
+     * @param pJournal file where the progress is saved; deleted when the download is over
+     * @since 6.2.0
+     */
+    public CacheManagerTask downloadAreaAsyncNoUI(Context ctx, BoundingBox bb, final int zoomMin, final int zoomMax,
+                                                  final CacheManagerCallback callback, final File pJournal) {
+        final CacheManagerTask task = new CacheManagerTask(
+                this,
+                getDownloadingAction(ctx),
+                bb,
+                zoomMin,
+                zoomMax);
+        task.addCallback(callback);
+        task.setJournal(new CacheManagerJournal(pJournal));
+        return execute(task);
+    }
+
     /**
      * cancels all tasks
      *
@@ -587,6 +708,7 @@ public class CacheManager {
 
         /**
          * this is fired right before the download starts
+         * As of 6.2.0, the number of tiles is computed in the background, and this is fired once it's known
          *
          * @param total
          */
@@ -600,6 +722,24 @@ public class CacheManager {
         public void onTaskFailed(int errors);
     }
 
+    /**
+     * Callback that is also notified of the throughput of the task
+     *
+     * @since 6.2.0
+     */
+    public interface CacheManagerMetricsCallback extends CacheManagerCallback {
+
+        /**
+         * Fired with {@link #updateProgress(int, int, int, int)}
+         *
+         * @param pProcessed       number of tiles processed, including those of a resumed previous run
+         * @param pTotal           number of tiles of the task
+         * @param pTilesPerSecond  throughput since the task started
+         * @param pRemainingMillis estimated time before the end of the task, or -1 if unknown
+         */
+        void updateMetrics(int pProcessed, int pTotal, double pTilesPerSecond, long pRemainingMillis);
+    }
+
     public static abstract class CacheManagerDialog implements CacheManagerCallback {
 
         private final CacheManagerTask mTask;
@@ -693,12 +833,22 @@ public class CacheManager {
      * - and with callbacks for task progression
      */
     public static class CacheManagerTask extends AsyncTask<Object, Integer, Integer> {
+
+        /**
+         * How long we wait for the other threads to finish their current tile, when stopping
+         *
+         * @since 6.2.0
+         */
+        private static final long TERMINATION_TIMEOUT_MILLIS = 10000;
+
         private final CacheManager mManager;
         private final CacheManagerAction mAction;
         private final IterableWithSize<Long> mTiles;
         private final int mZoomMin;
         private final int mZoomMax;
         private final ArrayList<CacheManagerCallback> mCallbacks = new ArrayList<>();
+        private CacheManagerJournal mJournal;
+        private volatile TileIteration mIteration;
 
         private CacheManagerTask(final CacheManager pManager, final CacheManagerAction pAction,
                                  final IterableWithSize<Long> pTiles,
@@ -719,7 +869,18 @@ public class CacheManager {
         public CacheManagerTask(final CacheManager pManager, final CacheManagerAction pAction,
                                 final ArrayList<GeoPoint> pGeoPoints,
                                 final int pZoomMin, final int pZoomMax) {
-            this(pManager, pAction, getTilesCoverage(pGeoPoints, pZoomMin, pZoomMax), pZoomMin, pZoomMax);
+            this(pManager, pAction, getTilesCoverageIterable(pGeoPoints, pZoomMin, pZoomMax), pZoomMin, pZoomMax);
+        }
+
+        /**
+         * Tiles along the route, within the buffer distance
+         *
+         * @since 6.2.0
+         */
+        public CacheManagerTask(final CacheManager pManager, final CacheManagerAction pAction,
+                                final ArrayList<GeoPoint> pGeoPoints,
+                                final int pZoomMin, final int pZoomMax, final double pBufferMeters) {
+            this(pManager, pAction, getTilesCoverageIterable(pGeoPoints, pZoomMin, pZoomMax, pBufferMeters), pZoomMin, pZoomMax);
         }
 
         public CacheManagerTask(final CacheManager pManager, final CacheManagerAction pAction,
@@ -734,12 +895,30 @@ public class CacheManager {
             }
         }
 
-        @Override
-        protected void onPreExecute() {
-            final int total = mTiles.size();
+        /**
+         * Progress saved in that journal, to be set before the execution:
+         * the task resumes from there if the journal matches the same job
+         *
+         * @since 6.2.0
+         */
+        public void setJournal(final CacheManagerJournal pJournal) {
+            mJournal = pJournal;
+        }
+
+        /**
+         * @since 6.2.0
+         */
+        public CacheManagerJournal getJournal() {
+            return mJournal;
+        }
+
+        /**
+         * As of 6.2.0, called with the number of tiles computed in the background
+         */
+        private void onStarted(final int pTotal) {
             for (final CacheManagerCallback callback : mCallbacks) {
                 try {
-                    callback.setPossibleTilesInArea(total);
+                    callback.setPossibleTilesInArea(pTotal);
                     callback.downloadStarted();
                     callback.updateProgress(0, mZoomMin, mZoomMin, mZoomMax);
                 } catch (Throwable t) {
@@ -755,9 +934,20 @@ public class CacheManager {
         @Override
         protected void onProgressUpdate(final Integer... count) {
             //count[0] = tile counter, count[1] = current zoom level
+            //or, at the beginning, count[0] = number of tiles
+            if (count.length == 1) {
+                onStarted(count[0]);
+                return;
+            }
+            final TileIteration iteration = mIteration;
+            final long now = System.nanoTime();
             for (final CacheManagerCallback callback : mCallbacks) {
                 try {
                     callback.updateProgress(count[0], count[1], mZoomMin, mZoomMax);
+                    if (iteration != null && callback instanceof CacheManagerMetricsCallback) {
+                        ((CacheManagerMetricsCallback) callback).updateMetrics(count[0], iteration.getTotal(),
+                                iteration.getTilesPerSecond(now), iteration.getRemainingMillis(now));
+                    }
                 } catch (Throwable t) {
                     logFaultyCallback(t);
                 }
@@ -785,32 +975,307 @@ public class CacheManager {
             }
         }
 
+        /**
+         * As of 6.2.0, the tiles are processed by a pool of threads if the action is a
+         * {@link CacheManagerConcurrentAction}, and the progress is saved in the journal if any.
+         * The number of tiles is computed here once, off the UI thread.
+         */
         @Override
         protected Integer doInBackground(Object... params) {
+            final int total = mTiles.size();
+            publishProgress(total);
             if (!mAction.preCheck()) {
                 return 0;
             }
 
-            int tileCounter = 0;
-            int errors = 0;
+            final String key = mJournal == null ? null : getJournalKey(total);
+            final TileIteration iteration;
+            if (key != null && mJournal.load(key)) {
+                iteration = new TileIteration(mTiles, total, mJournal.getProcessed(), mJournal.getErrors());
+            } else {
+                iteration = new TileIteration(mTiles, total, 0, 0);
+            }
+            mIteration = iteration;
+
+            final int threads = mAction instanceof CacheManagerConcurrentAction
+                    ? Math.max(1, ((CacheManagerConcurrentAction) mAction).getMaxConcurrent()) : 1;
+            final List<FutureTask<Void>> tasks = new ArrayList<>();
+            boolean over = false;
+            try {
+                if (threads > 1) {
+                    // the other threads come from the shared download pool
+                    final Executor executor = MapTileExecutors.getInstance().getDownloadExecutor();
+                    for (int i = 1; i < threads; i++) {
+                        final FutureTask<Void> task = new FutureTask<>(new Runnable() {
+                            @Override
+                            public void run() {
+                                processTiles(iteration, key);
+                            }
+                        }, null);
+                        executor.execute(task);
+                        tasks.add(task);
+                    }
+                }
+                processTiles(iteration, key);
+                for (final FutureTask<Void> task : tasks) {
+                    task.run(); // no effect if already started: not waiting for a busy shared pool
+                    try {
+                        task.get();
+                    } catch (InterruptedException e) {
+                        cancel(false);
+                        Thread.currentThread().interrupt();
+                        break;
+                    } catch (ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        throw new RuntimeException(cause);
+                    }
+                }
+                over = !isCancelled();
+            } finally {
+                iteration.abort(); // in case of exception: the other threads stop too
+                for (final FutureTask<Void> task : tasks) {
+                    task.run(); // if not started yet: returns at once, as aborted
+                    try { // their last tiles are part of the final checkpoint
+                        task.get(TERMINATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    } catch (ExecutionException e) {
+                        // already thrown above
+                    } catch (TimeoutException e) {
+                        Log.w(IMapView.LOGTAG, "Cache manager thread still busy, its current tile is not part of the checkpoint");
+                    }
+                }
+                if (key != null) {
+                    synchronized (mJournal) {
+                        if (over) {
+                            mJournal.delete();
+                        } else {
+                            saveCheckpoint(iteration, key);
+                        }
+                    }
+                }
+            }
+            return iteration.getErrors();
+        }
 
-            for (final long tile : mTiles) {
-                final int zoom = MapTileIndex.getZoom(tile);
+        /**
+         * Processes tiles until there are no more tiles or the task is cancelled
+         *
+         * @since 6.2.0
+         */
+        private void processTiles(final TileIteration pIteration, final String pKey) {
+            final long[] tile = new long[1];
+            final int progressModulo = Math.max(1, mAction.getProgressModulo());
+            int rank;
+            while (!isCancelled() && (rank = pIteration.next(tile)) != -1) {
+                final int zoom = MapTileIndex.getZoom(tile[0]);
+                boolean error = false;
                 if (zoom >= mZoomMin && zoom <= mZoomMax) {
-                    if (mAction.tileAction(tile)) {
-                        errors++;
-                    }
+                    error = mAction.tileAction(tile[0]);
                 }
-                tileCounter++;
-                if (tileCounter % mAction.getProgressModulo() == 0) {
-                    if (isCancelled()) {
-                        return errors;
+                final int processed = pIteration.done(rank, error);
+                if (processed % progressModulo == 0) {
+                    publishProgress(processed, zoom);
+                    if (pKey != null && pIteration.isCheckpointDue()) {
+                        synchronized (mJournal) {
+                            saveCheckpoint(pIteration, pKey);
+                        }
                     }
-                    publishProgress(tileCounter, MapTileIndex.getZoom(tile));
                 }
+            }
+        }
+
+        /**
+         * To be called with the journal lock
+         *
+         * @since 6.2.0
+         */
+        private void saveCheckpoint(final TileIteration pIteration, final String pKey) {
+            final int[] checkpoint = pIteration.getCheckpointAndErrors();
+            mJournal.save(pKey, checkpoint[0], checkpoint[1]);
+        }
+
+        /**
+         * @return the identity of the job, to be checked against the journal
+         * @since 6.2.0
+         */
+        private String getJournalKey(final int pTotal) {
+            long hash = 0;
+            final MapTileIndexIterator iterator = TileIteration.getTileIndexIterator(mTiles);
+            while (iterator.hasNext()) {
+                hash = 31 * hash + iterator.next();
+            }
+            return mManager.mTileSource.name() + "/" + mZoomMin + "-" + mZoomMax
+                    + "/" + pTotal + "/" + Long.toHexString(hash);
+        }
+    }
+
+    /**
+     * Tile sequence shared by the threads of a {@link CacheManagerTask}, with its progress.
+     * As the tiles are completed in any order, the checkpoint is the number of tiles
+     * of the longest fully completed prefix of the sequence.
+     *
+     * @since 6.2.0
+     */
+    static class TileIteration {
+
+        private static final long CHECKPOINT_INTERVAL_NANOS = 2000 * 1000000L;
+
+        private final MapTileIndexIterator mIterator;
+        private final int mTotal;
+        private final int mInitialCheckpoint;
+        private final BitSet mDone = new BitSet(); // relative to the initial checkpoint
+        private final BitSet mFailed = new BitSet(); // relative to the initial checkpoint
+        private final long mStartNanos = System.nanoTime();
+        private int mNext;
+        private int mCheckpoint;
+        private int mProcessed;
+        private int mErrors;
+        private int mCheckpointErrors;
+        private long mLastCheckpointNanos = mStartNanos;
+        private boolean mAborted;
+
+        TileIteration(final IterableWithSize<Long> pTiles, final int pCheckpoint, final int pErrors) {
+            this(pTiles, pTiles.size(), pCheckpoint, pErrors);
+        }
+
+        /**
+         * @param pTotal the size of the tiles, if already known
+         */
+        TileIteration(final IterableWithSize<Long> pTiles, final int pTotal, final int pCheckpoint, final int pErrors) {
+            mIterator = getTileIndexIterator(pTiles);
+            mTotal = pTotal;
+            mInitialCheckpoint = pCheckpoint;
+            mCheckpoint = pCheckpoint;
+            mProcessed = pCheckpoint;
+            mErrors = pErrors;
+            mCheckpointErrors = pErrors;
+            while (mNext < pCheckpoint && mIterator.hasNext()) { // already done
+                mIterator.next();
+                mNext++;
+            }
+        }
+
+        private static MapTileIndexIterator getTileIndexIterator(final IterableWithSize<Long> pTiles) {
+            if (pTiles instanceof MapTileIndexIterable) {
+                return ((MapTileIndexIterable) pTiles).tileIndexIterator();
+            }
+            final Iterator<Long> iterator = pTiles.iterator();
+            return new MapTileIndexIterator() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public long next() {
+                    return iterator.next();
+                }
+            };
+        }
+
+        /**
+         * @param pTile where the next tile is returned
+         * @return the rank of the next tile in the sequence, or -1 if there is no more tile
+         */
+        synchronized int next(final long[] pTile) {
+            if (mAborted || !mIterator.hasNext()) {
+                return -1;
+            }
+            pTile[0] = mIterator.next();
+            return mNext++;
+        }
+
+        /**
+         * @return the number of tiles processed so far
+         */
+        synchronized int done(final int pRank, final boolean pError) {
+            if (pError) {
+                mErrors++;
+                mFailed.set(pRank - mInitialCheckpoint);
+            }
+            mDone.set(pRank - mInitialCheckpoint);
+            final int previous = mCheckpoint - mInitialCheckpoint;
+            final int checkpoint = mDone.nextClearBit(previous);
+            if (checkpoint > previous) {
+                mCheckpointErrors += mFailed.get(previous, checkpoint).cardinality();
+                mCheckpoint = mInitialCheckpoint + checkpoint;
+            }
+            return ++mProcessed;
+        }
+
+        /**
+         * No more tile from now on
+         */
+        synchronized void abort() {
+            mAborted = true;
+        }
+
+        int getTotal() {
+            return mTotal;
+        }
+
+        synchronized int getCheckpoint() {
+            return mCheckpoint;
+        }
+
+        /**
+         * @return the number of errors, including those of tiles beyond the checkpoint
+         */
+        synchronized int getErrors() {
+            return mErrors;
+        }
+
+        /**
+         * @return the number of errors up to the checkpoint, the tiles beyond being processed again when resumed
+         */
+        synchronized int getCheckpointErrors() {
+            return mCheckpointErrors;
+        }
+
+        /**
+         * @return the checkpoint and the number of errors up to it, consistent with each other
+         */
+        synchronized int[] getCheckpointAndErrors() {
+            return new int[]{mCheckpoint, mCheckpointErrors};
+        }
+
+        /**
+         * @return true if the last checkpoint is old enough, assuming the caller is about to save it
+         */
+        synchronized boolean isCheckpointDue() {
+            final long now = System.nanoTime();
+            if (now - mLastCheckpointNanos < CHECKPOINT_INTERVAL_NANOS) {
+                return false;
+            }
+            mLastCheckpointNanos = now;
+            return true;
+        }
+
+        /**
+         * @return the number of tiles processed per second by this run
+         */
+        synchronized double getTilesPerSecond(final long pNowNanos) {
+            final long elapsed = pNowNanos - mStartNanos;
+            if (elapsed <= 0) {
+                return 0;
+            }
+            return (mProcessed - mInitialCheckpoint) * 1e9 / elapsed;
+        }
 
+        /**
+         * @return the estimated remaining time in milliseconds, or -1 if unknown
+         */
+        synchronized long getRemainingMillis(final long pNowNanos) {
+            final double tilesPerSecond = getTilesPerSecond(pNowNanos);
+            if (tilesPerSecond <= 0) {
+                return -1;
             }
-            return errors;
+            return (long) (Math.max(0, mTotal - mProcessed) * 1000 / tilesPerSecond);
         }
     }
 
@@ -875,6 +1340,109 @@ public class CacheManager {
         boolean tileAction(final long pMapTileIndex);
     }
 
+    /**
+     * Action that can be performed on several tiles at the same time, by a pool of threads
+     *
+     * @since 6.2.0
+     */
+    public interface CacheManagerConcurrentAction extends CacheManagerAction {
+
+        /**
+         * @return the number of threads performing the action
+         */
+        int getMaxConcurrent();
+    }
+
+    /**
+     * Tiles covered by a list of points, computed once, one zoom level at a time, and shared by
+     * the size, the journal key and the iteration
+     *
+     * @since 6.2.0
+     */
+    private static class GeoPointsCoverage implements MapTileIndexIterable {
+
+        private final ArrayList<GeoPoint> mGeoPoints;
+        private final int mZoomMin;
+        private final int mZoomMax;
+        private long[][] mTiles; // by zoom level, computed once
+
+        private GeoPointsCoverage(final ArrayList<GeoPoint> pGeoPoints, final int pZoomMin, final int pZoomMax) {
+            mGeoPoints = new ArrayList<>(pGeoPoints);
+            mZoomMin = pZoomMin;
+            mZoomMax = pZoomMax;
+        }
+
+        private synchronized long[][] getTiles() {
+            if (mTiles == null) {
+                final long[][] tiles = new long[Math.max(0, mZoomMax - mZoomMin + 1)][];
+                for (int i = 0; i < tiles.length; i++) {
+                    tiles[i] = getTilesCoverageArray(mGeoPoints, mZoomMin + i);
+                }
+                mTiles = tiles;
+            }
+            return mTiles;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (final long[] tiles : getTiles()) {
+                size += tiles.length;
+            }
+            return size;
+        }
+
+        @Override
+        public MapTileIndexIterator tileIndexIterator() {
+            final long[][] tiles = getTiles();
+            return new MapTileIndexIterator() {
+
+                private int mZoomIndex = -1;
+                private long[] mTiles = new long[0];
+                private int mIndex;
+
+                @Override
+                public boolean hasNext() {
+                    while (mIndex >= mTiles.length) {
+                        if (mZoomIndex + 1 >= tiles.length) {
+                            return false;
+                        }
+                        mTiles = tiles[++mZoomIndex];
+                        mIndex = 0;
+                    }
+                    return true;
+                }
+
+                @Override
+                public long next() {
+                    hasNext(); // moving to the next zoom level if needed
+                    return mTiles[mIndex++];
+                }
+            };
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            final MapTileIndexIterator iterator = tileIndexIterator();
+            return new Iterator<Long>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Long next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
     private static class ListWrapper<T> implements IterableWithSize<T> {
         private final List<T> list;
 
@@ -893,8 +1461,24 @@ public class CacheManager {
         }
     }
 
+    /**
+     * As of 6.2.0, tiles are downloaded by {@link org.osmdroid.config.IConfigurationProvider#getCacheManagerThreads()} threads,
+     * capped by the tile source policy
+     */
     public CacheManagerAction getDownloadingAction(Context pCtx) {
-        return new CacheManagerAction() {
+        return new CacheManagerConcurrentAction() {
+            @Override
+            public int getMaxConcurrent() {
+                final int threads = Configuration.getInstance().getCacheManagerThreads();
+                if (mTileSource instanceof OnlineTileSourceBase) {
+                    final int policyMax = ((OnlineTileSourceBase) mTileSource).getTileSourcePolicy().getMaxConcurrent();
+                    if (policyMax > 0) {
+                        return Math.min(threads, policyMax);
+                    }
+                }
+                return threads;
+            }
+
             @Override
             public boolean preCheck() {
                 if (mTileSource instanceof OnlineTileSourceBase) {
@@ -966,6 +1550,20 @@ public class CacheManager {
         return cleanAreaAsync(ctx, extendedBounds, zoomMin, zoomMax);
     }
 
+    /**
+     * Remove all cached tiles along the route, within the buffer distance,
+     * instead of the whole extended bounding box of the route.
+     *
+     * @param pBufferMeters distance from the route to be covered on both sides
+     * @since 6.2.0
+     */
+    public CacheManagerTask cleanAreaAsync(final Context ctx, ArrayList<GeoPoint> geoPoints, int zoomMin, int zoomMax,
+                                           final double pBufferMeters) {
+        final CacheManagerTask task = new CacheManagerTask(this, getCleaningAction(), geoPoints, zoomMin, zoomMax, pBufferMeters);
+        task.addCallback(getCleaningDialog(ctx, task));
+        return execute(task);
+    }
+
     /**
      * Remove all cached tiles in the specified area.
      */
@@ -0,0 +1,122 @@
+package org.osmdroid.tileprovider.cachemanager;
+
+import android.util.Log;
+
+import org.osmdroid.api.IMapView;
+import org.osmdroid.tileprovider.util.StreamUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Persisted progress of a {@link CacheManager.CacheManagerTask}, so that a job interrupted
+ * (cancelled, or the app being killed) resumes where it stopped when it's executed again.
+ * <p>
+ * The journal stores the key of the job - what tiles, for what tile source - and the number
+ * of tiles processed from the beginning of the tile sequence: when the key doesn't match,
+ * the journal is ignored and the job starts from scratch.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class CacheManagerJournal {
+
+    private final File mFile;
+    private int mProcessed;
+    private int mErrors;
+
+    public CacheManagerJournal(final File pFile) {
+        mFile = pFile;
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * @return the number of tiles already processed, as read by {@link #load(String)}
+     */
+    public int getProcessed() {
+        return mProcessed;
+    }
+
+    /**
+     * @return the number of errors so far, as read by {@link #load(String)}
+     */
+    public int getErrors() {
+        return mErrors;
+    }
+
+    /**
+     * @return true if there is a journal for this job
+     */
+    public boolean load(final String pKey) {
+        mProcessed = 0;
+        mErrors = 0;
+        if (!mFile.exists()) {
+            return false;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mFile), "UTF-8"));
+            if (!pKey.equals(reader.readLine())) {
+                return false;
+            }
+            final int processed = Integer.parseInt(reader.readLine());
+            final int errors = Integer.parseInt(reader.readLine());
+            mProcessed = processed;
+            mErrors = errors;
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            Log.w(IMapView.LOGTAG, "Unable to read the cache manager journal " + mFile, e);
+            return false;
+        } finally {
+            StreamUtils.closeStream(reader);
+        }
+    }
+
+    /**
+     * Checkpoint: written in a temporary file first, so that a crash never leaves a corrupt journal
+     */
+    public void save(final String pKey, final int pProcessed, final int pErrors) {
+        final File parent = mFile.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        final File temp = new File(mFile.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+            writer.write(pKey + "\n" + pProcessed + "\n" + pErrors + "\n");
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(mFile)) {
+                mFile.delete();
+                if (!temp.renameTo(mFile)) {
+                    throw new IOException("Cannot rename " + temp);
+                }
+            }
+            mProcessed = pProcessed;
+            mErrors = pErrors;
+        } catch (final IOException e) {
+            Log.w(IMapView.LOGTAG, "Unable to write the cache manager journal " + mFile, e);
+        } finally {
+            StreamUtils.closeStream(writer);
+        }
+    }
+
+    /**
+     * The job is over
+     */
+    public void delete() {
+        mFile.delete();
+        mProcessed = 0;
+        mErrors = 0;
+    }
+}
@@ -31,6 +31,14 @@ public class OpenStreetMapTileProviderConstants {
      */
     public static final long TILE_EXPIRY_TIME_MILLISECONDS = 1000L * 60 * 60 * 24 * 30;
 
+    /**
+     * expiration time of the tiles rendered on the device, that only change with their source files
+     * or their style, both part of their cache key: that's just for the cache cleanup
+     *
+     * @since 6.2.0
+     */
+    public static final long RENDERED_TILE_EXPIRY_TIME_MILLISECONDS = ONE_YEAR;
+
     /**
      * this is the expected http header to expect from a tile server
      *
@@ -43,6 +51,31 @@ public class OpenStreetMapTileProviderConstants {
      */
     public static final String HTTP_CACHECONTROL_HEADER = "Cache-Control";
 
+    /**
+     * @since 6.2.0
+     */
+    public static final String HTTP_ETAG_HEADER = "ETag";
+
+    /**
+     * @since 6.2.0
+     */
+    public static final String HTTP_LAST_MODIFIED_HEADER = "Last-Modified";
+
+    /**
+     * @since 6.2.0
+     */
+    public static final String HTTP_IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    /**
+     * @since 6.2.0
+     */
+    public static final String HTTP_IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    /**
+     * @since 6.2.0
+     */
+    public static final String HTTP_RETRY_AFTER_HEADER = "Retry-After";
+
     /**
      * this is the default and expected http header for Expires, date time format that is used
      * for more http servers. Can be overridden via Configuration
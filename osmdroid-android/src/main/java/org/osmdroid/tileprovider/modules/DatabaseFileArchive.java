@@ -8,6 +8,7 @@ import android.util.Log;
 import org.osmdroid.api.IMapView;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileIndex;
 
 import java.io.ByteArrayInputStream;
@@ -24,7 +25,7 @@ import java.util.Set;
  *
  * @see SqlTileWriter
  */
-public class DatabaseFileArchive implements IArchiveFile {
+public class DatabaseFileArchive implements IIndexableArchiveFile {
 
     public static final String TABLE = "tiles";
     public static final String COLUMN_PROVIDER = "provider";
@@ -127,6 +128,55 @@ public class DatabaseFileArchive implements IArchiveFile {
         return null;
     }
 
+    /**
+     * The keys of a zoom level are consecutive, sorted by x then y:
+     * we get the x bounds from the smallest and biggest keys of the zoom level.
+     *
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileArea getTileBounds(final int pZoom) {
+        final long first = ((long) pZoom) << (2 * pZoom);
+        final long last = first + (1L << (2 * pZoom)) - 1;
+        final MapTileArea result = new MapTileArea();
+        final long min = getKey("MIN", first, last);
+        if (min == -1) {
+            return result.reset();
+        }
+        final long max = getKey("MAX", first, last);
+        if (max == -1) {
+            return result.reset();
+        }
+        return result.set(pZoom, (int) ((min - first) >> pZoom), 0, (int) ((max - first) >> pZoom), (1 << pZoom) - 1);
+    }
+
+    /**
+     * @return true, as listing the providers would mean reading the whole table
+     * @since 6.2.0
+     */
+    @Override
+    public boolean hasTileSource(final ITileSource pTileSource) {
+        return true;
+    }
+
+    /**
+     * @param pFunction "MIN" or "MAX", each in its own query for the sqlite optimization
+     * @return the smallest or biggest key between pFirst and pLast, or -1 if none
+     * @since 6.2.0
+     */
+    private long getKey(final String pFunction, final long pFirst, final long pLast) {
+        final Cursor cur = mDatabase.rawQuery("SELECT " + pFunction + "(" + COLUMN_KEY + ") FROM " + TABLE
+                + " WHERE " + COLUMN_KEY + " BETWEEN " + pFirst + " AND " + pLast, null);
+        try {
+            if (cur.moveToFirst() && !cur.isNull(0)) {
+                return cur.getLong(0);
+            }
+            return -1;
+        } finally {
+            cur.close();
+        }
+    }
+
     @Override
     public void close() {
         mDatabase.close();
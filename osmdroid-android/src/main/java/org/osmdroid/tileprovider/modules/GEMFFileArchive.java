@@ -3,8 +3,10 @@ package org.osmdroid.tileprovider.modules;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
+import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.util.GEMFFile;
+import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileIndex;
 
 import java.io.File;
@@ -13,7 +15,7 @@ import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
 
-public class GEMFFileArchive implements IArchiveFile {
+public class GEMFFileArchive implements IIndexableArchiveFile {
 
     private GEMFFile mFile;
 
@@ -21,7 +23,7 @@ public class GEMFFileArchive implements IArchiveFile {
     }
 
     private GEMFFileArchive(final File pFile) throws IOException {
-        mFile = new GEMFFile(pFile);
+        mFile = open(pFile);
     }
 
     public static GEMFFileArchive getGEMFFileArchive(final File pFile) throws IOException {
@@ -30,7 +32,14 @@ public class GEMFFileArchive implements IArchiveFile {
 
     @Override
     public void init(File pFile) throws Exception {
-        mFile = new GEMFFile(pFile);
+        mFile = open(pFile);
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private static GEMFFile open(final File pFile) throws IOException {
+        return new GEMFFile(pFile.getAbsolutePath(), Configuration.getInstance().isTileArchiveMemoryMapped());
     }
 
     @Override
@@ -49,6 +58,28 @@ public class GEMFFileArchive implements IArchiveFile {
         return ret;
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileArea getTileBounds(final int pZoom) {
+        final int[] bounds = mFile.getTileBounds(pZoom);
+        final MapTileArea result = new MapTileArea();
+        if (bounds == null) {
+            return result.reset();
+        }
+        return result.set(pZoom, bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
+
+    /**
+     * @return true as the tile source is not checked in {@link #getInputStream(ITileSource, long)}
+     * @since 6.2.0
+     */
+    @Override
+    public boolean hasTileSource(final ITileSource pTileSource) {
+        return true;
+    }
+
     @Override
     public void setIgnoreTileSource(boolean pIgnoreTileSource) {
 
@@ -0,0 +1,139 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Default {@link ITileHttpTransport}, based on {@link HttpURLConnection}.
+ * <p>
+ * {@link HttpURLConnection} keeps a pool of idle connections, that are reused for the next
+ * requests to the same server - but only if the previous body was read until its end and
+ * closed, and if the connection was not disconnected. That's what we do here,
+ * draining (small) error bodies too.
+ * HTTP/1.1 only: for HTTP/2, plug a transport on top of a library that supports it.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class HttpURLConnectionTileTransport implements ITileHttpTransport {
+
+    /**
+     * Above that size we don't drain a body we don't need: we close the connection instead
+     */
+    private static final int MAX_DRAINED_BYTES = 64 * 1024;
+
+    @Override
+    public Response get(final String pUrl, final Map<String, String> pRequestProperties) throws IOException {
+        final URL url = new URL(pUrl);
+        final HttpURLConnection connection;
+        if (Configuration.getInstance().getHttpProxy() != null) {
+            connection = (HttpURLConnection) url.openConnection(Configuration.getInstance().getHttpProxy());
+        } else {
+            connection = (HttpURLConnection) url.openConnection();
+        }
+        connection.setUseCaches(true);
+        for (final Map.Entry<String, String> entry : pRequestProperties.entrySet()) {
+            connection.setRequestProperty(entry.getKey(), entry.getValue());
+        }
+        try {
+            connection.connect();
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        return new ConnectionResponse(connection);
+    }
+
+    private static class ConnectionResponse implements Response {
+
+        private final HttpURLConnection mConnection;
+        private InputStream mBody;
+        private boolean mBodyRequested;
+
+        private ConnectionResponse(final HttpURLConnection pConnection) {
+            mConnection = pConnection;
+        }
+
+        @Override
+        public int getCode() throws IOException {
+            return mConnection.getResponseCode();
+        }
+
+        @Override
+        public String getMessage() throws IOException {
+            return mConnection.getResponseMessage();
+        }
+
+        @Override
+        public String getHeader(final String pName) {
+            return mConnection.getHeaderField(pName);
+        }
+
+        @Override
+        public long getContentLength() {
+            final String value = mConnection.getHeaderField("Content-Length");
+            if (value == null) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (final NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (!mBodyRequested) {
+                mBodyRequested = true;
+                if (mConnection.getResponseCode() >= 400) {
+                    mBody = mConnection.getErrorStream();
+                } else {
+                    mBody = mConnection.getInputStream();
+                }
+            }
+            return mBody;
+        }
+
+        /**
+         * Keeps the connection alive if the body can be read until its end, cheaply
+         */
+        @Override
+        public void close() {
+            boolean reusable = false;
+            try {
+                final InputStream body = getBody();
+                reusable = body == null || drain(body);
+            } catch (final IOException e) {
+                // not reusable
+            } finally {
+                StreamUtils.closeStream(mBody);
+                if (!reusable) {
+                    mConnection.disconnect();
+                }
+            }
+        }
+
+        /**
+         * @return true if the end of the stream was reached
+         */
+        private boolean drain(final InputStream pInputStream) throws IOException {
+            final byte[] buffer = new byte[StreamUtils.IO_BUFFER_SIZE];
+            int drained = 0;
+            while (drained <= MAX_DRAINED_BYTES) {
+                final int read = pInputStream.read(buffer);
+                if (read == -1) {
+                    return true;
+                }
+                drained += read;
+            }
+            return false;
+        }
+    }
+}
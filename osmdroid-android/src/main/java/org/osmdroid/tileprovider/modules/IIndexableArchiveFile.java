@@ -0,0 +1,34 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileArea;
+
+/**
+ * An {@link IArchiveFile} that describes where its tiles are, so that the tile lookups
+ * only go to the archives that may contain the tile, cf. {@link MapTileArchiveIndex}.
+ * <p>
+ * The description may be broader than the actual content (it's only used to skip archives),
+ * but never narrower.
+ * Implementations must also support concurrent calls to
+ * {@link #getInputStream(ITileSource, long)}.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public interface IIndexableArchiveFile extends IArchiveFile {
+
+    /**
+     * Called once per zoom level when the index is built, typically from a tile loading thread.
+     *
+     * @return the bounds of the tiles of that zoom level, all tile sources included,
+     * an empty area if there are none, or null if unknown
+     */
+    MapTileArea getTileBounds(final int pZoom);
+
+    /**
+     * Called once per tile source name, typically from a tile loading thread.
+     *
+     * @return false if the archive has no tile at all for that tile source, true if it may have some
+     */
+    boolean hasTileSource(final ITileSource pTileSource);
+}
@@ -0,0 +1,25 @@
+package org.osmdroid.tileprovider.modules;
+
+/**
+ * Ranks the pending tile requests of a {@link MapTileModuleProviderBase}:
+ * the request with the lowest priority is the next one to be processed.
+ * All the pending requests are ranked in one go while holding the scheduler's monitor:
+ * an implementation that changes its state under that same monitor is never seen halfway.
+ *
+ * @author Fabrice Fontaine
+ * @see MapTileModuleProviderBase#setRequestScheduler(IMapTileRequestScheduler)
+ * @since 6.2.0
+ */
+
+public interface IMapTileRequestScheduler {
+
+    /**
+     * Priority of a request that is not relevant anymore and should be removed from the queue
+     */
+    long CANCEL = Long.MAX_VALUE;
+
+    /**
+     * @return the priority of the tile request (the lower, the sooner), or {@link #CANCEL}
+     */
+    long getPriority(final long pMapTileIndex);
+}
@@ -0,0 +1,40 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+
+import java.io.InputStream;
+
+/**
+ * An {@link IFilesystemCache} that keeps the http validators ("ETag" and "Last-Modified" headers)
+ * of its tiles, so that expired tiles can be revalidated with a conditional request:
+ * if the server answers "304 Not Modified", only the expiration is extended,
+ * instead of downloading and decoding the same tile again.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public interface IRevalidatingFilesystemCache extends IFilesystemCache {
+
+    /**
+     * Saves a tile with its http validators
+     *
+     * @param pETag         value of the "ETag" header, or null
+     * @param pLastModified value of the "Last-Modified" header, or null
+     */
+    boolean saveFile(final ITileSource pTileSource, final long pMapTileIndex,
+                     final InputStream pStream, final Long pExpirationTime,
+                     final String pETag, final String pLastModified);
+
+    /**
+     * @return {ETag, Last-Modified} of the cached tile, each possibly null,
+     * or null if the tile is not cached or has no validator
+     */
+    String[] getHttpValidators(final ITileSource pTileSource, final long pMapTileIndex);
+
+    /**
+     * Sets the new expiration of a tile that was revalidated, without rewriting it
+     *
+     * @return true if the tile was found
+     */
+    boolean extendExpiration(final ITileSource pTileSource, final long pMapTileIndex, final Long pExpirationTime);
+}
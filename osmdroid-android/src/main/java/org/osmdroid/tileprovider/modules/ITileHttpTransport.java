@@ -0,0 +1,56 @@
+package org.osmdroid.tileprovider.modules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * HTTP layer used by {@link TileDownloader}, set with
+ * {@link org.osmdroid.config.IConfigurationProvider#setTileHttpTransport(ITileHttpTransport)}.
+ * <p>
+ * The default implementation, {@link HttpURLConnectionTileTransport}, keeps the connections alive
+ * between tiles of the same server. Plug another implementation (e.g. on top of OkHttp or Cronet)
+ * to get HTTP/2 multiplexing and a connection pool of your own.
+ * Implementations must support concurrent calls.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public interface ITileHttpTransport {
+
+    /**
+     * Sends a GET request. The transport may follow redirects itself; the redirect responses
+     * it returns are followed by {@link TileDownloader}
+     *
+     * @param pRequestProperties http headers of the request
+     * @return the response, to be closed by the caller
+     */
+    Response get(final String pUrl, final Map<String, String> pRequestProperties) throws IOException;
+
+    /**
+     * An HTTP response. Closing it releases the connection for the next requests:
+     * implementations should keep it alive when possible.
+     */
+    interface Response extends Closeable {
+
+        int getCode() throws IOException;
+
+        String getMessage() throws IOException;
+
+        /**
+         * @return the value of the response header, or null
+         */
+        String getHeader(final String pName);
+
+        /**
+         * @return the length of the body in bytes, or -1 if unknown
+         */
+        long getContentLength();
+
+        /**
+         * @return the body, for success and error codes alike, possibly null; closed with the response
+         */
+        InputStream getBody() throws IOException;
+    }
+}
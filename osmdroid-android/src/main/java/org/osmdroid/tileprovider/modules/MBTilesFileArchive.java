@@ -2,18 +2,30 @@ package org.osmdroid.tileprovider.modules;
 
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.util.StreamUtils;
+import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileIndex;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * supports raster imagery in the MBTiles 1.1 spec
@@ -22,10 +34,34 @@ import java.util.Set;
  *
  * @author neilboyd circa 2011
  */
-public class MBTilesFileArchive implements IArchiveFile {
+public class MBTilesFileArchive implements IIndexableArchiveFile {
 
     private SQLiteDatabase mDatabase;
 
+    /**
+     * @since 6.2.0
+     */
+    private int[][] mZoomBounds;
+
+    /**
+     * @since 6.2.0
+     */
+    private boolean mHasTileIndex;
+
+    /**
+     * Idle compiled tile statements: a statement is used by one thread at a time
+     *
+     * @since 6.2.0
+     */
+    private final Queue<SQLiteStatement> mIdleTileStatements = new ConcurrentLinkedQueue<>();
+
+    /**
+     * All the compiled tile statements, to be closed with the database
+     *
+     * @since 6.2.0
+     */
+    private final List<SQLiteStatement> mTileStatements = new ArrayList<>();
+
     public MBTilesFileArchive() {
     }
 
@@ -36,8 +72,28 @@ public class MBTilesFileArchive implements IArchiveFile {
     public final static String COL_TILES_TILE_ROW = "tile_row";
     public final static String COL_TILES_TILE_DATA = "tile_data";
 
+    /**
+     * @since 6.2.0
+     */
+    private final static String SQL_TILE = "SELECT " + COL_TILES_TILE_DATA + " FROM " + TABLE_TILES
+            + " WHERE " + COL_TILES_ZOOM_LEVEL + "=? AND " + COL_TILES_TILE_COLUMN + "=? AND " + COL_TILES_TILE_ROW + "=?";
+
+    /**
+     * Callback for {@link #getTiles(MapTileArea, TileCallback)}
+     *
+     * @since 6.2.0
+     */
+    public interface TileCallback {
+        /**
+         * @param pMapTileIndex the tile, in Google Tiling Spec
+         * @param pData         the tile data, possibly null
+         */
+        void onTile(final long pMapTileIndex, final byte[] pData);
+    }
+
     private MBTilesFileArchive(final SQLiteDatabase pDatabase) {
         mDatabase = pDatabase;
+        checkTileIndex();
     }
 
     public static MBTilesFileArchive getDatabaseFileArchive(final File pFile) throws SQLiteException {
@@ -54,16 +110,42 @@ public class MBTilesFileArchive implements IArchiveFile {
                 pFile.getAbsolutePath(),
                 null,
                 SQLiteDatabase.NO_LOCALIZED_COLLATORS | SQLiteDatabase.OPEN_READONLY);
+        checkTileIndex();
     }
 
     @Override
     public InputStream getInputStream(final ITileSource pTileSource, final long pMapTileIndex) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            SQLiteStatement statement = null;
+            try {
+                statement = getTileStatement();
+                final int zoom = MapTileIndex.getZoom(pMapTileIndex);
+                statement.bindLong(1, zoom);
+                statement.bindLong(2, MapTileIndex.getX(pMapTileIndex));
+                statement.bindLong(3, getRow(zoom, MapTileIndex.getY(pMapTileIndex)));
+                // the blob goes into shared memory, without a 2MB cursor window
+                final ParcelFileDescriptor descriptor = statement.simpleQueryForBlobFileDescriptor();
+                if (descriptor != null) {
+                    // read at once: the tile sources need a stream supporting mark, for the real tile size
+                    return new ByteArrayInputStream(read(descriptor));
+                }
+                // null blob: let the cursor version deal with it
+            } catch (final SQLiteDoneException e) {
+                return null; // no such tile
+            } catch (final Throwable e) {
+                Log.w(IMapView.LOGTAG, "Error getting db stream: " + MapTileIndex.toString(pMapTileIndex), e);
+            } finally {
+                if (statement != null) {
+                    mIdleTileStatements.offer(statement);
+                }
+            }
+        }
         try {
             InputStream ret = null;
             final String[] tile = {COL_TILES_TILE_DATA};
             final String[] xyz = {
                     Integer.toString(MapTileIndex.getX(pMapTileIndex))
-                    , Double.toString(Math.pow(2, MapTileIndex.getZoom(pMapTileIndex)) - MapTileIndex.getY(pMapTileIndex) - 1)  // Use Google Tiling Spec
+                    , Integer.toString(getRow(MapTileIndex.getZoom(pMapTileIndex), MapTileIndex.getY(pMapTileIndex)))
                     , Integer.toString(MapTileIndex.getZoom(pMapTileIndex))
             };
 
@@ -71,7 +153,10 @@ public class MBTilesFileArchive implements IArchiveFile {
 
             if (cur.getCount() != 0) {
                 cur.moveToFirst();
-                ret = new ByteArrayInputStream(cur.getBlob(0));
+                final byte[] data = cur.getBlob(0);
+                if (data != null) {
+                    ret = new ByteArrayInputStream(data);
+                }
             }
             cur.close();
             if (ret != null) {
@@ -84,6 +169,20 @@ public class MBTilesFileArchive implements IArchiveFile {
         return null;
     }
 
+    /**
+     * @since 6.2.0
+     */
+    private static byte[] read(final ParcelFileDescriptor pDescriptor) throws IOException {
+        final InputStream inputStream = new ParcelFileDescriptor.AutoCloseInputStream(pDescriptor);
+        try {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StreamUtils.copy(inputStream, outputStream);
+            return outputStream.toByteArray();
+        } finally {
+            StreamUtils.closeStream(inputStream);
+        }
+    }
+
     public Set<String> getTileSources() {
         //the MBTiles spec doesn't store source information in it, so we can't return anything
         return Collections.EMPTY_SET;
@@ -94,8 +193,185 @@ public class MBTilesFileArchive implements IArchiveFile {
 
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileArea getTileBounds(final int pZoom) {
+        final int[][] zoomBounds = getZoomBounds();
+        final MapTileArea result = new MapTileArea();
+        final int[] bounds = pZoom < zoomBounds.length ? zoomBounds[pZoom] : null;
+        if (bounds == null) {
+            return result.reset();
+        }
+        final int max = (1 << pZoom) - 1; // Use Google Tiling Spec
+        return result.set(pZoom, bounds[0], max - bounds[3], bounds[2], max - bounds[1]);
+    }
+
+    /**
+     * @return true as the tile source is not checked
+     * @since 6.2.0
+     */
+    @Override
+    public boolean hasTileSource(final ITileSource pTileSource) {
+        return true;
+    }
+
+    /**
+     * Min and max columns and rows of each zoom level, in a single scan
+     *
+     * @since 6.2.0
+     */
+    private synchronized int[][] getZoomBounds() {
+        if (mZoomBounds != null) {
+            return mZoomBounds;
+        }
+        final int[][] zoomBounds = new int[MapTileIndex.mMaxZoomLevel + 1][];
+        final Cursor cur = mDatabase.rawQuery("SELECT " + COL_TILES_ZOOM_LEVEL
+                + ", MIN(" + COL_TILES_TILE_COLUMN + "), MIN(" + COL_TILES_TILE_ROW + ")"
+                + ", MAX(" + COL_TILES_TILE_COLUMN + "), MAX(" + COL_TILES_TILE_ROW + ")"
+                + " FROM " + TABLE_TILES + " GROUP BY " + COL_TILES_ZOOM_LEVEL, null);
+        try {
+            while (cur.moveToNext()) {
+                final int zoom = cur.getInt(0);
+                if (zoom >= 0 && zoom < zoomBounds.length) {
+                    zoomBounds[zoom] = new int[]{cur.getInt(1), cur.getInt(2), cur.getInt(3), cur.getInt(4)};
+                }
+            }
+        } finally {
+            cur.close();
+        }
+        mZoomBounds = zoomBounds;
+        return zoomBounds;
+    }
+
+    /**
+     * Reads all the tiles of an area in a single query, e.g. for prefetching
+     *
+     * @return the number of tiles found
+     * @since 6.2.0
+     */
+    public int getTiles(final MapTileArea pArea, final TileCallback pCallback) {
+        if (pArea.size() == 0) {
+            return 0;
+        }
+        final int zoom = pArea.getZoom();
+        final int max = (1 << zoom) - 1;
+        int left = pArea.getLeft();
+        int right = left + pArea.getWidth() - 1;
+        int top = pArea.getTop();
+        int bottom = top + pArea.getHeight() - 1;
+        if (right > max) { // wrapping around the world: we filter afterwards
+            left = 0;
+            right = max;
+        }
+        if (bottom > max) {
+            top = 0;
+            bottom = max;
+        }
+        final String[] args = {
+                Integer.toString(zoom),
+                Integer.toString(left), Integer.toString(right),
+                Integer.toString(getRow(zoom, bottom)), Integer.toString(getRow(zoom, top))
+        };
+        int count = 0;
+        final Cursor cur = mDatabase.rawQuery("SELECT " + COL_TILES_TILE_COLUMN + ", " + COL_TILES_TILE_ROW
+                + ", " + COL_TILES_TILE_DATA + " FROM " + TABLE_TILES
+                + " WHERE " + COL_TILES_ZOOM_LEVEL + "=?"
+                + " AND " + COL_TILES_TILE_COLUMN + " BETWEEN ? AND ?"
+                + " AND " + COL_TILES_TILE_ROW + " BETWEEN ? AND ?", args);
+        try {
+            while (cur.moveToNext()) {
+                final long mapTileIndex = MapTileIndex.getTileIndex(zoom, cur.getInt(0), getRow(zoom, cur.getInt(1)));
+                if (!pArea.contains(mapTileIndex)) {
+                    continue;
+                }
+                pCallback.onTile(mapTileIndex, cur.getBlob(2));
+                count++;
+            }
+        } finally {
+            cur.close();
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the tile lookups use an index, as checked when the database was opened
+     * @since 6.2.0
+     */
+    public boolean hasTileIndex() {
+        return mHasTileIndex;
+    }
+
+    /**
+     * Checks that the tile lookups use an index, typically on (zoom_level, tile_column, tile_row).
+     * We can't create it as the database is opened read-only, but we can complain.
+     * Works for "tiles" views too.
+     *
+     * @since 6.2.0
+     */
+    private void checkTileIndex() {
+        boolean scan = false;
+        try {
+            final Cursor cur = mDatabase.rawQuery("EXPLAIN QUERY PLAN SELECT " + COL_TILES_TILE_DATA
+                    + " FROM " + TABLE_TILES + " WHERE " + COL_TILES_ZOOM_LEVEL + "=0"
+                    + " AND " + COL_TILES_TILE_COLUMN + "=0 AND " + COL_TILES_TILE_ROW + "=0", null);
+            try {
+                final int detail = cur.getColumnCount() - 1;
+                while (cur.moveToNext()) {
+                    final String plan = cur.getString(detail);
+                    if (plan != null && plan.startsWith("SCAN")) {
+                        scan = true;
+                    }
+                }
+            } finally {
+                cur.close();
+            }
+        } catch (final Exception e) {
+            Log.w(IMapView.LOGTAG, "Error checking the tile index of " + this, e);
+            return;
+        }
+        mHasTileIndex = !scan;
+        if (scan) {
+            Log.w(IMapView.LOGTAG, "No tile index in " + this + ", tile reads will be slow; please consider "
+                    + "CREATE UNIQUE INDEX tile_index ON " + TABLE_TILES
+                    + " (" + COL_TILES_ZOOM_LEVEL + ", " + COL_TILES_TILE_COLUMN + ", " + COL_TILES_TILE_ROW + ")");
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private SQLiteStatement getTileStatement() {
+        final SQLiteStatement statement = mIdleTileStatements.poll();
+        if (statement != null) {
+            return statement;
+        }
+        synchronized (mTileStatements) {
+            final SQLiteStatement result = mDatabase.compileStatement(SQL_TILE);
+            mTileStatements.add(result);
+            return result;
+        }
+    }
+
+    /**
+     * Switches between TMS rows and Google Tiling Spec y, both ways
+     *
+     * @since 6.2.0
+     */
+    private static int getRow(final int pZoom, final int pY) {
+        return (1 << pZoom) - 1 - pY;
+    }
+
     @Override
     public void close() {
+        synchronized (mTileStatements) {
+            for (final SQLiteStatement statement : mTileStatements) {
+                statement.close();
+            }
+            mTileStatements.clear();
+            mIdleTileStatements.clear();
+        }
         mDatabase.close();
     }
 
@@ -18,6 +18,7 @@ import org.osmdroid.util.MapTileIndex;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * The MapTileApproximater computes approximation of tiles.
@@ -91,6 +92,16 @@ public class MapTileApproximater extends MapTileModuleProviderBase {
         return new TileLoader();
     }
 
+    /**
+     * Scaling bitmaps is CPU-bound
+     *
+     * @since 6.2.0
+     */
+    @Override
+    protected Executor getExecutor() {
+        return MapTileExecutors.getInstance().getCpuExecutor();
+    }
+
     @Override
     public int getMinimumZoomLevel() {
         return minZoomLevel;
@@ -0,0 +1,191 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.util.Log;
+
+import org.osmdroid.api.IMapView;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileArea;
+import org.osmdroid.util.MapTileIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes the tile lookups to the archives that may contain the tile, instead of asking
+ * each archive in turn.
+ * For each zoom level we keep the tile bounds of each archive,
+ * and for each tile source name the archives that may serve it,
+ * as described by {@link IIndexableArchiveFile}.
+ * Other archives are always considered as possible candidates.
+ * The bounds are computed on the first lookup and not when the index is created,
+ * as it may take a while for big archives; the tile sources on their first lookup.
+ * Then lookups are lock-free.
+ * The candidates are returned in the archive order, that is the priority order.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileArchiveIndex {
+
+    private final List<IArchiveFile> mArchives;
+    private final boolean mIgnoreTileSource;
+    private volatile Zoom[] mZooms;
+    private final ConcurrentHashMap<String, BitSet> mSources = new ConcurrentHashMap<>();
+
+    public MapTileArchiveIndex(final List<IArchiveFile> pArchives, final boolean pIgnoreTileSource) {
+        mArchives = Collections.unmodifiableList(new ArrayList<>(pArchives));
+        mIgnoreTileSource = pIgnoreTileSource;
+    }
+
+    public List<IArchiveFile> getArchives() {
+        return mArchives;
+    }
+
+    /**
+     * @return the archives that may contain the tile, in priority order
+     */
+    public List<IArchiveFile> getCandidates(final ITileSource pTileSource, final long pMapTileIndex) {
+        final Zoom[] zooms = getZooms();
+        final int zoom = MapTileIndex.getZoom(pMapTileIndex);
+        final List<IArchiveFile> result = new ArrayList<>();
+        if (zoom >= zooms.length) {
+            return result;
+        }
+        final BitSet sources = mIgnoreTileSource ? null : getSources(pTileSource);
+        final int x = MapTileIndex.getX(pMapTileIndex);
+        final int y = MapTileIndex.getY(pMapTileIndex);
+        final Zoom entries = zooms[zoom];
+        for (int i = 0; i < entries.mSize; i++) {
+            final int archive = entries.mArchives[i];
+            if (sources != null && !sources.get(archive)) {
+                continue;
+            }
+            if (x < entries.mLeft[i] || x > entries.mRight[i] || y < entries.mTop[i] || y > entries.mBottom[i]) {
+                continue;
+            }
+            result.add(mArchives.get(archive));
+        }
+        return result;
+    }
+
+    /**
+     * @return the archives that may serve tiles for that tile source
+     */
+    private BitSet getSources(final ITileSource pTileSource) {
+        final String name = pTileSource.name();
+        BitSet result = mSources.get(name);
+        if (result != null) {
+            return result;
+        }
+        result = new BitSet();
+        for (int archive = 0; archive < mArchives.size(); archive++) {
+            final IArchiveFile archiveFile = mArchives.get(archive);
+            boolean candidate = true;
+            if (archiveFile instanceof IIndexableArchiveFile) {
+                try {
+                    candidate = ((IIndexableArchiveFile) archiveFile).hasTileSource(pTileSource);
+                } catch (final Exception e) {
+                    Log.w(IMapView.LOGTAG, "Error checking tile source of " + archiveFile, e);
+                }
+            }
+            if (candidate) {
+                result.set(archive);
+            }
+        }
+        final BitSet previous = mSources.putIfAbsent(name, result);
+        return previous != null ? previous : result;
+    }
+
+    private Zoom[] getZooms() {
+        Zoom[] zooms = mZooms;
+        if (zooms == null) {
+            synchronized (this) {
+                zooms = mZooms;
+                if (zooms == null) {
+                    zooms = build();
+                    mZooms = zooms;
+                }
+            }
+        }
+        return zooms;
+    }
+
+    private Zoom[] build() {
+        final int zoomLevels = MapTileIndex.mMaxZoomLevel + 1;
+        final Zoom[] zooms = new Zoom[zoomLevels];
+        for (int zoom = 0; zoom < zoomLevels; zoom++) {
+            zooms[zoom] = new Zoom(mArchives.size());
+        }
+        final MapTileArea area = new MapTileArea();
+        for (int archive = 0; archive < mArchives.size(); archive++) {
+            final IArchiveFile archiveFile = mArchives.get(archive);
+            if (archiveFile == null) {
+                continue;
+            }
+            if (!(archiveFile instanceof IIndexableArchiveFile)) {
+                for (int zoom = 0; zoom < zoomLevels; zoom++) {
+                    zooms[zoom].add(archive, area.set(zoom, 0, 0, (1 << zoom) - 1, (1 << zoom) - 1));
+                }
+                continue;
+            }
+            final IIndexableArchiveFile indexable = (IIndexableArchiveFile) archiveFile;
+            for (int zoom = 0; zoom < zoomLevels; zoom++) {
+                MapTileArea bounds = null;
+                try {
+                    bounds = indexable.getTileBounds(zoom);
+                } catch (final Exception e) {
+                    Log.w(IMapView.LOGTAG, "Error getting tile bounds of " + indexable, e);
+                }
+                if (bounds == null) {
+                    bounds = area.set(zoom, 0, 0, (1 << zoom) - 1, (1 << zoom) - 1);
+                }
+                if (bounds.size() > 0) {
+                    zooms[zoom].add(archive, bounds);
+                }
+            }
+        }
+        return zooms;
+    }
+
+    /**
+     * Archives and their bounds for a zoom level, in archive order
+     */
+    private static class Zoom {
+        private final int[] mArchives;
+        private final int[] mLeft;
+        private final int[] mTop;
+        private final int[] mRight;
+        private final int[] mBottom;
+        private int mSize;
+
+        private Zoom(final int pCapacity) {
+            mArchives = new int[pCapacity];
+            mLeft = new int[pCapacity];
+            mTop = new int[pCapacity];
+            mRight = new int[pCapacity];
+            mBottom = new int[pCapacity];
+        }
+
+        private void add(final int pArchive, final MapTileArea pBounds) {
+            final int max = (1 << pBounds.getZoom()) - 1;
+            mArchives[mSize] = pArchive;
+            mLeft[mSize] = pBounds.getLeft();
+            mTop[mSize] = pBounds.getTop();
+            mRight[mSize] = pBounds.getLeft() + pBounds.getWidth() - 1;
+            mBottom[mSize] = pBounds.getTop() + pBounds.getHeight() - 1;
+            if (mRight[mSize] > max) { // wrapping around the world: let's keep it simple
+                mLeft[mSize] = 0;
+                mRight[mSize] = max;
+            }
+            if (mBottom[mSize] > max) {
+                mTop[mSize] = 0;
+                mBottom[mSize] = max;
+            }
+            mSize++;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.tileprovider.MapTileCache;
+import org.osmdroid.util.MapTileArea;
+import org.osmdroid.util.MapTileAreaList;
+import org.osmdroid.util.MapTileIndex;
+
+/**
+ * Tile request scheduler based on the areas of a {@link MapTileCache}:
+ * * first the tiles currently displayed, from the center of the screen to the corners
+ * * then the neighbouring tiles (borders, zoom +-1, ...), the closest zoom levels first
+ * * the tiles that are neither displayed nor neighbours (e.g. after a fast pan) are cancelled
+ * The areas are modified by the UI thread and read by the tile loading threads:
+ * the scheduler works on copies, refreshed under the scheduler lock with {@link #refresh()}
+ * as soon as the projection changes, cf. {@link MapTileCache#setMapTileArea(int, android.graphics.Rect)}.
+ * The pending requests are ranked - and cancelled - under that same lock, and therefore
+ * never against half-refreshed areas.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileAreaRequestScheduler implements IMapTileRequestScheduler {
+
+    /**
+     * Priority offset for each zoom level of difference with the displayed area,
+     * and for the neighbouring tiles: bigger than any relevant squared distance
+     */
+    private static final long NEIGHBOUR_OFFSET = 1L << 40;
+
+    private final MapTileCache mCache;
+    private final MapTileArea mArea = new MapTileArea();
+    private final MapTileAreaList mAdditionalAreas = new MapTileAreaList();
+
+    public MapTileAreaRequestScheduler(final MapTileCache pCache) {
+        mCache = pCache;
+    }
+
+    /**
+     * Copies the current areas of the cache, in the thread that computes them
+     */
+    public synchronized void refresh() {
+        mArea.set(mCache.getMapTileArea());
+        int index = 0;
+        for (final MapTileArea area : mCache.getAdditionalMapTileList().getList()) {
+            final MapTileArea copy;
+            if (index < mAdditionalAreas.getList().size()) {
+                copy = mAdditionalAreas.getList().get(index);
+            } else {
+                copy = new MapTileArea();
+                mAdditionalAreas.getList().add(copy);
+            }
+            copy.set(area);
+            index++;
+        }
+        while (index < mAdditionalAreas.getList().size()) {
+            mAdditionalAreas.getList().remove(mAdditionalAreas.getList().size() - 1);
+        }
+    }
+
+    @Override
+    public synchronized long getPriority(final long pMapTileIndex) {
+        if (mArea.size() == 0) { // nothing displayed yet: no reason to prefer or cancel anything
+            return 0;
+        }
+        final long distance = Math.min(NEIGHBOUR_OFFSET - 1, getSquaredDistanceToCenter(mArea, pMapTileIndex));
+        if (mArea.contains(pMapTileIndex)) {
+            return distance;
+        }
+        if (mAdditionalAreas.contains(pMapTileIndex)) {
+            final int zoomDelta = Math.abs(MapTileIndex.getZoom(pMapTileIndex) - mArea.getZoom());
+            return (1 + zoomDelta) * NEIGHBOUR_OFFSET + distance;
+        }
+        return CANCEL;
+    }
+
+    /**
+     * @return the squared distance between the tile center and the area center,
+     * in half tiles at the area zoom level, considering that the world wraps around
+     */
+    private long getSquaredDistanceToCenter(final MapTileArea pArea, final long pMapTileIndex) {
+        final int zoomDelta = pArea.getZoom() - MapTileIndex.getZoom(pMapTileIndex);
+        long x = MapTileIndex.getX(pMapTileIndex);
+        long y = MapTileIndex.getY(pMapTileIndex);
+        // tile center in half tiles at the area zoom level
+        if (zoomDelta >= 0) {
+            x = (2 * x + 1) << zoomDelta;
+            y = (2 * y + 1) << zoomDelta;
+        } else {
+            x = (2 * x + 1) >> -zoomDelta;
+            y = (2 * y + 1) >> -zoomDelta;
+        }
+        final long worldSize = 2L << pArea.getZoom();
+        final long dx = getWrappedDelta(x, 2L * pArea.getLeft() + pArea.getWidth(), worldSize);
+        final long dy = getWrappedDelta(y, 2L * pArea.getTop() + pArea.getHeight(), worldSize);
+        return dx * dx + dy * dy;
+    }
+
+    private long getWrappedDelta(final long pValue, final long pCenter, final long pWorldSize) {
+        long delta = Math.abs(pValue - pCenter) % pWorldSize;
+        if (delta > pWorldSize / 2) {
+            delta = pWorldSize - delta;
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,164 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.util.MapTileIndex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tiles read in one query together with the requested tile, for the other pending tiles,
+ * and kept until they are loaded in turn.
+ * The tiles are kept for one table at a time: those read from a previous table are dropped,
+ * even when the query ends after the table change.
+ *
+ * @param <T> type of the tile data
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileBatch<T> {
+
+    private final int mMaxTiles;
+    private final Map<Long, T> mTiles = new HashMap<>();
+    private String mTable;
+
+    /**
+     * @param pMaxTiles max number of tiles kept: beyond that, most of them are likely not pending any more
+     */
+    public MapTileBatch(final int pMaxTiles) {
+        mMaxTiles = pMaxTiles;
+    }
+
+    /**
+     * Sets the table the tiles are read from, dropping the tiles read from another table
+     */
+    public void setTable(final String pTable) {
+        synchronized (mTiles) {
+            if (pTable == null ? mTable != null : !pTable.equals(mTable)) {
+                mTiles.clear();
+            }
+            mTable = pTable;
+        }
+    }
+
+    /**
+     * @return the tile data read by a previous query on that table, removed from the batch,
+     * or null if not read yet
+     */
+    public T remove(final String pTable, final long pMapTileIndex) {
+        synchronized (mTiles) {
+            if (pTable == null || !pTable.equals(mTable)) {
+                return null;
+            }
+            return mTiles.remove(pMapTileIndex);
+        }
+    }
+
+    /**
+     * Keeps the tile data read by a query, unless the table changed meanwhile
+     *
+     * @return true if kept
+     */
+    public boolean putAll(final String pTable, final Map<Long, T> pTiles) {
+        synchronized (mTiles) {
+            if (pTable == null || !pTable.equals(mTable)) {
+                return false;
+            }
+            if (mTiles.size() + pTiles.size() > mMaxTiles) { // most likely tiles no longer pending
+                mTiles.clear();
+            }
+            mTiles.putAll(pTiles);
+            return true;
+        }
+    }
+
+    public int size() {
+        synchronized (mTiles) {
+            return mTiles.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (mTiles) {
+            mTiles.clear();
+        }
+    }
+
+    /**
+     * The rectangle of tiles to be read in one query: the requested tile,
+     * and the other tiles of the same zoom level that keep the rectangle small enough
+     */
+    public static class Window {
+
+        private final int mMaxTiles;
+        private final int mZoom;
+        private int mLeft;
+        private int mTop;
+        private int mRight;
+        private int mBottom;
+        private final Set<Long> mOthers = new HashSet<>();
+
+        public Window(final long pMapTileIndex, final int pMaxTiles) {
+            mMaxTiles = pMaxTiles;
+            mZoom = MapTileIndex.getZoom(pMapTileIndex);
+            mLeft = mRight = MapTileIndex.getX(pMapTileIndex);
+            mTop = mBottom = MapTileIndex.getY(pMapTileIndex);
+        }
+
+        /**
+         * Extends the rectangle to that tile, if on the same zoom level
+         * and if the rectangle does not get bigger than the max number of tiles
+         *
+         * @return true if added
+         */
+        public boolean add(final long pMapTileIndex) {
+            if (MapTileIndex.getZoom(pMapTileIndex) != mZoom) {
+                return false;
+            }
+            final int x = MapTileIndex.getX(pMapTileIndex);
+            final int y = MapTileIndex.getY(pMapTileIndex);
+            final int left = Math.min(mLeft, x);
+            final int top = Math.min(mTop, y);
+            final int right = Math.max(mRight, x);
+            final int bottom = Math.max(mBottom, y);
+            if ((long) (right - left + 1) * (bottom - top + 1) > mMaxTiles) {
+                return false;
+            }
+            mLeft = left;
+            mTop = top;
+            mRight = right;
+            mBottom = bottom;
+            mOthers.add(pMapTileIndex);
+            return true;
+        }
+
+        /**
+         * @return the tiles added, i.e. to be kept in the batch if read
+         */
+        public Set<Long> getOthers() {
+            return mOthers;
+        }
+
+        public int getZoom() {
+            return mZoom;
+        }
+
+        public int getLeft() {
+            return mLeft;
+        }
+
+        public int getTop() {
+            return mTop;
+        }
+
+        public int getRight() {
+            return mRight;
+        }
+
+        public int getBottom() {
+            return mBottom;
+        }
+    }
+}
@@ -11,8 +11,11 @@ import org.osmdroid.tileprovider.MapTileRequestState;
 import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.util.AdaptiveConcurrencyLimiter;
 import org.osmdroid.util.UrlBackoff;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -48,6 +51,36 @@ public class MapTileDownloader extends MapTileModuleProviderBase {
 
     private TileDownloader mTileDownloader = new TileDownloader(); // default value
 
+    /**
+     * When the downloads are deferred for lack of a free slot, they are resumed at the latest after that delay,
+     * or at the end of the pause asked by the server
+     *
+     * @since 6.2.0
+     */
+    private static final long DEFERRED_RETRY_MILLIS = 500;
+
+    /**
+     * Resumes the deferred downloads when a download slot of the tile source is freed
+     *
+     * @since 6.2.0
+     */
+    private final AdaptiveConcurrencyLimiter.Listener mSlotListener = new AdaptiveConcurrencyLimiter.Listener() {
+        @Override
+        public void onRelease() {
+            resumeTileLoaders();
+        }
+    };
+
+    /**
+     * @since 6.2.0
+     */
+    private final Runnable mResume = new Runnable() {
+        @Override
+        public void run() {
+            resumeTileLoaders();
+        }
+    };
+
     // ===========================================================
     // Constructors
     // ===========================================================
@@ -111,8 +144,38 @@ public class MapTileDownloader extends MapTileModuleProviderBase {
         return mTileLoader;
     }
 
+    /**
+     * Downloads have their own thread pool: slow servers don't hold the threads of the disk reads
+     *
+     * @since 6.2.0
+     */
+    @Override
+    protected Executor getExecutor() {
+        return MapTileExecutors.getInstance().getDownloadExecutor();
+    }
+
+    /**
+     * Never more concurrent downloads than what the tile source accepts: its policy,
+     * and the current adaptive limit if enabled
+     *
+     * @since 6.2.0
+     */
+    @Override
+    protected int getMaxConcurrent() {
+        final int max = super.getMaxConcurrent();
+        final OnlineTileSourceBase tileSource = mTileSource.get();
+        if (tileSource == null) {
+            return max;
+        }
+        return Math.min(max, tileSource.getConcurrencyLimiter().getLimit());
+    }
+
     @Override
     public void detach() {
+        final OnlineTileSourceBase tileSource = mTileSource.get();
+        if (tileSource != null) {
+            tileSource.getConcurrencyLimiter().removeListener(mSlotListener);
+        }
         super.detach();
         if (this.mFilesystemCache != null)
             this.mFilesystemCache.onDetach();
@@ -134,11 +197,18 @@ public class MapTileDownloader extends MapTileModuleProviderBase {
     @Override
     public void setTileSource(final ITileSource tileSource) {
         // We are only interested in OnlineTileSourceBase tile sources
+        final OnlineTileSourceBase previous;
         if (tileSource instanceof OnlineTileSourceBase) {
-            mTileSource.set((OnlineTileSourceBase) tileSource);
+            previous = mTileSource.getAndSet((OnlineTileSourceBase) tileSource);
+            if (previous != tileSource) {
+                ((OnlineTileSourceBase) tileSource).getConcurrencyLimiter().addListener(mSlotListener);
+            }
         } else {
             // Otherwise shut down the tile downloader
-            mTileSource.set(null);
+            previous = mTileSource.getAndSet(null);
+        }
+        if (previous != null && previous != tileSource) {
+            previous.getConcurrencyLimiter().removeListener(mSlotListener);
         }
     }
 
@@ -156,10 +226,12 @@ public class MapTileDownloader extends MapTileModuleProviderBase {
             if (tileSource == null) {
                 return null;
             }
-            try {
-                tileSource.acquire();
-            } catch (final InterruptedException e) {
-                return null;
+            // never waiting for a slot, as the download threads are shared by all the map views
+            if (!tileSource.tryAcquire()) {
+                final long pause = tileSource.getConcurrencyLimiter().getPauseMillis();
+                MapTileExecutors.getInstance().getScheduledExecutor().schedule(
+                        mResume, Math.max(pause, DEFERRED_RETRY_MILLIS), TimeUnit.MILLISECONDS);
+                throw new TileLoadDeferredException("No free download slot");
             }
             try {
                 return mTileDownloader.downloadTile(pMapTileIndex, redirectCount, targetUrl, mFilesystemCache, tileSource);
@@ -0,0 +1,119 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.os.Build;
+
+import org.osmdroid.config.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide thread pools shared by all the tile module providers of all the map views,
+ * instead of one thread pool per provider.
+ * Lanes:
+ * * I/O-bound work (disk, database), where threads mostly wait
+ * * downloads, in their own lane so that slow servers never starve the disk reads
+ * * CPU-bound work (decoding, rendering, scaling), sized on the number of cores
+ * * bitmap recycling, short tasks that must not queue behind long rendering loops
+ * * delayed tasks
+ * Each provider still limits its own number of concurrent tasks,
+ * cf. {@link MapTileModuleProviderBase#getMaxConcurrent()}.
+ * Idle threads are released after a while.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileExecutors {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    //singleton: begin
+    private MapTileExecutors() {
+    }
+
+    private static final MapTileExecutors sInstance = new MapTileExecutors();
+
+    public static MapTileExecutors getInstance() {
+        return sInstance;
+    }
+    //singleton: end
+
+    private ThreadPoolExecutor mIoExecutor;
+    private ThreadPoolExecutor mDownloadExecutor;
+    private ThreadPoolExecutor mCpuExecutor;
+    private ThreadPoolExecutor mRecycleExecutor;
+    private ScheduledThreadPoolExecutor mScheduledExecutor;
+
+    /**
+     * Sized on the configured number of file system threads, the first time it is used
+     */
+    public synchronized Executor getIoExecutor() {
+        if (mIoExecutor == null) {
+            final int size = Math.max(2, Configuration.getInstance().getTileFileSystemThreads());
+            mIoExecutor = create(size, Thread.NORM_PRIORITY, "tile-io");
+        }
+        return mIoExecutor;
+    }
+
+    /**
+     * Sized on the configured number of download threads, the first time it is used
+     */
+    public synchronized Executor getDownloadExecutor() {
+        if (mDownloadExecutor == null) {
+            final int size = Math.max(2, Configuration.getInstance().getTileDownloadThreads());
+            mDownloadExecutor = create(size, Thread.NORM_PRIORITY, "tile-download");
+        }
+        return mDownloadExecutor;
+    }
+
+    /**
+     * Sized on the number of cores, with a lower priority than the UI thread
+     */
+    public synchronized Executor getCpuExecutor() {
+        if (mCpuExecutor == null) {
+            final int size = Math.max(1, Runtime.getRuntime().availableProcessors());
+            mCpuExecutor = create(size, Thread.NORM_PRIORITY - 1, "tile-cpu");
+        }
+        return mCpuExecutor;
+    }
+
+    /**
+     * A single thread, for the bitmaps given back to the pool
+     */
+    public synchronized Executor getRecycleExecutor() {
+        if (mRecycleExecutor == null) {
+            mRecycleExecutor = create(1, Thread.NORM_PRIORITY - 1, "tile-recycle");
+        }
+        return mRecycleExecutor;
+    }
+
+    /**
+     * A single thread, for the delayed tasks, e.g. retries; the tasks should be short
+     */
+    public synchronized ScheduledExecutorService getScheduledExecutor() {
+        if (mScheduledExecutor == null) {
+            mScheduledExecutor = new ScheduledThreadPoolExecutor(1,
+                    new ConfigurablePriorityThreadFactory(Thread.NORM_PRIORITY, "tile-scheduler"));
+            mScheduledExecutor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+                mScheduledExecutor.allowCoreThreadTimeOut(true);
+            }
+        }
+        return mScheduledExecutor;
+    }
+
+    private ThreadPoolExecutor create(final int pSize, final int pPriority, final String pName) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(pSize, pSize,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ConfigurablePriorityThreadFactory(pPriority, pName));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+}
@@ -16,6 +16,7 @@ import org.osmdroid.util.MapTileIndex;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -36,7 +37,12 @@ public class MapTileFileArchiveProvider extends MapTileFileStorageProviderBase {
     // Fields
     // ===========================================================
 
-    private final ArrayList<IArchiveFile> mArchiveFiles = new ArrayList<IArchiveFile>();
+    /**
+     * The archives, and where to find a tile in them
+     *
+     * @since 6.2.0
+     */
+    private volatile MapTileArchiveIndex mArchiveIndex;
 
     private final AtomicReference<ITileSource> mTileSource = new AtomicReference<ITileSource>();
 
@@ -80,9 +86,11 @@ public class MapTileFileArchiveProvider extends MapTileFileStorageProviderBase {
             findArchiveFiles();
         } else {
             mSpecificArchivesProvided = true;
+            final List<IArchiveFile> archiveFiles = new ArrayList<IArchiveFile>();
             for (int i = pArchives.length - 1; i >= 0; i--) {
-                mArchiveFiles.add(pArchives[i]);
+                archiveFiles.add(pArchives[i]);
             }
+            mArchiveIndex = new MapTileArchiveIndex(archiveFiles, ignoreTileSource);
         }
 
     }
@@ -159,11 +167,14 @@ public class MapTileFileArchiveProvider extends MapTileFileStorageProviderBase {
     }
 
     private void clearArcives() {
-        while (!mArchiveFiles.isEmpty()) {
-            IArchiveFile t = mArchiveFiles.get(0);
+        final MapTileArchiveIndex archiveIndex = mArchiveIndex;
+        mArchiveIndex = new MapTileArchiveIndex(new ArrayList<IArchiveFile>(), ignoreTileSource);
+        if (archiveIndex == null) {
+            return;
+        }
+        for (final IArchiveFile t : archiveIndex.getArchives()) {
             if (t != null)
                 t.close();
-            mArchiveFiles.remove(0);
         }
     }
 
@@ -175,6 +186,7 @@ public class MapTileFileArchiveProvider extends MapTileFileStorageProviderBase {
         clearArcives();
 
         // path should be optionally configurable
+        final List<IArchiveFile> archiveFiles = new ArrayList<IArchiveFile>();
         File cachePaths = Configuration.getInstance().getOsmdroidBasePath();
         if (cachePaths != null) {
             final File[] files = cachePaths.listFiles();
@@ -183,18 +195,31 @@ public class MapTileFileArchiveProvider extends MapTileFileStorageProviderBase {
                     final IArchiveFile archiveFile = ArchiveFileFactory.getArchiveFile(file);
                     if (archiveFile != null) {
                         archiveFile.setIgnoreTileSource(ignoreTileSource);
-                        mArchiveFiles.add(archiveFile);
+                        archiveFiles.add(archiveFile);
                     }
                 }
             }
         }
+        mArchiveIndex = new MapTileArchiveIndex(archiveFiles, ignoreTileSource);
     }
 
-    private synchronized InputStream getInputStream(final long pMapTileIndex,
-                                                    final ITileSource tileSource) {
-        for (final IArchiveFile archiveFile : mArchiveFiles) {
+    /**
+     * Not synchronized: only the archives that may contain the tile are asked, concurrently,
+     * except for the archives that are not known to be thread-safe
+     * (not {@link IIndexableArchiveFile}), that are asked one thread at a time.
+     */
+    private InputStream getInputStream(final long pMapTileIndex,
+                                       final ITileSource tileSource) {
+        for (final IArchiveFile archiveFile : mArchiveIndex.getCandidates(tileSource, pMapTileIndex)) {
             if (archiveFile != null) {
-                final InputStream in = archiveFile.getInputStream(tileSource, pMapTileIndex);
+                final InputStream in;
+                if (archiveFile instanceof IIndexableArchiveFile) {
+                    in = archiveFile.getInputStream(tileSource, pMapTileIndex);
+                } else {
+                    synchronized (archiveFile) {
+                        in = archiveFile.getInputStream(tileSource, pMapTileIndex);
+                    }
+                }
                 if (in != null) {
                     if (Configuration.getInstance().isDebugMode()) {
                         Log.d(IMapView.LOGTAG, "Found tile " + MapTileIndex.toString(pMapTileIndex) + " in " + archiveFile);
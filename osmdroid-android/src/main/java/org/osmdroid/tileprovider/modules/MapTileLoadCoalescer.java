@@ -0,0 +1,127 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.osmdroid.tileprovider.util.Counters;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * "Single flight" tile loads: when the same tile of the same tile source is requested again
+ * while it is still being loaded (several map views, a minimap, a cache manager...),
+ * the newcomers wait for the pending load and share its result instead of loading it again.
+ * The result is shared, therefore it should be immutable (e.g. the tile bytes) and not a Drawable
+ * that could be recycled by one of the requesters.
+ *
+ * @param <T> type of the load result
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileLoadCoalescer<T> {
+
+    public interface Loader<T> {
+        /**
+         * @return the result of the actual load, or null if failed
+         */
+        T load();
+    }
+
+    private final Map<Key, Flight<T>> mFlights = new HashMap<>();
+
+    /**
+     * @return the result of the load, either done by this call or by a concurrent call
+     * for the same tile, or null if failed or interrupted while waiting
+     */
+    public T load(final String pTileSourceName, final long pMapTileIndex, final Loader<T> pLoader) {
+        final Key key = new Key(pTileSourceName, pMapTileIndex);
+        final Flight<T> flight;
+        final boolean leader;
+        synchronized (mFlights) {
+            final Flight<T> pending = mFlights.get(key);
+            leader = pending == null;
+            if (leader) {
+                flight = new Flight<>(Thread.currentThread());
+                mFlights.put(key, flight);
+            } else {
+                flight = pending;
+            }
+        }
+        return leader ? lead(key, flight, pLoader) : follow(flight);
+    }
+
+    /**
+     * @return the number of loads currently in progress
+     */
+    public int getSize() {
+        synchronized (mFlights) {
+            return mFlights.size();
+        }
+    }
+
+    private T lead(final Key pKey, final Flight<T> pFlight, final Loader<T> pLoader) {
+        try {
+            pFlight.mResult = pLoader.load();
+            return pFlight.mResult;
+        } finally {
+            synchronized (mFlights) {
+                mFlights.remove(pKey);
+            }
+            pFlight.mLatch.countDown();
+        }
+    }
+
+    private T follow(final Flight<T> pFlight) {
+        if (pFlight.mLeader == Thread.currentThread()) { // reentrant call: waiting would never end
+            return null;
+        }
+        Counters.tileLoadsCoalesced++;
+        try {
+            pFlight.mLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return pFlight.mResult;
+    }
+
+    private static class Flight<T> {
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private final Thread mLeader;
+        private T mResult; // published by the latch
+
+        private Flight(final Thread pLeader) {
+            mLeader = pLeader;
+        }
+    }
+
+    private static class Key {
+        private final String mTileSourceName;
+        private final long mMapTileIndex;
+
+        private Key(final String pTileSourceName, final long pMapTileIndex) {
+            mTileSourceName = pTileSourceName;
+            mMapTileIndex = pMapTileIndex;
+        }
+
+        @Override
+        public boolean equals(final Object pOther) {
+            if (this == pOther) {
+                return true;
+            }
+            if (!(pOther instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) pOther;
+            return mMapTileIndex == other.mMapTileIndex
+                    && (mTileSourceName == null
+                    ? other.mTileSourceName == null : mTileSourceName.equals(other.mTileSourceName));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (mTileSourceName == null ? 0 : mTileSourceName.hashCode())
+                    + (int) (mMapTileIndex ^ (mMapTileIndex >>> 32));
+        }
+    }
+}
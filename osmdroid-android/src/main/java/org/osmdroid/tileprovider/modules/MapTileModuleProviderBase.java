@@ -10,13 +10,15 @@ import org.osmdroid.tileprovider.MapTileRequestState;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.util.MapTileIndex;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An abstract base class for modular tile providers
@@ -86,19 +88,39 @@ public abstract class MapTileModuleProviderBase {
      */
     public abstract void setTileSource(ITileSource tileSource);
 
-    private final ExecutorService mExecutor;
+    /**
+     * Maximum number of tile loaders of this provider running at the same time
+     * on the shared {@link MapTileExecutors}
+     *
+     * @since 6.2.0
+     */
+    private final int mThreadPoolSize;
+
+    /**
+     * @since 6.2.0
+     */
+    private final AtomicInteger mRunningLoaders = new AtomicInteger();
+
+    /**
+     * @since 6.2.0
+     */
+    private volatile boolean mDetached;
 
     protected final Object mQueueLockObject = new Object();
     protected final HashMap<Long, MapTileRequestState> mWorking;
     protected final LinkedHashMap<Long, MapTileRequestState> mPending;
 
+    /**
+     * @since 6.2.0
+     */
+    private volatile IMapTileRequestScheduler mRequestScheduler;
+
     public MapTileModuleProviderBase(int pThreadPoolSize, final int pPendingQueueSize) {
         if (pPendingQueueSize < pThreadPoolSize) {
             Log.w(IMapView.LOGTAG, "The pending queue size is smaller than the thread pool size. Automatically reducing the thread pool size.");
             pThreadPoolSize = pPendingQueueSize;
         }
-        mExecutor = Executors.newFixedThreadPool(pThreadPoolSize,
-                new ConfigurablePriorityThreadFactory(Thread.NORM_PRIORITY, getThreadGroupName()));
+        mThreadPoolSize = pThreadPoolSize;
 
         mWorking = new HashMap<>();
         mPending = new LinkedHashMap<Long, MapTileRequestState>(pPendingQueueSize + 2, 0.1f,
@@ -130,9 +152,48 @@ public abstract class MapTileModuleProviderBase {
         };
     }
 
+    /**
+     * Sets the way the pending requests are ranked; without scheduler,
+     * the most recently requested tile is processed first.
+     *
+     * @since 6.2.0
+     */
+    public void setRequestScheduler(final IMapTileRequestScheduler pRequestScheduler) {
+        mRequestScheduler = pRequestScheduler;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    public IMapTileRequestScheduler getRequestScheduler() {
+        return mRequestScheduler;
+    }
+
+    /**
+     * The shared thread pool the tile loaders run on.
+     * I/O-bound by default; providers that mostly compute (decoding, rendering, scaling)
+     * should return {@link MapTileExecutors#getCpuExecutor()},
+     * and the ones that download {@link MapTileExecutors#getDownloadExecutor()}.
+     *
+     * @since 6.2.0
+     */
+    protected Executor getExecutor() {
+        return MapTileExecutors.getInstance().getIoExecutor();
+    }
+
+    /**
+     * Maximum number of tile loaders of this provider running at the same time.
+     * Can be overridden for dynamic limits, e.g. a tile source policy.
+     *
+     * @since 6.2.0
+     */
+    protected int getMaxConcurrent() {
+        return mThreadPoolSize;
+    }
+
     public void loadMapTileAsync(final MapTileRequestState pState) {
         // Make sure we're not detached
-        if (mExecutor.isShutdown())
+        if (mDetached)
             return;
 
         synchronized (mQueueLockObject) {
@@ -149,13 +210,66 @@ public abstract class MapTileModuleProviderBase {
             // the queue if it's already present
             mPending.put(pState.getMapTile(), pState);
         }
+        startTileLoaderIfNeeded();
+    }
+
+    /**
+     * Submits a new tile loader to the shared thread pool, unless the provider is detached
+     * or already runs as many tile loaders as allowed
+     *
+     * @since 6.2.0
+     */
+    private void startTileLoaderIfNeeded() {
+        while (true) {
+            if (mDetached) {
+                return;
+            }
+            final int running = mRunningLoaders.get();
+            if (running >= Math.max(1, getMaxConcurrent())) {
+                return; // the running loaders will process the pending tile
+            }
+            if (mRunningLoaders.compareAndSet(running, running + 1)) {
+                break;
+            }
+        }
         try {
-            mExecutor.execute(getTileLoader());
+            getExecutor().execute(getTileLoader());
         } catch (final RejectedExecutionException e) {
+            mRunningLoaders.decrementAndGet();
             Log.w(IMapView.LOGTAG, "RejectedExecutionException", e);
         }
     }
 
+    /**
+     * Called by a tile loader that stops: a tile may have been queued in the meantime
+     *
+     * @param pDeferred true if stopped by a {@link TileLoadDeferredException}:
+     *                  then the tile loaders are only started again by {@link #resumeTileLoaders()}
+     * @since 6.2.0
+     */
+    private void onTileLoaderDone(final boolean pDeferred) {
+        mRunningLoaders.decrementAndGet();
+        if (!pDeferred) {
+            resumeTileLoaders();
+        }
+    }
+
+    /**
+     * Starts a tile loader if tiles are pending, typically when the reason of a
+     * {@link TileLoadDeferredException} is gone
+     *
+     * @since 6.2.0
+     */
+    protected void resumeTileLoaders() {
+        final boolean pending;
+        synchronized (mQueueLockObject) {
+            pending = mPending.size() > mWorking.size();
+        }
+        if (pending) {
+            startTileLoaderIfNeeded();
+        }
+    }
+
     private void clearQueue() {
         synchronized (mQueueLockObject) {
             mPending.clear();
@@ -167,9 +281,31 @@ public abstract class MapTileModuleProviderBase {
      * Detach, we're shutting down - Stops all workers.
      */
     public void detach() {
+        mDetached = true;
         this.clearQueue();
-        this.mExecutor.shutdown();
+    }
 
+    /**
+     * Drops the requests not being processed yet, e.g. when they would be loaded from outdated data.
+     * The requesters are told, so that the tiles can be requested again.
+     *
+     * @since 6.2.0
+     */
+    protected void clearPendingQueue() {
+        final List<MapTileRequestState> dropped = new ArrayList<>();
+        synchronized (mQueueLockObject) {
+            final Iterator<Map.Entry<Long, MapTileRequestState>> iterator = mPending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, MapTileRequestState> entry = iterator.next();
+                if (!mWorking.containsKey(entry.getKey())) {
+                    dropped.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        for (final MapTileRequestState state : dropped) {
+            state.getCallback().mapTileRequestFailedExceedsMaxQueueSize(state);
+        }
     }
 
     protected void removeTileFromQueues(final long pMapTileIndex) {
@@ -228,6 +364,10 @@ public abstract class MapTileModuleProviderBase {
         }
 
         protected MapTileRequestState nextTile() {
+            final IMapTileRequestScheduler scheduler = mRequestScheduler;
+            if (scheduler != null) {
+                return nextScheduledTile(scheduler);
+            }
 
             synchronized (mQueueLockObject) {
                 Long result = null;
@@ -261,6 +401,63 @@ public abstract class MapTileModuleProviderBase {
             }
         }
 
+        /**
+         * Gets the pending tile with the best priority, and cancels the irrelevant ones.
+         * Priorities are computed again each time, as they depend on a moving viewport,
+         * which is affordable as the pending queue is bounded.
+         * They are all computed under the scheduler lock, against the same state of the scheduler.
+         *
+         * @since 6.2.0
+         */
+        private MapTileRequestState nextScheduledTile(final IMapTileRequestScheduler pScheduler) {
+            MapTileRequestState result = null;
+            List<MapTileRequestState> cancelled = null;
+            synchronized (mQueueLockObject) {
+                long best = IMapTileRequestScheduler.CANCEL;
+                final Iterator<Map.Entry<Long, MapTileRequestState>> iterator = mPending.entrySet().iterator();
+                synchronized (pScheduler) {
+                    while (iterator.hasNext()) {
+                        final Map.Entry<Long, MapTileRequestState> entry = iterator.next();
+                        final long mapTileIndex = entry.getKey();
+                        if (mWorking.containsKey(mapTileIndex)) {
+                            continue;
+                        }
+                        final long priority = pScheduler.getPriority(mapTileIndex);
+                        if (priority == IMapTileRequestScheduler.CANCEL) {
+                            iterator.remove();
+                            if (cancelled == null) {
+                                cancelled = new ArrayList<>();
+                            }
+                            cancelled.add(entry.getValue());
+                            continue;
+                        }
+                        if (priority <= best) { // "<=": for the same priority, the most recently accessed
+                            best = priority;
+                            result = entry.getValue();
+                        }
+                    }
+                }
+                if (result != null) {
+                    if (Configuration.getInstance().isDebugTileProviders()) {
+                        Log.d(IMapView.LOGTAG, "TileLoader.nextScheduledTile() on provider: " + getName()
+                                + " adding tile to working queue: " + MapTileIndex.toString(result.getMapTile())
+                                + " with priority " + best);
+                    }
+                    mWorking.put(result.getMapTile(), result);
+                }
+            }
+            if (cancelled != null) { // outside of the lock, as the callbacks use their own locks
+                for (final MapTileRequestState state : cancelled) {
+                    if (Configuration.getInstance().isDebugTileProviders()) {
+                        Log.d(IMapView.LOGTAG, "TileLoader.nextScheduledTile() on provider: " + getName()
+                                + " cancelling tile: " + MapTileIndex.toString(state.getMapTile()));
+                    }
+                    state.getCallback().mapTileRequestFailedExceedsMaxQueueSize(state);
+                }
+            }
+            return result;
+        }
+
         /**
          * A tile has loaded.
          */
@@ -313,7 +510,23 @@ public abstract class MapTileModuleProviderBase {
          */
         @Override
         final public void run() {
+            // the threads are shared between providers: naming them for the time being helps debugging
+            final Thread thread = Thread.currentThread();
+            final String threadName = thread.getName();
+            thread.setName(getThreadGroupName());
+            boolean deferred = false;
+            try {
+                deferred = runTileLoader();
+            } finally {
+                thread.setName(threadName);
+                onTileLoaderDone(deferred);
+            }
+        }
 
+        /**
+         * @return true if stopped by a {@link TileLoadDeferredException}
+         */
+        private boolean runTileLoader() {
             onTileLoaderInit();
 
             MapTileRequestState state;
@@ -329,6 +542,12 @@ public abstract class MapTileModuleProviderBase {
                 try {
                     result = null;
                     result = loadTileIfReachable(state.getMapTile());
+                } catch (final TileLoadDeferredException e) {
+                    synchronized (mQueueLockObject) { // back to the pending queue
+                        mWorking.remove(state.getMapTile());
+                    }
+                    onTileLoaderShutdown();
+                    return true;
                 } catch (final CantContinueException e) {
                     Log.i(IMapView.LOGTAG, "Tile loader can't continue: " + MapTileIndex.toString(state.getMapTile()), e);
                     clearQueue();
@@ -348,6 +567,7 @@ public abstract class MapTileModuleProviderBase {
             }
 
             onTileLoaderShutdown();
+            return false;
         }
     }
 }
@@ -0,0 +1,128 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.osmdroid.api.IMapView;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.ExpirableBitmapDrawable;
+import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
+import org.osmdroid.tileprovider.tilesource.BitmapTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.util.Counters;
+import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.util.TileSystem;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the tiles rendered on the device (e.g. MapsForge, GeoPackage features) from the file-system
+ * cache, on the I/O threads, so that the rendering threads only render.
+ * To be put just before the rendering module provider: if the tile is not there, the renderer gets it.
+ * The tiles are read under a cache tile source that changes with what the rendering depends on,
+ * and that is therefore not the map tile source.
+ *
+ * @author Fabrice Fontaine
+ * @see org.osmdroid.tileprovider.util.RenderedTileUtils
+ * @since 6.2.0
+ */
+public class MapTileRenderedCacheProvider extends MapTileModuleProviderBase {
+
+    private final IFilesystemCache mTileWriter;
+    private final AtomicReference<ITileSource> mCacheTileSource = new AtomicReference<>();
+
+    /**
+     * @param pTileWriter      the file-system cache the renderer saves its tiles to; not detached by this class
+     * @param pCacheTileSource the cache key of the rendered tiles, or null for no file-system cache
+     */
+    public MapTileRenderedCacheProvider(final IFilesystemCache pTileWriter, final ITileSource pCacheTileSource) {
+        super(Configuration.getInstance().getTileFileSystemThreads(),
+                Configuration.getInstance().getTileFileSystemMaxQueueSize());
+        mTileWriter = pTileWriter;
+        mCacheTileSource.set(pCacheTileSource);
+    }
+
+    /**
+     * @param pCacheTileSource the cache key of the rendered tiles, or null for no file-system cache
+     */
+    public void setCacheTileSource(final ITileSource pCacheTileSource) {
+        mCacheTileSource.set(pCacheTileSource);
+    }
+
+    /**
+     * To be overridden when the cache tile source is better read where it's kept up to date
+     *
+     * @return the cache key of the rendered tiles, or null for no file-system cache
+     */
+    public ITileSource getCacheTileSource() {
+        return mCacheTileSource.get();
+    }
+
+    @Override
+    public boolean getUsesDataConnection() {
+        return false;
+    }
+
+    @Override
+    protected String getName() {
+        return "Rendered Tile Cache Provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "renderedtilecache";
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader();
+    }
+
+    @Override
+    public int getMinimumZoomLevel() {
+        final ITileSource tileSource = getCacheTileSource();
+        return tileSource != null ? tileSource.getMinimumZoomLevel() : OpenStreetMapTileProviderConstants.MINIMUM_ZOOMLEVEL;
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
+        final ITileSource tileSource = getCacheTileSource();
+        return tileSource != null ? tileSource.getMaximumZoomLevel() : TileSystem.getMaximumZoomLevel();
+    }
+
+    @Override
+    public void setTileSource(final ITileSource pTileSource) {
+        // not the map tile source: the cache tile source is set with setCacheTileSource()
+    }
+
+    protected class TileLoader extends MapTileModuleProviderBase.TileLoader {
+
+        @Override
+        public Drawable loadTile(final long pMapTileIndex) throws CantContinueException {
+            final ITileSource tileSource = getCacheTileSource();
+            if (tileSource == null || mTileWriter == null) {
+                return null;
+            }
+            try {
+                final Drawable result = mTileWriter.loadTile(tileSource, pMapTileIndex);
+                if (result == null || ExpirableBitmapDrawable.getState(result) == ExpirableBitmapDrawable.EXPIRED) {
+                    Counters.fileCacheMiss++;
+                    return null; // to be rendered
+                }
+                if (getCacheTileSource() != tileSource) { // stale: the rendering changed meanwhile
+                    return null;
+                }
+                Counters.fileCacheHit++;
+                return result;
+            } catch (final BitmapTileSourceBase.LowMemoryException e) {
+                // low memory so empty the queue
+                Log.w(IMapView.LOGTAG, "LowMemoryException loading rendered MapTile: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
+                Counters.fileCacheOOM++;
+                throw new CantContinueException(e);
+            } catch (final Throwable e) {
+                Log.e(IMapView.LOGTAG, "Error loading rendered tile from cache", e);
+                return null;
+            }
+        }
+    }
+}
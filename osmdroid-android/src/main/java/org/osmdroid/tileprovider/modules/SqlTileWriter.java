@@ -7,6 +7,7 @@ import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteFullException;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
@@ -28,7 +29,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.osmdroid.tileprovider.modules.DatabaseFileArchive.COLUMN_KEY;
 import static org.osmdroid.tileprovider.modules.DatabaseFileArchive.COLUMN_PROVIDER;
@@ -42,17 +48,38 @@ import static org.osmdroid.tileprovider.modules.DatabaseFileArchive.TABLE;
  * <p>
  * If the database exceeds {@link Configuration#getInstance()#getTileFileSystemCacheTrimBytes()}
  * cache exceeds 600 Mb then it will be trimmed to 500 Mb by deleting files that expire first.
+ * <p>
+ * As of 6.2.0, saved tiles are written in batches, in one transaction per
+ * {@link Configuration#getInstance()#getTileWriteBatchSize()} tiles or after
+ * {@link Configuration#getInstance()#getTileWriteBatchDelayInMillis()}, whichever comes first.
+ * Tiles waiting to be written are already visible to the read methods.
  *
  * @author Alex O'Ree
  * @see DatabaseFileArchive
  * @see SqliteArchiveTileWriter
  * @since 5.1
  */
-public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
+public class SqlTileWriter implements IRevalidatingFilesystemCache, SplashScreenable {
     public static final String DATABASE_FILENAME = "cache.db";
     public static final String COLUMN_EXPIRES = "expires";
     public static final String COLUMN_EXPIRES_INDEX = "expires_index";
 
+    /**
+     * http validators of the tile, for conditional requests
+     *
+     * @since 6.2.0
+     */
+    public static final String COLUMN_ETAG = "etag";
+    public static final String COLUMN_LAST_MODIFIED = "last_modified";
+
+    /**
+     * Single-row table containing the total size of the tiles, maintained by triggers
+     *
+     * @since 6.2.0
+     */
+    public static final String TABLE_SIZE = "tiles_size";
+    public static final String COLUMN_BYTES = "bytes";
+
     private static boolean cleanOnStartup = true;
 
     /*
@@ -71,6 +98,35 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
     protected static File db_file;
     protected static SQLiteDatabase mDb;
     protected long lastSizeCheck = 0;
+
+    /**
+     * Tiles saved but not written in the database yet, shared as the database is
+     *
+     * @since 6.2.0
+     */
+    private static final Map<String, PendingTile> sPendingTiles = new HashMap<>();
+
+    /**
+     * Only one batch written at the same time
+     *
+     * @since 6.2.0
+     */
+    private static final Object sFlushLock = new Object();
+
+    /**
+     * @since 6.2.0
+     */
+    private static ScheduledExecutorService sFlushScheduler;
+
+    /**
+     * @since 6.2.0
+     */
+    private static boolean sFlushScheduled;
+
+    /**
+     * @since 6.2.0
+     */
+    private static boolean sWriteAheadLogging;
     private final GarbageCollector garbageCollector = new GarbageCollector(new Runnable() {
         @Override
         public void run() {
@@ -111,14 +167,19 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         // index creation is run now (regardless of the table size)
         // therefore potentially on a small table, for better index creation performances
         createIndex(db);
+        createSizeTracking(db);
 
-        final long dbLength = db_file.length();
-        if (dbLength <= Configuration.getInstance().getTileFileSystemCacheMaxBytes()) {
+        // the file length doesn't decrease when tiles are deleted, the running total does
+        long size = getTilesSize();
+        if (size < 0) {
+            size = db_file.length();
+        }
+        if (size <= Configuration.getInstance().getTileFileSystemCacheMaxBytes()) {
             return;
         }
 
         runCleanupOperation(
-                dbLength - Configuration.getInstance().getTileFileSystemCacheTrimBytes(),
+                size - Configuration.getInstance().getTileFileSystemCacheTrimBytes(),
                 Configuration.getInstance().getTileGCBulkSize(),
                 Configuration.getInstance().getTileGCBulkPauseInMillis(),
                 true);
@@ -126,6 +187,15 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
 
     @Override
     public boolean saveFile(final ITileSource pTileSourceInfo, final long pMapTileIndex, final InputStream pStream, final Long pExpirationTime) {
+        return saveFile(pTileSourceInfo, pMapTileIndex, pStream, pExpirationTime, null, null);
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public boolean saveFile(final ITileSource pTileSourceInfo, final long pMapTileIndex, final InputStream pStream,
+                            final Long pExpirationTime, final String pETag, final String pLastModified) {
         final SQLiteDatabase db = getDb();
         if (db == null || !db.isOpen()) {
             Log.d(IMapView.LOGTAG, "Unable to store cached tile from " + pTileSourceInfo.name() + " " + MapTileIndex.toString(pMapTileIndex) + ", database not available.");
@@ -145,17 +215,22 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
                 bos.write(buffer, 0, l);
             byte[] bits = bos.toByteArray(); // if a variable is required at all
 
+            if (Configuration.getInstance().getTileWriteBatchSize() > 1) {
+                addPendingTile(new PendingTile(pTileSourceInfo.name(), index, bits, pExpirationTime, pETag, pLastModified));
+                return false;
+            }
             cv.put(DatabaseFileArchive.COLUMN_KEY, index);
             cv.put(DatabaseFileArchive.COLUMN_TILE, bits);
             if (pExpirationTime != null)
                 cv.put(COLUMN_EXPIRES, pExpirationTime);
+            if (pETag != null)
+                cv.put(COLUMN_ETAG, pETag);
+            if (pLastModified != null)
+                cv.put(COLUMN_LAST_MODIFIED, pLastModified);
             db.replaceOrThrow(TABLE, null, cv);
             if (Configuration.getInstance().isDebugMode())
                 Log.d(IMapView.LOGTAG, "tile inserted " + pTileSourceInfo.name() + MapTileIndex.toString(pMapTileIndex));
-            if (System.currentTimeMillis() > lastSizeCheck + Configuration.getInstance().getTileGCFrequencyInMillis()) {
-                lastSizeCheck = System.currentTimeMillis();
-                garbageCollector.gc();
-            }
+            checkSize();
         } catch (SQLiteFullException ex) {
             //the drive is full! trigger the clean up operation
             //may want to consider reducing the trim size automagically
@@ -178,12 +253,145 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         return false;
     }
 
+    /**
+     * Triggers a cleanup from time to time
+     *
+     * @since 6.2.0
+     */
+    private void checkSize() {
+        if (System.currentTimeMillis() > lastSizeCheck + Configuration.getInstance().getTileGCFrequencyInMillis()) {
+            lastSizeCheck = System.currentTimeMillis();
+            garbageCollector.gc();
+        }
+    }
+
+    /**
+     * Adds a tile to the current batch, and writes the batch if it's full
+     * or schedules its writing if it's new
+     *
+     * @since 6.2.0
+     */
+    private void addPendingTile(final PendingTile pTile) {
+        final int size;
+        final boolean schedule;
+        synchronized (sPendingTiles) {
+            sPendingTiles.put(pTile.getKey(), pTile);
+            size = sPendingTiles.size();
+            schedule = !sFlushScheduled;
+            sFlushScheduled = true;
+            if (schedule && sFlushScheduler == null) {
+                sFlushScheduler = Executors.newSingleThreadScheduledExecutor(
+                        new ConfigurablePriorityThreadFactory(Thread.NORM_PRIORITY, "sqlTileWriter"));
+            }
+        }
+        if (size >= Configuration.getInstance().getTileWriteBatchSize()) {
+            flush(); // in the saving thread: also acts as a back-pressure on the writers
+        } else if (schedule) {
+            sFlushScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (sPendingTiles) {
+                        sFlushScheduled = false;
+                    }
+                    flush();
+                }
+            }, Configuration.getInstance().getTileWriteBatchDelayInMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the tile waiting to be written, or null
+     * @since 6.2.0
+     */
+    private PendingTile getPendingTile(final String pTileSourceName, final long pIndex) {
+        synchronized (sPendingTiles) {
+            if (sPendingTiles.isEmpty()) {
+                return null;
+            }
+            return sPendingTiles.get(PendingTile.getKey(pTileSourceName, pIndex));
+        }
+    }
+
+    /**
+     * Writes in the database, in a single transaction, the tiles saved but not written yet
+     *
+     * @since 6.2.0
+     */
+    public void flush() {
+        synchronized (sFlushLock) {
+            final List<PendingTile> batch;
+            synchronized (sPendingTiles) {
+                if (sPendingTiles.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(sPendingTiles.values());
+            }
+            final SQLiteDatabase db = getDb();
+            if (db == null || !db.isOpen()) {
+                Log.d(IMapView.LOGTAG, "Unable to store " + batch.size() + " cached tiles, database not available.");
+                Counters.fileCacheSaveErrors += batch.size();
+            } else {
+                try {
+                    if (sWriteAheadLogging) {
+                        db.beginTransactionNonExclusive(); // the readers are not blocked anyway
+                    } else {
+                        db.beginTransaction();
+                    }
+                    try {
+                        final ContentValues cv = new ContentValues();
+                        for (final PendingTile tile : batch) {
+                            cv.clear();
+                            cv.put(DatabaseFileArchive.COLUMN_PROVIDER, tile.mTileSourceName);
+                            cv.put(DatabaseFileArchive.COLUMN_KEY, tile.mIndex);
+                            cv.put(DatabaseFileArchive.COLUMN_TILE, tile.mData);
+                            if (tile.mExpirationTime != null)
+                                cv.put(COLUMN_EXPIRES, tile.mExpirationTime);
+                            if (tile.mETag != null)
+                                cv.put(COLUMN_ETAG, tile.mETag);
+                            if (tile.mLastModified != null)
+                                cv.put(COLUMN_LAST_MODIFIED, tile.mLastModified);
+                            db.replaceOrThrow(TABLE, null, cv);
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                    if (Configuration.getInstance().isDebugMode())
+                        Log.d(IMapView.LOGTAG, batch.size() + " tiles inserted");
+                    checkSize();
+                } catch (SQLiteFullException ex) {
+                    //the drive is full! trigger the clean up operation
+                    Log.e(IMapView.LOGTAG, "SQLiteFullException while saving tiles.", ex);
+                    Counters.fileCacheSaveErrors += batch.size();
+                    garbageCollector.gc();
+                    catchException(ex);
+                } catch (Exception ex) {
+                    Log.e(IMapView.LOGTAG, "Unable to store " + batch.size() + " cached tiles", ex);
+                    Counters.fileCacheSaveErrors += batch.size();
+                    catchException(ex);
+                }
+            }
+            // in case of error the batch is dropped: it's only a cache
+            synchronized (sPendingTiles) {
+                for (final PendingTile tile : batch) {
+                    final String key = tile.getKey();
+                    if (sPendingTiles.get(key) == tile) { // not saved again in the meantime
+                        sPendingTiles.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Returns true if the given tile source and tile coordinates exist in the cache
      *
      * @since 5.6
      */
     public boolean exists(final String pTileSource, final long pMapTileIndex) {
+        if (getPendingTile(pTileSource, getIndex(pMapTileIndex)) != null) {
+            return true;
+        }
         return 1 == getRowCount(primaryKey, getPrimaryKeyParameters(getIndex(pMapTileIndex), pTileSource));
     }
 
@@ -199,9 +407,11 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
 
     /**
      * Now we use only one static instance of database, which should never be closed
+     * As of 6.2.0, writes the tiles waiting to be written
      */
     @Override
     public void onDetach() {
+        flush();
     }
 
     /**
@@ -211,6 +421,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      * @since 5.6
      */
     public boolean purgeCache() {
+        flush();
         final SQLiteDatabase db = getDb();
         if (db != null && db.isOpen()) {
             try {
@@ -231,6 +442,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      * @since 5.6.1
      */
     public boolean purgeCache(String mTileSourceName) {
+        flush();
         final SQLiteDatabase db = getDb();
         if (db != null && db.isOpen()) {
             try {
@@ -277,7 +489,8 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
                                                 File[] y = x[xx].listFiles();
                                                 if (x != null)
                                                     for (int yy = 0; yy < y.length; yy++) {
-                                                        if (!y[yy].isHidden() && !y[yy].isDirectory()) {
+                                                        if (!y[yy].isHidden() && !y[yy].isDirectory()
+                                                                && !y[yy].getName().endsWith(TileWriter.HTTP_VALIDATORS_EXTENSION)) {
 
                                                             try {
                                                                 ContentValues cv = new ContentValues();
@@ -385,6 +598,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      */
     @Override
     public boolean remove(final ITileSource pTileSourceInfo, final long pMapTileIndex) {
+        flush();
         final SQLiteDatabase db = getDb();
         if (db == null || !db.isOpen()) {
             Log.d(IMapView.LOGTAG, "Unable to delete cached tile from " + pTileSourceInfo.name() + " " + MapTileIndex.toString(pMapTileIndex) + ", database not available.");
@@ -413,6 +627,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      * @since 5.6
      */
     public long getRowCount(String tileSourceName) {
+        flush();
         if (tileSourceName == null) {
             return getRowCount(null, null);
         }
@@ -461,6 +676,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      */
     public long getRowCount(final String pTileSourceName, final int pZoom,
                             final Collection<Rect> pInclude, final Collection<Rect> pExclude) {
+        flush();
         return getRowCount(
                 getWhereClause(pZoom, pInclude, pExclude)
                         + (pTileSourceName != null ? " and " + COLUMN_PROVIDER + "=?" : "")
@@ -475,7 +691,39 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
     }
 
     /**
-     * Returns the expiry time of the tile that expires first.
+     * Returns the total size of the tiles in bytes, without the sqlite overhead, in O(1)
+     *
+     * @return the size, or -1 if not known yet (cf. {@link #runCleanupOperation()})
+     * @since 6.2.0
+     */
+    public long getTilesSize() {
+        final SQLiteDatabase db = getDb();
+        if (db == null || !db.isOpen()) {
+            return -1;
+        }
+        flush();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("select " + COLUMN_BYTES + " from " + TABLE_SIZE, null);
+            if (cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception ex) {
+            // most likely the table is not created yet: not a reason to refresh the database
+            if (Configuration.getInstance().isDebugMode()) {
+                Log.d(IMapView.LOGTAG, "Tiles size not available yet", ex);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the expiry time of the tile that expires first, i.e. of the first tile to be deleted
+     * by the cleanup. Fast, thanks to the expiration index.
      */
     public long getFirstExpiry() {
         final SQLiteDatabase db = getDb();
@@ -536,6 +784,10 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
 
     @Override
     public Long getExpirationTimestamp(final ITileSource pTileSource, final long pMapTileIndex) {
+        final PendingTile pending = getPendingTile(pTileSource.name(), getIndex(pMapTileIndex));
+        if (pending != null) {
+            return pending.mExpirationTime == null ? 0 : pending.mExpirationTime;
+        }
         Cursor cursor = null;
         try {
             cursor = getTileCursor(getPrimaryKeyParameters(getIndex(pMapTileIndex), pTileSource), expireQueryColumn);
@@ -553,6 +805,81 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         return null;
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public String[] getHttpValidators(final ITileSource pTileSource, final long pMapTileIndex) {
+        final long index = getIndex(pMapTileIndex);
+        final PendingTile pending = getPendingTile(pTileSource.name(), index);
+        if (pending != null) {
+            return getHttpValidators(pending.mETag, pending.mLastModified);
+        }
+        Cursor cursor = null;
+        try {
+            cursor = getTileCursor(getPrimaryKeyParameters(index, pTileSource), validatorsQueryColumns);
+            if (cursor.moveToNext()) {
+                return getHttpValidators(cursor.getString(0), cursor.getString(1));
+            }
+        } catch (Exception ex) {
+            Log.e(IMapView.LOGTAG, "error getting http validators from the tile cache", ex);
+            catchException(ex);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private static String[] getHttpValidators(final String pETag, final String pLastModified) {
+        if (pETag == null && pLastModified == null) {
+            return null;
+        }
+        return new String[]{pETag, pLastModified};
+    }
+
+    /**
+     * Only the expiration is updated, the tile itself is not rewritten
+     *
+     * @since 6.2.0
+     */
+    @Override
+    public boolean extendExpiration(final ITileSource pTileSource, final long pMapTileIndex, final Long pExpirationTime) {
+        final long index = getIndex(pMapTileIndex);
+        final PendingTile pending = getPendingTile(pTileSource.name(), index);
+        if (pending != null) {
+            addPendingTile(new PendingTile(pending.mTileSourceName, index, pending.mData,
+                    pExpirationTime, pending.mETag, pending.mLastModified));
+            return true;
+        }
+        final SQLiteDatabase db = getDb();
+        if (db == null || !db.isOpen()) {
+            return false;
+        }
+        try {
+            final ContentValues cv = new ContentValues();
+            if (pExpirationTime != null) {
+                cv.put(COLUMN_EXPIRES, pExpirationTime);
+            } else {
+                cv.putNull(COLUMN_EXPIRES);
+            }
+            return db.update(TABLE, cv, primaryKey, getPrimaryKeyParameters(index, pTileSource)) > 0;
+        } catch (Exception ex) {
+            Log.e(IMapView.LOGTAG, "Unable to extend the expiration of " + pTileSource.name() + " " + MapTileIndex.toString(pMapTileIndex), ex);
+            catchException(ex);
+            return false;
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private static final String ROWID = "ROWID";
+
     /**
      * @since 5.6.5
      */
@@ -607,6 +934,11 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
      */
     private static final String[] expireQueryColumn = {SqlTileWriter.COLUMN_EXPIRES};
 
+    /**
+     * @since 6.2.0
+     */
+    private static final String[] validatorsQueryColumns = {COLUMN_ETAG, COLUMN_LAST_MODIFIED};
+
     @Override
     public Drawable loadTile(final ITileSource pTileSource, final long pMapTileIndex) throws Exception {
         byte[] bits = null;
@@ -614,10 +946,16 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         Cursor cur = null;
         try {
             final long index = getIndex(pMapTileIndex);
-            cur = getTileCursor(getPrimaryKeyParameters(index, pTileSource), queryColumns);
-            if (cur.moveToFirst()) {
-                bits = cur.getBlob(0);
-                expirationTimestamp = cur.getLong(1);
+            final PendingTile pending = getPendingTile(pTileSource.name(), index);
+            if (pending != null) {
+                bits = pending.mData;
+                expirationTimestamp = pending.mExpirationTime == null ? 0 : pending.mExpirationTime;
+            } else {
+                cur = getTileCursor(getPrimaryKeyParameters(index, pTileSource), queryColumns);
+                if (cur.moveToFirst()) {
+                    bits = cur.getBlob(0);
+                    expirationTimestamp = cur.getLong(1);
+                }
             }
             if (bits == null) {
                 if (Configuration.getInstance().isDebugMode()) {
@@ -685,8 +1023,9 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
             final long now = System.currentTimeMillis();
             final Cursor cur;
             try {
+                // LENGTH of a BLOB doesn't read the BLOB; the rowid is the only exact key
                 cur = db.rawQuery(
-                        "SELECT " + COLUMN_KEY + ",LENGTH(HEX(" + COLUMN_TILE + "))/2 " +
+                        "SELECT " + ROWID + ",LENGTH(" + COLUMN_TILE + ") " +
                                 "FROM " + DatabaseFileArchive.TABLE + " " +
                                 "WHERE " +
                                 COLUMN_EXPIRES + " IS NOT NULL " +
@@ -699,7 +1038,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
             }
             cur.moveToFirst();
             where.setLength(0);
-            where.append(COLUMN_KEY + " in (");
+            where.append(ROWID + " in (");
             sep = "";
             while (!cur.isAfterLast()) {
                 final long key = cur.getLong(0);
@@ -742,8 +1081,17 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
             db_file = new File(Configuration.getInstance().getOsmdroidTileCache().getAbsolutePath() + File.separator + DATABASE_FILENAME);
             if (mDb == null) {
                 try {
+                    final boolean created = !db_file.exists();
                     mDb = SQLiteDatabase.openOrCreateDatabase(db_file, null);
-                    mDb.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " (" + DatabaseFileArchive.COLUMN_KEY + " INTEGER , " + DatabaseFileArchive.COLUMN_PROVIDER + " TEXT, " + DatabaseFileArchive.COLUMN_TILE + " BLOB, " + COLUMN_EXPIRES + " INTEGER, PRIMARY KEY (" + DatabaseFileArchive.COLUMN_KEY + ", " + DatabaseFileArchive.COLUMN_PROVIDER + "));");
+                    if (created && Configuration.getInstance().getTileCachePageSize() > 0) {
+                        // only effective on a new database, before write-ahead logging
+                        // the vacuum is needed as android already created its metadata table
+                        pragma(mDb, "page_size=" + Configuration.getInstance().getTileCachePageSize());
+                        mDb.execSQL("VACUUM");
+                    }
+                    mDb.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " (" + DatabaseFileArchive.COLUMN_KEY + " INTEGER , " + DatabaseFileArchive.COLUMN_PROVIDER + " TEXT, " + DatabaseFileArchive.COLUMN_TILE + " BLOB, " + COLUMN_EXPIRES + " INTEGER, " + COLUMN_ETAG + " TEXT, " + COLUMN_LAST_MODIFIED + " TEXT, PRIMARY KEY (" + DatabaseFileArchive.COLUMN_KEY + ", " + DatabaseFileArchive.COLUMN_PROVIDER + "));");
+                    addValidatorColumns(mDb);
+                    configure(mDb);
                 } catch (Exception ex) {
                     Log.e(IMapView.LOGTAG, "Unable to start the sqlite tile writer. Check external storage availability.", ex);
                     catchException(ex);
@@ -754,6 +1102,61 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         return mDb;
     }
 
+    /**
+     * Write-ahead logging: reads use a pool of connections and don't wait for the writes
+     * The "synchronous" pragma only matters for the primary connection, which is the one used for writes.
+     * The "mmap_size" pragma is set on every connection, including the readers of the pool
+     * (only on the primary connection before Android 11)
+     *
+     * @since 6.2.0
+     */
+    private static void configure(final SQLiteDatabase pDb) {
+        sWriteAheadLogging = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                && Configuration.getInstance().isTileCacheWriteAheadLogging()) {
+            try {
+                sWriteAheadLogging = pDb.enableWriteAheadLogging();
+            } catch (Exception ex) {
+                Log.w(IMapView.LOGTAG, "Unable to enable write-ahead logging for the tile cache", ex);
+            }
+        }
+        final String synchronous = Configuration.getInstance().getTileCacheSynchronous();
+        if (synchronous != null) {
+            pragma(pDb, "synchronous=" + synchronous);
+        }
+        final long mmapSize = Configuration.getInstance().getTileCacheMmapSize();
+        if (mmapSize > 0) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                try {
+                    pDb.execPerConnectionSQL("PRAGMA mmap_size=" + mmapSize, null);
+                    return;
+                } catch (Exception ex) {
+                    Log.w(IMapView.LOGTAG, "Unable to run PRAGMA mmap_size on every connection", ex);
+                }
+            }
+            pragma(pDb, "mmap_size=" + mmapSize);
+        }
+    }
+
+    /**
+     * Some pragmas return a row, and therefore cannot be run with execSQL
+     *
+     * @since 6.2.0
+     */
+    private static void pragma(final SQLiteDatabase pDb, final String pPragma) {
+        Cursor cursor = null;
+        try {
+            cursor = pDb.rawQuery("PRAGMA " + pPragma, null);
+            cursor.moveToFirst();
+        } catch (Exception ex) {
+            Log.w(IMapView.LOGTAG, "Unable to run PRAGMA " + pPragma, ex);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
     /**
      * @since 6.0.2
      */
@@ -807,6 +1210,37 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         }
     }
 
+    /**
+     * Adds the http validator columns to a cache created before 6.2.0.
+     * Adding a column doesn't rewrite the table, therefore it's fast.
+     *
+     * @since 6.2.0
+     */
+    private static void addValidatorColumns(final SQLiteDatabase pDb) {
+        boolean eTag = false;
+        boolean lastModified = false;
+        final Cursor cursor = pDb.rawQuery("PRAGMA table_info(" + TABLE + ")", null);
+        try {
+            final int name = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                final String column = cursor.getString(name);
+                if (COLUMN_ETAG.equalsIgnoreCase(column)) {
+                    eTag = true;
+                } else if (COLUMN_LAST_MODIFIED.equalsIgnoreCase(column)) {
+                    lastModified = true;
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        if (!eTag) {
+            pDb.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COLUMN_ETAG + " TEXT;");
+        }
+        if (!lastModified) {
+            pDb.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COLUMN_LAST_MODIFIED + " TEXT;");
+        }
+    }
+
     /**
      * @since 6.0.2
      */
@@ -814,6 +1248,47 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
         pDb.execSQL("CREATE INDEX IF NOT EXISTS " + COLUMN_EXPIRES_INDEX + " ON " + TABLE + " (" + COLUMN_EXPIRES + ");");
     }
 
+    /**
+     * Creates the running total of the tile sizes, and the triggers that keep it up to date.
+     * Only the first call on an existing cache is slow, as it sums all the tiles.
+     * A REPLACE doesn't fire the DELETE triggers (unless recursive triggers are on),
+     * therefore the INSERT trigger removes the size of the replaced tile.
+     *
+     * @since 6.2.0
+     */
+    private void createSizeTracking(final SQLiteDatabase pDb) {
+        pDb.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SIZE + " (" + COLUMN_BYTES + " INTEGER NOT NULL);");
+        final Cursor cursor = pDb.rawQuery("select count(*) from " + TABLE_SIZE, null);
+        final boolean initialized;
+        try {
+            initialized = cursor.moveToFirst() && cursor.getLong(0) > 0;
+        } finally {
+            cursor.close();
+        }
+        if (initialized) {
+            return;
+        }
+        pDb.beginTransaction();
+        try {
+            pDb.execSQL("DELETE FROM " + TABLE_SIZE + ";");
+            pDb.execSQL("INSERT INTO " + TABLE_SIZE + " SELECT IFNULL(SUM(LENGTH(" + COLUMN_TILE + ")),0) FROM " + TABLE + ";");
+            pDb.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_SIZE + "_insert BEFORE INSERT ON " + TABLE + " BEGIN "
+                    + "UPDATE " + TABLE_SIZE + " SET " + COLUMN_BYTES + "=" + COLUMN_BYTES
+                    + "+IFNULL(LENGTH(NEW." + COLUMN_TILE + "),0)"
+                    + "-IFNULL((SELECT LENGTH(" + COLUMN_TILE + ") FROM " + TABLE + " WHERE "
+                    + COLUMN_KEY + "=NEW." + COLUMN_KEY + " AND " + COLUMN_PROVIDER + "=NEW." + COLUMN_PROVIDER + "),0); END;");
+            pDb.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_SIZE + "_delete AFTER DELETE ON " + TABLE + " BEGIN "
+                    + "UPDATE " + TABLE_SIZE + " SET " + COLUMN_BYTES + "=" + COLUMN_BYTES
+                    + "-IFNULL(LENGTH(OLD." + COLUMN_TILE + "),0); END;");
+            pDb.execSQL("CREATE TRIGGER IF NOT EXISTS " + TABLE_SIZE + "_update AFTER UPDATE OF " + COLUMN_TILE + " ON " + TABLE + " BEGIN "
+                    + "UPDATE " + TABLE_SIZE + " SET " + COLUMN_BYTES + "=" + COLUMN_BYTES
+                    + "+IFNULL(LENGTH(NEW." + COLUMN_TILE + "),0)-IFNULL(LENGTH(OLD." + COLUMN_TILE + "),0); END;");
+            pDb.setTransactionSuccessful();
+        } finally {
+            pDb.endTransaction();
+        }
+    }
+
     /**
      * @since 6.0.2
      */
@@ -821,6 +1296,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
     public void runDuringSplashScreen() {
         final SQLiteDatabase db = getDb();
         createIndex(db);
+        createSizeTracking(db);
     }
 
     /**
@@ -914,6 +1390,7 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
     public long delete(final String pTileSourceName, final int pZoom,
                        final Collection<Rect> pInclude, final Collection<Rect> pExclude) {
         try {
+            flush();
             final SQLiteDatabase db = getDb();
             if (db == null || !db.isOpen()) {
                 return -1;
@@ -927,4 +1404,37 @@ public class SqlTileWriter implements IFilesystemCache, SplashScreenable {
             return 0;
         }
     }
+
+    /**
+     * A tile saved but not written in the database yet
+     *
+     * @since 6.2.0
+     */
+    private static class PendingTile {
+        private final String mTileSourceName;
+        private final long mIndex;
+        private final byte[] mData;
+        private final Long mExpirationTime;
+        private final String mETag;
+        private final String mLastModified;
+
+        private PendingTile(final String pTileSourceName, final long pIndex,
+                            final byte[] pData, final Long pExpirationTime,
+                            final String pETag, final String pLastModified) {
+            mTileSourceName = pTileSourceName;
+            mIndex = pIndex;
+            mData = pData;
+            mExpirationTime = pExpirationTime;
+            mETag = pETag;
+            mLastModified = pLastModified;
+        }
+
+        private String getKey() {
+            return getKey(mTileSourceName, mIndex);
+        }
+
+        private static String getKey(final String pTileSourceName, final long pIndex) {
+            return pIndex + "/" + pTileSourceName;
+        }
+    }
 }
@@ -13,22 +13,22 @@ import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
 import org.osmdroid.tileprovider.tilesource.TileSourcePolicy;
 import org.osmdroid.tileprovider.util.Counters;
 import org.osmdroid.tileprovider.util.StreamUtils;
+import org.osmdroid.util.AdaptiveConcurrencyLimiter;
 import org.osmdroid.util.MapTileIndex;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.net.ssl.HttpsURLConnection;
@@ -41,6 +41,20 @@ import javax.net.ssl.SSLSocketFactory;
  */
 public class TileDownloader {
 
+    /**
+     * Downloads in progress, shared by all the instances
+     *
+     * @since 6.2.0
+     */
+    private static final MapTileLoadCoalescer<DownloadedTile> sInFlightDownloads = new MapTileLoadCoalescer<>();
+
+    /**
+     * Max Content-Length we trust for the allocation of the tile bytes
+     *
+     * @since 6.2.0
+     */
+    private static final int MAX_PREALLOCATED_BYTES = 4 * 1024 * 1024;
+
     private boolean compatibilitySocketFactorySet;
 
     public Drawable downloadTile(final long pMapTileIndex,
@@ -51,9 +65,58 @@ public class TileDownloader {
     /**
      * downloads a tile and follows http redirects
      * Code used to be in MapTileDownloader.TileLoader.downloadTile
+     * As of 6.2.0, concurrent downloads of the same tile (e.g. several map views, or a map view and
+     * a cache manager) are merged into a single http request: the bytes are shared, but each caller
+     * gets its own Drawable, and the tile is saved in each distinct filesystem cache.
+     * Expired tiles of an {@link IRevalidatingFilesystemCache} are revalidated with a conditional
+     * request: on "304 Not Modified", the cached tile is used again with a new expiration.
      */
     public Drawable downloadTile(final long pMapTileIndex, final int redirectCount, final String targetUrl,
                                  final IFilesystemCache pFilesystemCache, final OnlineTileSourceBase pTileSource) throws CantContinueException {
+        final DownloadedTile downloaded = sInFlightDownloads.load(pTileSource.name(), pMapTileIndex,
+                new MapTileLoadCoalescer.Loader<DownloadedTile>() {
+                    @Override
+                    public DownloadedTile load() {
+                        return fetchTile(pMapTileIndex, redirectCount, targetUrl, pFilesystemCache, pTileSource);
+                    }
+                });
+        if (downloaded == null) {
+            return null;
+        }
+        ByteArrayInputStream byteStream = null;
+        try {
+            if (downloaded.mData == null) { // not modified: the cached tile is still valid
+                return downloaded.mFilesystemCache.loadTile(pTileSource, pMapTileIndex);
+            }
+            byteStream = new ByteArrayInputStream(downloaded.mData, 0, downloaded.mLength);
+            if (pFilesystemCache != null && pFilesystemCache != downloaded.mFilesystemCache) {
+                // downloaded for another cache by a concurrent request
+                save(pFilesystemCache, pTileSource, pMapTileIndex, byteStream, downloaded);
+                byteStream.reset();
+            }
+            return pTileSource.getDrawable(byteStream);
+        } catch (final BitmapTileSourceBase.LowMemoryException e) {
+            // low memory so empty the queue
+            Counters.countOOM++;
+            Log.w(IMapView.LOGTAG, "LowMemoryException downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
+            throw new CantContinueException(e);
+        } catch (final Throwable e) {
+            Counters.tileDownloadErrors++;
+            Log.e(IMapView.LOGTAG, "Error downloading MapTile: " + MapTileIndex.toString(pMapTileIndex), e);
+        } finally {
+            StreamUtils.closeStream(byteStream);
+        }
+        return null;
+    }
+
+    /**
+     * Actual http download, saved in the filesystem cache if any
+     *
+     * @return the downloaded tile, or null if failed
+     * @since 6.2.0
+     */
+    private DownloadedTile fetchTile(final long pMapTileIndex, final int redirectCount, final String targetUrl,
+                                     final IFilesystemCache pFilesystemCache, final OnlineTileSourceBase pTileSource) {
 
         // prevent infinite looping of redirects, rare but very possible for misconfigured servers
         if (redirectCount > 3) {
@@ -71,11 +134,8 @@ public class TileDownloader {
             Log.e(IMapView.LOGTAG, "Please configure a relevant user agent; current value is: " + userAgent);
             return null;
         }
-        InputStream in = null;
-        OutputStream out = null;
-        HttpURLConnection c = null;
+        ITileHttpTransport.Response response = null;
         ByteArrayInputStream byteStream = null;
-        ByteArrayOutputStream dataStream = null;
         try {
             final String tileURLString = targetUrl;
 
@@ -98,28 +158,50 @@ public class TileDownloader {
                 compatibilitySocketFactorySet = true;
             }
 
-            if (Configuration.getInstance().getHttpProxy() != null) {
-                c = (HttpURLConnection) new URL(tileURLString).openConnection(Configuration.getInstance().getHttpProxy());
-            } else {
-                c = (HttpURLConnection) new URL(tileURLString).openConnection();
+            final Map<String, String> requestProperties = new HashMap<>();
+            requestProperties.put(Configuration.getInstance().getUserAgentHttpHeader(), userAgent);
+            requestProperties.putAll(Configuration.getInstance().getAdditionalHttpRequestProperties());
+            final IRevalidatingFilesystemCache revalidatingCache =
+                    pFilesystemCache instanceof IRevalidatingFilesystemCache
+                            ? (IRevalidatingFilesystemCache) pFilesystemCache : null;
+            final String[] validators = revalidatingCache == null
+                    ? null : revalidatingCache.getHttpValidators(pTileSource, pMapTileIndex);
+            if (validators != null) { // expired tile already in the cache: conditional request
+                if (validators[0] != null) {
+                    requestProperties.put(OpenStreetMapTileProviderConstants.HTTP_IF_NONE_MATCH_HEADER, validators[0]);
+                }
+                if (validators[1] != null) {
+                    requestProperties.put(OpenStreetMapTileProviderConstants.HTTP_IF_MODIFIED_SINCE_HEADER, validators[1]);
+                }
             }
-            c.setUseCaches(true);
-            c.setRequestProperty(Configuration.getInstance().getUserAgentHttpHeader(), userAgent);
-            for (final Map.Entry<String, String> entry : Configuration.getInstance().getAdditionalHttpRequestProperties().entrySet()) {
-                c.setRequestProperty(entry.getKey(), entry.getValue());
+            final long start = System.nanoTime();
+            response = Configuration.getInstance().getTileHttpTransport().get(tileURLString, requestProperties);
+            response.getCode(); // the transport may only send the request and wait for the headers here
+            onResponse(pTileSource, response, (System.nanoTime() - start) / 1000000L);
+
+            if (response.getCode() == 304 && validators != null) {
+                final long expirationTime = pTileSource.getTileSourcePolicy().computeExpirationTime(
+                        response.getHeader(OpenStreetMapTileProviderConstants.HTTP_EXPIRES_HEADER),
+                        response.getHeader(OpenStreetMapTileProviderConstants.HTTP_CACHECONTROL_HEADER),
+                        System.currentTimeMillis());
+                if (!revalidatingCache.extendExpiration(pTileSource, pMapTileIndex, expirationTime)) {
+                    Log.w(IMapView.LOGTAG, "Not modified MapTile no longer in the cache: " + MapTileIndex.toString(pMapTileIndex));
+                    return null; // will be downloaded unconditionally next time
+                }
+                Counters.tileDownloadsNotModified++;
+                return new DownloadedTile(null, 0, expirationTime, null, null, pFilesystemCache);
             }
-            c.connect();
 
             // Check to see if we got success
-            if (c.getResponseCode() != 200) {
-                switch (c.getResponseCode()) {
+            if (response.getCode() != 200) {
+                switch (response.getCode()) {
                     case 301:
                     case 302:
                     case 307:
                     case 308:
                         if (Configuration.getInstance().isMapTileDownloaderFollowRedirects()) {
                             //this is a redirect, check the header for a 'Location' header
-                            String redirectUrl = c.getHeaderField("Location");
+                            String redirectUrl = response.getHeader("Location");
                             if (redirectUrl != null) {
                                 if (redirectUrl.startsWith("/")) {
                                     //in this case we need to stitch together a full url
@@ -135,24 +217,25 @@ public class TileDownloader {
 
                                     redirectUrl = (secure ? "https://" : "http") + old.getHost() + ":" + port + redirectUrl;
                                 }
-                                Log.i(IMapView.LOGTAG, "Http redirect for MapTile: " + MapTileIndex.toString(pMapTileIndex) + " HTTP response: " + c.getResponseMessage() + " to url " + redirectUrl);
-                                return downloadTile(pMapTileIndex, redirectCount + 1, redirectUrl, pFilesystemCache, pTileSource);
+                                Log.i(IMapView.LOGTAG, "Http redirect for MapTile: " + MapTileIndex.toString(pMapTileIndex) + " HTTP response: " + response.getMessage() + " to url " + redirectUrl);
+                                response.close(); // released before the next request
+                                response = null;
+                                return fetchTile(pMapTileIndex, redirectCount + 1, redirectUrl, pFilesystemCache, pTileSource);
                             }
                             break;
                         }    //else follow through the normal path of aborting the download
                     default: {
-                        Log.w(IMapView.LOGTAG, "Problem downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " HTTP response: " + c.getResponseMessage());
+                        Log.w(IMapView.LOGTAG, "Problem downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " HTTP response: " + response.getMessage());
                         if (Configuration.getInstance().isDebugMapTileDownloader()) {
                             Log.d(IMapView.LOGTAG, tileURLString);
                         }
                         Counters.tileDownloadErrors++;
-                        in = c.getErrorStream(); // in order to have the error stream purged by the finally block
-                        return null;
+                        return null; // the error body is purged when the response is closed
                     }
                 }
             }
 
-            String mime = c.getHeaderField("Content-Type");
+            String mime = response.getHeader("Content-Type");
             if (Configuration.getInstance().isDebugMapTileDownloader()) {
                 Log.d(IMapView.LOGTAG, tileURLString + " success, mime is " + mime);
             }
@@ -160,32 +243,31 @@ public class TileDownloader {
                 Log.w(IMapView.LOGTAG, tileURLString + " success, however the mime type does not appear to be an image " + mime);
             }
 
-            in = c.getInputStream();
-
-            dataStream = new ByteArrayOutputStream();
-            out = new BufferedOutputStream(dataStream, StreamUtils.IO_BUFFER_SIZE);
             final long expirationTime = pTileSource.getTileSourcePolicy().computeExpirationTime(
-                    c, System.currentTimeMillis());
-            StreamUtils.copy(in, out);
-            out.flush();
-            final byte[] data = dataStream.toByteArray();
-            byteStream = new ByteArrayInputStream(data);
+                    response.getHeader(OpenStreetMapTileProviderConstants.HTTP_EXPIRES_HEADER),
+                    response.getHeader(OpenStreetMapTileProviderConstants.HTTP_CACHECONTROL_HEADER),
+                    System.currentTimeMillis());
+            final DownloadedTile downloaded = readBody(response, expirationTime,
+                    response.getHeader(OpenStreetMapTileProviderConstants.HTTP_ETAG_HEADER),
+                    response.getHeader(OpenStreetMapTileProviderConstants.HTTP_LAST_MODIFIED_HEADER),
+                    pFilesystemCache);
+            byteStream = new ByteArrayInputStream(downloaded.mData, 0, downloaded.mLength);
 
             // Save the data to the cache
             // this is the only point in which we insert tiles to the db or local file system.
             if (pFilesystemCache != null) {
-                pFilesystemCache.saveFile(pTileSource, pMapTileIndex, byteStream, expirationTime);
-                byteStream.reset();
+                save(pFilesystemCache, pTileSource, pMapTileIndex, byteStream, downloaded);
+            }
+            return downloaded;
+        } catch (final SocketTimeoutException e) {
+            Log.w(IMapView.LOGTAG, "SocketTimeoutException downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
+            Counters.tileDownloadErrors++;
+            if (Configuration.getInstance().isTileDownloadAdaptiveConcurrency()) {
+                pTileSource.getConcurrencyLimiter().onOverload(0);
             }
-            return pTileSource.getDrawable(byteStream);
         } catch (final UnknownHostException e) {
             Log.w(IMapView.LOGTAG, "UnknownHostException downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
             Counters.tileDownloadErrors++;
-        } catch (final BitmapTileSourceBase.LowMemoryException e) {
-            // low memory so empty the queue
-            Counters.countOOM++;
-            Log.w(IMapView.LOGTAG, "LowMemoryException downloading MapTile: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
-            throw new CantContinueException(e);
         } catch (final FileNotFoundException e) {
             Counters.tileDownloadErrors++;
             Log.w(IMapView.LOGTAG, "Tile not found: " + MapTileIndex.toString(pMapTileIndex) + " : " + e);
@@ -196,19 +278,90 @@ public class TileDownloader {
             Counters.tileDownloadErrors++;
             Log.e(IMapView.LOGTAG, "Error downloading MapTile: " + MapTileIndex.toString(pMapTileIndex), e);
         } finally {
-            StreamUtils.closeStream(in);
-            StreamUtils.closeStream(out);
             StreamUtils.closeStream(byteStream);
-            StreamUtils.closeStream(dataStream);
-            try {
-                c.disconnect();
-            } catch (Exception ex) {
-            }
+            StreamUtils.closeStream(response);
         }
 
         return null;
     }
 
+    /**
+     * Reports how the server responded to the concurrency limiter of the tile source
+     *
+     * @since 6.2.0
+     */
+    private void onResponse(final OnlineTileSourceBase pTileSource, final ITileHttpTransport.Response pResponse,
+                            final long pLatency) throws IOException {
+        if (!Configuration.getInstance().isTileDownloadAdaptiveConcurrency()) {
+            return;
+        }
+        final AdaptiveConcurrencyLimiter limiter = pTileSource.getConcurrencyLimiter();
+        final int code = pResponse.getCode();
+        if (code == 429 || code == 503) {
+            Counters.tileDownloadsThrottled++;
+            final Long pause = pTileSource.getTileSourcePolicy().getHttpRetryAfterDuration(
+                    pResponse.getHeader(OpenStreetMapTileProviderConstants.HTTP_RETRY_AFTER_HEADER),
+                    System.currentTimeMillis());
+            limiter.onOverload(pause == null ? 0 : pause);
+            Log.w(IMapView.LOGTAG, "Server overloaded for " + pTileSource.name()
+                    + ", concurrent downloads now limited to " + limiter.getLimit()
+                    + (pause == null ? "" : ", paused for " + pause + "ms"));
+        } else {
+            limiter.onResponse(pLatency);
+        }
+    }
+
+    /**
+     * Reads the body until its end, straight into an array of the announced length if any:
+     * the same bytes are then saved and decoded, without further copies.
+     *
+     * @since 6.2.0
+     */
+    private DownloadedTile readBody(final ITileHttpTransport.Response pResponse, final long pExpirationTime,
+                                    final String pETag, final String pLastModified,
+                                    final IFilesystemCache pFilesystemCache) throws IOException {
+        final InputStream in = pResponse.getBody();
+        if (in == null) {
+            throw new IOException("No body");
+        }
+        final long contentLength = pResponse.getContentLength();
+        byte[] data = new byte[contentLength >= 0 && contentLength <= MAX_PREALLOCATED_BYTES
+                ? (int) contentLength : StreamUtils.IO_BUFFER_SIZE];
+        int length = 0;
+        while (true) {
+            if (length == data.length) { // full: are we done?
+                final int next = in.read();
+                if (next == -1) {
+                    break;
+                }
+                data = Arrays.copyOf(data, Math.max(2 * data.length, StreamUtils.IO_BUFFER_SIZE));
+                data[length++] = (byte) next;
+                continue;
+            }
+            final int read = in.read(data, length, data.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return new DownloadedTile(data, length, pExpirationTime, pETag, pLastModified, pFilesystemCache);
+    }
+
+    /**
+     * Saves the tile, with its http validators if the cache keeps them
+     *
+     * @since 6.2.0
+     */
+    private void save(final IFilesystemCache pFilesystemCache, final OnlineTileSourceBase pTileSource,
+                      final long pMapTileIndex, final InputStream pInputStream, final DownloadedTile pDownloaded) {
+        if (pFilesystemCache instanceof IRevalidatingFilesystemCache) {
+            ((IRevalidatingFilesystemCache) pFilesystemCache).saveFile(pTileSource, pMapTileIndex, pInputStream,
+                    pDownloaded.mExpirationTime, pDownloaded.mETag, pDownloaded.mLastModified);
+        } else {
+            pFilesystemCache.saveFile(pTileSource, pMapTileIndex, pInputStream, pDownloaded.mExpirationTime);
+        }
+    }
+
     /**
      * @return the Epoch timestamp corresponding to the http header (in milliseconds), or null
      * @since 6.0.3
@@ -281,6 +434,31 @@ public class TileDownloader {
         return pNow + OpenStreetMapTileProviderConstants.DEFAULT_MAXIMUM_CACHED_FILE_AGE + extension;
     }
 
+    /**
+     * Downloaded bytes, shared between concurrent requests of the same tile
+     *
+     * @since 6.2.0
+     */
+    private static class DownloadedTile {
+        private final byte[] mData; // possibly bigger than the actual length; null if not modified
+        private final int mLength;
+        private final long mExpirationTime;
+        private final String mETag;
+        private final String mLastModified;
+        private final IFilesystemCache mFilesystemCache;
+
+        private DownloadedTile(final byte[] pData, final int pLength, final long pExpirationTime,
+                               final String pETag, final String pLastModified,
+                               final IFilesystemCache pFilesystemCache) {
+            mData = pData;
+            mLength = pLength;
+            mExpirationTime = pExpirationTime;
+            mETag = pETag;
+            mLastModified = pLastModified;
+            mFilesystemCache = pFilesystemCache;
+        }
+    }
+
     /**
      * Proxy for {@link SSLSocketFactory} that tries to enable TLSv1.2 and/or disable SSLv3 on
      * older devices to improve security and compatibility with modern https server configurations
@@ -0,0 +1,17 @@
+package org.osmdroid.tileprovider.modules;
+
+/**
+ * Thrown by a tile provider module in TileLoader.loadTile() when the tile cannot be loaded now,
+ * e.g. no free download slot: the tile goes back to the pending queue and the tile loaders stop,
+ * until {@link MapTileModuleProviderBase#resumeTileLoaders()} is called.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class TileLoadDeferredException extends CantContinueException {
+    private static final long serialVersionUID = 146526524087765135L;
+
+    public TileLoadDeferredException(final String pDetailMessage) {
+        super(pDetailMessage);
+    }
+}
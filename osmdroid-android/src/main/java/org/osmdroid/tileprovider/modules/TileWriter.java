@@ -13,10 +13,15 @@ import org.osmdroid.tileprovider.util.StreamUtils;
 import org.osmdroid.util.MapTileIndex;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -30,12 +35,18 @@ import java.util.NoSuchElementException;
  * @author Neil Boyd
  * @see OpenStreetMapTileProviderConstants
  */
-public class TileWriter implements IFilesystemCache {
+public class TileWriter implements IRevalidatingFilesystemCache {
 
     // ===========================================================
     // Constants
     // ===========================================================
 
+    /**
+     * Extension of the file that stores the http validators of a tile, next to the tile
+     *
+     * @since 6.2.0
+     */
+    public static final String HTTP_VALIDATORS_EXTENSION = ".http";
 
     // ===========================================================
     // Fields
@@ -104,6 +115,18 @@ public class TileWriter implements IFilesystemCache {
     @Override
     public boolean saveFile(final ITileSource pTileSource, final long pMapTileIndex,
                             final InputStream pStream, final Long pExpirationTime) {
+        return saveFile(pTileSource, pMapTileIndex, pStream, pExpirationTime, null, null);
+    }
+
+    /**
+     * The http validators are stored in a small file next to the tile, if any
+     *
+     * @since 6.2.0
+     */
+    @Override
+    public boolean saveFile(final ITileSource pTileSource, final long pMapTileIndex,
+                            final InputStream pStream, final Long pExpirationTime,
+                            final String pETag, final String pLastModified) {
 
         final File file = getFile(pTileSource, pMapTileIndex);
 
@@ -133,9 +156,84 @@ public class TileWriter implements IFilesystemCache {
                 StreamUtils.closeStream(outputStream);
             }
         }
+        saveHttpValidators(getHttpValidatorsFile(file), pETag, pLastModified);
         return true;
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public String[] getHttpValidators(final ITileSource pTileSource, final long pMapTileIndex) {
+        final File file = getFile(pTileSource, pMapTileIndex);
+        final File validators = getHttpValidatorsFile(file);
+        if (!validators.exists() || !file.exists()) {
+            return null;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(validators), "UTF-8"));
+            final String eTag = reader.readLine();
+            final String lastModified = reader.readLine();
+            final String[] result = {
+                    eTag == null || eTag.length() == 0 ? null : eTag,
+                    lastModified == null || lastModified.length() == 0 ? null : lastModified};
+            return result[0] == null && result[1] == null ? null : result;
+        } catch (final IOException e) {
+            return null;
+        } finally {
+            StreamUtils.closeStream(reader);
+        }
+    }
+
+    /**
+     * As a tile expires when its file is older than the maximum cached file age,
+     * extending the expiration means setting the last modification date of the file accordingly
+     *
+     * @param pExpirationTime the new expiration, or null for the maximum cached file age from now
+     * @since 6.2.0
+     */
+    @Override
+    public boolean extendExpiration(final ITileSource pTileSource, final long pMapTileIndex, final Long pExpirationTime) {
+        final File file = getFile(pTileSource, pMapTileIndex);
+        if (!file.exists()) {
+            return false;
+        }
+        final long lastModified = pExpirationTime == null
+                ? System.currentTimeMillis() : Math.max(0, pExpirationTime - mMaximumCachedFileAge);
+        return file.setLastModified(lastModified);
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    public File getHttpValidatorsFile(final File pTileFile) {
+        return new File(pTileFile.getPath() + HTTP_VALIDATORS_EXTENSION);
+    }
+
+    /**
+     * Writes the http validators, or deletes the previous ones if none
+     *
+     * @since 6.2.0
+     */
+    private void saveHttpValidators(final File pFile, final String pETag, final String pLastModified) {
+        if (pETag == null && pLastModified == null) {
+            if (pFile.exists()) {
+                pFile.delete();
+            }
+            return;
+        }
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(pFile), "UTF-8");
+            writer.write((pETag == null ? "" : pETag) + "\n" + (pLastModified == null ? "" : pLastModified) + "\n");
+        } catch (final IOException e) {
+            pFile.delete(); // only an optimization
+        } finally {
+            StreamUtils.closeStream(writer);
+        }
+    }
+
     @Override
     public void onDetach() {
 
@@ -153,6 +251,7 @@ public class TileWriter implements IFilesystemCache {
 
         if (file.exists()) {
             try {
+                getHttpValidatorsFile(file).delete();
                 return file.delete();
             } catch (Exception ex) {
                 //potential io exception
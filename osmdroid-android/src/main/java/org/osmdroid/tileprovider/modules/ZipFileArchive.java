@@ -3,8 +3,11 @@ package org.osmdroid.tileprovider.modules;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
+import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.util.ZipTileIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -16,11 +19,24 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
-public class ZipFileArchive implements IArchiveFile {
+public class ZipFileArchive implements IIndexableArchiveFile {
 
     protected ZipFile mZipFile;
     private boolean mIgnoreTileSource = false;
 
+    /**
+     * @since 6.2.0
+     */
+    private Set<String> mPathBases;
+    private int[][] mZoomBounds;
+    private boolean mBoundsUnknown;
+
+    /**
+     * @since 6.2.0
+     */
+    private volatile ZipTileIndex mIndex;
+    private boolean mIndexFailed;
+
     public ZipFileArchive() {
     }
 
@@ -48,6 +64,27 @@ public class ZipFileArchive implements IArchiveFile {
     @Override
     public InputStream getInputStream(final ITileSource pTileSource, final long pMapTileIndex) {
         try {
+            final ZipTileIndex index = getIndex();
+            if (index != null) {
+                if (!mIgnoreTileSource) {
+                    final String path = pTileSource.getTileRelativeFilenameString(pMapTileIndex);
+                    final String pathBase = getPathBase(path);
+                    final int source = pathBase == null ? -1 : index.getSource(pathBase);
+                    if (source >= 0) {
+                        final InputStream inputStream = index.getInputStream(pMapTileIndex, source, path);
+                        if (inputStream != null || index.isComplete()) {
+                            return inputStream;
+                        }
+                    } else if (pathBase != null && index.isComplete()) {
+                        return null;
+                    }
+                } else {
+                    final InputStream inputStream = index.getInputStream(pMapTileIndex, -1, null);
+                    if (inputStream != null || index.isComplete()) {
+                        return inputStream;
+                    }
+                }
+            }
             if (!mIgnoreTileSource) {
                 final String path = pTileSource.getTileRelativeFilenameString(pMapTileIndex);
                 final ZipEntry entry = mZipFile.getEntry(path);
@@ -75,6 +112,29 @@ public class ZipFileArchive implements IArchiveFile {
         return null;
     }
 
+    /**
+     * @return the index built from the central directory, or null if it could not be built
+     * @since 6.2.0
+     */
+    private ZipTileIndex getIndex() {
+        ZipTileIndex index = mIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (mIndex == null && !mIndexFailed) {
+                try {
+                    mIndex = new ZipTileIndex(new File(mZipFile.getName()),
+                            Configuration.getInstance().isTileArchiveMemoryMapped());
+                } catch (final Exception e) {
+                    Log.w(IMapView.LOGTAG, "Error indexing " + this + ", falling back to zip entries", e);
+                    mIndexFailed = true;
+                }
+            }
+            return mIndex;
+        }
+    }
+
     /**
      * @since 6.0
      * Creating paths for ZIP scanning
@@ -108,8 +168,145 @@ public class ZipFileArchive implements IArchiveFile {
         return ret;
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileArea getTileBounds(final int pZoom) {
+        scanEntries();
+        if (mBoundsUnknown) {
+            return null;
+        }
+        final MapTileArea result = new MapTileArea();
+        final int[] bounds = pZoom < mZoomBounds.length ? mZoomBounds[pZoom] : null;
+        if (bounds == null) {
+            return result.reset();
+        }
+        return result.set(pZoom, bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public boolean hasTileSource(final ITileSource pTileSource) {
+        if (mIgnoreTileSource) {
+            return true;
+        }
+        final String pathBase = getPathBase(pTileSource.getTileRelativeFilenameString(MapTileIndex.getTileIndex(0, 0, 0)));
+        if (pathBase == null) {
+            return true;
+        }
+        scanEntries();
+        return mPathBases.contains(pathBase);
+    }
+
+    /**
+     * @return the path without its last 3 segments (zoom, x and y), or null if not possible
+     * @since 6.2.0
+     */
+    private String getPathBase(final String pPath) {
+        int index = pPath.length();
+        for (int i = 0; i < 3; i++) {
+            index = pPath.lastIndexOf('/', index - 1);
+            if (index <= 0) {
+                return null;
+            }
+        }
+        return pPath.substring(0, index);
+    }
+
+    /**
+     * Scan the entries once, for the path bases and the tile bounds of each zoom level
+     *
+     * @since 6.2.0
+     */
+    private synchronized void scanEntries() {
+        if (mPathBases != null) {
+            return;
+        }
+        final ZipTileIndex index = getIndex();
+        if (index != null) {
+            mZoomBounds = new int[MapTileIndex.mMaxZoomLevel + 1][];
+            for (int zoom = 0; zoom < mZoomBounds.length; zoom++) {
+                mZoomBounds[zoom] = index.getTileBounds(zoom);
+            }
+            mBoundsUnknown = !index.isComplete();
+            mPathBases = new HashSet<>(index.getSources());
+            return;
+        }
+        final Set<String> pathBases = new HashSet<>();
+        final int[][] zoomBounds = new int[MapTileIndex.mMaxZoomLevel + 1][];
+        boolean boundsUnknown = false;
+        try {
+            final Enumeration<? extends ZipEntry> entries = mZipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final String name = entry.getName();
+                if (entry.isDirectory() || !name.contains("/")) {
+                    continue;
+                }
+                final String pathBase = getPathBase(name);
+                if (pathBase == null) {
+                    boundsUnknown = true;
+                    continue;
+                }
+                pathBases.add(pathBase);
+                if (!boundsUnknown) {
+                    boundsUnknown = !addTile(zoomBounds, name.substring(pathBase.length() + 1));
+                }
+            }
+        } catch (final Exception e) {
+            Log.w(IMapView.LOGTAG, "Error scanning zip entries: ", e);
+            boundsUnknown = true;
+        }
+        mZoomBounds = zoomBounds;
+        mBoundsUnknown = boundsUnknown;
+        mPathBases = pathBases;
+    }
+
+    /**
+     * @param pTile "zoom/x/y.extension"
+     * @return false if the path could not be parsed
+     * @since 6.2.0
+     */
+    private boolean addTile(final int[][] pZoomBounds, final String pTile) {
+        final String[] segments = pTile.split("/");
+        if (segments.length != 3) {
+            return false;
+        }
+        final int dot = segments[2].indexOf('.');
+        final int zoom;
+        final int x;
+        final int y;
+        try {
+            zoom = Integer.parseInt(segments[0]);
+            x = Integer.parseInt(segments[1]);
+            y = Integer.parseInt(dot < 0 ? segments[2] : segments[2].substring(0, dot));
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+        if (zoom < 0 || zoom >= pZoomBounds.length) {
+            return false;
+        }
+        final int[] bounds = pZoomBounds[zoom];
+        if (bounds == null) {
+            pZoomBounds[zoom] = new int[]{x, y, x, y};
+            return true;
+        }
+        bounds[0] = Math.min(bounds[0], x);
+        bounds[1] = Math.min(bounds[1], y);
+        bounds[2] = Math.max(bounds[2], x);
+        bounds[3] = Math.max(bounds[3], y);
+        return true;
+    }
+
     @Override
     public void close() {
+        final ZipTileIndex index = mIndex;
+        if (index != null) {
+            index.close();
+        }
         try {
             mZipFile.close();
         } catch (IOException e) {
@@ -1,15 +1,24 @@
 package org.osmdroid.tileprovider.tilesource;
 
-import java.util.concurrent.Semaphore;
+import org.osmdroid.util.AdaptiveConcurrencyLimiter;
 
 public abstract class OnlineTileSourceBase extends BitmapTileSourceBase {
 
     private final String[] mBaseUrls;
 
     /**
-     * @since 6.1.0
+     * Initial number of concurrent downloads when the tile source policy sets no max
+     *
+     * @since 6.2.0
+     */
+    public static final int DEFAULT_INITIAL_CONCURRENT = 8;
+
+    /**
+     * Used to be a Semaphore on the tile source policy max
+     *
+     * @since 6.2.0
      */
-    private final Semaphore mSemaphore;
+    private final AdaptiveConcurrencyLimiter mConcurrencyLimiter;
 
     /**
      * @since 6.1.0
@@ -51,11 +60,9 @@ public abstract class OnlineTileSourceBase extends BitmapTileSourceBase {
                 pImageFilenameEnding, pCopyright);
         mBaseUrls = pBaseUrl;
         mTileSourcePolicy = pTileSourcePolicy;
-        if (mTileSourcePolicy.getMaxConcurrent() > 0) {
-            mSemaphore = new Semaphore(mTileSourcePolicy.getMaxConcurrent(), true);
-        } else {
-            mSemaphore = null;
-        }
+        final int maxConcurrent = mTileSourcePolicy.getMaxConcurrent();
+        mConcurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                maxConcurrent > 0 ? maxConcurrent : DEFAULT_INITIAL_CONCURRENT, maxConcurrent);
     }
 
     public abstract String getTileURLString(final long pMapTileIndex);
@@ -75,20 +82,34 @@ public abstract class OnlineTileSourceBase extends BitmapTileSourceBase {
      * @since 6.1.0
      */
     public void acquire() throws InterruptedException {
-        if (mSemaphore == null) {
-            return;
-        }
-        mSemaphore.acquire();
+        mConcurrencyLimiter.acquire();
+    }
+
+    /**
+     * Takes a download slot if any is free, without waiting
+     *
+     * @return false if there is no free slot, or if the server asked us to wait
+     * @since 6.2.0
+     */
+    public boolean tryAcquire() {
+        return mConcurrencyLimiter.tryAcquire();
     }
 
     /**
      * @since 6.1.0
      */
     public void release() {
-        if (mSemaphore == null) {
-            return;
-        }
-        mSemaphore.release();
+        mConcurrencyLimiter.release();
+    }
+
+    /**
+     * Limits the concurrent downloads: never more than the tile source policy max, and fewer
+     * when the server struggles, if adaptive concurrency is enabled in the configuration
+     *
+     * @since 6.2.0
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return mConcurrencyLimiter;
     }
 
     /**
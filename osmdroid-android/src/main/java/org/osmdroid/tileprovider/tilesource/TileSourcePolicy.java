@@ -134,6 +134,24 @@ public class TileSourcePolicy {
         return null;
     }
 
+    /**
+     * @return how long the server asks us to wait (in milliseconds), or null
+     * @since 6.2.0
+     */
+    public Long getHttpRetryAfterDuration(final String pHttpRetryAfterHeader, final long pNow) {
+        if (pHttpRetryAfterHeader == null || pHttpRetryAfterHeader.trim().length() == 0) {
+            return null;
+        }
+        final String value = pHttpRetryAfterHeader.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (final NumberFormatException e) {
+            // not a number of seconds, but probably a date
+        }
+        final Long date = getHttpExpiresTime(value);
+        return date == null ? null : Math.max(0, date - pNow);
+    }
+
     /**
      * @return the expiration time (as Epoch timestamp in milliseconds)
      * @since 6.1.7
@@ -19,6 +19,20 @@ public class Counters {
 
     public static int tileDownloadErrors = 0;
 
+    /**
+     * expired tiles revalidated by the server ("304 Not Modified") instead of downloaded again
+     *
+     * @since 6.2.0
+     */
+    public static int tileDownloadsNotModified = 0;
+
+    /**
+     * tile downloads refused by an overloaded server ("429 Too Many Requests", "503 Service Unavailable")
+     *
+     * @since 6.2.0
+     */
+    public static int tileDownloadsThrottled = 0;
+
     public static int fileCacheSaveErrors = 0;
 
     public static int fileCacheMiss = 0;
@@ -26,6 +40,41 @@ public class Counters {
     public static int fileCacheOOM = 0;
     public static int fileCacheHit = 0;
 
+    /**
+     * number of times the drawing thread had to wait for a lock held by the tile loading threads
+     *
+     * @since 6.2.0
+     */
+    public static int tileDrawWaits = 0;
+
+    /**
+     * number of tile loads that waited for an identical load in progress instead of loading again
+     *
+     * @since 6.2.0
+     */
+    public static int tileLoadsCoalesced = 0;
+
+    /**
+     * bitmaps taken from the {@link org.osmdroid.tileprovider.BitmapPool} instead of allocated
+     *
+     * @since 6.2.0
+     */
+    public static int bitmapPoolHits = 0;
+
+    /**
+     * bitmaps requested to the {@link org.osmdroid.tileprovider.BitmapPool} but not found
+     *
+     * @since 6.2.0
+     */
+    public static int bitmapPoolMisses = 0;
+
+    /**
+     * bitmaps recycled by the {@link org.osmdroid.tileprovider.BitmapPool} because of its memory budget
+     *
+     * @since 6.2.0
+     */
+    public static int bitmapPoolEvictions = 0;
+
     /**
      * @since 6.2.0
      */
@@ -34,19 +83,33 @@ public class Counters {
     public static void printToLogcat() {
         Log.d(TAG, "countOOM " + countOOM);
         Log.d(TAG, "tileDownloadErrors " + tileDownloadErrors);
+        Log.d(TAG, "tileDownloadsNotModified " + tileDownloadsNotModified);
+        Log.d(TAG, "tileDownloadsThrottled " + tileDownloadsThrottled);
         Log.d(TAG, "fileCacheSaveErrors " + fileCacheSaveErrors);
         Log.d(TAG, "fileCacheMiss " + fileCacheMiss);
         Log.d(TAG, "fileCacheOOM " + fileCacheOOM);
         Log.d(TAG, "fileCacheHit " + fileCacheHit);
+        Log.d(TAG, "tileDrawWaits " + tileDrawWaits);
+        Log.d(TAG, "tileLoadsCoalesced " + tileLoadsCoalesced);
+        Log.d(TAG, "bitmapPoolHits " + bitmapPoolHits);
+        Log.d(TAG, "bitmapPoolMisses " + bitmapPoolMisses);
+        Log.d(TAG, "bitmapPoolEvictions " + bitmapPoolEvictions);
     }
 
     public static void reset() {
         countOOM = 0;
         tileDownloadErrors = 0;
+        tileDownloadsNotModified = 0;
+        tileDownloadsThrottled = 0;
         fileCacheSaveErrors = 0;
         fileCacheMiss = 0;
         fileCacheOOM = 0;
         fileCacheHit = 0;
+        tileDrawWaits = 0;
+        tileLoadsCoalesced = 0;
+        bitmapPoolHits = 0;
+        bitmapPoolMisses = 0;
+        bitmapPoolEvictions = 0;
     }
 
     /**
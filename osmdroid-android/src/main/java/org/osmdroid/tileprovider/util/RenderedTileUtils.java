@@ -0,0 +1,87 @@
+package org.osmdroid.tileprovider.util;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.osmdroid.api.IMapView;
+import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
+import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+/**
+ * Helpers for the tiles rendered on the device from local vector data (e.g. MapsForge, GeoPackage
+ * features), so that they are rendered once and then read from the file-system cache.
+ * <p>
+ * Those tiles don't expire by themselves: they change when the source files or the style change.
+ * Both are therefore part of the tile source name used as cache key, and a new version of the files
+ * or the style just means new cache entries; the former ones are never read again, and are eventually
+ * removed by the regular cache cleanup.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class RenderedTileUtils {
+
+    /**
+     * This is a utility class with only static members.
+     */
+    private RenderedTileUtils() {
+    }
+
+    /**
+     * @param pName  the tile source name
+     * @param pStyle anything that changes the rendering: theme, scale, ...
+     * @param pFiles the source files, whose path, size and modification time are taken into account
+     * @return the name to be used as cache key for the rendered tiles
+     */
+    public static String getTileSourceName(final String pName, final String pStyle, final File... pFiles) {
+        final StringBuilder key = new StringBuilder();
+        key.append(pStyle);
+        if (pFiles != null) {
+            for (final File file : pFiles) {
+                if (file == null) {
+                    continue;
+                }
+                key.append('|').append(file.getAbsolutePath())
+                        .append('|').append(file.length())
+                        .append('|').append(file.lastModified());
+            }
+        }
+        return pName + "@" + Integer.toHexString(key.toString().hashCode());
+    }
+
+    /**
+     * Saves a rendered tile in the file-system cache, as PNG
+     *
+     * @return true if saved
+     */
+    public static boolean save(final IFilesystemCache pTileWriter, final ITileSource pTileSource,
+                               final long pMapTileIndex, final Drawable pDrawable) {
+        if (pTileWriter == null || !(pDrawable instanceof BitmapDrawable)) {
+            return false;
+        }
+        final Bitmap bitmap = ((BitmapDrawable) pDrawable).getBitmap();
+        if (bitmap == null) {
+            return false;
+        }
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(stream.toByteArray());
+        try {
+            return pTileWriter.saveFile(pTileSource, pMapTileIndex, inputStream,
+                    System.currentTimeMillis() + OpenStreetMapTileProviderConstants.RENDERED_TILE_EXPIRY_TIME_MILLISECONDS);
+        } catch (Exception ex) {
+            Log.w(IMapView.LOGTAG, "Error storing rendered tile in cache", ex);
+            return false;
+        } finally {
+            StreamUtils.closeStream(inputStream);
+            StreamUtils.closeStream(stream);
+        }
+    }
+}
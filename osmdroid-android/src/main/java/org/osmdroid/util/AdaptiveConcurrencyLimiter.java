@@ -0,0 +1,236 @@
+package org.osmdroid.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Limits the number of concurrent requests to a server, and adapts that limit to how the server
+ * responds (AIMD: additive increase, multiplicative decrease):<ul>
+ * <li>+1 per round of successful requests, as long as the response time stays close to the
+ * lowest response time observed, and as long as the limit is actually reached</li>
+ * <li>x{@link #LATENCY_DECREASE} when the smoothed response time goes beyond
+ * {@link #LATENCY_TOLERANCE} times the lowest one: the server starts queuing.
+ * Not below half the initial limit though, as the response times of some servers (e.g. CDNs)
+ * vary a lot without them being overloaded</li>
+ * <li>x{@link #OVERLOAD_DECREASE} when the server says it's overloaded or times out,
+ * with a pause if the server says how long to wait</li>
+ * </ul>
+ * The limit is never lower than 1, and never higher than the max, if any.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final double LATENCY_TOLERANCE = 2;
+    public static final double LATENCY_DECREASE = .8;
+    public static final double OVERLOAD_DECREASE = .5;
+
+    /**
+     * Weight of the latest response time in the smoothed response time
+     */
+    private static final double SMOOTHING = .2;
+
+    /**
+     * After that many responses, the lowest response time is measured again,
+     * as the network conditions change
+     */
+    private static final int MIN_LATENCY_SAMPLES = 200;
+
+    /**
+     * We don't trust a server that asks us to wait for more than that
+     */
+    private static final long MAX_PAUSE_MILLIS = 10 * 60 * 1000L;
+
+    private final int mMax;
+    private final int mLatencyFloor;
+    private double mLimit;
+    private int mInFlight;
+    private double mLatency = -1;
+    private long mMinLatency = Long.MAX_VALUE;
+    private int mMinLatencySamples;
+    private boolean mDecreased;
+    private long mLastDecrease;
+    private boolean mPaused;
+    private long mPauseEnd;
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    public interface Listener {
+        /**
+         * A slot was freed: {@link #tryAcquire()} may succeed now
+         */
+        void onRelease();
+    }
+
+    /**
+     * @param pInitial initial limit, that stays as is if the server responses are not reported
+     * @param pMax     max limit, or 0 for no max
+     */
+    public AdaptiveConcurrencyLimiter(final int pInitial, final int pMax) {
+        mMax = pMax > 0 ? pMax : Integer.MAX_VALUE;
+        mLimit = Math.max(1, Math.min(mMax, pInitial));
+        mLatencyFloor = Math.max(1, (int) mLimit / 2);
+    }
+
+    /**
+     * @return the current max number of concurrent requests
+     */
+    public synchronized int getLimit() {
+        return (int) mLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return mInFlight;
+    }
+
+    /**
+     * @return the smoothed response time in milliseconds, or -1 if unknown yet
+     */
+    public synchronized long getLatency() {
+        return Math.round(mLatency);
+    }
+
+    /**
+     * @return true if the server asked us to wait before the next request
+     */
+    public boolean shouldWait() {
+        return getPauseMillis(now()) > 0;
+    }
+
+    /**
+     * @return how long in milliseconds the server asked us to wait before the next request, or 0
+     */
+    public long getPauseMillis() {
+        return Math.max(0, getPauseMillis(now()));
+    }
+
+    /**
+     * Takes a free slot if any, without waiting: for the threads that must not be held
+     *
+     * @return false if there is no free slot or if the server asked us to wait
+     */
+    public synchronized boolean tryAcquire() {
+        if (getPauseMillis(now()) > 0) {
+            return false;
+        }
+        if (mInFlight < (int) mLimit) {
+            mInFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Waits for a free slot and for the end of the pause, if any
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (true) {
+            final long pause = getPauseMillis(now());
+            if (pause > 0) {
+                wait(pause);
+                continue;
+            }
+            if (mInFlight < (int) mLimit) {
+                mInFlight++;
+                return;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Frees the slot taken by {@link #acquire()}
+     */
+    public void release() {
+        synchronized (this) {
+            mInFlight--;
+            notifyAll();
+        }
+        for (final Listener listener : mListeners) {
+            listener.onRelease();
+        }
+    }
+
+    public void addListener(final Listener pListener) {
+        mListeners.add(pListener);
+    }
+
+    public void removeListener(final Listener pListener) {
+        mListeners.remove(pListener);
+    }
+
+    /**
+     * The server responded
+     *
+     * @param pLatency response time in milliseconds
+     */
+    public void onResponse(final long pLatency) {
+        onResponse(pLatency, now());
+    }
+
+    /**
+     * The server is overloaded: "429 Too Many Requests", "503 Service Unavailable" or a time-out
+     *
+     * @param pPauseMillis how long the server asked us to wait, or 0
+     */
+    public void onOverload(final long pPauseMillis) {
+        onOverload(pPauseMillis, now());
+    }
+
+    synchronized void onResponse(final long pLatency, final long pNow) {
+        mLatency = mLatency < 0 ? pLatency : SMOOTHING * pLatency + (1 - SMOOTHING) * mLatency;
+        if (++mMinLatencySamples >= MIN_LATENCY_SAMPLES) {
+            mMinLatencySamples = 0;
+            mMinLatency = pLatency;
+        } else if (pLatency < mMinLatency) {
+            mMinLatency = pLatency;
+        }
+        if (mLatency > LATENCY_TOLERANCE * Math.max(1, mMinLatency)) {
+            decrease(LATENCY_DECREASE, mLatencyFloor, pNow);
+            return;
+        }
+        if (mInFlight >= (int) mLimit && mLimit < mMax) { // we don't increase a limit we don't use
+            mLimit = Math.min(mMax, mLimit + 1 / mLimit);
+            notifyAll();
+        }
+    }
+
+    synchronized void onOverload(final long pPauseMillis, final long pNow) {
+        if (pPauseMillis > 0) {
+            final long pauseEnd = pNow + Math.min(MAX_PAUSE_MILLIS, pPauseMillis);
+            mPauseEnd = mPaused ? Math.max(mPauseEnd, pauseEnd) : pauseEnd;
+            mPaused = true;
+        }
+        decrease(OVERLOAD_DECREASE, 1, pNow);
+    }
+
+    synchronized long getPauseMillis(final long pNow) {
+        if (!mPaused) {
+            return 0;
+        }
+        final long result = mPauseEnd - pNow;
+        if (result <= 0) {
+            mPaused = false;
+        }
+        return result;
+    }
+
+    /**
+     * At most one decrease per round of requests, as the requests in flight when the server
+     * starts suffering all report it
+     */
+    private void decrease(final double pFactor, final int pFloor, final long pNow) {
+        final long round = mLatency < 0 ? 0 : Math.round(mLatency);
+        if (mDecreased && pNow - mLastDecrease < round) {
+            return;
+        }
+        mDecreased = true;
+        mLastDecrease = pNow;
+        // a floor above the current limit does not increase it
+        mLimit = Math.max(Math.min(mLimit, pFloor), mLimit * pFactor);
+    }
+
+    private long now() {
+        return System.nanoTime() / 1000000L;
+    }
+}
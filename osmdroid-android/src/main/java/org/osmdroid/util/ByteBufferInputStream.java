@@ -0,0 +1,75 @@
+package org.osmdroid.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link InputStream} that reads the remaining bytes of a {@link ByteBuffer}
+ * (e.g. a slice of a memory-mapped file), without copying them beforehand.
+ * The position of the buffer is moved by the reads: give it a duplicate if needed.
+ * <p>
+ * Do not reference any android specific code in this class, it is copied with {@link GEMFFile}
+ * into the JRE Tile Packager
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer mBuffer;
+    private int mMark = -1;
+
+    public ByteBufferInputStream(final ByteBuffer pBuffer) {
+        mBuffer = pBuffer;
+    }
+
+    @Override
+    public int read() {
+        return mBuffer.hasRemaining() ? mBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] pBuffer, final int pOffset, final int pLength) {
+        if (pLength == 0) {
+            return 0;
+        }
+        final int remaining = mBuffer.remaining();
+        if (remaining == 0) {
+            return -1;
+        }
+        final int length = Math.min(pLength, remaining);
+        mBuffer.get(pBuffer, pOffset, length);
+        return length;
+    }
+
+    @Override
+    public long skip(final long pCount) {
+        if (pCount <= 0) {
+            return 0;
+        }
+        final int count = (int) Math.min(pCount, mBuffer.remaining());
+        mBuffer.position(mBuffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return mBuffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int pReadLimit) {
+        mMark = mBuffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        mBuffer.position(mMark < 0 ? 0 : mMark);
+    }
+}
@@ -8,8 +8,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
@@ -41,6 +46,11 @@ public class GEMFFile {
     private static final int U32_SIZE = 4;
     private static final int U64_SIZE = 8;
 
+    // Memory mappings are limited to 2GB: bigger files are mapped in chunks, that overlap so that
+    // a tile is most likely entirely in one chunk
+    private static final long MAP_CHUNK_SIZE = 1024 * 1024 * 1024; // 1GB
+    private static final long MAP_CHUNK_OVERLAP = 1024 * 1024; // 1MB
+
 
     // ===========================================================
     // Fields
@@ -62,6 +72,12 @@ public class GEMFFile {
     // List of tile sources within this archive
     private final LinkedHashMap<Integer, String> mSources = new LinkedHashMap<Integer, String>();
 
+    // Ranges per zoom level, for the tile lookup
+    private GEMFZoomIndex[] mZoomIndex;
+
+    // Memory mapped chunks of each file, or null if not memory mapped
+    private volatile MappedByteBuffer[][] mMappedFiles;
+
     // Fields to restrict to a single source for reading
     private boolean mSourceLimited = false;
     private int mCurrentSource = 0;
@@ -90,9 +106,27 @@ public class GEMFFile {
      * 		String object representing path to first GEMF archive file
      */
     public GEMFFile(final String pLocation) throws FileNotFoundException, IOException {
+        this(pLocation, false);
+    }
+
+
+    /*
+     * Constructor to read existing GEMF archive, possibly memory mapped
+     *
+     * @param pLocation
+     * 		String object representing path to first GEMF archive file
+     * @param pMemoryMapped
+     * 		true if the files should be memory mapped, cf. getByteBuffer().
+     * 		If the mapping fails (e.g. not enough address space), the files are read as usual.
+     * @since 6.2.0
+     */
+    public GEMFFile(final String pLocation, final boolean pMemoryMapped) throws FileNotFoundException, IOException {
         mLocation = pLocation;
         openFiles();
         readHeader();
+        if (pMemoryMapped) {
+            mapFiles();
+        }
     }
 
 
@@ -417,6 +451,7 @@ public class GEMFFile {
      * Close open GEMF file handles.
      */
     public void close() throws IOException {
+        mMappedFiles = null; // actually unmapped when garbage collected
         for (final RandomAccessFile file : mFiles) {
             file.close();
         }
@@ -495,8 +530,130 @@ public class GEMFFile {
             rs.yMax = baseFile.readInt();
             rs.sourceIndex = baseFile.readInt();
             rs.offset = baseFile.readLong();
+            rs.index = i;
             mRangeData.add(rs);
         }
+
+        buildZoomIndex();
+    }
+
+
+    /*
+     * Group the ranges by zoom level, sorted by xMin.
+     */
+    private void buildZoomIndex() {
+        int maxZoom = -1;
+        for (final GEMFRange rs : mRangeData) {
+            maxZoom = Math.max(maxZoom, rs.zoom);
+        }
+        mZoomIndex = new GEMFZoomIndex[maxZoom + 1];
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            final List<GEMFRange> ranges = new ArrayList<GEMFRange>();
+            for (final GEMFRange rs : mRangeData) {
+                if (rs.zoom == zoom) {
+                    ranges.add(rs);
+                }
+            }
+            if (ranges.size() > 0) {
+                mZoomIndex[zoom] = new GEMFZoomIndex(ranges);
+            }
+        }
+    }
+
+
+    /*
+     * Memory map all the files, in chunks. Silently gives up if the mapping fails.
+     */
+    private void mapFiles() {
+        final MappedByteBuffer[][] mappedFiles = new MappedByteBuffer[mFiles.size()][];
+        try {
+            for (int i = 0; i < mappedFiles.length; i++) {
+                final FileChannel channel = mFiles.get(i).getChannel();
+                final long size = mFileSizes.get(i);
+                final int chunks = (int) Math.max(1, (size + MAP_CHUNK_SIZE - 1) / MAP_CHUNK_SIZE);
+                mappedFiles[i] = new MappedByteBuffer[chunks];
+                for (int j = 0; j < chunks; j++) {
+                    final long start = j * MAP_CHUNK_SIZE;
+                    final long length = Math.min(size - start, MAP_CHUNK_SIZE + MAP_CHUNK_OVERLAP);
+                    mappedFiles[i][j] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                }
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        mMappedFiles = mappedFiles;
+    }
+
+
+    /*
+     * Find the range that contains the tile, with the same priority as in the file order.
+     *
+     * @return the range, or null if not found.
+     */
+    private GEMFRange findRange(final int pX, final int pY, final int pZ) {
+        if (pZ < 0 || pZ >= mZoomIndex.length || mZoomIndex[pZ] == null) {
+            return null;
+        }
+        final GEMFZoomIndex zoomIndex = mZoomIndex[pZ];
+        final GEMFRange[] ranges = zoomIndex.mRanges;
+        // last range with xMin <= pX
+        int low = 0;
+        int high = ranges.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (ranges[middle].xMin <= pX) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        GEMFRange found = null;
+        for (int i = high; i >= 0 && zoomIndex.mMaxXMax[i] >= pX; i--) {
+            final GEMFRange rs = ranges[i];
+            if ((pX <= rs.xMax)
+                    && (pY >= rs.yMin)
+                    && (pY <= rs.yMax)
+                    && ((!mSourceLimited) || (rs.sourceIndex == mCurrentSource))
+                    && (found == null || rs.index < found.index)) {
+                found = rs;
+            }
+        }
+        return found;
+    }
+
+
+    /*
+     * @return the offset of the tile record (data offset and length) in the header
+     */
+    private long getRecordOffset(final GEMFRange pRange, final int pX, final int pY) {
+        final int numY = pRange.yMax + 1 - pRange.yMin;
+        final int xIndex = pX - pRange.xMin;
+        final int yIndex = pY - pRange.yMin;
+        long offset = (xIndex * numY) + yIndex;
+        offset *= (U32_SIZE + U64_SIZE);
+        offset += pRange.offset;
+        return offset;
+    }
+
+
+    /*
+     * @return the memory mapped bytes between pOffset and pOffset + pLength in a file,
+     * or null if not in a single mapped chunk
+     */
+    private ByteBuffer getMappedBuffer(final MappedByteBuffer[] pChunks, final long pOffset, final int pLength) {
+        final int chunk = (int) (pOffset / MAP_CHUNK_SIZE);
+        if (pOffset < 0 || pLength < 0 || chunk >= pChunks.length) {
+            return null;
+        }
+        final int position = (int) (pOffset - chunk * MAP_CHUNK_SIZE);
+        if (position + (long) pLength > pChunks[chunk].capacity()) {
+            return null;
+        }
+        final ByteBuffer buffer = pChunks[chunk].duplicate();
+        buffer.position(position);
+        buffer.limit(position + pLength);
+        return buffer.slice();
     }
 
 
@@ -550,25 +707,113 @@ public class GEMFFile {
         return zoomLevels;
     }
 
+    /*
+     * Return the bounds of the tiles of a zoom level, all sources included,
+     * as {xMin, yMin, xMax, yMax}, or null if there are no tiles for that zoom level.
+     *
+     * @since 6.2.0
+     */
+    public int[] getTileBounds(final int pZoom) {
+        if (pZoom < 0 || pZoom >= mZoomIndex.length || mZoomIndex[pZoom] == null) {
+            return null;
+        }
+        final int[] result = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        for (final GEMFRange rs : mZoomIndex[pZoom].mRanges) {
+            result[0] = Math.min(result[0], rs.xMin);
+            result[1] = Math.min(result[1], rs.yMin);
+            result[2] = Math.max(result[2], rs.xMax);
+            result[3] = Math.max(result[3], rs.yMax);
+        }
+        return result;
+    }
+
+    /*
+     * Returns true if the files are memory mapped.
+     *
+     * @since 6.2.0
+     */
+    public boolean isMemoryMapped() {
+        return mMappedFiles != null;
+    }
+
+    /*
+     * Get the tile data specified by the Z/X/Y coordinates as a read-only ByteBuffer.
+     * If the files are memory mapped, the buffer is a slice of the mapping: no file handle,
+     * no copy. Otherwise (or if the tile is across two mapped chunks) the tile is read into a
+     * new buffer.
+     * Can be called concurrently (without locks if memory mapped).
+     *
+     * @return ByteBuffer of tile data, or null if not found.
+     * @since 6.2.0
+     */
+    public ByteBuffer getByteBuffer(final int pX, final int pY, final int pZ) {
+        final MappedByteBuffer[][] mappedFiles = mMappedFiles;
+        if (mappedFiles == null) {
+            return readByteBuffer(pX, pY, pZ);
+        }
+
+        final GEMFRange range = findRange(pX, pY, pZ);
+        if (range == null) {
+            return null;
+        }
+
+        final ByteBuffer record = getMappedBuffer(
+                mappedFiles[0], getRecordOffset(range, pX, pY), U64_SIZE + U32_SIZE);
+        if (record == null) {
+            return readByteBuffer(pX, pY, pZ);
+        }
+        long dataOffset = record.getLong();
+        final int dataLength = record.getInt();
+
+        // Find the data file, same as in getInputStream()
+        int index = 0;
+        if (dataOffset > mFileSizes.get(0)) {
+            final int fileListCount = mFileSizes.size();
+            while ((index < (fileListCount - 1)) &&
+                    (dataOffset > mFileSizes.get(index))) {
+                dataOffset -= mFileSizes.get(index);
+                index += 1;
+            }
+        }
+
+        final ByteBuffer data = getMappedBuffer(mappedFiles[index], dataOffset, dataLength);
+        if (data == null) {
+            return readByteBuffer(pX, pY, pZ);
+        }
+        return data.asReadOnlyBuffer();
+    }
+
+    /*
+     * Read the tile data into a new ByteBuffer.
+     */
+    private ByteBuffer readByteBuffer(final int pX, final int pY, final int pZ) {
+        final byte[] bits = readBytes(pX, pY, pZ);
+        return bits == null ? null : ByteBuffer.wrap(bits).asReadOnlyBuffer();
+    }
+
     /*
      * Get an InputStream for the tile data specified by the Z/X/Y coordinates.
+     * If the files are memory mapped, the stream reads directly from the mapping.
      *
      * @return InputStream of tile data, or null if not found.
      */
     public InputStream getInputStream(final int pX, final int pY, final int pZ) {
-        GEMFRange range = null;
-
-        for (final GEMFRange rs : mRangeData) {
-            if ((pZ == rs.zoom)
-                    && (pX >= rs.xMin)
-                    && (pX <= rs.xMax)
-                    && (pY >= rs.yMin)
-                    && (pY <= rs.yMax)
-                    && ((!mSourceLimited) || (rs.sourceIndex == mCurrentSource))) {
-                range = rs;
-                break;
-            }
+        if (mMappedFiles != null) {
+            final ByteBuffer buffer = getByteBuffer(pX, pY, pZ);
+            return buffer == null ? null : new ByteBufferInputStream(buffer);
         }
+        final byte[] bits = readBytes(pX, pY, pZ);
+        return bits == null ? null : new ByteArrayInputStream(bits);
+    }
+
+    /*
+     * Read the tile data from the files.
+     * Synchronized because the base file is shared.
+     *
+     * @return the tile data, or null if not found.
+     */
+    private synchronized byte[] readBytes(final int pX, final int pY, final int pZ) {
+        final GEMFRange range = findRange(pX, pY, pZ);
 
         if (range == null) {
             return null;
@@ -576,18 +821,13 @@ public class GEMFFile {
 
         long dataOffset;
         int dataLength;
-        InputStream returnValue = null;
+        byte[] returnValue = null;
         GEMFInputStream stream = null;
         ByteArrayOutputStream byteBuffer = null;
         try {
 
             // Determine offset to requested tile record in the header
-            final int numY = range.yMax + 1 - range.yMin;
-            final int xIndex = pX - range.xMin;
-            final int yIndex = pY - range.yMin;
-            long offset = (xIndex * numY) + yIndex;
-            offset *= (U32_SIZE + U64_SIZE);
-            offset += range.offset;
+            final long offset = getRecordOffset(range, pX, pY);
 
 
             // Read tile record from header, get offset and size of data record
@@ -632,8 +872,7 @@ public class GEMFFile {
             }
 
             // and then we can return your byte array.
-            byte[] bits = byteBuffer.toByteArray();
-            returnValue = new ByteArrayInputStream(bits);
+            returnValue = byteBuffer.toByteArray();
 
         } catch (final java.io.IOException e) {
             e.printStackTrace();
@@ -669,6 +908,7 @@ public class GEMFFile {
         Integer yMax;
         Integer sourceIndex;
         Long offset;
+        int index; // position in the file
 
         @Override
         public String toString() {
@@ -678,6 +918,28 @@ public class GEMFFile {
         }
     }
 
+    // Ranges of a zoom level, sorted by xMin, with the maximum xMax so far for the lookup.
+    private static class GEMFZoomIndex {
+        final GEMFRange[] mRanges;
+        final int[] mMaxXMax;
+
+        GEMFZoomIndex(final List<GEMFRange> pRanges) {
+            mRanges = pRanges.toArray(new GEMFRange[pRanges.size()]);
+            Arrays.sort(mRanges, new Comparator<GEMFRange>() {
+                @Override
+                public int compare(final GEMFRange pRange1, final GEMFRange pRange2) {
+                    return pRange1.xMin.compareTo(pRange2.xMin);
+                }
+            });
+            mMaxXMax = new int[mRanges.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < mRanges.length; i++) {
+                max = Math.max(max, mRanges[i].xMax);
+                mMaxXMax[i] = max;
+            }
+        }
+    }
+
     // InputStream class to hand to the tile loader system. It wants an InputStream, and it is more
     // efficient to create a new open file handle pointed to the right place, than to buffer the file
     // in memory.
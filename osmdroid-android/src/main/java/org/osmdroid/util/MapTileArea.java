@@ -11,7 +11,7 @@ import java.util.Iterator;
  * @since 6.0.3
  */
 
-public class MapTileArea implements MapTileContainer, IterableWithSize<Long> {
+public class MapTileArea implements MapTileContainer, MapTileIndexIterable {
 
     private int mZoom;
     private int mLeft;
@@ -85,13 +85,12 @@ public class MapTileArea implements MapTileContainer, IterableWithSize<Long> {
 
     @Override
     public Iterator<Long> iterator() {
+        final MapTileIndexIterator iterator = tileIndexIterator();
         return new Iterator<Long>() {
 
-            private int mIndex;
-
             @Override
             public boolean hasNext() {
-                return mIndex < size();
+                return iterator.hasNext();
             }
 
             @Override
@@ -99,6 +98,32 @@ public class MapTileArea implements MapTileContainer, IterableWithSize<Long> {
                 if (!hasNext()) {
                     return null;
                 }
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileIndexIterator tileIndexIterator() {
+        return new MapTileIndexIterator() {
+
+            private int mIndex;
+
+            @Override
+            public boolean hasNext() {
+                return mIndex < size();
+            }
+
+            @Override
+            public long next() {
                 int x = mLeft + mIndex % mWidth;
                 int y = mTop + mIndex / mWidth;
                 mIndex++;
@@ -110,11 +135,6 @@ public class MapTileArea implements MapTileContainer, IterableWithSize<Long> {
                 }
                 return MapTileIndex.getTileIndex(mZoom, x, y);
             }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
         };
     }
 
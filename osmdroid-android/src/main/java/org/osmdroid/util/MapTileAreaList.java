@@ -11,7 +11,7 @@ import java.util.List;
  * @since 6.0.3
  */
 
-public class MapTileAreaList implements MapTileContainer, IterableWithSize<Long> {
+public class MapTileAreaList implements MapTileContainer, MapTileIndexIterable {
 
     private final List<MapTileArea> mList = new ArrayList<>();
 
@@ -30,39 +30,51 @@ public class MapTileAreaList implements MapTileContainer, IterableWithSize<Long>
 
     @Override
     public Iterator<Long> iterator() {
+        final MapTileIndexIterator iterator = tileIndexIterator();
         return new Iterator<Long>() {
 
-            private int mIndex;
-            private Iterator<Long> mCurrent;
-
             @Override
             public boolean hasNext() {
-                final Iterator<Long> current = getCurrent();
-                return current != null && current.hasNext();
+                return iterator.hasNext();
             }
 
             @Override
             public Long next() {
-                final long result = getCurrent().next();
-                if (!getCurrent().hasNext()) {
-                    mCurrent = null; // in order to force the next item
-                }
-                return result;
+                return iterator.next();
             }
 
             @Override
             public void remove() {
                 throw new UnsupportedOperationException();
             }
+        };
+    }
 
-            private Iterator<Long> getCurrent() {
-                if (mCurrent != null) {
-                    return mCurrent;
-                }
-                if (mIndex < mList.size()) {
-                    return mCurrent = mList.get(mIndex++).iterator();
+    /**
+     * @since 6.2.0
+     */
+    @Override
+    public MapTileIndexIterator tileIndexIterator() {
+        return new MapTileIndexIterator() {
+
+            private int mIndex;
+            private MapTileIndexIterator mCurrent;
+
+            @Override
+            public boolean hasNext() {
+                while (mCurrent == null || !mCurrent.hasNext()) {
+                    if (mIndex >= mList.size()) {
+                        return false;
+                    }
+                    mCurrent = mList.get(mIndex++).tileIndexIterator();
                 }
-                return null;
+                return true;
+            }
+
+            @Override
+            public long next() {
+                hasNext(); // moving to the next area if needed
+                return mCurrent.next();
             }
         };
     }
@@ -0,0 +1,429 @@
+package org.osmdroid.util;
+
+import org.osmdroid.tileprovider.modules.MapTileExecutors;
+import org.osmdroid.views.MapView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Tiles along a route, within a buffer distance from the route, for a range of zoom levels.
+ * <p>
+ * Each segment of the route is rasterized with its buffer (a square of the buffer size, swept
+ * along the segment) directly into a per-zoom bitmap of tiles, so that the tiles are deduplicated
+ * as we go. The bitmaps are sparse (blocks of 64x64 tiles), whatever the zoom level.
+ * The zoom levels - and the segments of long routes - are computed in parallel.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class MapTileCorridor implements MapTileContainer, MapTileIndexIterable {
+
+    /**
+     * Number of segments below which it's not worth splitting the work of a zoom level
+     */
+    private static final int MIN_SEGMENTS_PER_TASK = 1000;
+
+    private final double[] mX01;
+    private final double[] mY01;
+    private final double[] mLatitudes;
+    private final int mZoomMin;
+    private final int mZoomMax;
+    private final double mBufferMeters;
+    private TileBitmap[] mBitmaps;
+    private int mSize;
+
+    /**
+     * @param pBufferMeters distance from the route to be covered on both sides;
+     *                      0 means only the tiles crossed by the route
+     */
+    public MapTileCorridor(final List<GeoPoint> pGeoPoints, final int pZoomMin, final int pZoomMax,
+                           final double pBufferMeters) {
+        final TileSystem tileSystem = MapView.getTileSystem();
+        final int size = pGeoPoints.size();
+        mX01 = new double[size];
+        mY01 = new double[size];
+        mLatitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            final GeoPoint geoPoint = pGeoPoints.get(i);
+            mLatitudes[i] = geoPoint.getLatitude();
+            mX01[i] = tileSystem.getX01FromLongitude(geoPoint.getLongitude(), true);
+            mY01[i] = tileSystem.getY01FromLatitude(geoPoint.getLatitude(), true);
+        }
+        mZoomMin = pZoomMin;
+        mZoomMax = pZoomMax;
+        mBufferMeters = pBufferMeters;
+    }
+
+    /**
+     * Computes the tiles, in the shared CPU thread pool.
+     * Optional: done on demand anyway, including by {@link #size()}, and therefore not to be called
+     * on the UI thread for long routes.
+     */
+    public synchronized MapTileCorridor compute() {
+        if (mBitmaps != null) {
+            return this;
+        }
+        final int zooms = Math.max(0, mZoomMax - mZoomMin + 1);
+        final TileBitmap[] bitmaps = new TileBitmap[zooms];
+        final int segments = Math.max(1, mX01.length - 1);
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final int chunks = Math.max(1, Math.min(threads, segments / MIN_SEGMENTS_PER_TASK));
+        if (threads == 1 || (zooms <= 1 && chunks == 1)) {
+            for (int i = 0; i < zooms; i++) {
+                bitmaps[i] = rasterize(mZoomMin + i, 0, segments);
+            }
+            setBitmaps(bitmaps);
+            return this;
+        }
+        final Executor executor = MapTileExecutors.getInstance().getCpuExecutor();
+        final List<List<FutureTask<TileBitmap>>> tasks = new ArrayList<>();
+        try {
+            for (int i = zooms - 1; i >= 0; i--) { // the biggest zoom levels first
+                final int zoom = mZoomMin + i;
+                final List<FutureTask<TileBitmap>> zoomTasks = new ArrayList<>();
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    final int from = (int) ((long) segments * chunk / chunks);
+                    final int to = (int) ((long) segments * (chunk + 1) / chunks);
+                    final FutureTask<TileBitmap> task = new FutureTask<>(new Callable<TileBitmap>() {
+                        @Override
+                        public TileBitmap call() {
+                            return rasterize(zoom, from, to);
+                        }
+                    });
+                    executor.execute(task);
+                    zoomTasks.add(task);
+                }
+                tasks.add(zoomTasks);
+            }
+            for (int i = zooms - 1; i >= 0; i--) {
+                TileBitmap bitmap = null;
+                for (final FutureTask<TileBitmap> task : tasks.get(zooms - 1 - i)) {
+                    // the calling thread runs the tasks not started yet, in case the shared pool is busy
+                    task.run();
+                    final TileBitmap chunk = task.get();
+                    if (bitmap == null) {
+                        bitmap = chunk;
+                    } else {
+                        bitmap.or(chunk);
+                    }
+                }
+                bitmaps[i] = bitmap;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (final List<FutureTask<TileBitmap>> zoomTasks : tasks) {
+                for (final FutureTask<TileBitmap> task : zoomTasks) {
+                    task.cancel(false); // no effect on completed tasks
+                }
+            }
+        }
+        setBitmaps(bitmaps);
+        return this;
+    }
+
+    private void setBitmaps(final TileBitmap[] pBitmaps) {
+        int size = 0;
+        for (final TileBitmap bitmap : pBitmaps) {
+            size += bitmap.size();
+        }
+        mSize = size;
+        mBitmaps = pBitmaps;
+    }
+
+    /**
+     * Computes the tiles the first time
+     */
+    @Override
+    public int size() {
+        return compute().mSize;
+    }
+
+    /**
+     * @return the number of tiles for that zoom level
+     */
+    public int size(final int pZoom) {
+        if (pZoom < mZoomMin || pZoom > mZoomMax) {
+            return 0;
+        }
+        return getBitmaps()[pZoom - mZoomMin].size();
+    }
+
+    @Override
+    public boolean contains(final long pTileIndex) {
+        final int zoom = MapTileIndex.getZoom(pTileIndex);
+        if (zoom < mZoomMin || zoom > mZoomMax) {
+            return false;
+        }
+        return getBitmaps()[zoom - mZoomMin].get(MapTileIndex.getX(pTileIndex), MapTileIndex.getY(pTileIndex));
+    }
+
+    /**
+     * Tiles by ascending zoom level
+     */
+    @Override
+    public MapTileIndexIterator tileIndexIterator() {
+        final TileBitmap[] bitmaps = getBitmaps();
+        return new MapTileIndexIterator() {
+
+            private int mIndex;
+            private MapTileIndexIterator mCurrent;
+
+            @Override
+            public boolean hasNext() {
+                while (mCurrent == null || !mCurrent.hasNext()) {
+                    if (mIndex >= bitmaps.length) {
+                        return false;
+                    }
+                    mCurrent = bitmaps[mIndex++].tileIndexIterator();
+                }
+                return true;
+            }
+
+            @Override
+            public long next() {
+                hasNext(); // moving to the next zoom level if needed
+                return mCurrent.next();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        final MapTileIndexIterator iterator = tileIndexIterator();
+        return new Iterator<Long>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private TileBitmap[] getBitmaps() {
+        return compute().mBitmaps;
+    }
+
+    /**
+     * Rasterizes segments [pFrom, pTo[ (a single point route being a segment of length 0)
+     */
+    private TileBitmap rasterize(final int pZoom, final int pFrom, final int pTo) {
+        final TileBitmap bitmap = new TileBitmap(pZoom);
+        if (mX01.length == 0) {
+            return bitmap;
+        }
+        final int tileSize = TileSystem.getTileSize();
+        final double scale = 1 << pZoom;
+        for (int i = pFrom; i < pTo; i++) {
+            final int j = Math.min(i + 1, mX01.length - 1);
+            double bx01 = mX01[j];
+            if (bx01 - mX01[i] > .5) { // taking the short way, across the antimeridian
+                bx01 -= 1;
+            } else if (mX01[i] - bx01 > .5) {
+                bx01 += 1;
+            }
+            // the buffer is the widest at the latitude closest to a pole
+            final double latitude = Math.max(Math.abs(mLatitudes[i]), Math.abs(mLatitudes[j]));
+            final double buffer = mBufferMeters <= 0 ? 0
+                    : mBufferMeters / (TileSystem.GroundResolution(latitude, pZoom) * tileSize);
+            rasterize(bitmap, mX01[i] * scale, mY01[i] * scale, bx01 * scale, mY01[j] * scale, buffer);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Marks the tiles that intersect the segment swept by a square of half-size pBuffer,
+     * one tile row at a time
+     */
+    private void rasterize(final TileBitmap pBitmap, final double pAX, final double pAY,
+                           final double pBX, final double pBY, final double pBuffer) {
+        final int max = pBitmap.mMapTileUpperBound - 1;
+        final int rowMin = (int) Math.max(0, Math.floor(Math.min(pAY, pBY) - pBuffer));
+        final int rowMax = (int) Math.min(max, Math.floor(Math.max(pAY, pBY) + pBuffer));
+        final double dx = pBX - pAX;
+        final double dy = pBY - pAY;
+        for (int row = rowMin; row <= rowMax; row++) {
+            final double low = row - pBuffer;
+            final double high = row + 1 + pBuffer;
+            final double tMin;
+            final double tMax;
+            if (dy == 0) {
+                tMin = 0;
+                tMax = 1;
+            } else {
+                final double t1 = (low - pAY) / dy;
+                final double t2 = (high - pAY) / dy;
+                tMin = Math.max(0, Math.min(t1, t2));
+                tMax = Math.min(1, Math.max(t1, t2));
+                if (tMin > tMax) {
+                    continue;
+                }
+            }
+            final double x1 = pAX + tMin * dx;
+            final double x2 = pAX + tMax * dx;
+            pBitmap.setRow(row,
+                    (long) Math.floor(Math.min(x1, x2) - pBuffer),
+                    (long) Math.floor(Math.max(x1, x2) + pBuffer));
+        }
+    }
+
+    /**
+     * Sparse bitmap of the tiles of a zoom level, by blocks of 64x64 tiles
+     */
+    private static class TileBitmap {
+
+        private static final int BLOCK_SHIFT = 6;
+        private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+        private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+        private final int mZoom;
+        private final int mMapTileUpperBound;
+        private final Map<Long, long[]> mBlocks = new HashMap<>();
+
+        private TileBitmap(final int pZoom) {
+            mZoom = pZoom;
+            mMapTileUpperBound = 1 << pZoom;
+        }
+
+        /**
+         * Sets tiles [pXMin, pXMax] of a row, where x may be beyond the antimeridian
+         */
+        private void setRow(final int pY, final long pXMin, final long pXMax) {
+            if (pXMax - pXMin + 1 >= mMapTileUpperBound) {
+                setRange(pY, 0, mMapTileUpperBound - 1);
+                return;
+            }
+            final int xMin = (int) (((pXMin % mMapTileUpperBound) + mMapTileUpperBound) % mMapTileUpperBound);
+            final int xMax = (int) (xMin + pXMax - pXMin);
+            if (xMax < mMapTileUpperBound) {
+                setRange(pY, xMin, xMax);
+            } else {
+                setRange(pY, xMin, mMapTileUpperBound - 1);
+                setRange(pY, 0, xMax - mMapTileUpperBound);
+            }
+        }
+
+        private void setRange(final int pY, final int pXMin, final int pXMax) {
+            final int blockY = pY >> BLOCK_SHIFT;
+            final int row = pY & BLOCK_MASK;
+            for (int blockX = pXMin >> BLOCK_SHIFT; blockX <= pXMax >> BLOCK_SHIFT; blockX++) {
+                final int first = Math.max(pXMin, blockX << BLOCK_SHIFT) & BLOCK_MASK;
+                final int last = Math.min(pXMax, (blockX << BLOCK_SHIFT) + BLOCK_MASK) & BLOCK_MASK;
+                final long mask = (last == BLOCK_MASK ? -1L : (1L << (last + 1)) - 1) & (-1L << first);
+                getBlock(blockX, blockY)[row] |= mask;
+            }
+        }
+
+        private long[] getBlock(final int pBlockX, final int pBlockY) {
+            final Long key = getKey(pBlockX, pBlockY);
+            long[] block = mBlocks.get(key);
+            if (block == null) {
+                block = new long[BLOCK_SIZE];
+                mBlocks.put(key, block);
+            }
+            return block;
+        }
+
+        private boolean get(final int pX, final int pY) {
+            final long[] block = mBlocks.get(getKey(pX >> BLOCK_SHIFT, pY >> BLOCK_SHIFT));
+            return block != null && (block[pY & BLOCK_MASK] & (1L << (pX & BLOCK_MASK))) != 0;
+        }
+
+        private void or(final TileBitmap pOther) {
+            for (final Map.Entry<Long, long[]> entry : pOther.mBlocks.entrySet()) {
+                final long[] block = mBlocks.get(entry.getKey());
+                if (block == null) {
+                    mBlocks.put(entry.getKey(), entry.getValue());
+                } else {
+                    final long[] other = entry.getValue();
+                    for (int i = 0; i < BLOCK_SIZE; i++) {
+                        block[i] |= other[i];
+                    }
+                }
+            }
+        }
+
+        private int size() {
+            int size = 0;
+            for (final long[] block : mBlocks.values()) {
+                for (final long row : block) {
+                    size += Long.bitCount(row);
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Tiles by block (sorted by y then x), then by y, then by x
+         */
+        private MapTileIndexIterator tileIndexIterator() {
+            final long[] keys = new long[mBlocks.size()];
+            int i = 0;
+            for (final Long key : mBlocks.keySet()) {
+                keys[i++] = key;
+            }
+            Arrays.sort(keys);
+            return new MapTileIndexIterator() {
+
+                private int mKeyIndex = -1;
+                private long[] mBlock;
+                private int mRow;
+                private long mBits;
+
+                @Override
+                public boolean hasNext() {
+                    while (mBits == 0) {
+                        if (mBlock != null && mRow < BLOCK_MASK) {
+                            mBits = mBlock[++mRow];
+                            continue;
+                        }
+                        if (mKeyIndex + 1 >= keys.length) {
+                            return false;
+                        }
+                        mBlock = mBlocks.get(keys[++mKeyIndex]);
+                        mRow = 0;
+                        mBits = mBlock[0];
+                    }
+                    return true;
+                }
+
+                @Override
+                public long next() {
+                    hasNext(); // moving to the next row if needed
+                    final int bit = Long.numberOfTrailingZeros(mBits);
+                    mBits &= mBits - 1;
+                    final long key = keys[mKeyIndex];
+                    final int x = (((int) key) << BLOCK_SHIFT) + bit;
+                    final int y = (((int) (key >> 32)) << BLOCK_SHIFT) + mRow;
+                    return MapTileIndex.getTileIndex(mZoom, x, y);
+                }
+            };
+        }
+
+        private static long getKey(final int pBlockX, final int pBlockY) {
+            return (((long) pBlockY) << 32) | pBlockX;
+        }
+    }
+}
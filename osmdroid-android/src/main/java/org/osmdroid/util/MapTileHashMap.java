@@ -0,0 +1,223 @@
+package org.osmdroid.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An optimized hash map of map tile indices
+ * Open addressing with linear probing on primitive `long` keys:
+ * no boxing and no allocation on lookup, insertion or removal (except when the table is rebuilt).
+ * Removed entries leave a tombstone so that the other entries never move,
+ * which lets callers iterate over the slots while removing items.
+ * Concurrency: writes must be synchronized by the caller, but {@link #get(long)}
+ * and {@link #contains(long)} can be called without any lock, concurrently with a writer:
+ * * a slot key is written once, before its value is published, and never changed afterwards
+ * * tombstones are never reused in place: they are only purged when the table is rebuilt
+ * * a rebuilt table is a new table, published as a whole
+ * A lock-free reader may therefore get a slightly outdated value, but never a value for another key.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileHashMap<T> implements MapTileContainer {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final Object TOMBSTONE = new Object();
+
+    /**
+     * @since 6.2.0
+     */
+    private static class Table {
+        private final long[] mKeys;
+        /**
+         * null for empty slots, {@link #TOMBSTONE} for removed slots
+         */
+        private final AtomicReferenceArray<Object> mValues;
+        private final int mMask;
+        private final int mShift;
+        private final int mThreshold;
+
+        private Table(final int pTableSize) {
+            mKeys = new long[pTableSize];
+            mValues = new AtomicReferenceArray<>(pTableSize);
+            mMask = pTableSize - 1;
+            mShift = 64 - Integer.numberOfTrailingZeros(pTableSize);
+            mThreshold = pTableSize / 4 * 3;
+        }
+
+        /**
+         * Fibonacci hashing: tile indices are very regular, so we spread them before masking
+         */
+        private int getSlot(final long pKey) {
+            return (int) ((pKey * 0x9E3779B97F4A7C15L) >>> mShift);
+        }
+    }
+
+    private volatile Table mTable;
+    private volatile int mSize;
+    private int mTombstones;
+
+    public MapTileHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param pExpectedSize number of items the map should hold without growing
+     */
+    public MapTileHashMap(final int pExpectedSize) {
+        mTable = new Table(getTableSize(pExpectedSize));
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Can be called without lock
+     */
+    @SuppressWarnings("unchecked")
+    public T get(final long pKey) {
+        final Table table = mTable;
+        int slot = table.getSlot(pKey);
+        Object value;
+        while ((value = table.mValues.get(slot)) != null) {
+            // the value was read first, so that the key we read now is the one it was published with
+            if (value != TOMBSTONE && table.mKeys[slot] == pKey) {
+                return (T) value;
+            }
+            slot = (slot + 1) & table.mMask;
+        }
+        return null;
+    }
+
+    /**
+     * Can be called without lock
+     */
+    @Override
+    public boolean contains(final long pKey) {
+        return get(pKey) != null;
+    }
+
+    /**
+     * @param pValue must not be null
+     * @return the previous value for that key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T put(final long pKey, final T pValue) {
+        if (pValue == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        final Table table = mTable;
+        int slot = table.getSlot(pKey);
+        Object value;
+        while ((value = table.mValues.get(slot)) != null) {
+            if (value != TOMBSTONE && table.mKeys[slot] == pKey) {
+                table.mValues.set(slot, pValue);
+                return (T) value;
+            }
+            slot = (slot + 1) & table.mMask;
+        }
+        if (mSize + mTombstones + 1 > table.mThreshold) {
+            rehash();
+            return put(pKey, pValue);
+        }
+        table.mKeys[slot] = pKey;
+        table.mValues.set(slot, pValue);
+        mSize++;
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(final long pKey) {
+        final Table table = mTable;
+        int slot = table.getSlot(pKey);
+        Object value;
+        while ((value = table.mValues.get(slot)) != null) {
+            if (value != TOMBSTONE && table.mKeys[slot] == pKey) {
+                table.mValues.set(slot, TOMBSTONE);
+                mSize--;
+                mTombstones++;
+                return (T) value;
+            }
+            slot = (slot + 1) & table.mMask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        mTable = new Table(mTable.mValues.length());
+        mSize = 0;
+        mTombstones = 0;
+    }
+
+    /**
+     * Iteration over the map without allocation, typically:
+     * <pre>
+     * for (int slot = map.nextSlot(0); slot != -1; slot = map.nextSlot(slot + 1)) {
+     *     final long key = map.getKeyAt(slot);
+     * }
+     * </pre>
+     * Removing items during the iteration is safe; adding items may rebuild the table,
+     * in which case some items may be skipped or visited twice.
+     *
+     * @return the first used slot from pSlot included, or -1 if none
+     */
+    public int nextSlot(final int pSlot) {
+        final AtomicReferenceArray<Object> values = mTable.mValues;
+        for (int i = pSlot; i < values.length(); i++) {
+            final Object value = values.get(i);
+            if (value != null && value != TOMBSTONE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long getKeyAt(final int pSlot) {
+        return mTable.mKeys[pSlot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getValueAt(final int pSlot) {
+        final Object value = mTable.mValues.get(pSlot);
+        return value == TOMBSTONE ? null : (T) value;
+    }
+
+    /**
+     * Builds a new table without tombstones, bigger if needed, and publishes it
+     */
+    private void rehash() {
+        final Table previous = mTable;
+        final int tableSize = mSize + 1 > previous.mThreshold / 2
+                ? previous.mValues.length() * 2 : previous.mValues.length();
+        final Table table = new Table(tableSize);
+        for (int i = 0; i < previous.mValues.length(); i++) {
+            final Object value = previous.mValues.get(i);
+            if (value != null && value != TOMBSTONE) {
+                final long key = previous.mKeys[i];
+                int slot = table.getSlot(key);
+                while (table.mValues.get(slot) != null) {
+                    slot = (slot + 1) & table.mMask;
+                }
+                table.mKeys[slot] = key;
+                table.mValues.lazySet(slot, value);
+            }
+        }
+        mTombstones = 0;
+        mTable = table;
+    }
+
+    /**
+     * @return a power of 2 big enough to contain that many items under a 0.75 load factor
+     */
+    private static int getTableSize(final int pExpectedSize) {
+        int tableSize = MIN_CAPACITY;
+        while (tableSize / 4 * 3 < pExpectedSize) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+}
@@ -0,0 +1,13 @@
+package org.osmdroid.util;
+
+/**
+ * Tiles that can be iterated as primitive map tile indices, in the same order as with
+ * {@link #iterator()}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public interface MapTileIndexIterable extends IterableWithSize<Long> {
+
+    MapTileIndexIterator tileIndexIterator();
+}
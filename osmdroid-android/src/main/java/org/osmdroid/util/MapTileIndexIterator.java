@@ -0,0 +1,17 @@
+package org.osmdroid.util;
+
+/**
+ * Iterator on map tile indices, without boxing: constant memory whatever the number of tiles
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public interface MapTileIndexIterator {
+
+    boolean hasNext();
+
+    /**
+     * @return the next map tile index; undefined if there is no next tile
+     */
+    long next();
+}
@@ -0,0 +1,572 @@
+package org.osmdroid.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Index of the tiles of a ZIP archive, built from the central directory read once.
+ * <p>
+ * Tile entries are named "source/zoom/x/y.extension", "source" being possibly made of several
+ * segments. For each of them we keep in primitive arrays, sorted by tile index:
+ * the source, the offset of the local header, the compressed size and the compression method.
+ * A tile lookup is then a binary search, and the read goes straight to the entry,
+ * through a memory-mapped buffer if wanted and possible.
+ * Only stored and deflated entries are indexed. If some tile entries could not be indexed,
+ * {@link #isComplete()} returns false and the caller should look elsewhere for missing tiles.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class ZipTileIndex {
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_FIELD = 0x0001;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final long U32_MAX = 0xFFFFFFFFL;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final long MAP_CHUNK_SIZE = 1024 * 1024 * 1024; // 1GB
+    private static final long MAP_CHUNK_OVERLAP = 1024 * 1024; // 1MB
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private final List<String> mSources = new ArrayList<>();
+    private final Map<String, Integer> mSourceIndices = new HashMap<>();
+    private final int[][] mZoomBounds = new int[MapTileIndex.mMaxZoomLevel + 1][];
+    private boolean mComplete = true;
+    private int mSize;
+    private long[] mTileIndices = new long[16];
+    private int[] mSourceIds = new int[16];
+    private long[] mOffsets = new long[16];
+    private int[] mCompressedSizes = new int[16];
+    private boolean[] mDeflated = new boolean[16];
+    private volatile MappedByteBuffer[] mMappedChunks;
+
+    /**
+     * @param pMemoryMapped should the tiles be read through memory-mapped buffers
+     * @throws IOException if the file is not a ZIP archive we can read
+     */
+    public ZipTileIndex(final File pFile, final boolean pMemoryMapped) throws IOException {
+        mFile = new RandomAccessFile(pFile, "r");
+        mChannel = mFile.getChannel();
+        try {
+            readCentralDirectory();
+            sort(0, mSize - 1);
+        } catch (final IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (pMemoryMapped) {
+            mapFile();
+        }
+    }
+
+    /**
+     * @return the tile sources (the path before "zoom/x/y.extension"), in the order of the archive
+     */
+    public List<String> getSources() {
+        return Collections.unmodifiableList(mSources);
+    }
+
+    /**
+     * @return the index of the tile source, or -1 if not found
+     */
+    public int getSource(final String pSource) {
+        final Integer result = mSourceIndices.get(pSource);
+        return result == null ? -1 : result;
+    }
+
+    /**
+     * @return false if some tile entries could not be indexed
+     */
+    public boolean isComplete() {
+        return mComplete;
+    }
+
+    /**
+     * @return the number of indexed tiles
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isMemoryMapped() {
+        return mMappedChunks != null;
+    }
+
+    /**
+     * @return {xMin, yMin, xMax, yMax} for the zoom level, or null if there is no indexed tile
+     */
+    public int[] getTileBounds(final int pZoom) {
+        if (pZoom < 0 || pZoom >= mZoomBounds.length || mZoomBounds[pZoom] == null) {
+            return null;
+        }
+        return mZoomBounds[pZoom].clone();
+    }
+
+    /**
+     * @param pSource the tile source index, or -1 for any tile source, the first in the archive order
+     * @param pName   if not null, the expected entry name
+     * @return the uncompressed tile data, or null if not found
+     */
+    public InputStream getInputStream(final long pMapTileIndex, final int pSource, final String pName) throws IOException {
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) { // first entry with that tile index
+            final int middle = (low + high) >>> 1;
+            if (mTileIndices[middle] < pMapTileIndex) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int found = -1;
+        for (int i = low; i < mSize && mTileIndices[i] == pMapTileIndex; i++) {
+            if (pSource >= 0 && mSourceIds[i] != pSource) {
+                continue;
+            }
+            if (pName != null && !pName.equals(readName(mOffsets[i]))) {
+                continue;
+            }
+            if (found == -1 || mSourceIds[i] < mSourceIds[found]
+                    || (mSourceIds[i] == mSourceIds[found] && mOffsets[i] < mOffsets[found])) {
+                found = i;
+            }
+        }
+        if (found == -1) {
+            return null;
+        }
+        return getInputStream(found);
+    }
+
+    public void close() {
+        mMappedChunks = null; // actually unmapped when garbage collected
+        try {
+            mFile.close();
+        } catch (final IOException e) {
+            // nothing to do
+        }
+    }
+
+    /**
+     * @return the uncompressed data of an indexed entry
+     */
+    private InputStream getInputStream(final int pEntry) throws IOException {
+        final long offset = mOffsets[pEntry];
+        final ByteBuffer header = read(offset, LOCAL_FILE_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_FILE_HEADER) {
+            throw new IOException("Bad local header at " + offset);
+        }
+        final long dataOffset = offset + LOCAL_FILE_HEADER_SIZE
+                + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        final int length = mCompressedSizes[pEntry];
+        final InputStream data;
+        final ByteBuffer mapped = getMappedBuffer(dataOffset, length);
+        if (mapped != null) {
+            data = new ByteBufferInputStream(mapped);
+        } else {
+            final ByteBuffer buffer = read(dataOffset, length);
+            data = new ByteArrayInputStream(buffer.array(), 0, length);
+        }
+        return mDeflated[pEntry] ? new RawInflaterInputStream(data) : data;
+    }
+
+    /**
+     * @return the name of the entry, as read in its local header
+     */
+    private String readName(final long pOffset) throws IOException {
+        final ByteBuffer header = read(pOffset, LOCAL_FILE_HEADER_SIZE);
+        final int length = header.getShort(26) & 0xFFFF;
+        final ByteBuffer name = read(pOffset + LOCAL_FILE_HEADER_SIZE, length);
+        return new String(name.array(), 0, length, UTF8);
+    }
+
+    /**
+     * @return the bytes between pOffset and pOffset + pLength, little-endian, backed by an array
+     */
+    private ByteBuffer read(final long pOffset, final int pLength) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(pLength).order(ByteOrder.LITTLE_ENDIAN);
+        long position = pOffset;
+        while (buffer.hasRemaining()) {
+            final int read = mChannel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file at " + position);
+            }
+            position += read;
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        final long fileSize = mChannel.size();
+        final int tailSize = (int) Math.min(fileSize,
+                END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE + ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE);
+        final long tailOffset = fileSize - tailSize;
+        final ByteBuffer tail = read(tailOffset, tailSize);
+        int end = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE;
+        while (end >= 0 && tail.getInt(end) != END_OF_CENTRAL_DIRECTORY) {
+            end--;
+        }
+        if (end < 0) {
+            throw new IOException("No end of central directory");
+        }
+        long entries = tail.getShort(end + 10) & 0xFFFF;
+        long directorySize = tail.getInt(end + 12) & U32_MAX;
+        long directoryOffset = tail.getInt(end + 16) & U32_MAX;
+        final int locator = end - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE;
+        if (locator >= 0 && tail.getInt(locator) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+            final long zip64Offset = tail.getLong(locator + 8);
+            final ByteBuffer zip64 = read(zip64Offset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+            if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new IOException("Bad zip64 end of central directory");
+            }
+            entries = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+        if (directorySize > Integer.MAX_VALUE || directoryOffset + directorySize > fileSize) {
+            throw new IOException("Bad central directory: " + directoryOffset + "/" + directorySize);
+        }
+        // memory-mapped for the duration of the scan only, as it may be big
+        final ByteBuffer directory = mChannel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, directorySize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final byte[] name = new byte[MAX_COMMENT_SIZE];
+        int position = 0;
+        for (long i = 0; i < entries; i++) {
+            if (position + CENTRAL_DIRECTORY_HEADER_SIZE > directorySize
+                    || directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                throw new IOException("Bad central directory header at " + (directoryOffset + position));
+            }
+            final int flags = directory.getShort(position + 8) & 0xFFFF;
+            final int method = directory.getShort(position + 10) & 0xFFFF;
+            long compressedSize = directory.getInt(position + 20) & U32_MAX;
+            final long uncompressedSize = directory.getInt(position + 24) & U32_MAX;
+            final int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            final int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            final int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long offset = directory.getInt(position + 42) & U32_MAX;
+            final int namePosition = position + CENTRAL_DIRECTORY_HEADER_SIZE;
+            position = namePosition + nameLength + extraLength + commentLength;
+            if (compressedSize == U32_MAX || offset == U32_MAX) {
+                int extra = namePosition + nameLength;
+                final int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    final int id = directory.getShort(extra) & 0xFFFF;
+                    final int size = directory.getShort(extra + 2) & 0xFFFF;
+                    if (id == ZIP64_EXTRA_FIELD) {
+                        int field = extra + 4;
+                        if (uncompressedSize == U32_MAX) {
+                            field += 8;
+                        }
+                        if (compressedSize == U32_MAX) {
+                            compressedSize = directory.getLong(field);
+                            field += 8;
+                        }
+                        if (offset == U32_MAX) {
+                            offset = directory.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + size;
+                }
+            }
+            directory.position(namePosition);
+            directory.get(name, 0, nameLength);
+            final boolean supported = (method == STORED || method == DEFLATED)
+                    && (flags & 1) == 0 // not encrypted
+                    && compressedSize <= Integer.MAX_VALUE;
+            add(name, nameLength, supported, method == DEFLATED, offset, (int) compressedSize);
+        }
+    }
+
+    /**
+     * Adds an entry, if it looks like a tile
+     */
+    private void add(final byte[] pName, final int pLength, final boolean pSupported,
+                     final boolean pDeflated, final long pOffset, final int pCompressedSize) {
+        if (pLength == 0 || pName[pLength - 1] == '/') { // directory
+            return;
+        }
+        final int ySlash = lastIndexOf(pName, '/', pLength - 1);
+        if (ySlash < 0) { // not a tile
+            return;
+        }
+        final int xSlash = lastIndexOf(pName, '/', ySlash - 1);
+        final int zoomSlash = xSlash <= 0 ? -1 : lastIndexOf(pName, '/', xSlash - 1);
+        if (zoomSlash <= 0) {
+            mComplete = false;
+            return;
+        }
+        final int source = getSource(pName, zoomSlash);
+        int yEnd = ySlash + 1;
+        while (yEnd < pLength && pName[yEnd] != '.') {
+            yEnd++;
+        }
+        final int zoom = parse(pName, zoomSlash + 1, xSlash);
+        final int x = parse(pName, xSlash + 1, ySlash);
+        final int y = parse(pName, ySlash + 1, yEnd);
+        if (!pSupported || zoom < 0 || zoom > MapTileIndex.mMaxZoomLevel
+                || x < 0 || x >= 1 << zoom || y < 0 || y >= 1 << zoom) {
+            mComplete = false;
+            return;
+        }
+        if (mSize == mTileIndices.length) {
+            final int capacity = mSize * 2;
+            mTileIndices = Arrays.copyOf(mTileIndices, capacity);
+            mSourceIds = Arrays.copyOf(mSourceIds, capacity);
+            mOffsets = Arrays.copyOf(mOffsets, capacity);
+            mCompressedSizes = Arrays.copyOf(mCompressedSizes, capacity);
+            mDeflated = Arrays.copyOf(mDeflated, capacity);
+        }
+        mTileIndices[mSize] = MapTileIndex.getTileIndex(zoom, x, y);
+        mSourceIds[mSize] = source;
+        mOffsets[mSize] = pOffset;
+        mCompressedSizes[mSize] = pCompressedSize;
+        mDeflated[mSize] = pDeflated;
+        mSize++;
+        final int[] bounds = mZoomBounds[zoom];
+        if (bounds == null) {
+            mZoomBounds[zoom] = new int[]{x, y, x, y};
+            return;
+        }
+        bounds[0] = Math.min(bounds[0], x);
+        bounds[1] = Math.min(bounds[1], y);
+        bounds[2] = Math.max(bounds[2], x);
+        bounds[3] = Math.max(bounds[3], y);
+    }
+
+    /**
+     * @return the index of the tile source, created if needed.
+     * The previous entry is very likely to have the same source, so we check it first.
+     */
+    private int getSource(final byte[] pName, final int pLength) {
+        if (mSize > 0) {
+            final int previous = mSourceIds[mSize - 1];
+            final String source = mSources.get(previous);
+            if (source.length() == pLength && matches(source, pName, pLength)) {
+                return previous;
+            }
+        }
+        final String source = new String(pName, 0, pLength, UTF8);
+        final Integer index = mSourceIndices.get(source);
+        if (index != null) {
+            return index;
+        }
+        final int result = mSources.size();
+        mSources.add(source);
+        mSourceIndices.put(source, result);
+        return result;
+    }
+
+    /**
+     * @return true if the bytes are the ASCII characters of the string
+     */
+    private static boolean matches(final String pString, final byte[] pBytes, final int pLength) {
+        for (int i = 0; i < pLength; i++) {
+            if (pBytes[i] < 0 || pString.charAt(i) != pBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lastIndexOf(final byte[] pBytes, final char pChar, final int pFrom) {
+        for (int i = pFrom; i >= 0; i--) {
+            if (pBytes[i] == pChar) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the decimal value, or -1 if not a number
+     */
+    private static int parse(final byte[] pBytes, final int pStart, final int pEnd) {
+        if (pStart >= pEnd || pEnd - pStart > 9) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = pStart; i < pEnd; i++) {
+            final int digit = pBytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the entries by tile index, all arrays together
+     */
+    private void sort(int pLow, int pHigh) {
+        while (pHigh - pLow > 16) {
+            final int middle = (pLow + pHigh) >>> 1;
+            if (mTileIndices[middle] < mTileIndices[pLow]) {
+                swap(middle, pLow);
+            }
+            if (mTileIndices[pHigh] < mTileIndices[pLow]) {
+                swap(pHigh, pLow);
+            }
+            if (mTileIndices[pHigh] < mTileIndices[middle]) {
+                swap(pHigh, middle);
+            }
+            final long pivot = mTileIndices[middle];
+            int i = pLow;
+            int j = pHigh;
+            while (i <= j) {
+                while (mTileIndices[i] < pivot) {
+                    i++;
+                }
+                while (mTileIndices[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // recursion on the smaller part, loop on the bigger one
+            if (j - pLow < pHigh - i) {
+                sort(pLow, j);
+                pLow = i;
+            } else {
+                sort(i, pHigh);
+                pHigh = j;
+            }
+        }
+        for (int i = pLow + 1; i <= pHigh; i++) {
+            for (int j = i; j > pLow && mTileIndices[j] < mTileIndices[j - 1]; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private void swap(final int pA, final int pB) {
+        final long tileIndex = mTileIndices[pA];
+        mTileIndices[pA] = mTileIndices[pB];
+        mTileIndices[pB] = tileIndex;
+        final int source = mSourceIds[pA];
+        mSourceIds[pA] = mSourceIds[pB];
+        mSourceIds[pB] = source;
+        final long offset = mOffsets[pA];
+        mOffsets[pA] = mOffsets[pB];
+        mOffsets[pB] = offset;
+        final int size = mCompressedSizes[pA];
+        mCompressedSizes[pA] = mCompressedSizes[pB];
+        mCompressedSizes[pB] = size;
+        final boolean deflated = mDeflated[pA];
+        mDeflated[pA] = mDeflated[pB];
+        mDeflated[pB] = deflated;
+    }
+
+    /*
+     * Memory map the file, in chunks. Silently gives up if the mapping fails.
+     */
+    private void mapFile() {
+        try {
+            final long size = mChannel.size();
+            final int chunks = (int) Math.max(1, (size + MAP_CHUNK_SIZE - 1) / MAP_CHUNK_SIZE);
+            final MappedByteBuffer[] mappedChunks = new MappedByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                final long start = i * MAP_CHUNK_SIZE;
+                final long length = Math.min(size - start, MAP_CHUNK_SIZE + MAP_CHUNK_OVERLAP);
+                mappedChunks[i] = mChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            mMappedChunks = mappedChunks;
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * @return the memory mapped bytes between pOffset and pOffset + pLength,
+     * or null if not mapped or not in a single mapped chunk
+     */
+    private ByteBuffer getMappedBuffer(final long pOffset, final int pLength) {
+        final MappedByteBuffer[] chunks = mMappedChunks;
+        if (chunks == null) {
+            return null;
+        }
+        final int chunk = (int) (pOffset / MAP_CHUNK_SIZE);
+        if (pOffset < 0 || pLength < 0 || chunk >= chunks.length) {
+            return null;
+        }
+        final int position = (int) (pOffset - chunk * MAP_CHUNK_SIZE);
+        if (position + (long) pLength > chunks[chunk].capacity()) {
+            return null;
+        }
+        final ByteBuffer buffer = chunks[chunk].duplicate();
+        buffer.position(position);
+        buffer.limit(position + pLength);
+        return buffer.slice();
+    }
+
+    /**
+     * Inflates raw deflate data, as in ZIP entries; releases the native inflater when closed
+     */
+    private static class RawInflaterInputStream extends InflaterInputStream {
+
+        private boolean mEof;
+
+        private RawInflaterInputStream(final InputStream pInputStream) {
+            super(pInputStream, new Inflater(true), 4096);
+        }
+
+        /**
+         * With "nowrap" the inflater may need an extra dummy byte, cf. {@link Inflater#Inflater(boolean)}
+         */
+        @Override
+        protected void fill() throws IOException {
+            if (mEof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                mEof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            inf.end();
+            super.close();
+        }
+    }
+}
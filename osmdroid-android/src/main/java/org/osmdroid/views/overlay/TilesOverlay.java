@@ -177,7 +177,7 @@ public class TilesOverlay extends Overlay implements IOverlayMenuProvider {
         }
         TileSystem.getTileFromMercator(mViewPort, TileSystem.getTileSize(mProjection.getZoomLevel()), mProtectedTiles);
         final int tileZoomLevel = TileSystem.getInputTileZoomLevel(mProjection.getZoomLevel());
-        mTileProvider.getTileCache().getMapTileArea().set(tileZoomLevel, mProtectedTiles);
+        mTileProvider.getTileCache().setMapTileArea(tileZoomLevel, mProtectedTiles);
         mTileProvider.getTileCache().maintenance();
     }
 
@@ -0,0 +1,102 @@
+package org.osmdroid.tileprovider;
+
+import android.graphics.Bitmap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.util.Counters;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Unit tests related to {@link BitmapPool}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class BitmapPoolTest {
+
+    private static final int SIZE = 256;
+
+    private final BitmapPool mPool = BitmapPool.getInstance();
+
+    @Before
+    public void setUp() {
+        mPool.clearBitmapPool();
+        Counters.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Configuration.getInstance().setBitmapPoolMemoryFraction(0.0625f);
+        mPool.clearBitmapPool();
+    }
+
+    /**
+     * A pooled bitmap is reused for the same size, and for smaller sizes of the next size class
+     */
+    @Test
+    public void testReuse() {
+        Assert.assertNull(mPool.obtainSizedBitmapFromPool(SIZE, SIZE));
+        Assert.assertEquals(1, Counters.bitmapPoolMisses);
+
+        final Bitmap bitmap = createAndReturn(SIZE);
+        Assert.assertEquals(1, mPool.getSize());
+        Assert.assertSame(bitmap, mPool.obtainSizedBitmapFromPool(SIZE, SIZE));
+        Assert.assertEquals(1, Counters.bitmapPoolHits);
+        Assert.assertEquals(0, mPool.getSize());
+        Assert.assertEquals(0, mPool.getBytes());
+
+        returnToPool(bitmap);
+        final Bitmap smaller = mPool.obtainSizedBitmapFromPool(SIZE - 56, SIZE - 56);
+        Assert.assertSame(bitmap, smaller);
+        Assert.assertEquals(SIZE - 56, smaller.getWidth());
+        Assert.assertEquals(SIZE - 56, smaller.getHeight());
+
+        returnToPool(smaller);
+        Assert.assertNull(mPool.obtainSizedBitmapFromPool(SIZE + 1, SIZE)); // too big
+        Assert.assertNull(mPool.obtainSizedBitmapFromPool(SIZE / 4, SIZE / 4)); // too much waste
+        Assert.assertNull(mPool.obtainSizedBitmapFromPool(SIZE, SIZE, Bitmap.Config.RGB_565)); // other config
+        Assert.assertEquals(1, mPool.getSize());
+    }
+
+    /**
+     * The pool doesn't grow beyond its memory budget: the oldest bitmaps are recycled
+     */
+    @Test
+    public void testBudget() {
+        final long bytes = SIZE * SIZE * 4;
+        final int budget = 3;
+        Configuration.getInstance().setBitmapPoolMemoryFraction(
+                (budget + .5f) * bytes / Runtime.getRuntime().maxMemory());
+        final Bitmap first = createAndReturn(SIZE);
+        for (int i = 1; i < budget + 2; i++) {
+            createAndReturn(SIZE);
+        }
+        Assert.assertEquals(budget, mPool.getSize());
+        Assert.assertEquals(budget * bytes, mPool.getBytes());
+        Assert.assertEquals(2, Counters.bitmapPoolEvictions);
+        Assert.assertTrue(first.isRecycled());
+
+        Configuration.getInstance().setBitmapPoolMemoryFraction(0);
+        final Bitmap bitmap = createAndReturn(SIZE);
+        Assert.assertTrue(bitmap.isRecycled());
+    }
+
+    private Bitmap createAndReturn(final int pSize) {
+        final Bitmap bitmap = Bitmap.createBitmap(pSize, pSize, Bitmap.Config.ARGB_8888);
+        returnToPool(bitmap);
+        return bitmap;
+    }
+
+    private void returnToPool(final Bitmap pBitmap) {
+        mPool.returnDrawableToPool(new ReusableBitmapDrawable(pBitmap));
+    }
+}
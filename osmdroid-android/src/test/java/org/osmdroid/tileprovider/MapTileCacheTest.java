@@ -1,15 +1,20 @@
 package org.osmdroid.tileprovider;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
 import org.osmdroid.util.MapTileArea;
 import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +26,8 @@ import java.util.List;
  * @since 6.0.0
  */
 
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
 public class MapTileCacheTest {
 
     private final int mZoom = 10;
@@ -82,6 +89,79 @@ public class MapTileCacheTest {
         Assert.assertEquals(0, mapTileCache.getSize());
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Test
+    public void testByteBudget() {
+        final int tileSize = 256;
+        final int tiles = 20;
+        final int kept = 5;
+        final MapTileCache mapTileCache = new MapTileCache(1);
+        final MapTileArea mapTileArea = mapTileCache.getMapTileArea();
+        long tileBytes = 0;
+        for (int i = 0; i < tiles; i++) {
+            // alternatively normal and "retina" tiles
+            final int size = i % 2 == 0 ? tileSize : 2 * tileSize;
+            final Drawable drawable = new BitmapDrawable(Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+            tileBytes = Math.max(tileBytes, MapTileCache.getSizeInBytes(drawable));
+            mapTileCache.putTile(getMapTileIndex(i), drawable);
+        }
+        final long total = mapTileCache.getSizeInBytes();
+        Assert.assertTrue(total > 0);
+        mapTileArea.set(mZoom, 0, 0, 0, kept - 1);
+
+        // big budget: no tiles are removed, even if the tile count capacity is exceeded
+        mapTileCache.setMaxBytes(total);
+        mapTileCache.garbageCollection();
+        Assert.assertEquals(tiles, mapTileCache.getSize());
+
+        // small budget: unprotected tiles are removed until the budget is met
+        final long budget = total / 2;
+        mapTileCache.setMaxBytes(budget);
+        mapTileCache.garbageCollection();
+        Assert.assertTrue(mapTileCache.getSizeInBytes() <= budget);
+        Assert.assertTrue(mapTileCache.getSizeInBytes() > budget - tileBytes);
+
+        // tiny budget: only the protected tiles are kept
+        mapTileCache.setMaxBytes(1);
+        mapTileCache.garbageCollection();
+        Assert.assertEquals(kept, mapTileCache.getSize());
+        for (int i = 0; i < kept; i++) {
+            Assert.assertNotNull(mapTileCache.getMapTile(getMapTileIndex(i)));
+        }
+
+        mapTileCache.clear();
+        Assert.assertEquals(0, mapTileCache.getSizeInBytes());
+    }
+
+    /**
+     * A bitmap shared by several tiles is counted once, and a recycled bitmap is removed with its recorded size
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testSizeInBytes() {
+        final MapTileCache mapTileCache = new MapTileCache(10);
+        final Drawable shared = new BitmapDrawable(Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888));
+        final long bytes = MapTileCache.getSizeInBytes(shared);
+        Assert.assertTrue(bytes > 0);
+        mapTileCache.putTile(getMapTileIndex(0), shared);
+        mapTileCache.putTile(getMapTileIndex(1), shared);
+        Assert.assertEquals(bytes, mapTileCache.getSizeInBytes());
+        mapTileCache.remove(getMapTileIndex(0));
+        Assert.assertEquals(bytes, mapTileCache.getSizeInBytes());
+        mapTileCache.remove(getMapTileIndex(1));
+        Assert.assertEquals(0, mapTileCache.getSizeInBytes());
+
+        final BitmapDrawable recycled = new BitmapDrawable(Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888));
+        mapTileCache.putTile(getMapTileIndex(2), recycled);
+        Assert.assertEquals(bytes, mapTileCache.getSizeInBytes());
+        recycled.getBitmap().recycle();
+        mapTileCache.remove(getMapTileIndex(2));
+        Assert.assertEquals(0, mapTileCache.getSizeInBytes());
+    }
+
     private long getMapTileIndex(final int pIndex) {
         return MapTileIndex.getTileIndex(mZoom, 0, pIndex);
     }
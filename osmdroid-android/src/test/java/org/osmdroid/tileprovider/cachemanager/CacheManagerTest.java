@@ -6,6 +6,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
 import org.osmdroid.util.IterableWithSize;
 import org.osmdroid.util.MapTileIndex;
 import org.osmdroid.util.MyMath;
@@ -14,6 +15,8 @@ import org.osmdroid.views.MapView;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -137,4 +140,134 @@ public class CacheManagerTest {
             Assert.assertEquals(maxSize, rect.right);
         }
     }
+
+    /**
+     * Make sure the lazy coverage of a list of points returns the same tiles as
+     * {@link CacheManager#getTilesCoverage(ArrayList, int)}, zoom level after zoom level
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testGetTilesCoverageIterableGeoPoints() {
+        final ArrayList<GeoPoint> geoPoints = new ArrayList<>();
+        geoPoints.add(new GeoPoint(52.95, 13.35));
+        geoPoints.add(new GeoPoint(52.90, 13.40));
+        geoPoints.add(new GeoPoint(52.88, 13.60));
+        final int zoomMin = 8;
+        final int zoomMax = 14;
+        final IterableWithSize<Long> iterable = CacheManager.getTilesCoverageIterable(geoPoints, zoomMin, zoomMax);
+        final Iterator<Long> iterator = iterable.iterator();
+        int total = 0;
+        for (int zoom = zoomMin; zoom <= zoomMax; zoom++) {
+            final Collection<Long> expected = CacheManager.getTilesCoverage(geoPoints, zoom);
+            final Set<Long> actual = new LinkedHashSet<>();
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertTrue(iterator.hasNext());
+                final long tile = iterator.next();
+                Assert.assertEquals(zoom, MapTileIndex.getZoom(tile));
+                actual.add(tile);
+            }
+            Assert.assertEquals(expected.size(), actual.size());
+            Assert.assertTrue(actual.containsAll(expected));
+            total += expected.size();
+        }
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(total, iterable.size());
+    }
+
+    /**
+     * Tiles completed in any order: the checkpoint is the end of the completed prefix,
+     * and a new iteration resumes from there
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testTileIteration() {
+        final BoundingBox boundingBox = new BoundingBox(52.95131467958858, 13.6473953271975,
+                52.886830733534954, 13.3473953271975);
+        final IterableWithSize<Long> tiles = CacheManager.getTilesCoverageIterable(boundingBox, 10, 11);
+        final List<Long> expected = new ArrayList<>();
+        for (final Long tile : tiles) {
+            expected.add(tile);
+        }
+        Assert.assertTrue(expected.size() > 5);
+
+        final long[] tile = new long[1];
+        final CacheManager.TileIteration iteration = new CacheManager.TileIteration(tiles, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i, iteration.next(tile));
+            Assert.assertEquals((long) expected.get(i), tile[0]);
+        }
+        iteration.done(1, false);
+        iteration.done(2, true);
+        Assert.assertEquals(0, iteration.getCheckpoint());
+        iteration.done(0, false);
+        Assert.assertEquals(3, iteration.getCheckpoint());
+        Assert.assertEquals(4, iteration.done(4, false));
+        Assert.assertEquals(3, iteration.getCheckpoint());
+        Assert.assertEquals(1, iteration.getErrors());
+
+        final CacheManager.TileIteration resumed = new CacheManager.TileIteration(tiles, 3, 1);
+        Assert.assertEquals(3, resumed.next(tile));
+        Assert.assertEquals((long) expected.get(3), tile[0]);
+        Assert.assertEquals(4, resumed.done(3, false));
+        Assert.assertEquals(4, resumed.getCheckpoint());
+        int count = 1;
+        while (resumed.next(tile) != -1) {
+            count++;
+        }
+        Assert.assertEquals(expected.size() - 3, count);
+        resumed.abort();
+    }
+
+    /**
+     * Only the errors up to the checkpoint are saved: the tiles beyond are processed again when resumed
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testTileIterationErrors() {
+        final BoundingBox boundingBox = new BoundingBox(52.95131467958858, 13.6473953271975,
+                52.886830733534954, 13.3473953271975);
+        final IterableWithSize<Long> tiles = CacheManager.getTilesCoverageIterable(boundingBox, 10, 11);
+        final long[] tile = new long[1];
+        final CacheManager.TileIteration iteration = new CacheManager.TileIteration(tiles, 0, 2);
+        for (int i = 0; i < 4; i++) {
+            iteration.next(tile);
+        }
+        iteration.done(0, true);
+        iteration.done(2, true);
+        iteration.done(3, true);
+        Assert.assertEquals(1, iteration.getCheckpoint());
+        Assert.assertEquals(5, iteration.getErrors());
+        Assert.assertEquals(3, iteration.getCheckpointErrors());
+        iteration.done(1, false);
+        Assert.assertEquals(4, iteration.getCheckpoint());
+        Assert.assertEquals(5, iteration.getCheckpointErrors());
+        iteration.abort();
+    }
+
+    /**
+     * The journal is only considered for the same job
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testJournal() throws IOException {
+        final File file = File.createTempFile("osmdroid", ".journal");
+        file.delete();
+        final CacheManagerJournal journal = new CacheManagerJournal(file);
+        Assert.assertFalse(journal.load("job"));
+        journal.save("job", 1234, 5);
+        Assert.assertTrue(file.exists());
+
+        final CacheManagerJournal other = new CacheManagerJournal(file);
+        Assert.assertFalse(other.load("other job"));
+        Assert.assertEquals(0, other.getProcessed());
+        Assert.assertTrue(other.load("job"));
+        Assert.assertEquals(1234, other.getProcessed());
+        Assert.assertEquals(5, other.getErrors());
+        other.delete();
+        Assert.assertFalse(file.exists());
+    }
 }
@@ -0,0 +1,155 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests related to {@link HttpURLConnectionTileTransport}, against a local stub tile server
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class HttpURLConnectionTileTransportTest {
+
+    private final ITileHttpTransport mTransport = new HttpURLConnectionTileTransport();
+    private final Map<String, String> mRequestProperties = new HashMap<>();
+    private DataTileServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new DataTileServer();
+        mRequestProperties.put("User-Agent", "osmdroid-test");
+    }
+
+    @After
+    public void tearDown() {
+        mServer.close();
+    }
+
+    /**
+     * Tiles with and without Content-Length, and errors, all on the same connection
+     */
+    @Test
+    public void testKeepAlive() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            final int size = 1000 + i * 100;
+            final ITileHttpTransport.Response response = mTransport.get(mServer.getUrl("/tile/" + size), mRequestProperties);
+            try {
+                Assert.assertEquals(200, response.getCode());
+                Assert.assertEquals(size, response.getContentLength());
+                Assert.assertArrayEquals(DataTileServer.getData(size), read(response.getBody()));
+            } finally {
+                response.close();
+            }
+        }
+
+        final ITileHttpTransport.Response chunked = mTransport.get(mServer.getUrl("/chunked/5000"), mRequestProperties);
+        try {
+            Assert.assertEquals(200, chunked.getCode());
+            Assert.assertEquals(-1, chunked.getContentLength());
+            Assert.assertArrayEquals(DataTileServer.getData(5000), read(chunked.getBody()));
+        } finally {
+            chunked.close();
+        }
+
+        final ITileHttpTransport.Response missing = mTransport.get(mServer.getUrl("/missing"), mRequestProperties);
+        try {
+            Assert.assertEquals(404, missing.getCode());
+        } finally {
+            missing.close(); // body not read by the caller, but drained
+        }
+
+        final ITileHttpTransport.Response last = mTransport.get(mServer.getUrl("/tile/10"), mRequestProperties);
+        try {
+            Assert.assertEquals(200, last.getCode());
+            Assert.assertEquals("osmdroid-test", last.getHeader("X-User-Agent"));
+        } finally {
+            last.close();
+        }
+        Assert.assertEquals(1, mServer.getConnections());
+    }
+
+    private byte[] read(final InputStream pInputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = pInputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * "/tile/size" and "/chunked/size" return size bytes, anything else is a 404;
+     * the User-Agent of the request is sent back as X-User-Agent
+     */
+    private static class DataTileServer extends StubTileServer {
+
+        private DataTileServer() throws IOException {
+            super();
+        }
+
+        private static byte[] getData(final int pSize) {
+            final byte[] result = new byte[pSize];
+            for (int i = 0; i < pSize; i++) {
+                result[i] = (byte) (i * 7 + pSize);
+            }
+            return result;
+        }
+
+        @Override
+        protected void respond(final String pPath, final Map<String, String> pHeaders,
+                               final OutputStream pOutputStream) throws IOException {
+            final String[] segments = pPath.split("/");
+            final StringBuilder response = new StringBuilder();
+            final byte[] body;
+            boolean chunked = false;
+            if (segments.length == 3 && ("tile".equals(segments[1]) || "chunked".equals(segments[1]))) {
+                body = getData(Integer.parseInt(segments[2]));
+                chunked = "chunked".equals(segments[1]);
+                response.append("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\n");
+            } else {
+                body = "Not found".getBytes("US-ASCII");
+                response.append("HTTP/1.1 404 Not Found\r\nContent-Type: text/plain\r\n");
+            }
+            final String userAgent = pHeaders.get("user-agent");
+            if (userAgent != null) {
+                response.append("X-User-Agent: ").append(userAgent).append("\r\n");
+            }
+            if (chunked) {
+                response.append("Transfer-Encoding: chunked\r\n\r\n");
+                pOutputStream.write(response.toString().getBytes("US-ASCII"));
+                final int half = body.length / 2;
+                writeChunk(pOutputStream, body, 0, half);
+                writeChunk(pOutputStream, body, half, body.length - half);
+                pOutputStream.write("0\r\n\r\n".getBytes("US-ASCII"));
+            } else {
+                response.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+                pOutputStream.write(response.toString().getBytes("US-ASCII"));
+                pOutputStream.write(body);
+            }
+        }
+
+        private void writeChunk(final OutputStream pOutputStream, final byte[] pData, final int pOffset, final int pLength)
+                throws IOException {
+            pOutputStream.write((Integer.toHexString(pLength) + "\r\n").getBytes("US-ASCII"));
+            pOutputStream.write(pData, pOffset, pLength);
+            pOutputStream.write("\r\n".getBytes("US-ASCII"));
+        }
+    }
+}
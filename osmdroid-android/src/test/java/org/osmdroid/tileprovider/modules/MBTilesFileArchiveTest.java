@@ -0,0 +1,206 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.util.MapTileArea;
+import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Unit tests related to {@link MBTilesFileArchive}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class MBTilesFileArchiveTest {
+
+    private static final int ZOOM = 5;
+    private static final int SIZE = 4;
+
+    private final ITileSource mTileSource = TileSourceFactory.MAPNIK;
+    private File mFile;
+
+    @After
+    public void tearDown() {
+        if (mFile != null) {
+            mFile.delete();
+        }
+    }
+
+    /**
+     * Single tile reads, in Google Tiling Spec
+     */
+    @Test
+    public void testGetInputStream() throws Exception {
+        final MBTilesFileArchive archive = open(true);
+        try {
+            Assert.assertTrue(archive.hasTileIndex());
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    final InputStream inputStream = archive.getInputStream(mTileSource, MapTileIndex.getTileIndex(ZOOM, x, y));
+                    Assert.assertNotNull(inputStream);
+                    Assert.assertArrayEquals(getData(x, y), read(inputStream));
+                }
+            }
+            Assert.assertNull(archive.getInputStream(mTileSource, MapTileIndex.getTileIndex(ZOOM, SIZE, 0)));
+            Assert.assertNull(archive.getInputStream(mTileSource, MapTileIndex.getTileIndex(ZOOM + 1, 0, 0)));
+        } finally {
+            archive.close();
+        }
+    }
+
+    /**
+     * Range reads return the tiles of the area, and only them
+     */
+    @Test
+    public void testGetTiles() throws Exception {
+        final MBTilesFileArchive archive = open(true);
+        try {
+            final Map<Long, byte[]> tiles = new HashMap<>();
+            final MBTilesFileArchive.TileCallback callback = new MBTilesFileArchive.TileCallback() {
+                @Override
+                public void onTile(final long pMapTileIndex, final byte[] pData) {
+                    tiles.put(pMapTileIndex, pData);
+                }
+            };
+            final MapTileArea area = new MapTileArea().set(ZOOM, 1, 2, 2, SIZE + 5);
+            Assert.assertEquals(4, archive.getTiles(area, callback));
+            Assert.assertEquals(4, tiles.size());
+            for (int x = 1; x <= 2; x++) {
+                for (int y = 2; y < SIZE; y++) {
+                    Assert.assertArrayEquals(getData(x, y), tiles.get(MapTileIndex.getTileIndex(ZOOM, x, y)));
+                }
+            }
+
+            tiles.clear();
+            final int max = (1 << ZOOM) - 1;
+            final MapTileArea wrapping = new MapTileArea().set(ZOOM, max, 0, 0, 0);
+            Assert.assertEquals(1, archive.getTiles(wrapping, callback));
+            Assert.assertArrayEquals(getData(0, 0), tiles.get(MapTileIndex.getTileIndex(ZOOM, 0, 0)));
+        } finally {
+            archive.close();
+        }
+    }
+
+    /**
+     * Tiles are still read without the index, which is detected
+     */
+    @Test
+    public void testNoIndex() throws Exception {
+        final MBTilesFileArchive archive = open(false);
+        try {
+            Assert.assertFalse(archive.hasTileIndex());
+            final InputStream inputStream = archive.getInputStream(mTileSource, MapTileIndex.getTileIndex(ZOOM, 1, 1));
+            Assert.assertNotNull(inputStream);
+            Assert.assertArrayEquals(getData(1, 1), read(inputStream));
+        } finally {
+            archive.close();
+        }
+    }
+
+    /**
+     * The stream supports mark, so that tiles bigger than the nominal tile size are decoded with their real size
+     */
+    @Test
+    public void testBigTile() throws Exception {
+        final int size = 512;
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        Assert.assertTrue(ImageIO.write(image, "png", png));
+        final long index = MapTileIndex.getTileIndex(ZOOM, 0, 0);
+        final MBTilesFileArchive archive = open(true, index, png.toByteArray());
+        try {
+            final InputStream inputStream = archive.getInputStream(mTileSource, index);
+            Assert.assertNotNull(inputStream);
+            Assert.assertTrue(inputStream.markSupported());
+            Assert.assertEquals(256, mTileSource.getTileSizePixels());
+            final Drawable drawable = mTileSource.getDrawable(inputStream);
+            Assert.assertNotNull(drawable);
+            Assert.assertEquals(size, ((BitmapDrawable) drawable).getBitmap().getWidth());
+        } finally {
+            archive.close();
+        }
+    }
+
+    private MBTilesFileArchive open(final boolean pIndex) throws IOException {
+        return open(pIndex, -1, null);
+    }
+
+    /**
+     * @param pMapTileIndex a tile whose data is replaced by pData, or -1 for none
+     */
+    private MBTilesFileArchive open(final boolean pIndex, final long pMapTileIndex, final byte[] pData) throws IOException {
+        mFile = File.createTempFile("osmdroid", ".mbtiles");
+        mFile.delete();
+        final SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(mFile, null);
+        try {
+            db.execSQL("CREATE TABLE " + MBTilesFileArchive.TABLE_TILES + " ("
+                    + MBTilesFileArchive.COL_TILES_ZOOM_LEVEL + " INTEGER, "
+                    + MBTilesFileArchive.COL_TILES_TILE_COLUMN + " INTEGER, "
+                    + MBTilesFileArchive.COL_TILES_TILE_ROW + " INTEGER, "
+                    + MBTilesFileArchive.COL_TILES_TILE_DATA + " BLOB)");
+            if (pIndex) {
+                db.execSQL("CREATE UNIQUE INDEX tile_index ON " + MBTilesFileArchive.TABLE_TILES + " ("
+                        + MBTilesFileArchive.COL_TILES_ZOOM_LEVEL + ", "
+                        + MBTilesFileArchive.COL_TILES_TILE_COLUMN + ", "
+                        + MBTilesFileArchive.COL_TILES_TILE_ROW + ")");
+            }
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    final ContentValues values = new ContentValues();
+                    values.put(MBTilesFileArchive.COL_TILES_ZOOM_LEVEL, ZOOM);
+                    values.put(MBTilesFileArchive.COL_TILES_TILE_COLUMN, x);
+                    values.put(MBTilesFileArchive.COL_TILES_TILE_ROW, (1 << ZOOM) - 1 - y); // TMS
+                    values.put(MBTilesFileArchive.COL_TILES_TILE_DATA,
+                            MapTileIndex.getTileIndex(ZOOM, x, y) == pMapTileIndex ? pData : getData(x, y));
+                    db.insert(MBTilesFileArchive.TABLE_TILES, null, values);
+                }
+            }
+        } finally {
+            db.close();
+        }
+        return MBTilesFileArchive.getDatabaseFileArchive(mFile);
+    }
+
+    private byte[] getData(final int pX, final int pY) {
+        final byte[] result = new byte[100 + pX * SIZE + pY];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) (i + pX * 31 + pY * 7);
+        }
+        return result;
+    }
+
+    private byte[] read(final InputStream pInputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = pInputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        pInputStream.close();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,153 @@
+package org.osmdroid.tileprovider.modules;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+import org.osmdroid.util.MapTileArea;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests related to {@link MapTileArchiveIndex}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileArchiveIndexTest {
+
+    private static final int ZOOM = 10;
+
+    private final ITileSource mTileSource = new XYTileSource("first", 0, 19, 256, ".png", new String[0]);
+    private final ITileSource mOtherTileSource = new XYTileSource("second", 0, 19, 256, ".png", new String[0]);
+
+    /**
+     * Only the archives that may contain the tile, in the archive order
+     */
+    @Test
+    public void testCandidates() {
+        final TestArchive west = new TestArchive(ZOOM, 0, 0, 99, 1023, mTileSource.name());
+        final TestArchive east = new TestArchive(ZOOM, 100, 0, 1023, 1023, mTileSource.name());
+        final TestArchive other = new TestArchive(ZOOM, 0, 0, 1023, 1023, mOtherTileSource.name());
+        final TestArchive unknown = new TestArchive(ZOOM, -1, -1, -1, -1, null);
+        final PlainArchive plain = new PlainArchive();
+        final List<IArchiveFile> archives = new ArrayList<>();
+        archives.add(plain);
+        archives.add(west);
+        archives.add(east);
+        archives.add(other);
+        archives.add(unknown);
+        final MapTileArchiveIndex index = new MapTileArchiveIndex(archives, false);
+
+        check(index.getCandidates(mTileSource, MapTileIndex.getTileIndex(ZOOM, 50, 50)), plain, west, unknown);
+        check(index.getCandidates(mTileSource, MapTileIndex.getTileIndex(ZOOM, 150, 50)), plain, east, unknown);
+        check(index.getCandidates(mOtherTileSource, MapTileIndex.getTileIndex(ZOOM, 150, 50)), plain, other, unknown);
+        check(index.getCandidates(mTileSource, MapTileIndex.getTileIndex(ZOOM + 1, 150, 50)), plain, unknown);
+        // computed once: bounds for each zoom level, and once per tile source
+        Assert.assertEquals(MapTileIndex.mMaxZoomLevel + 1, west.mBoundsChecks);
+        Assert.assertEquals(2, west.mSourceChecks);
+
+        final MapTileArchiveIndex ignoring = new MapTileArchiveIndex(archives, true);
+        check(ignoring.getCandidates(mTileSource, MapTileIndex.getTileIndex(ZOOM, 150, 50)), plain, east, other, unknown);
+    }
+
+    private void check(final List<IArchiveFile> pActual, final IArchiveFile... pExpected) {
+        Assert.assertEquals(pExpected.length, pActual.size());
+        for (int i = 0; i < pExpected.length; i++) {
+            Assert.assertSame(pExpected[i], pActual.get(i));
+        }
+    }
+
+    private static class TestArchive implements IIndexableArchiveFile {
+
+        private final int mZoom;
+        private final int mLeft;
+        private final int mTop;
+        private final int mRight;
+        private final int mBottom;
+        private final String mTileSourceName;
+        private int mSourceChecks;
+        private int mBoundsChecks;
+
+        TestArchive(final int pZoom, final int pLeft, final int pTop, final int pRight, final int pBottom,
+                    final String pTileSourceName) {
+            mZoom = pZoom;
+            mLeft = pLeft;
+            mTop = pTop;
+            mRight = pRight;
+            mBottom = pBottom;
+            mTileSourceName = pTileSourceName;
+        }
+
+        @Override
+        public MapTileArea getTileBounds(final int pZoom) {
+            mBoundsChecks++;
+            if (mLeft < 0) {
+                return null;
+            }
+            final MapTileArea result = new MapTileArea();
+            return pZoom == mZoom ? result.set(pZoom, mLeft, mTop, mRight, mBottom) : result.reset();
+        }
+
+        @Override
+        public boolean hasTileSource(final ITileSource pTileSource) {
+            mSourceChecks++;
+            return mTileSourceName == null || mTileSourceName.equals(pTileSource.name());
+        }
+
+        @Override
+        public void init(final File pFile) {
+        }
+
+        @Override
+        public InputStream getInputStream(final ITileSource tileSource, final long pMapTileIndex) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Set<String> getTileSources() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void setIgnoreTileSource(final boolean pIgnoreTileSource) {
+        }
+    }
+
+    private static class PlainArchive implements IArchiveFile {
+
+        @Override
+        public void init(final File pFile) {
+        }
+
+        @Override
+        public InputStream getInputStream(final ITileSource tileSource, final long pMapTileIndex) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Set<String> getTileSources() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void setIgnoreTileSource(final boolean pIgnoreTileSource) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.graphics.Rect;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.osmdroid.tileprovider.MapTileCache;
+import org.osmdroid.util.MapTileAreaBorderComputer;
+import org.osmdroid.util.MapTileAreaZoomComputer;
+import org.osmdroid.util.MapTileIndex;
+
+/**
+ * Unit tests related to {@link MapTileAreaRequestScheduler}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileAreaRequestSchedulerTest {
+
+    private final int mZoom = 10;
+
+    @Test
+    public void testPriorities() {
+        final MapTileCache cache = new MapTileCache(100);
+        final IMapTileRequestScheduler scheduler = cache.getRequestScheduler();
+
+        // nothing displayed yet: everything has the same priority
+        Assert.assertEquals(0, scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 12, 12)));
+        Assert.assertEquals(0, scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 100, 100)));
+
+        cache.getProtectedTileComputers().add(new MapTileAreaBorderComputer(1));
+        cache.getProtectedTileComputers().add(new MapTileAreaZoomComputer(-1));
+        cache.getMapTileArea().set(mZoom, 10, 10, 14, 14);
+        // the scheduler only sees the areas once they are published by the cache maintenance
+        Assert.assertEquals(0, scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 100, 100)));
+        cache.maintenance();
+
+        final long center = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 12, 12));
+        final long side = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 12, 10));
+        final long corner = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 10, 10));
+        final long border = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 9, 12));
+        final long borderCorner = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 9, 9));
+        final long zoomOut = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom - 1, 6, 6));
+        final long farAway = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 100, 100));
+        final long zoomIn = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom + 1, 24, 24));
+
+        // displayed tiles, from the center to the corners
+        Assert.assertTrue(center < side);
+        Assert.assertTrue(side < corner);
+        // then the borders
+        Assert.assertTrue(corner < border);
+        Assert.assertTrue(border < borderCorner);
+        // then the other zoom levels
+        Assert.assertTrue(borderCorner < zoomOut);
+        Assert.assertTrue(zoomOut < IMapTileRequestScheduler.CANCEL);
+        // not relevant anymore
+        Assert.assertEquals(IMapTileRequestScheduler.CANCEL, farAway);
+        Assert.assertEquals(IMapTileRequestScheduler.CANCEL, zoomIn);
+    }
+
+    /**
+     * The scheduler sees the new area as soon as it is set, before any maintenance
+     */
+    @Test
+    public void testSetMapTileArea() {
+        final MapTileCache cache = new MapTileCache(100);
+        final IMapTileRequestScheduler scheduler = cache.getRequestScheduler();
+        cache.getProtectedTileComputers().add(new MapTileAreaBorderComputer(1));
+        final Rect rect = new Rect();
+        rect.left = 10;
+        rect.top = 10;
+        rect.right = 14;
+        rect.bottom = 14;
+        cache.setMapTileArea(mZoom, rect);
+
+        final long center = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 12, 12));
+        final long border = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 9, 12));
+        Assert.assertTrue(center < border);
+        Assert.assertTrue(border < IMapTileRequestScheduler.CANCEL);
+        Assert.assertEquals(IMapTileRequestScheduler.CANCEL, scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 100, 100)));
+    }
+
+    @Test
+    public void testWrapAround() {
+        final MapTileCache cache = new MapTileCache(100);
+        final IMapTileRequestScheduler scheduler = cache.getRequestScheduler();
+        final int max = 1 << mZoom;
+        // area crossing the antimeridian: from max - 2 to 2
+        cache.getMapTileArea().set(mZoom, max - 2, 10, 2, 14);
+        cache.maintenance();
+
+        final long center = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 0, 12));
+        final long left = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, max - 2, 12));
+        final long right = scheduler.getPriority(MapTileIndex.getTileIndex(mZoom, 2, 12));
+        Assert.assertTrue(center < left);
+        Assert.assertTrue(center < right);
+        Assert.assertTrue(left < IMapTileRequestScheduler.CANCEL);
+        Assert.assertTrue(right < IMapTileRequestScheduler.CANCEL);
+    }
+}
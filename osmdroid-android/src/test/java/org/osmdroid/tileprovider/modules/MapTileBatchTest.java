@@ -0,0 +1,107 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.osmdroid.util.MapTileIndex;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests related to {@link MapTileBatch}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileBatchTest {
+
+    private static final String TABLE = "db:table";
+    private static final String OTHER_TABLE = "db:other";
+
+    /**
+     * The tiles are read once, and only from the current table
+     */
+    @Test
+    public void testRemove() {
+        final MapTileBatch<String> batch = new MapTileBatch<>(10);
+        final long index = MapTileIndex.getTileIndex(5, 1, 2);
+        Assert.assertFalse(batch.putAll(TABLE, getTiles(index))); // no table yet
+        batch.setTable(TABLE);
+        Assert.assertTrue(batch.putAll(TABLE, getTiles(index)));
+        Assert.assertNull(batch.remove(OTHER_TABLE, index));
+        Assert.assertEquals("tile", batch.remove(TABLE, index));
+        Assert.assertNull(batch.remove(TABLE, index));
+    }
+
+    /**
+     * A query on the previous table that ends after the table change does not fill the batch
+     */
+    @Test
+    public void testStaleTable() {
+        final MapTileBatch<String> batch = new MapTileBatch<>(10);
+        final long index = MapTileIndex.getTileIndex(5, 1, 2);
+        batch.setTable(TABLE);
+        Assert.assertTrue(batch.putAll(TABLE, getTiles(MapTileIndex.getTileIndex(5, 3, 3))));
+        batch.setTable(TABLE);
+        Assert.assertEquals(1, batch.size());
+
+        batch.setTable(OTHER_TABLE);
+        Assert.assertEquals(0, batch.size());
+        Assert.assertFalse(batch.putAll(TABLE, getTiles(index)));
+        Assert.assertEquals(0, batch.size());
+        Assert.assertNull(batch.remove(TABLE, index));
+        Assert.assertNull(batch.remove(OTHER_TABLE, index));
+    }
+
+    /**
+     * Beyond the max number of tiles, the previous tiles are dropped
+     */
+    @Test
+    public void testMaxTiles() {
+        final MapTileBatch<String> batch = new MapTileBatch<>(2);
+        batch.setTable(TABLE);
+        final Map<Long, String> tiles = getTiles(MapTileIndex.getTileIndex(5, 1, 1));
+        tiles.putAll(getTiles(MapTileIndex.getTileIndex(5, 1, 2)));
+        Assert.assertTrue(batch.putAll(TABLE, tiles));
+        Assert.assertEquals(2, batch.size());
+        final long index = MapTileIndex.getTileIndex(5, 1, 3);
+        Assert.assertTrue(batch.putAll(TABLE, getTiles(index)));
+        Assert.assertEquals(1, batch.size());
+        Assert.assertEquals("tile", batch.remove(TABLE, index));
+    }
+
+    /**
+     * The window grows with the tiles of the same zoom level, within the max number of tiles
+     */
+    @Test
+    public void testWindow() {
+        final MapTileBatch.Window window = new MapTileBatch.Window(MapTileIndex.getTileIndex(10, 100, 200), 6);
+        check(window, 100, 200, 100, 200);
+        Assert.assertFalse(window.add(MapTileIndex.getTileIndex(11, 100, 200)));
+        Assert.assertTrue(window.add(MapTileIndex.getTileIndex(10, 102, 201)));
+        check(window, 100, 200, 102, 201);
+        Assert.assertFalse(window.add(MapTileIndex.getTileIndex(10, 99, 200))); // 4x2 tiles
+        Assert.assertFalse(window.add(MapTileIndex.getTileIndex(10, 100, 202))); // 3x3 tiles
+        Assert.assertTrue(window.add(MapTileIndex.getTileIndex(10, 101, 200))); // already inside
+        check(window, 100, 200, 102, 201);
+        Assert.assertEquals(2, window.getOthers().size());
+        Assert.assertTrue(window.getOthers().contains(MapTileIndex.getTileIndex(10, 102, 201)));
+        Assert.assertTrue(window.getOthers().contains(MapTileIndex.getTileIndex(10, 101, 200)));
+        Assert.assertEquals(10, window.getZoom());
+    }
+
+    private void check(final MapTileBatch.Window pWindow,
+                       final int pLeft, final int pTop, final int pRight, final int pBottom) {
+        Assert.assertEquals(pLeft, pWindow.getLeft());
+        Assert.assertEquals(pTop, pWindow.getTop());
+        Assert.assertEquals(pRight, pWindow.getRight());
+        Assert.assertEquals(pBottom, pWindow.getBottom());
+    }
+
+    private Map<Long, String> getTiles(final long pMapTileIndex) {
+        final Map<Long, String> result = new HashMap<>();
+        result.put(pMapTileIndex, "tile");
+        return result;
+    }
+}
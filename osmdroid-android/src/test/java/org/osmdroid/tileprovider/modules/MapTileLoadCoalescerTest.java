@@ -0,0 +1,104 @@
+package org.osmdroid.tileprovider.modules;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to {@link MapTileLoadCoalescer}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileLoadCoalescerTest {
+
+    /**
+     * Concurrent loads of the same tile: only one actual load, and the same result for all
+     */
+    @Test
+    public void testSameTile() throws InterruptedException {
+        final int threads = 8;
+        final MapTileLoadCoalescer<Object> coalescer = new MapTileLoadCoalescer<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Object expected = new Object();
+        final Object[] results = new Object[threads];
+        final List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    results[index] = coalescer.load("source", 1234, new MapTileLoadCoalescer.Loader<Object>() {
+                        @Override
+                        public Object load() {
+                            loads.incrementAndGet();
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                //
+                            }
+                            return expected;
+                        }
+                    });
+                }
+            };
+            list.add(thread);
+        }
+        list.get(0).start();
+        started.await();
+        for (int i = 1; i < threads; i++) {
+            list.get(i).start();
+        }
+        while (getWaitingCount(list) < threads - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (final Thread thread : list) {
+            thread.join();
+        }
+        Assert.assertEquals(1, loads.get());
+        for (final Object result : results) {
+            Assert.assertSame(expected, result);
+        }
+        Assert.assertEquals(0, coalescer.getSize());
+    }
+
+    /**
+     * Different tile sources or tile indices are not merged, and nothing is kept after the load
+     */
+    @Test
+    public void testDifferentTiles() {
+        final MapTileLoadCoalescer<String> coalescer = new MapTileLoadCoalescer<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final MapTileLoadCoalescer.Loader<String> loader = new MapTileLoadCoalescer.Loader<String>() {
+            @Override
+            public String load() {
+                return "" + loads.incrementAndGet();
+            }
+        };
+        Assert.assertEquals("1", coalescer.load("a", 1, loader));
+        Assert.assertEquals("2", coalescer.load("a", 1, loader));
+        Assert.assertEquals("3", coalescer.load("b", 1, loader));
+        Assert.assertEquals("4", coalescer.load("a", 2, loader));
+        Assert.assertEquals(0, coalescer.getSize());
+    }
+
+    private int getWaitingCount(final List<Thread> pThreads) {
+        int count = 0;
+        for (final Thread thread : pThreads) {
+            if (thread.getState() == Thread.State.WAITING) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,214 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.graphics.drawable.Drawable;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.osmdroid.tileprovider.IMapTileProviderCallback;
+import org.osmdroid.tileprovider.MapTileRequestState;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to {@link MapTileModuleProviderBase} on the shared {@link MapTileExecutors}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileModuleProviderBaseTest {
+
+    /**
+     * All the requests are processed, but never by more loaders than the provider limit,
+     * even if the shared thread pool is bigger
+     */
+    @Test
+    public void testMaxConcurrent() throws InterruptedException {
+        final int tiles = 30;
+        final int providers = 3;
+        final int maxConcurrent = 2;
+        final CountDownLatch latch = new CountDownLatch(tiles * providers);
+        final IMapTileProviderCallback callback = new CountingCallback(latch);
+        final List<TestProvider> list = new ArrayList<>();
+        for (int i = 0; i < providers; i++) {
+            list.add(new TestProvider(maxConcurrent, tiles));
+        }
+        for (final TestProvider provider : list) {
+            for (int i = 0; i < tiles; i++) {
+                provider.loadMapTileAsync(new MapTileRequestState(
+                        MapTileIndex.getTileIndex(10, i, i), new ArrayList<MapTileModuleProviderBase>(), callback));
+            }
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (final TestProvider provider : list) {
+            Assert.assertEquals(tiles, provider.mLoaded.get());
+            Assert.assertTrue(provider.mMaxRunning.get() <= maxConcurrent);
+            provider.detach();
+        }
+    }
+
+    /**
+     * The pending requests are dropped and their requesters told,
+     * but not the request being processed
+     */
+    @Test
+    public void testClearPendingQueue() throws InterruptedException {
+        final int tiles = 10;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountingCallback callback = new CountingCallback(latch);
+        final TestProvider provider = new TestProvider(1, tiles);
+        provider.mStarted = new CountDownLatch(1);
+        provider.mRelease = new CountDownLatch(1);
+        provider.loadMapTileAsync(new MapTileRequestState(
+                MapTileIndex.getTileIndex(10, 0, 0), new ArrayList<MapTileModuleProviderBase>(), callback));
+        Assert.assertTrue(provider.mStarted.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < tiles; i++) {
+            provider.loadMapTileAsync(new MapTileRequestState(
+                    MapTileIndex.getTileIndex(10, i, i), new ArrayList<MapTileModuleProviderBase>(), callback));
+        }
+        provider.clearPendingQueue();
+        Assert.assertEquals(tiles - 1, callback.mDropped.get());
+        provider.mRelease.countDown();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        Assert.assertEquals(1, provider.mLoaded.get());
+        provider.detach();
+    }
+
+    /**
+     * A deferred tile stays pending, and is only loaded once the tile loaders are resumed
+     */
+    @Test
+    public void testDeferred() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountingCallback callback = new CountingCallback(latch);
+        final TestProvider provider = new TestProvider(2, 10);
+        provider.mDeferred.set(1);
+        provider.loadMapTileAsync(new MapTileRequestState(
+                MapTileIndex.getTileIndex(10, 1, 1), new ArrayList<MapTileModuleProviderBase>(), callback));
+        Thread.sleep(200);
+        Assert.assertEquals(0, provider.mDeferred.get());
+        Assert.assertEquals(0, provider.mLoaded.get());
+        Assert.assertEquals(1, latch.getCount());
+        provider.resumeTileLoaders();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, provider.mLoaded.get());
+        Assert.assertEquals(0, callback.mDropped.get());
+        provider.detach();
+    }
+
+    private static class CountingCallback implements IMapTileProviderCallback {
+
+        private final CountDownLatch mLatch;
+        private final AtomicInteger mDropped = new AtomicInteger();
+
+        CountingCallback(final CountDownLatch pLatch) {
+            mLatch = pLatch;
+        }
+
+        @Override
+        public void mapTileRequestCompleted(MapTileRequestState aState, Drawable aDrawable) {
+            mLatch.countDown();
+        }
+
+        @Override
+        public void mapTileRequestFailed(MapTileRequestState aState) {
+            mLatch.countDown();
+        }
+
+        @Override
+        public void mapTileRequestFailedExceedsMaxQueueSize(MapTileRequestState aState) {
+            mDropped.incrementAndGet();
+        }
+
+        @Override
+        public void mapTileRequestExpiredTile(MapTileRequestState aState, Drawable aDrawable) {
+            mLatch.countDown();
+        }
+
+        @Override
+        public boolean useDataConnection() {
+            return false;
+        }
+    }
+
+    private static class TestProvider extends MapTileModuleProviderBase {
+
+        private final AtomicInteger mRunning = new AtomicInteger();
+        private final AtomicInteger mMaxRunning = new AtomicInteger();
+        private final AtomicInteger mLoaded = new AtomicInteger();
+        private final AtomicInteger mDeferred = new AtomicInteger();
+        private CountDownLatch mStarted;
+        private CountDownLatch mRelease;
+
+        TestProvider(final int pThreadPoolSize, final int pPendingQueueSize) {
+            super(pThreadPoolSize, pPendingQueueSize);
+        }
+
+        @Override
+        protected String getName() {
+            return "test";
+        }
+
+        @Override
+        protected String getThreadGroupName() {
+            return "test";
+        }
+
+        @Override
+        public TileLoader getTileLoader() {
+            return new TileLoader() {
+                @Override
+                public Drawable loadTile(final long pMapTileIndex) throws CantContinueException {
+                    if (mDeferred.getAndDecrement() > 0) {
+                        throw new TileLoadDeferredException("not now");
+                    }
+                    mDeferred.set(0);
+                    final int running = mRunning.incrementAndGet();
+                    int max;
+                    while (running > (max = mMaxRunning.get())) {
+                        mMaxRunning.compareAndSet(max, running);
+                    }
+                    try {
+                        if (mRelease != null) { // blocking until released
+                            mStarted.countDown();
+                            mRelease.await();
+                        }
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        //
+                    }
+                    mLoaded.incrementAndGet();
+                    mRunning.decrementAndGet();
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public boolean getUsesDataConnection() {
+            return false;
+        }
+
+        @Override
+        public int getMinimumZoomLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getMaximumZoomLevel() {
+            return 29;
+        }
+
+        @Override
+        public void setTileSource(ITileSource tileSource) {
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.tileprovider.ExpirableBitmapDrawable;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests related to {@link MapTileRenderedCacheProvider}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class MapTileRenderedCacheProviderTest {
+
+    private final long mMapTileIndex = MapTileIndex.getTileIndex(10, 3, 4);
+    private final ITileSource mCacheTileSource = getTileSource("rendered@1");
+    private final ITileSource mOtherCacheTileSource = getTileSource("rendered@2");
+
+    /**
+     * The tiles are read under the cache tile source, and not at all without it
+     */
+    @Test
+    public void testCacheTileSource() throws Exception {
+        final Cache cache = new Cache();
+        final Drawable drawable = getDrawable();
+        cache.mTiles.put(mCacheTileSource.name(), drawable);
+        final MapTileRenderedCacheProvider provider = new MapTileRenderedCacheProvider(cache, null);
+        Assert.assertNull(provider.getTileLoader().loadTile(mMapTileIndex));
+        Assert.assertEquals(0, cache.mReads);
+
+        provider.setCacheTileSource(mCacheTileSource);
+        Assert.assertSame(drawable, provider.getTileLoader().loadTile(mMapTileIndex));
+        Assert.assertEquals(1, cache.mReads);
+
+        provider.setCacheTileSource(mOtherCacheTileSource);
+        Assert.assertNull(provider.getTileLoader().loadTile(mMapTileIndex));
+        provider.detach();
+    }
+
+    /**
+     * The expired tiles are left to the renderer
+     */
+    @Test
+    public void testExpired() throws Exception {
+        final Cache cache = new Cache();
+        final Drawable drawable = getDrawable();
+        ExpirableBitmapDrawable.setState(drawable, ExpirableBitmapDrawable.EXPIRED);
+        cache.mTiles.put(mCacheTileSource.name(), drawable);
+        final MapTileRenderedCacheProvider provider = new MapTileRenderedCacheProvider(cache, mCacheTileSource);
+        Assert.assertNull(provider.getTileLoader().loadTile(mMapTileIndex));
+        Assert.assertEquals(1, cache.mReads);
+        provider.detach();
+    }
+
+    /**
+     * A tile read under the previous cache tile source is dropped
+     */
+    @Test
+    public void testStale() throws Exception {
+        final MapTileRenderedCacheProvider[] provider = new MapTileRenderedCacheProvider[1];
+        final Cache cache = new Cache() {
+            @Override
+            public Drawable loadTile(final ITileSource pTileSource, final long pMapTileIndex) throws Exception {
+                final Drawable result = super.loadTile(pTileSource, pMapTileIndex);
+                provider[0].setCacheTileSource(mOtherCacheTileSource); // the rendering changes meanwhile
+                return result;
+            }
+        };
+        cache.mTiles.put(mCacheTileSource.name(), getDrawable());
+        provider[0] = new MapTileRenderedCacheProvider(cache, mCacheTileSource);
+        Assert.assertNull(provider[0].getTileLoader().loadTile(mMapTileIndex));
+        Assert.assertEquals(1, cache.mReads);
+        provider[0].detach();
+    }
+
+    private ITileSource getTileSource(final String pName) {
+        return new XYTileSource(pName, 0, 20, 256, ".png", new String[0]);
+    }
+
+    private Drawable getDrawable() {
+        return new ExpirableBitmapDrawable(Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888));
+    }
+
+    /**
+     * A file-system cache with one tile per tile source name
+     */
+    private static class Cache implements IFilesystemCache {
+
+        private final Map<String, Drawable> mTiles = new HashMap<>();
+        private int mReads;
+
+        @Override
+        public boolean saveFile(final ITileSource pTileSourceInfo, final long pMapTileIndex,
+                                final InputStream pStream, final Long pExpirationTime) {
+            return false;
+        }
+
+        @Override
+        public boolean exists(final ITileSource pTileSourceInfo, final long pMapTileIndex) {
+            return mTiles.containsKey(pTileSourceInfo.name());
+        }
+
+        @Override
+        public void onDetach() {
+        }
+
+        @Override
+        public boolean remove(final ITileSource tileSource, final long pMapTileIndex) {
+            return mTiles.remove(tileSource.name()) != null;
+        }
+
+        @Override
+        public Long getExpirationTimestamp(final ITileSource pTileSource, final long pMapTileIndex) {
+            return null;
+        }
+
+        @Override
+        public Drawable loadTile(final ITileSource pTileSource, final long pMapTileIndex) throws Exception {
+            mReads++;
+            return mTiles.get(pTileSource.name());
+        }
+    }
+}
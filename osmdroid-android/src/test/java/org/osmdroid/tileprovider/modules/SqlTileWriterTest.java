@@ -0,0 +1,237 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Unit tests related to {@link SqlTileWriter}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class SqlTileWriterTest {
+
+    private static final int TILES = 300;
+    private static final int READS = 2000;
+    private static final int ZOOM = 10;
+    private static final String[] COLUMNS = {DatabaseFileArchive.COLUMN_TILE};
+
+    private final Random mRandom = new Random();
+    private final ITileSource mTileSource = TileSourceFactory.MAPNIK;
+
+    @After
+    public void tearDown() {
+        Configuration.getInstance().setTileCacheWriteAheadLogging(true);
+        Configuration.getInstance().setTileWriteBatchSize(20);
+        Configuration.getInstance().setTileWriteBatchDelayInMillis(1000);
+        new SqlTileWriter().refreshDb();
+    }
+
+    /**
+     * Tile reads while tiles are written, with and without write-ahead logging
+     */
+    @Test
+    public void testReadsDuringWrites() throws InterruptedException {
+        SqlTileWriter.setCleanupOnStart(false);
+        final long duration1 = measureReadsDuringWrites(false);
+        final long duration2 = measureReadsDuringWrites(true);
+        System.err.println(duration2 + " < " + duration1);
+        // most of the time that's true, but we shouldn't make the build crash if it's not the case
+        //Assert.assertTrue(duration2 < duration1);
+    }
+
+    /**
+     * Pending tiles are visible before being written, and written on detach
+     */
+    @Test
+    public void testBatch() {
+        SqlTileWriter.setCleanupOnStart(false);
+        final SqlTileWriter writer = createWriter("batch", true, 1000);
+        final long mapTileIndex = MapTileIndex.getTileIndex(ZOOM, 1, 2);
+        final byte[] data = getData();
+        writer.saveFile(mTileSource, mapTileIndex, new ByteArrayInputStream(data), 1234L);
+        Assert.assertTrue(writer.exists(mTileSource, mapTileIndex));
+        Assert.assertEquals(1234L, (long) writer.getExpirationTimestamp(mTileSource, mapTileIndex));
+        writer.onDetach();
+        Assert.assertEquals(1, countTiles(writer, mapTileIndex, data.length));
+        Assert.assertEquals(1, writer.getRowCount(mTileSource.name()));
+    }
+
+    /**
+     * Pending tiles are written in one transaction when the batch is full, by the saving thread
+     */
+    @Test
+    public void testBatchSize() {
+        SqlTileWriter.setCleanupOnStart(false);
+        final int batchSize = 5;
+        Configuration.getInstance().setTileWriteBatchDelayInMillis(60000); // no flush on delay here
+        final SqlTileWriter writer = createWriter("batchsize", true, batchSize);
+        final byte[] data = getData();
+        for (int i = 0; i < batchSize - 1; i++) {
+            final long mapTileIndex = MapTileIndex.getTileIndex(ZOOM, i, 5);
+            writer.saveFile(mTileSource, mapTileIndex, new ByteArrayInputStream(data), Long.MAX_VALUE);
+            Assert.assertTrue(writer.exists(mTileSource, mapTileIndex));
+        }
+        writer.saveFile(mTileSource, MapTileIndex.getTileIndex(ZOOM, batchSize - 1, 5), new ByteArrayInputStream(data), Long.MAX_VALUE);
+        for (int i = 0; i < batchSize; i++) {
+            Assert.assertEquals(1, countTiles(writer, MapTileIndex.getTileIndex(ZOOM, i, 5), data.length));
+        }
+
+        // a pending tile that is removed is not written back later
+        final long removed = MapTileIndex.getTileIndex(ZOOM, batchSize, 5);
+        writer.saveFile(mTileSource, removed, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        writer.remove(mTileSource, removed);
+        Assert.assertFalse(writer.exists(mTileSource, removed));
+        writer.onDetach();
+        Assert.assertEquals(0, countTiles(writer, removed, data.length));
+        Assert.assertEquals(batchSize, writer.getRowCount(mTileSource.name()));
+    }
+
+    /**
+     * Pending tiles of an incomplete batch are written after the batch delay
+     */
+    @Test
+    public void testBatchDelay() throws InterruptedException {
+        SqlTileWriter.setCleanupOnStart(false);
+        Configuration.getInstance().setTileWriteBatchDelayInMillis(50);
+        final SqlTileWriter writer = createWriter("batchdelay", true, 1000);
+        final long mapTileIndex = MapTileIndex.getTileIndex(ZOOM, 6, 7);
+        final byte[] data = getData();
+        writer.saveFile(mTileSource, mapTileIndex, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        final long timeout = System.currentTimeMillis() + 10000;
+        while (countTiles(writer, mapTileIndex, data.length) == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(1, countTiles(writer, mapTileIndex, data.length));
+    }
+
+    /**
+     * Http validators are kept with the tiles, pending or written,
+     * and revalidated tiles get a new expiration
+     */
+    @Test
+    public void testHttpValidators() {
+        SqlTileWriter.setCleanupOnStart(false);
+        final SqlTileWriter writer = createWriter("validators", true, 1000);
+        final long mapTileIndex = MapTileIndex.getTileIndex(ZOOM, 3, 4);
+        final long otherMapTileIndex = MapTileIndex.getTileIndex(ZOOM, 4, 3);
+        final String eTag = "\"abc\"";
+        final String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+        writer.saveFile(mTileSource, mapTileIndex, new ByteArrayInputStream(getData()), 1000L, eTag, lastModified);
+        writer.saveFile(mTileSource, otherMapTileIndex, new ByteArrayInputStream(getData()), 1000L);
+        Assert.assertArrayEquals(new String[]{eTag, lastModified}, writer.getHttpValidators(mTileSource, mapTileIndex));
+        Assert.assertNull(writer.getHttpValidators(mTileSource, otherMapTileIndex));
+        Assert.assertTrue(writer.extendExpiration(mTileSource, mapTileIndex, 2000L));
+        Assert.assertEquals(2000L, (long) writer.getExpirationTimestamp(mTileSource, mapTileIndex));
+
+        writer.onDetach();
+        Assert.assertArrayEquals(new String[]{eTag, lastModified}, writer.getHttpValidators(mTileSource, mapTileIndex));
+        Assert.assertNull(writer.getHttpValidators(mTileSource, otherMapTileIndex));
+        Assert.assertTrue(writer.extendExpiration(mTileSource, mapTileIndex, 3000L));
+        Assert.assertEquals(3000L, (long) writer.getExpirationTimestamp(mTileSource, mapTileIndex));
+        Assert.assertFalse(writer.extendExpiration(mTileSource, MapTileIndex.getTileIndex(ZOOM, 5, 5), 3000L));
+    }
+
+    /**
+     * The running total of the tile sizes follows inserts, replacements and deletions,
+     * and the cleanup only deletes what is needed, the tiles that expire first
+     */
+    @Test
+    public void testTilesSize() {
+        SqlTileWriter.setCleanupOnStart(false);
+        final SqlTileWriter writer = createWriter("size", true, 1);
+        writer.lastSizeCheck = System.currentTimeMillis(); // no background cleanup triggered by the saves
+        final int size = 1000;
+        final int tiles = 10;
+        for (int i = 0; i < tiles; i++) { // existing tiles before the size tracking
+            writer.saveFile(mTileSource, MapTileIndex.getTileIndex(ZOOM, i, 0), new ByteArrayInputStream(new byte[size]), (long) i);
+        }
+        Assert.assertEquals(-1, writer.getTilesSize());
+        writer.runDuringSplashScreen();
+        Assert.assertEquals(tiles * size, writer.getTilesSize());
+        writer.saveFile(mTileSource, MapTileIndex.getTileIndex(ZOOM, 0, 0), new ByteArrayInputStream(new byte[3 * size]), 0L);
+        Assert.assertEquals((tiles + 2) * size, writer.getTilesSize());
+        writer.remove(mTileSource, MapTileIndex.getTileIndex(ZOOM, 1, 0));
+        Assert.assertEquals((tiles + 1) * size, writer.getTilesSize());
+        writer.runCleanupOperation(4 * size, 2, 0, true); // tile 0 (3 * size) then tile 2
+        Assert.assertEquals((tiles - 3) * size, writer.getTilesSize());
+        Assert.assertEquals(tiles - 3, writer.getRowCount(mTileSource.name()));
+        Assert.assertFalse(writer.exists(mTileSource, MapTileIndex.getTileIndex(ZOOM, 2, 0)));
+        Assert.assertTrue(writer.exists(mTileSource, MapTileIndex.getTileIndex(ZOOM, 3, 0)));
+    }
+
+    /**
+     * @return the duration of the reads (in nanoseconds) while another thread writes tiles,
+     * one transaction per tile
+     */
+    private long measureReadsDuringWrites(final boolean pWriteAheadLogging) throws InterruptedException {
+        final SqlTileWriter writer = createWriter("wal" + pWriteAheadLogging, pWriteAheadLogging, 1);
+        final byte[] data = getData();
+        for (int i = 0; i < TILES; i++) {
+            writer.saveFile(mTileSource, MapTileIndex.getTileIndex(ZOOM, i, 0), new ByteArrayInputStream(data), Long.MAX_VALUE);
+        }
+        final Thread writing = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < TILES; i++) {
+                    writer.saveFile(mTileSource, MapTileIndex.getTileIndex(ZOOM, i, 1), new ByteArrayInputStream(data), Long.MAX_VALUE);
+                }
+            }
+        };
+        int found = 0;
+        final long start = System.nanoTime();
+        writing.start();
+        for (int i = 0; i < READS; i++) {
+            found += countTiles(writer, MapTileIndex.getTileIndex(ZOOM, mRandom.nextInt(TILES), 0), data.length);
+        }
+        final long end = System.nanoTime();
+        writing.join();
+        Assert.assertEquals(READS, found);
+        Assert.assertEquals(2 * TILES, writer.getRowCount(mTileSource.name()));
+        return end - start;
+    }
+
+    private SqlTileWriter createWriter(final String pName, final boolean pWriteAheadLogging, final int pBatchSize) {
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "osmdroid-" + pName + "-" + System.nanoTime());
+        directory.deleteOnExit();
+        Configuration.getInstance().setOsmdroidTileCache(directory);
+        Configuration.getInstance().setTileCacheWriteAheadLogging(pWriteAheadLogging);
+        Configuration.getInstance().setTileWriteBatchSize(pBatchSize);
+        final SqlTileWriter writer = new SqlTileWriter();
+        writer.refreshDb(); // the static database is opened again with the new configuration
+        return writer;
+    }
+
+    private int countTiles(final SqlTileWriter pWriter, final long pMapTileIndex, final int pExpectedLength) {
+        final Cursor cursor = pWriter.getTileCursor(
+                SqlTileWriter.getPrimaryKeyParameters(SqlTileWriter.getIndex(pMapTileIndex), mTileSource), COLUMNS);
+        try {
+            return cursor.moveToFirst() && cursor.getBlob(0).length == pExpectedLength ? 1 : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private byte[] getData() {
+        final byte[] data = new byte[20000];
+        mRandom.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,113 @@
+package org.osmdroid.tileprovider.modules;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local HTTP/1.1 server with persistent connections, for the tile download tests.
+ * The request headers are recorded, with lower case names; the responses are up to the subclasses.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+abstract class StubTileServer {
+
+    private final ServerSocket mServerSocket;
+    private final AtomicInteger mConnections = new AtomicInteger();
+    private final List<Map<String, String>> mRequests = Collections.synchronizedList(new ArrayList<Map<String, String>>());
+
+    StubTileServer() throws IOException {
+        mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = mServerSocket.accept();
+                        mConnections.incrementAndGet();
+                        new Thread() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        }.start();
+                    }
+                } catch (final IOException e) {
+                    // closed
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Writes the whole response (status line, headers and body) to the request
+     *
+     * @param pPath    path of the request
+     * @param pHeaders request headers, with lower case names
+     */
+    protected abstract void respond(final String pPath, final Map<String, String> pHeaders,
+                                    final OutputStream pOutputStream) throws IOException;
+
+    String getUrl(final String pPath) {
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort() + pPath;
+    }
+
+    int getConnections() {
+        return mConnections.get();
+    }
+
+    List<Map<String, String>> getRequests() {
+        return mRequests;
+    }
+
+    void close() {
+        try {
+            mServerSocket.close();
+        } catch (final IOException e) {
+            // nothing
+        }
+    }
+
+    private void serve(final Socket pSocket) {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(pSocket.getInputStream(), "US-ASCII"));
+            final OutputStream outputStream = pSocket.getOutputStream();
+            String requestLine;
+            while ((requestLine = reader.readLine()) != null) {
+                final Map<String, String> headers = new HashMap<>();
+                String header;
+                while ((header = reader.readLine()) != null && header.length() > 0) {
+                    final int colon = header.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(header.substring(0, colon).trim().toLowerCase(), header.substring(colon + 1).trim());
+                    }
+                }
+                mRequests.add(headers);
+                respond(requestLine.split(" ")[1], headers, outputStream);
+                outputStream.flush();
+            }
+        } catch (final IOException e) {
+            // connection closed
+        } finally {
+            try {
+                pSocket.close();
+            } catch (final IOException e) {
+                // nothing
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.osmdroid.tileprovider.modules;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.constants.OpenStreetMapTileProviderConstants;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+import org.osmdroid.tileprovider.util.Counters;
+import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests related to {@link TileDownloader}, against a local stub tile server
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TileDownloaderTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String NEW_ETAG = "\"v2\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+    private static final long MAX_AGE_SECONDS = 600;
+
+    private final long mMapTileIndex = MapTileIndex.getTileIndex(10, 3, 4);
+    private final MemoryCache mCache = new MemoryCache();
+    private RevalidatingTileServer mServer;
+    private OnlineTileSourceBase mTileSource;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new RevalidatingTileServer();
+        mTileSource = new XYTileSource("stub" + System.nanoTime(), 0, 19, 256, ".png",
+                new String[]{mServer.getUrl("/")});
+        Configuration.getInstance().setUserAgentValue("osmdroid-test");
+        Configuration.getInstance().setTileHttpTransport(new HttpURLConnectionTileTransport());
+    }
+
+    @After
+    public void tearDown() {
+        mServer.close();
+    }
+
+    /**
+     * An expired tile with http validators is revalidated with a conditional request:
+     * on "304 Not Modified" its expiration is extended and the cached tile is used again
+     */
+    @Test
+    public void testNotModified() throws CantContinueException {
+        final Drawable cached = new ColorDrawable(Color.RED);
+        mCache.put(mMapTileIndex, cached, ETAG, LAST_MODIFIED);
+        final int notModified = Counters.tileDownloadsNotModified;
+        final long before = System.currentTimeMillis();
+
+        final Drawable drawable = new TileDownloader().downloadTile(mMapTileIndex, mCache, mTileSource);
+
+        Assert.assertSame(cached, drawable);
+        Assert.assertEquals(1, mServer.getRequests().size());
+        final Map<String, String> headers = mServer.getRequests().get(0);
+        Assert.assertEquals(ETAG, headers.get(OpenStreetMapTileProviderConstants.HTTP_IF_NONE_MATCH_HEADER.toLowerCase()));
+        Assert.assertEquals(LAST_MODIFIED, headers.get(OpenStreetMapTileProviderConstants.HTTP_IF_MODIFIED_SINCE_HEADER.toLowerCase()));
+        Assert.assertEquals(0, mServer.getBodies());
+        Assert.assertEquals(0, mCache.mSaves);
+        Assert.assertNotNull(mCache.mExpirationTime);
+        Assert.assertTrue(mCache.mExpirationTime >= before + MAX_AGE_SECONDS * 1000);
+        Assert.assertEquals(notModified + 1, Counters.tileDownloadsNotModified);
+    }
+
+    /**
+     * A tile without http validators is downloaded unconditionally, and saved with the new validators;
+     * so is a tile that was modified on the server
+     */
+    @Test
+    public void testModified() throws CantContinueException {
+        new TileDownloader().downloadTile(mMapTileIndex, mCache, mTileSource);
+        Assert.assertEquals(1, mServer.getRequests().size());
+        Assert.assertNull(mServer.getRequests().get(0).get(OpenStreetMapTileProviderConstants.HTTP_IF_NONE_MATCH_HEADER.toLowerCase()));
+        Assert.assertNull(mServer.getRequests().get(0).get(OpenStreetMapTileProviderConstants.HTTP_IF_MODIFIED_SINCE_HEADER.toLowerCase()));
+        Assert.assertEquals(1, mServer.getBodies());
+        Assert.assertEquals(1, mCache.mSaves);
+        Assert.assertArrayEquals(new String[]{NEW_ETAG, null}, mCache.getHttpValidators(mTileSource, mMapTileIndex));
+
+        mCache.put(mMapTileIndex, new ColorDrawable(Color.RED), "\"obsolete\"", null);
+        new TileDownloader().downloadTile(mMapTileIndex, mCache, mTileSource);
+        Assert.assertEquals(2, mServer.getRequests().size());
+        Assert.assertEquals("\"obsolete\"", mServer.getRequests().get(1).get(OpenStreetMapTileProviderConstants.HTTP_IF_NONE_MATCH_HEADER.toLowerCase()));
+        Assert.assertEquals(2, mServer.getBodies());
+        Assert.assertEquals(2, mCache.mSaves);
+        Assert.assertNull(mCache.mExpirationTime);
+    }
+
+    /**
+     * The latency given to the concurrency limiter includes the wait for the response headers,
+     * and not only the opening of the connection
+     */
+    @Test
+    public void testLatency() throws CantContinueException {
+        final long delay = 200;
+        Configuration.getInstance().setTileDownloadAdaptiveConcurrency(true);
+        Configuration.getInstance().setTileHttpTransport(new ITileHttpTransport() {
+            @Override
+            public Response get(final String pUrl, final Map<String, String> pRequestProperties) {
+                return new DelayedResponse(delay);
+            }
+        });
+        Assert.assertNull(new TileDownloader().downloadTile(mMapTileIndex, mCache, mTileSource));
+        Assert.assertTrue(mTileSource.getConcurrencyLimiter().getLatency() >= delay);
+    }
+
+    /**
+     * "404 Not Found", whose headers arrive after a delay, like {@link java.net.HttpURLConnection}
+     * that sends the request when the response code is first asked for
+     */
+    private static class DelayedResponse implements ITileHttpTransport.Response {
+
+        private final long mDelay;
+        private boolean mReceived;
+
+        private DelayedResponse(final long pDelay) {
+            mDelay = pDelay;
+        }
+
+        @Override
+        public int getCode() throws IOException {
+            if (!mReceived) {
+                mReceived = true;
+                try {
+                    Thread.sleep(mDelay);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return 404;
+        }
+
+        @Override
+        public String getMessage() {
+            return "Not Found";
+        }
+
+        @Override
+        public String getHeader(final String pName) {
+            return null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return 0;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * In-memory cache that keeps the http validators of its tiles
+     */
+    private static class MemoryCache implements IRevalidatingFilesystemCache {
+
+        private final Map<Long, Drawable> mTiles = new HashMap<>();
+        private final Map<Long, String[]> mValidators = new HashMap<>();
+        private int mSaves;
+        private Long mExpirationTime;
+
+        private void put(final long pMapTileIndex, final Drawable pDrawable, final String pETag, final String pLastModified) {
+            mTiles.put(pMapTileIndex, pDrawable);
+            mValidators.put(pMapTileIndex, new String[]{pETag, pLastModified});
+        }
+
+        @Override
+        public boolean saveFile(final ITileSource pTileSourceInfo, final long pMapTileIndex,
+                                final InputStream pStream, final Long pExpirationTime) {
+            return saveFile(pTileSourceInfo, pMapTileIndex, pStream, pExpirationTime, null, null);
+        }
+
+        @Override
+        public boolean saveFile(final ITileSource pTileSourceInfo, final long pMapTileIndex,
+                                final InputStream pStream, final Long pExpirationTime,
+                                final String pETag, final String pLastModified) {
+            mSaves++;
+            put(pMapTileIndex, new ColorDrawable(Color.BLUE), pETag, pLastModified);
+            return true;
+        }
+
+        @Override
+        public String[] getHttpValidators(final ITileSource pTileSource, final long pMapTileIndex) {
+            final String[] validators = mValidators.get(pMapTileIndex);
+            return validators == null || (validators[0] == null && validators[1] == null) ? null : validators;
+        }
+
+        @Override
+        public boolean extendExpiration(final ITileSource pTileSource, final long pMapTileIndex, final Long pExpirationTime) {
+            if (!mTiles.containsKey(pMapTileIndex)) {
+                return false;
+            }
+            mExpirationTime = pExpirationTime;
+            return true;
+        }
+
+        @Override
+        public boolean exists(final ITileSource pTileSourceInfo, final long pMapTileIndex) {
+            return mTiles.containsKey(pMapTileIndex);
+        }
+
+        @Override
+        public void onDetach() {
+        }
+
+        @Override
+        public boolean remove(final ITileSource tileSource, final long pMapTileIndex) {
+            mValidators.remove(pMapTileIndex);
+            return mTiles.remove(pMapTileIndex) != null;
+        }
+
+        @Override
+        public Long getExpirationTimestamp(final ITileSource pTileSource, final long pMapTileIndex) {
+            return null;
+        }
+
+        @Override
+        public Drawable loadTile(final ITileSource pTileSource, final long pMapTileIndex) {
+            return mTiles.get(pMapTileIndex);
+        }
+    }
+
+    /**
+     * "304 Not Modified" if the If-None-Match header matches {@link #ETAG}, else a tile with {@link #NEW_ETAG}
+     */
+    private static class RevalidatingTileServer extends StubTileServer {
+
+        private volatile int mBodies;
+
+        private RevalidatingTileServer() throws IOException {
+            super();
+        }
+
+        private int getBodies() {
+            return mBodies;
+        }
+
+        @Override
+        protected void respond(final String pPath, final Map<String, String> pHeaders,
+                               final OutputStream pOutputStream) throws IOException {
+            final StringBuilder response = new StringBuilder();
+            if (ETAG.equals(pHeaders.get(OpenStreetMapTileProviderConstants.HTTP_IF_NONE_MATCH_HEADER.toLowerCase()))) {
+                response.append("HTTP/1.1 304 Not Modified\r\n")
+                        .append("Cache-Control: max-age=").append(MAX_AGE_SECONDS).append("\r\n")
+                        .append("ETag: ").append(ETAG).append("\r\n\r\n");
+                pOutputStream.write(response.toString().getBytes("US-ASCII"));
+            } else {
+                final byte[] body = new byte[1000];
+                response.append("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\n")
+                        .append("ETag: ").append(NEW_ETAG).append("\r\n")
+                        .append("Content-Length: ").append(body.length).append("\r\n\r\n");
+                pOutputStream.write(response.toString().getBytes("US-ASCII"));
+                pOutputStream.write(body);
+                mBodies++;
+            }
+        }
+    }
+}
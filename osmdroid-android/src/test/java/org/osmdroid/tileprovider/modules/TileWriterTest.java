@@ -0,0 +1,104 @@
+package org.osmdroid.tileprovider.modules;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.util.MapTileIndex;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+/**
+ * Unit tests related to {@link TileWriter}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TileWriterTest {
+
+    private static final String ETAG = "\"abc\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final ITileSource mTileSource = TileSourceFactory.MAPNIK;
+    private final long mMapTileIndex = MapTileIndex.getTileIndex(10, 3, 4);
+    private File mDirectory;
+    private TileWriter mWriter;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(System.getProperty("java.io.tmpdir"), "osmdroid-tilewriter-" + System.nanoTime());
+        Configuration.getInstance().setOsmdroidTileCache(mDirectory);
+        mWriter = new TileWriter();
+    }
+
+    @After
+    public void tearDown() {
+        mWriter.remove(mTileSource, mMapTileIndex);
+    }
+
+    /**
+     * The http validators are written to and read from the ".http" file next to the tile,
+     * replaced or deleted with the tile
+     */
+    @Test
+    public void testHttpValidators() {
+        save(ETAG, LAST_MODIFIED);
+        final File validators = mWriter.getHttpValidatorsFile(mWriter.getFile(mTileSource, mMapTileIndex));
+        Assert.assertTrue(validators.exists());
+        Assert.assertArrayEquals(new String[]{ETAG, LAST_MODIFIED}, mWriter.getHttpValidators(mTileSource, mMapTileIndex));
+
+        save(null, LAST_MODIFIED);
+        Assert.assertArrayEquals(new String[]{null, LAST_MODIFIED}, mWriter.getHttpValidators(mTileSource, mMapTileIndex));
+
+        save(ETAG, null);
+        Assert.assertArrayEquals(new String[]{ETAG, null}, mWriter.getHttpValidators(mTileSource, mMapTileIndex));
+
+        save(null, null);
+        Assert.assertFalse(validators.exists());
+        Assert.assertNull(mWriter.getHttpValidators(mTileSource, mMapTileIndex));
+
+        save(ETAG, LAST_MODIFIED);
+        Assert.assertTrue(mWriter.remove(mTileSource, mMapTileIndex));
+        Assert.assertFalse(validators.exists());
+        Assert.assertNull(mWriter.getHttpValidators(mTileSource, mMapTileIndex));
+    }
+
+    /**
+     * The new expiration is given to the tile file as last modification date, minus the maximum age
+     */
+    @Test
+    public void testExtendExpiration() {
+        final long maximumAge = 7 * 24 * 3600 * 1000L;
+        mWriter.setMaximumCachedFileAge(maximumAge);
+        Assert.assertFalse(mWriter.extendExpiration(mTileSource, mMapTileIndex, 0L));
+
+        save(ETAG, null);
+        final File file = mWriter.getFile(mTileSource, mMapTileIndex);
+        final long expiration = 1500000000000L + maximumAge; // whole seconds, for the file systems
+        Assert.assertTrue(mWriter.extendExpiration(mTileSource, mMapTileIndex, expiration));
+        Assert.assertEquals(expiration - maximumAge, file.lastModified());
+
+        final long later = expiration + 3600 * 1000L;
+        Assert.assertTrue(mWriter.extendExpiration(mTileSource, mMapTileIndex, later));
+        Assert.assertEquals(later - maximumAge, file.lastModified());
+
+        final long before = System.currentTimeMillis() / 1000 * 1000;
+        Assert.assertTrue(mWriter.extendExpiration(mTileSource, mMapTileIndex, null));
+        Assert.assertTrue(file.lastModified() >= before);
+    }
+
+    private void save(final String pETag, final String pLastModified) {
+        Assert.assertTrue(mWriter.saveFile(mTileSource, mMapTileIndex,
+                new ByteArrayInputStream(new byte[100]), 0L, pETag, pLastModified));
+    }
+}
@@ -45,6 +45,21 @@ public class TileSourcePolicyTest {
         }
     }
 
+    /**
+     * @since 6.2.0
+     */
+    @Test
+    public void testGetHttpRetryAfterDuration() {
+        final TileSourcePolicy tileSourcePolicy = new TileSourcePolicy();
+        Assert.assertEquals(120000L, (long) tileSourcePolicy.getHttpRetryAfterDuration("120", 0));
+        Assert.assertEquals(120000L, (long) tileSourcePolicy.getHttpRetryAfterDuration(" 120 ", 0));
+        Assert.assertEquals(60000L, (long) tileSourcePolicy.getHttpRetryAfterDuration(mExpiresStringOK[0], mExpiresValue - 60000));
+        Assert.assertEquals(0L, (long) tileSourcePolicy.getHttpRetryAfterDuration(mExpiresStringOK[0], mExpiresValue + 60000));
+        Assert.assertNull(tileSourcePolicy.getHttpRetryAfterDuration(mExpiresStringKO[0], 0));
+        Assert.assertNull(tileSourcePolicy.getHttpRetryAfterDuration("", 0));
+        Assert.assertNull(tileSourcePolicy.getHttpRetryAfterDuration(null, 0));
+    }
+
     @Test
     public void testComputeExpirationTime() {
         final Random random = new Random();
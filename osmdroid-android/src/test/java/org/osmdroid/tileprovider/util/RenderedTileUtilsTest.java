@@ -0,0 +1,58 @@
+package org.osmdroid.tileprovider.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Unit tests related to {@link RenderedTileUtils}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class RenderedTileUtilsTest {
+
+    private static final String NAME = "world";
+    private static final String STYLE = "osmarender";
+
+    /**
+     * The cache name changes with the file and the style, and only with them
+     */
+    @Test
+    public void testGetTileSourceName() throws IOException {
+        final File file = File.createTempFile("rendered", ".map");
+        try {
+            write(file, 10);
+            Assert.assertTrue(file.setLastModified(1000000000000L));
+            final String name = RenderedTileUtils.getTileSourceName(NAME, STYLE, file);
+            Assert.assertTrue(name.startsWith(NAME));
+            Assert.assertEquals(name, RenderedTileUtils.getTileSourceName(NAME, STYLE, file));
+            Assert.assertFalse(name.equals(RenderedTileUtils.getTileSourceName(NAME, STYLE + "2", file)));
+            Assert.assertFalse(name.equals(RenderedTileUtils.getTileSourceName(NAME, STYLE)));
+
+            Assert.assertTrue(file.setLastModified(1000000010000L));
+            final String touched = RenderedTileUtils.getTileSourceName(NAME, STYLE, file);
+            Assert.assertFalse(name.equals(touched));
+
+            write(file, 20);
+            Assert.assertTrue(file.setLastModified(1000000010000L));
+            Assert.assertFalse(touched.equals(RenderedTileUtils.getTileSourceName(NAME, STYLE, file)));
+        } finally {
+            file.delete();
+        }
+        Assert.assertEquals(RenderedTileUtils.getTileSourceName(NAME, STYLE),
+                RenderedTileUtils.getTileSourceName(NAME, STYLE, (File[]) null));
+    }
+
+    private void write(final File pFile, final int pSize) throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(pFile);
+        try {
+            outputStream.write(new byte[pSize]);
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.osmdroid.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to {@link AdaptiveConcurrencyLimiter}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long LATENCY = 100;
+
+    /**
+     * A fast server: the limit grows as long as it's used, up to the max
+     */
+    @Test
+    public void testIncrease() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 6);
+        long now = 0;
+        for (int i = 0; i < 100; i++) { // limit not reached: no increase
+            limiter.acquire();
+            limiter.onResponse(LATENCY, now += LATENCY);
+            limiter.release();
+        }
+        Assert.assertEquals(2, limiter.getLimit());
+        for (int round = 0; round < 50; round++) { // as many requests in flight as possible
+            final int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            now += LATENCY;
+            for (int i = 0; i < limit; i++) {
+                limiter.onResponse(LATENCY, now);
+                limiter.release();
+            }
+            Assert.assertTrue(limiter.getLimit() >= limit);
+            Assert.assertTrue(limiter.getLimit() <= limit + 1);
+        }
+        Assert.assertEquals(6, limiter.getLimit());
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * A server that starts queuing, then a server that says it's overloaded
+     */
+    @Test
+    public void testDecrease() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 0);
+        long now = 0;
+        limiter.onResponse(LATENCY, now);
+        for (int i = 0; i < 5; i++) { // same round: one decrease only
+            limiter.onResponse(10 * LATENCY, now);
+        }
+        Assert.assertEquals(8, limiter.getLimit());
+        now += 100 * LATENCY;
+        limiter.onResponse(10 * LATENCY, now);
+        Assert.assertEquals(6, limiter.getLimit()); // 6.4
+
+        now += 100 * LATENCY;
+        limiter.onOverload(0, now);
+        Assert.assertEquals(3, limiter.getLimit());
+        Assert.assertEquals(0, limiter.getPauseMillis(now));
+        for (int i = 0; i < 10; i++) {
+            now += 100 * LATENCY;
+            limiter.onOverload(0, now);
+        }
+        Assert.assertEquals(1, limiter.getLimit());
+    }
+
+    /**
+     * High response time variance (e.g. a CDN): the limit does not go below half the initial one,
+     * unless the server says it's overloaded
+     */
+    @Test
+    public void testLatencyFloor() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8);
+        long now = 0;
+        limiter.onResponse(LATENCY, now);
+        for (int i = 0; i < 50; i++) {
+            now += 100 * LATENCY;
+            limiter.onResponse(10 * LATENCY, now);
+        }
+        Assert.assertEquals(4, limiter.getLimit());
+        now += 100 * LATENCY;
+        limiter.onOverload(0, now);
+        Assert.assertEquals(2, limiter.getLimit());
+        now += 100 * LATENCY;
+        limiter.onResponse(10 * LATENCY, now);
+        Assert.assertEquals(2, limiter.getLimit()); // the floor does not increase the limit
+    }
+
+    /**
+     * Slots taken without waiting, and the listeners told when a slot is freed
+     */
+    @Test
+    public void testTryAcquire() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+        final AtomicInteger released = new AtomicInteger();
+        final AdaptiveConcurrencyLimiter.Listener listener = new AdaptiveConcurrencyLimiter.Listener() {
+            @Override
+            public void onRelease() {
+                released.incrementAndGet();
+            }
+        };
+        limiter.addListener(listener);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        limiter.release();
+        Assert.assertEquals(1, released.get());
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release();
+        limiter.release();
+        Assert.assertEquals(3, released.get());
+        Assert.assertEquals(0, limiter.getInFlight());
+
+        limiter.onOverload(10000);
+        Assert.assertTrue(limiter.getPauseMillis() > 0);
+        Assert.assertFalse(limiter.tryAcquire()); // "Retry-After"
+        limiter.removeListener(listener);
+    }
+
+    /**
+     * "Retry-After"
+     */
+    @Test
+    public void testPause() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 4);
+        final long start = System.nanoTime() / 1000000L;
+        limiter.onOverload(200, start);
+        Assert.assertEquals(200, limiter.getPauseMillis(start));
+        Assert.assertTrue(limiter.shouldWait());
+        limiter.acquire();
+        Assert.assertTrue(System.nanoTime() / 1000000L - start >= 200);
+        Assert.assertFalse(limiter.shouldWait());
+        limiter.release();
+    }
+
+    /**
+     * Concurrent threads never exceed the limit, even when it changes
+     */
+    @Test
+    public void testConcurrency() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 8);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 50; j++) {
+                        try {
+                            limiter.acquire();
+                        } catch (final InterruptedException e) {
+                            return;
+                        }
+                        final int current = inFlight.incrementAndGet();
+                        synchronized (maxInFlight) {
+                            maxInFlight.set(Math.max(maxInFlight.get(), current));
+                        }
+                        inFlight.decrementAndGet();
+                        if (index == 0 && j == 25) {
+                            limiter.onOverload(0);
+                        } else {
+                            limiter.onResponse(1);
+                        }
+                        limiter.release();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(maxInFlight.get() <= 8);
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+}
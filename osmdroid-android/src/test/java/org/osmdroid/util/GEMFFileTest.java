@@ -0,0 +1,188 @@
+package org.osmdroid.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests related to {@link GEMFFile}, streamed and memory mapped
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class GEMFFileTest {
+
+    private static final int MIN_ZOOM = 0;
+    private static final int MAX_ZOOM = 6;
+    private static final int READS = 20000;
+
+    private final Random mRandom = new Random();
+    private final Map<String, byte[]> mTiles = new HashMap<>();
+    private File mDirectory;
+    private String mLocation;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = new File(System.getProperty("java.io.tmpdir"), "osmdroid-gemf-" + System.nanoTime());
+        final List<File> sources = new ArrayList<>();
+        sources.add(createSource("first", 0));
+        sources.add(createSource("second", 1)); // overlaps the first source
+        mLocation = new File(mDirectory, "test.gemf").getAbsolutePath();
+        new GEMFFile(mLocation, sources).close();
+    }
+
+    @After
+    public void tearDown() {
+        delete(mDirectory);
+    }
+
+    /**
+     * Same tiles, whether streamed or memory mapped
+     */
+    @Test
+    public void testMemoryMapped() throws IOException {
+        final GEMFFile streamed = new GEMFFile(mLocation);
+        final GEMFFile mapped = new GEMFFile(mLocation, true);
+        Assert.assertFalse(streamed.isMemoryMapped());
+        Assert.assertTrue(mapped.isMemoryMapped());
+        for (final GEMFFile file : new GEMFFile[]{streamed, mapped}) {
+            checkTiles(file, "first", 0);
+            file.selectSource(1);
+            checkTiles(file, "second", 1);
+            file.acceptAnySource();
+            Assert.assertNull(file.getInputStream(0, 0, MAX_ZOOM + 1));
+            Assert.assertNull(file.getInputStream(1 << MAX_ZOOM, 0, MAX_ZOOM));
+            Assert.assertNull(file.getByteBuffer(0, 0, -1));
+        }
+        streamed.close();
+        mapped.close();
+    }
+
+    /**
+     * Random tile reads, streamed then memory mapped
+     */
+    @Test
+    public void testReadSpeed() throws IOException {
+        final long duration1 = measureReads(false);
+        final long duration2 = measureReads(true);
+        System.err.println(duration2 + " < " + duration1);
+        // most of the time that's true, but we shouldn't make the build crash if it's not the case
+        //Assert.assertTrue(duration2 < duration1);
+    }
+
+    private long measureReads(final boolean pMemoryMapped) throws IOException {
+        final GEMFFile file = new GEMFFile(mLocation, pMemoryMapped);
+        final byte[] buffer = new byte[1024];
+        long total = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            final int zoom = MIN_ZOOM + mRandom.nextInt(MAX_ZOOM - MIN_ZOOM + 1);
+            final int size = 1 << zoom;
+            final InputStream stream = file.getInputStream(mRandom.nextInt(size), mRandom.nextInt(size), zoom);
+            if (stream == null) {
+                continue;
+            }
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                total += read;
+            }
+            stream.close();
+        }
+        final long end = System.nanoTime();
+        file.close();
+        Assert.assertTrue(total > 0);
+        return end - start;
+    }
+
+    private void checkTiles(final GEMFFile pFile, final String pSource, final int pShift) throws IOException {
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            final int size = 1 << zoom;
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    byte[] expected = mTiles.get(getKey(pSource, zoom, x, y));
+                    if (expected == null && pShift == 0) { // not in the first source, then the second one
+                        expected = mTiles.get(getKey("second", zoom, x, y));
+                    }
+                    final ByteBuffer buffer = pFile.getByteBuffer(x, y, zoom);
+                    final InputStream stream = pFile.getInputStream(x, y, zoom);
+                    if (expected == null) {
+                        Assert.assertNull(buffer);
+                        Assert.assertNull(stream);
+                        continue;
+                    }
+                    final byte[] actual = new byte[buffer.remaining()];
+                    buffer.get(actual);
+                    Assert.assertArrayEquals(expected, actual);
+                    Assert.assertArrayEquals(expected, read(stream));
+                }
+            }
+        }
+    }
+
+    private byte[] read(final InputStream pStream) throws IOException {
+        final byte[] result = new byte[pStream.available()];
+        int offset = 0;
+        int read;
+        while (offset < result.length && (read = pStream.read(result, offset, result.length - offset)) > 0) {
+            offset += read;
+        }
+        Assert.assertEquals(-1, pStream.read());
+        pStream.close();
+        return result;
+    }
+
+    /**
+     * Tiles on the west half of the world for the first source,
+     * on the south-east quarter for the second source (shifted by one tile)
+     */
+    private File createSource(final String pName, final int pShift) throws IOException {
+        final File source = new File(mDirectory, pName);
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            final int size = 1 << zoom;
+            final int half = Math.max(1, size / 2);
+            final int xMin = pShift == 0 ? 0 : Math.min(size - 1, half - pShift);
+            final int xMax = pShift == 0 ? half - 1 : size - 1;
+            final int yMin = pShift == 0 ? 0 : Math.min(size - 1, half);
+            for (int x = xMin; x <= xMax; x++) {
+                final File directory = new File(source, zoom + "/" + x);
+                Assert.assertTrue(directory.mkdirs());
+                for (int y = yMin; y < size; y++) {
+                    final byte[] data = new byte[100 + mRandom.nextInt(2000)];
+                    mRandom.nextBytes(data);
+                    final FileOutputStream output = new FileOutputStream(new File(directory, y + ".png"));
+                    output.write(data);
+                    output.close();
+                    mTiles.put(getKey(pName, zoom, x, y), data);
+                }
+            }
+        }
+        return source;
+    }
+
+    private String getKey(final String pSource, final int pZoom, final int pX, final int pY) {
+        return pSource + "/" + pZoom + "/" + pX + "/" + pY;
+    }
+
+    private void delete(final File pFile) {
+        final File[] files = pFile.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                delete(file);
+            }
+        }
+        pFile.delete();
+    }
+}
@@ -62,6 +62,29 @@ public class MapTileAreaListTest {
         Assert.assertEquals(list.size(), total);
     }
 
+    /**
+     * Same tiles with the primitive iterator, including after empty areas
+     *
+     * @since 6.2.0
+     */
+    @Test
+    public void testTileIndexIterator() {
+        final MapTileAreaList list = new MapTileAreaList();
+        list.getList().add(new MapTileArea().set(5, 1, 2, 3, 4));
+        list.getList().add(new MapTileArea().reset());
+        list.getList().add(new MapTileArea().set(6, 10, 11, 12, 13));
+        Assert.assertEquals(18, list.size());
+        final MapTileIndexIterator iterator = list.tileIndexIterator();
+        int count = 0;
+        for (final long mapTileIndex : list) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(mapTileIndex, iterator.next());
+            count++;
+        }
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(list.size(), count);
+    }
+
     private int getMapTileUpperBound(final int pZoom) {
         return 1 << pZoom;
     }
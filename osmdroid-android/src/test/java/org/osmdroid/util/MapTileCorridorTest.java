@@ -0,0 +1,175 @@
+package org.osmdroid.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.tileprovider.cachemanager.CacheManager;
+import org.osmdroid.views.MapView;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests related to {@link MapTileCorridor}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class MapTileCorridorTest {
+
+    private static final int ZOOM_MIN = 6;
+    private static final int ZOOM_MAX = 13;
+    private static final int SAMPLES_PER_SEGMENT = 50;
+
+    private final Random mRandom = new Random(42);
+
+    /**
+     * All the tiles along the route within the buffer, and no tile far away from the route
+     */
+    @Test
+    public void testCoverage() {
+        final ArrayList<GeoPoint> route = getRandomRoute(new GeoPoint(45.0, 5.0), 200, .01);
+        for (final double buffer : new double[]{0, 1000}) {
+            final MapTileCorridor corridor = new MapTileCorridor(route, ZOOM_MIN, ZOOM_MAX, buffer);
+            final Set<Long> tiles = check(corridor);
+            for (int zoom = ZOOM_MIN; zoom <= ZOOM_MAX; zoom++) {
+                final double bufferTiles = buffer / (TileSystem.GroundResolution(46.0, zoom) * TileSystem.getTileSize());
+                final double[][] samples = getSamples(route, zoom);
+                for (final double[] sample : samples) { // all the tiles along the route
+                    for (final double dx : new double[]{-1, 0, 1}) {
+                        for (final double dy : new double[]{-1, 0, 1}) {
+                            final long tile = MapTileIndex.getTileIndex(zoom,
+                                    (int) Math.floor(sample[0] + dx * bufferTiles * .99),
+                                    (int) Math.floor(sample[1] + dy * bufferTiles * .99));
+                            Assert.assertTrue(corridor.contains(tile));
+                            Assert.assertTrue(tiles.contains(tile));
+                        }
+                    }
+                }
+                for (final long tile : tiles) { // nothing far away
+                    if (MapTileIndex.getZoom(tile) != zoom) {
+                        continue;
+                    }
+                    final double x = MapTileIndex.getX(tile) + .5;
+                    final double y = MapTileIndex.getY(tile) + .5;
+                    double min = Double.MAX_VALUE;
+                    for (final double[] sample : samples) {
+                        min = Math.min(min, Math.max(Math.abs(sample[0] - x), Math.abs(sample[1] - y)));
+                    }
+                    Assert.assertTrue(min <= bufferTiles + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Crossing the antimeridian the short way, and a single point route
+     */
+    @Test
+    public void testEdgeCases() {
+        final ArrayList<GeoPoint> route = new ArrayList<>();
+        route.add(new GeoPoint(10.0, 179.99));
+        route.add(new GeoPoint(10.0, -179.99));
+        final MapTileCorridor corridor = new MapTileCorridor(route, ZOOM_MIN, ZOOM_MAX, 0);
+        check(corridor);
+        for (int zoom = ZOOM_MIN; zoom <= ZOOM_MAX; zoom++) {
+            Assert.assertEquals(2, corridor.size(zoom));
+            final int y = MapView.getTileSystem().getTileYFromLatitude(10.0, zoom);
+            Assert.assertTrue(corridor.contains(MapTileIndex.getTileIndex(zoom, 0, y)));
+            Assert.assertTrue(corridor.contains(MapTileIndex.getTileIndex(zoom, (1 << zoom) - 1, y)));
+        }
+
+        final List<GeoPoint> point = new ArrayList<>();
+        point.add(new GeoPoint(10.0, 10.0));
+        final MapTileCorridor single = new MapTileCorridor(point, ZOOM_MIN, ZOOM_MAX, 0);
+        Assert.assertEquals(ZOOM_MAX - ZOOM_MIN + 1, check(single).size());
+        Assert.assertEquals(0, new MapTileCorridor(new ArrayList<GeoPoint>(), ZOOM_MIN, ZOOM_MAX, 100).size());
+    }
+
+    /**
+     * A long route, compared to the per-point coverage of {@link CacheManager}
+     */
+    @Test
+    public void testPerformances() {
+        final ArrayList<GeoPoint> route = getRandomRoute(new GeoPoint(40.0, -3.0), 2000, .001);
+        final long start1 = System.nanoTime();
+        int size1 = 0;
+        for (int zoom = ZOOM_MIN; zoom <= ZOOM_MAX; zoom++) {
+            size1 += CacheManager.getTilesCoverage(route, zoom).size();
+        }
+        final long duration1 = System.nanoTime() - start1;
+        final long start2 = System.nanoTime();
+        final int size2 = new MapTileCorridor(route, ZOOM_MIN, ZOOM_MAX, 200).compute().size();
+        final long duration2 = System.nanoTime() - start2;
+        Assert.assertTrue(size1 > 0);
+        Assert.assertTrue(size2 > 0);
+        System.out.println(duration2 + " < " + duration1);
+        // most of the time that's true, but we shouldn't make the build crash if it's not the case
+        //Assert.assertTrue(duration2 < duration1);
+    }
+
+    /**
+     * @return the tiles, after checking the size, the order and the lack of duplicates
+     */
+    private Set<Long> check(final MapTileCorridor pCorridor) {
+        final Set<Long> result = new HashSet<>();
+        final MapTileIndexIterator iterator = pCorridor.tileIndexIterator();
+        int previousZoom = -1;
+        while (iterator.hasNext()) {
+            final long tile = iterator.next();
+            final int zoom = MapTileIndex.getZoom(tile);
+            Assert.assertTrue(zoom >= previousZoom);
+            previousZoom = zoom;
+            Assert.assertTrue(result.add(tile));
+        }
+        Assert.assertEquals(pCorridor.size(), result.size());
+        return result;
+    }
+
+    /**
+     * @return points along the route, in tile coordinates for that zoom level
+     */
+    private double[][] getSamples(final List<GeoPoint> pRoute, final int pZoom) {
+        final TileSystem tileSystem = MapView.getTileSystem();
+        final double scale = 1 << pZoom;
+        final double[][] result = new double[(pRoute.size() - 1) * SAMPLES_PER_SEGMENT + 1][];
+        int index = 0;
+        for (int i = 0; i < pRoute.size(); i++) {
+            final double x = tileSystem.getX01FromLongitude(pRoute.get(i).getLongitude(), true) * scale;
+            final double y = tileSystem.getY01FromLatitude(pRoute.get(i).getLatitude(), true) * scale;
+            if (i == pRoute.size() - 1) {
+                result[index] = new double[]{x, y};
+                break;
+            }
+            final double nextX = tileSystem.getX01FromLongitude(pRoute.get(i + 1).getLongitude(), true) * scale;
+            final double nextY = tileSystem.getY01FromLatitude(pRoute.get(i + 1).getLatitude(), true) * scale;
+            for (int j = 0; j < SAMPLES_PER_SEGMENT; j++) {
+                final double t = j / (double) SAMPLES_PER_SEGMENT;
+                result[index++] = new double[]{x + t * (nextX - x), y + t * (nextY - y)};
+            }
+        }
+        return result;
+    }
+
+    private ArrayList<GeoPoint> getRandomRoute(final GeoPoint pStart, final int pSize, final double pStep) {
+        final ArrayList<GeoPoint> result = new ArrayList<>();
+        double latitude = pStart.getLatitude();
+        double longitude = pStart.getLongitude();
+        double bearing = 0;
+        for (int i = 0; i < pSize; i++) {
+            result.add(new GeoPoint(latitude, longitude));
+            bearing += (mRandom.nextDouble() - .5);
+            latitude += pStep * Math.cos(bearing);
+            longitude += pStep * Math.sin(bearing);
+        }
+        return result;
+    }
+}
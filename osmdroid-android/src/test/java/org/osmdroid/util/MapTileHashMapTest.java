@@ -0,0 +1,200 @@
+package org.osmdroid.util;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to {@link MapTileHashMap}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class MapTileHashMapTest {
+
+    private static final Random random = new Random();
+
+    @Test
+    public void testGetPutRemove() {
+        final int iterations = 100000;
+        final int zoom = 6;
+        final int max = 1 << zoom;
+        final Map<Long, String> expected = new HashMap<>();
+        final MapTileHashMap<String> map = new MapTileHashMap<>();
+        for (int i = 0; i < iterations; i++) {
+            final long index = MapTileIndex.getTileIndex(zoom, random.nextInt(max), random.nextInt(max));
+            switch (random.nextInt(3)) {
+                case 0:
+                    Assert.assertEquals(expected.get(index), map.get(index));
+                    break;
+                case 1:
+                    final String value = "" + i;
+                    Assert.assertEquals(expected.put(index, value), map.put(index, value));
+                    break;
+                default:
+                    Assert.assertEquals(expected.remove(index), map.remove(index));
+                    break;
+            }
+            Assert.assertEquals(expected.size(), map.getSize());
+        }
+        check(expected, map);
+        map.clear();
+        Assert.assertEquals(0, map.getSize());
+        for (final long index : expected.keySet()) {
+            Assert.assertNull(map.get(index));
+            Assert.assertFalse(map.contains(index));
+        }
+    }
+
+    @Test
+    public void testRemoveWhileParsing() {
+        final int size = 1000;
+        final MapTileHashMap<String> map = new MapTileHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, "" + i);
+        }
+        final Set<Long> visited = new HashSet<>();
+        for (int slot = map.nextSlot(0); slot != -1; slot = map.nextSlot(slot + 1)) {
+            final long key = map.getKeyAt(slot);
+            Assert.assertTrue(visited.add(key));
+            if (key % 2 == 0) {
+                Assert.assertEquals("" + key, map.remove(key));
+                Assert.assertNull(map.getValueAt(slot));
+            }
+        }
+        Assert.assertEquals(size, visited.size());
+        Assert.assertEquals(size / 2, map.getSize());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(i % 2 == 0, map.get(i) == null);
+        }
+    }
+
+    /**
+     * Lock-free readers while a synchronized writer puts, removes, rehashes and clears:
+     * a reader may miss an item, but never gets the value of another key
+     */
+    @Test
+    public void testLockFreeReaders() throws InterruptedException {
+        final int keys = 2000;
+        final int readers = 4;
+        final MapTileHashMap<Long> map = new MapTileHashMap<>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    final Random random = new Random();
+                    while (running.get()) {
+                        final long key = random.nextInt(keys);
+                        final Long value = map.get(key);
+                        if (value != null && value != key) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        for (int i = 0; i < 200000; i++) {
+            final long key = random.nextInt(keys);
+            synchronized (map) {
+                if (i % 50000 == 0) {
+                    map.clear();
+                } else if (random.nextBoolean()) {
+                    map.put(key, key);
+                } else {
+                    map.remove(key);
+                }
+            }
+        }
+        running.set(false);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, errors.get());
+    }
+
+    /**
+     * Compares with the HashMap<Long, ...> previously used in MapTileCache,
+     * on typical "get on the draw thread, put and remove on the loader threads" cycles
+     */
+    @Test
+    public void testDuration() {
+        final int zoom = 12;
+        final int size = 64;
+        final int rounds = 50;
+        final long[] indices = new long[size * size];
+        int count = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                indices[count++] = MapTileIndex.getTileIndex(zoom, x, y);
+            }
+        }
+        final Object value = new Object();
+        long start, end, duration1 = 0, duration2 = 0;
+        for (int round = 0; round < rounds; round++) {
+            final Map<Long, Object> hashMap = new HashMap<>();
+            start = System.nanoTime();
+            for (final long index : indices) {
+                hashMap.put(index, value);
+            }
+            for (int i = 0; i < 10; i++) {
+                for (final long index : indices) {
+                    Assert.assertSame(value, hashMap.get(index));
+                }
+            }
+            for (final long index : indices) {
+                hashMap.remove(index);
+            }
+            end = System.nanoTime();
+            duration1 += end - start;
+
+            final MapTileHashMap<Object> map = new MapTileHashMap<>();
+            start = System.nanoTime();
+            for (final long index : indices) {
+                map.put(index, value);
+            }
+            for (int i = 0; i < 10; i++) {
+                for (final long index : indices) {
+                    Assert.assertSame(value, map.get(index));
+                }
+            }
+            for (final long index : indices) {
+                map.remove(index);
+            }
+            end = System.nanoTime();
+            duration2 += end - start;
+        }
+        System.err.println(duration2 + " < " + duration1);
+        // most of the time that's true, but we shouldn't make the build crash if it's not the case
+        //Assert.assertTrue(duration2 < duration1);
+    }
+
+    private void check(final Map<Long, String> pExpected, final MapTileHashMap<String> pMap) {
+        Assert.assertEquals(pExpected.size(), pMap.getSize());
+        for (final Map.Entry<Long, String> entry : pExpected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), pMap.get(entry.getKey()));
+            Assert.assertTrue(pMap.contains(entry.getKey()));
+        }
+        int count = 0;
+        for (int slot = pMap.nextSlot(0); slot != -1; slot = pMap.nextSlot(slot + 1)) {
+            Assert.assertEquals(pExpected.get(pMap.getKeyAt(slot)), pMap.getValueAt(slot));
+            count++;
+        }
+        Assert.assertEquals(pExpected.size(), count);
+    }
+}
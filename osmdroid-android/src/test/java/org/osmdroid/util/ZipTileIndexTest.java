@@ -0,0 +1,182 @@
+package org.osmdroid.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Unit tests related to {@link ZipTileIndex}
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+
+public class ZipTileIndexTest {
+
+    private static final int ZOOM = 8;
+    private static final int SIZE = 20;
+
+    private File mFile;
+
+    @After
+    public void tearDown() {
+        if (mFile != null) {
+            mFile.delete();
+        }
+    }
+
+    /**
+     * Stored and deflated tiles, per tile source or in the archive order, mapped or not
+     */
+    @Test
+    public void testLookups() throws IOException {
+        mFile = File.createTempFile("osmdroid", ".zip");
+        final ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(mFile));
+        try {
+            outputStream.putNextEntry(new ZipEntry("readme.txt")); // ignored
+            outputStream.write(new byte[]{1, 2, 3});
+            outputStream.putNextEntry(new ZipEntry("first/")); // ignored
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    add(outputStream, "first/" + ZOOM + "/" + x + "/" + y + ".png", getData(0, x, y), (x + y) % 2 == 0);
+                }
+            }
+            add(outputStream, "second/sub/" + ZOOM + "/0/0.jpg", getData(1, 0, 0), true);
+            add(outputStream, "second/sub/" + ZOOM + "/" + SIZE + "/0.jpg", getData(1, SIZE, 0), false);
+        } finally {
+            outputStream.close();
+        }
+
+        for (final boolean memoryMapped : new boolean[]{false, true}) {
+            final ZipTileIndex index = new ZipTileIndex(mFile, memoryMapped);
+            try {
+                Assert.assertEquals(memoryMapped, index.isMemoryMapped());
+                Assert.assertTrue(index.isComplete());
+                Assert.assertEquals(SIZE * SIZE + 2, index.size());
+                Assert.assertEquals(2, index.getSources().size());
+                final int first = index.getSource("first");
+                final int second = index.getSource("second/sub");
+                Assert.assertEquals(0, first);
+                Assert.assertEquals(1, second);
+                Assert.assertEquals(-1, index.getSource("third"));
+                Assert.assertArrayEquals(new int[]{0, 0, SIZE, SIZE - 1}, index.getTileBounds(ZOOM));
+                Assert.assertNull(index.getTileBounds(ZOOM + 1));
+
+                for (int x = 0; x < SIZE; x++) {
+                    for (int y = 0; y < SIZE; y++) {
+                        final long mapTileIndex = MapTileIndex.getTileIndex(ZOOM, x, y);
+                        check(getData(0, x, y), index.getInputStream(mapTileIndex, first, null));
+                        check(getData(0, x, y), index.getInputStream(mapTileIndex, -1, null));
+                    }
+                }
+                final long origin = MapTileIndex.getTileIndex(ZOOM, 0, 0);
+                check(getData(1, 0, 0), index.getInputStream(origin, second, null));
+                check(getData(1, 0, 0), index.getInputStream(origin, second, "second/sub/" + ZOOM + "/0/0.jpg"));
+                Assert.assertNull(index.getInputStream(origin, second, "second/sub/" + ZOOM + "/0/0.png"));
+                check(getData(1, SIZE, 0), index.getInputStream(MapTileIndex.getTileIndex(ZOOM, SIZE, 0), -1, null));
+                Assert.assertNull(index.getInputStream(MapTileIndex.getTileIndex(ZOOM, SIZE, 0), first, null));
+                Assert.assertNull(index.getInputStream(MapTileIndex.getTileIndex(ZOOM + 1, 0, 0), -1, null));
+            } finally {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * More than 65535 entries, i.e. with zip64 records, and faster than scanning the entries
+     */
+    @Test
+    public void testManyEntries() throws IOException {
+        final int size = 300; // 90000 tiles
+        final int zoom = ZOOM + 1;
+        mFile = File.createTempFile("osmdroid", ".zip");
+        final ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(mFile));
+        try {
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    add(outputStream, "source/" + zoom + "/" + x + "/" + y + ".png", new byte[]{(byte) x, (byte) y}, false);
+                }
+            }
+        } finally {
+            outputStream.close();
+        }
+        final ZipTileIndex index = new ZipTileIndex(mFile, false);
+        final ZipFile zipFile = new ZipFile(mFile);
+        try {
+            Assert.assertEquals(size * size, index.size());
+            final long mapTileIndex = MapTileIndex.getTileIndex(zoom, size - 1, size - 2);
+            check(new byte[]{(byte) (size - 1), (byte) (size - 2)}, index.getInputStream(mapTileIndex, -1, null));
+
+            final int reads = 20;
+            final long start1 = System.nanoTime();
+            for (int i = 0; i < reads; i++) { // what we used to do when ignoring the tile source
+                final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    final String name = entries.nextElement().getName();
+                    if (zipFile.getEntry(name.split("/")[0] + "/" + zoom + "/" + (size - 1) + "/" + (size - 2) + ".png") != null) {
+                        break;
+                    }
+                }
+            }
+            final long duration1 = System.nanoTime() - start1;
+            final long start2 = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                index.getInputStream(mapTileIndex, -1, null).close();
+            }
+            final long duration2 = System.nanoTime() - start2;
+            System.out.println(duration2 + " < " + duration1);
+            // most of the time that's true, but we shouldn't make the build crash if it's not the case
+            //Assert.assertTrue(duration2 < duration1);
+        } finally {
+            zipFile.close();
+            index.close();
+        }
+    }
+
+    private void add(final ZipOutputStream pOutputStream, final String pName, final byte[] pData,
+                     final boolean pDeflated) throws IOException {
+        final ZipEntry entry = new ZipEntry(pName);
+        if (!pDeflated) {
+            final CRC32 crc = new CRC32();
+            crc.update(pData);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(pData.length);
+            entry.setCompressedSize(pData.length);
+            entry.setCrc(crc.getValue());
+        }
+        pOutputStream.putNextEntry(entry);
+        pOutputStream.write(pData);
+        pOutputStream.closeEntry();
+    }
+
+    private byte[] getData(final int pSource, final int pX, final int pY) {
+        final byte[] result = new byte[500 + pX * SIZE + pY];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) ((i / 10) + pSource * 13 + pX * 7 + pY);
+        }
+        return result;
+    }
+
+    private void check(final byte[] pExpected, final InputStream pInputStream) throws IOException {
+        Assert.assertNotNull(pInputStream);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[256];
+        int read;
+        while ((read = pInputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        pInputStream.close();
+        Assert.assertArrayEquals(pExpected, outputStream.toByteArray());
+    }
+}
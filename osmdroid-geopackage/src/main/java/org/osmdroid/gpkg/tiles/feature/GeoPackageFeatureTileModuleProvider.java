@@ -0,0 +1,159 @@
+package org.osmdroid.gpkg.tiles.feature;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.MapTileExecutors;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.util.RenderedTileUtils;
+import org.osmdroid.util.MapTileIndex;
+
+import java.util.concurrent.Executor;
+
+import mil.nga.geopackage.tiles.features.FeatureTiles;
+
+/**
+ * Renders GeoPackage feature tiles off the UI thread, in the tile request queue:
+ * the tiles that leave the viewport are cancelled before being rendered.
+ * The rendered tiles are saved to the file-system cache, if any, and read back by a
+ * {@link org.osmdroid.tileprovider.modules.MapTileRenderedCacheProvider} on the I/O threads.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+public class GeoPackageFeatureTileModuleProvider extends MapTileModuleProviderBase {
+
+    private final IFilesystemCache mTileWriter;
+
+    /**
+     * The features to render, replaced as a whole by {@link #set(int, FeatureTiles, ITileSource)}:
+     * a tile rendered with a previous instance is stale
+     */
+    private volatile Features mFeatures;
+    private volatile int mMinZoom;
+    private final int mMaxZoom;
+
+    public GeoPackageFeatureTileModuleProvider(final IFilesystemCache pTileWriter, final int pMaxZoom) {
+        super(Configuration.getInstance().getTileFileSystemThreads(),
+                Configuration.getInstance().getTileFileSystemMaxQueueSize());
+        mTileWriter = pTileWriter;
+        mMaxZoom = pMaxZoom;
+    }
+
+    /**
+     * The tiles still pending are dropped, and the tiles being rendered with the previous features
+     * are rendered again with the new ones
+     *
+     * @param pCacheTileSource the cache key of the rendered tiles, or null for no file-system cache
+     */
+    public void set(final int pMinZoom, final FeatureTiles pFeatureTiles, final ITileSource pCacheTileSource) {
+        mMinZoom = pMinZoom;
+        mFeatures = pFeatureTiles == null ? null : new Features(pFeatureTiles, pCacheTileSource);
+        clearPendingQueue();
+    }
+
+    @Override
+    protected String getName() {
+        return "GeoPackage Feature Tiles Provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "geopackagefeaturetiles";
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader();
+    }
+
+    /**
+     * Rendering is CPU-bound
+     */
+    @Override
+    protected Executor getExecutor() {
+        return MapTileExecutors.getInstance().getCpuExecutor();
+    }
+
+    @Override
+    public boolean getUsesDataConnection() {
+        return false;
+    }
+
+    @Override
+    public int getMinimumZoomLevel() {
+        return mMinZoom;
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
+        return mMaxZoom;
+    }
+
+    @Override
+    public void setTileSource(final ITileSource pTileSource) {
+        // the features are set with set()
+    }
+
+    @Override
+    public void detach() {
+        mFeatures = null;
+        super.detach();
+    }
+
+    private class TileLoader extends MapTileModuleProviderBase.TileLoader {
+
+        @Override
+        public Drawable loadTile(final long pMapTileIndex) {
+            while (true) {
+                final Features features = mFeatures;
+                if (features == null) {
+                    return null;
+                }
+                final Bitmap tile;
+                try {
+                    tile = features.mFeatureTiles.drawTile(
+                            MapTileIndex.getX(pMapTileIndex), MapTileIndex.getY(pMapTileIndex), MapTileIndex.getZoom(pMapTileIndex));
+                } catch (RuntimeException e) {
+                    if (features != mFeatures) { // the previous GeoPackage may have been closed meanwhile
+                        continue;
+                    }
+                    throw e;
+                }
+                if (features != mFeatures) { // stale: rendered with the previous features
+                    if (tile != null) {
+                        tile.recycle();
+                    }
+                    continue;
+                }
+                if (tile == null) { // no features there: an empty tile, not to be rendered again
+                    return new ColorDrawable(Color.TRANSPARENT);
+                }
+                final Drawable result = new BitmapDrawable(tile);
+                if (features.mCacheTileSource != null) {
+                    RenderedTileUtils.save(mTileWriter, features.mCacheTileSource, pMapTileIndex, result);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Feature tiles and the cache key of their rendered tiles
+     */
+    private static class Features {
+        private final FeatureTiles mFeatureTiles;
+        private final ITileSource mCacheTileSource;
+
+        private Features(final FeatureTiles pFeatureTiles, final ITileSource pCacheTileSource) {
+            mFeatureTiles = pFeatureTiles;
+            mCacheTileSource = pCacheTileSource;
+        }
+    }
+}
@@ -1,35 +1,65 @@
 package org.osmdroid.gpkg.tiles.feature;
 
 import android.graphics.Bitmap;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
+import android.graphics.Paint;
 import android.os.Build;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
-import org.osmdroid.tileprovider.MapTileProviderBase;
+import org.osmdroid.tileprovider.MapTileProviderArray;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.MapTileRenderedCacheProvider;
 import org.osmdroid.tileprovider.modules.SqlTileWriter;
 import org.osmdroid.tileprovider.modules.TileWriter;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
-import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+import org.osmdroid.tileprovider.util.RenderedTileUtils;
 
+import java.io.File;
+import java.util.Arrays;
+
+import mil.nga.geopackage.tiles.features.CustomFeaturesTile;
+import mil.nga.geopackage.tiles.features.FeatureTilePointIcon;
 import mil.nga.geopackage.tiles.features.FeatureTiles;
 
 /**
  * created on 8/19/2017.
+ * <p>
+ * Since 6.2.0 the feature tiles are rendered off the UI thread by a {@link GeoPackageFeatureTileModuleProvider},
+ * and kept in the memory cache.
  *
  * @author Alex O'Ree
  */
 
-public class GeoPackageFeatureTileProvider extends MapTileProviderBase {
+public class GeoPackageFeatureTileProvider extends MapTileProviderArray {
+
+    private static final int MAX_ZOOM = 22;
 
     protected IFilesystemCache tileWriter;
     protected int minzoom = 0;
     protected FeatureTiles featureTiles = null;
 
+    /**
+     * The rendered tiles are cached under a name that changes with the GeoPackage file and the style
+     *
+     * @since 6.2.0
+     */
+    private ITileSource mCacheTileSource;
+
+    /**
+     * @since 6.2.0
+     */
+    protected final GeoPackageFeatureTileModuleProvider mModuleProvider;
+
+    /**
+     * Reads the tiles previously rendered on the I/O threads, before the module provider renders them
+     *
+     * @since 6.2.0
+     */
+    protected final MapTileRenderedCacheProvider mCacheProvider;
+
     public GeoPackageFeatureTileProvider(ITileSource pTileSource) {
-        super(pTileSource);
+        super(pTileSource, null);
 
         Log.i(IMapView.LOGTAG, "Geopackage support is BETA. Please report any issues");
         if (Build.VERSION.SDK_INT < 10) {
@@ -37,22 +67,13 @@ public class GeoPackageFeatureTileProvider extends MapTileProviderBase {
         } else {
             tileWriter = new SqlTileWriter();
         }
+        mCacheProvider = new MapTileRenderedCacheProvider(tileWriter, null);
+        mTileProviderList.add(mCacheProvider);
+        mModuleProvider = new GeoPackageFeatureTileModuleProvider(tileWriter, MAX_ZOOM);
+        mTileProviderList.add(mModuleProvider);
     }
 
 
-    @Override
-    public Drawable getMapTile(final long pMapTileIndex) {
-        if (featureTiles != null) {
-            Bitmap tile = featureTiles.drawTile(MapTileIndex.getX(pMapTileIndex), MapTileIndex.getY(pMapTileIndex), MapTileIndex.getZoom(pMapTileIndex));
-            if (tile != null) {
-                Drawable d = new BitmapDrawable(tile);
-                return d;
-            }
-        }
-        return null;
-
-    }
-
     @Override
     public int getMinimumZoomLevel() {
         return minzoom;
@@ -60,7 +81,7 @@ public class GeoPackageFeatureTileProvider extends MapTileProviderBase {
 
     @Override
     public int getMaximumZoomLevel() {
-        return 22;
+        return MAX_ZOOM;
     }
 
     @Override
@@ -68,14 +89,87 @@ public class GeoPackageFeatureTileProvider extends MapTileProviderBase {
         return tileWriter;
     }
 
-    @Override
-    public long getQueueSize() {
-        return 0;
+    public void set(int minZoom, FeatureTiles featureTiles) {
+        set(minZoom, featureTiles, null);
     }
 
-    public void set(int minZoom, FeatureTiles featureTiles) {
+    /**
+     * @param file the GeoPackage file: if not null, the rendered tiles are kept in the file-system cache,
+     *             until that file or the feature tiles style change
+     * @since 6.2.0
+     */
+    public void set(int minZoom, FeatureTiles featureTiles, File file) {
+        set(minZoom, featureTiles, file, null);
+    }
+
+    /**
+     * @param file     the GeoPackage file: if not null, the rendered tiles are kept in the file-system cache,
+     *                 until that file or the feature tiles style change
+     * @param styleKey anything else that changes the rendering and that the feature tiles don't expose,
+     *                 e.g. the drawing of a feature tiles subclass (can be null)
+     * @since 6.2.0
+     */
+    public void set(int minZoom, FeatureTiles featureTiles, File file, String styleKey) {
+        mCacheTileSource = null;
         this.featureTiles = featureTiles;
         minzoom = minZoom;
+        if (featureTiles != null && file != null) {
+            final ITileSource tileSource = getTileSource();
+            mCacheTileSource = new XYTileSource(
+                    RenderedTileUtils.getTileSourceName(tileSource.name(), getStyleKey(featureTiles) + "|" + styleKey, file),
+                    0, getMaximumZoomLevel(), tileSource.getTileSizePixels(), ".png", new String[0]);
+        }
+        mCacheProvider.setCacheTileSource(mCacheTileSource);
+        mModuleProvider.set(minZoom, featureTiles, mCacheTileSource);
+        clearTileCache();
+    }
+
+    /**
+     * @return a key that changes with the style settings of the feature tiles
+     * @since 6.2.0
+     */
+    private static String getStyleKey(final FeatureTiles pFeatureTiles) {
+        final StringBuilder result = new StringBuilder();
+        result.append(pFeatureTiles.getClass().getName())
+                .append('|').append(pFeatureTiles.getFeatureDao().getTableName())
+                .append('|').append(pFeatureTiles.getTileWidth()).append('x').append(pFeatureTiles.getTileHeight())
+                .append('|').append(pFeatureTiles.getDensity())
+                .append('|').append(pFeatureTiles.getWidthDrawOverlap()).append('x').append(pFeatureTiles.getHeightDrawOverlap())
+                .append('|').append(pFeatureTiles.getCompressFormat())
+                .append('|').append(pFeatureTiles.isSimplifyGeometries())
+                .append('|').append(pFeatureTiles.getPointRadius());
+        final Paint pointPaint = pFeatureTiles.getPointPaint();
+        if (pointPaint != null) {
+            result.append('|').append(pointPaint.getColor())
+                    .append('|').append(pointPaint.getStrokeWidth())
+                    .append('|').append(pointPaint.getStyle());
+        }
+        final FeatureTilePointIcon pointIcon = pFeatureTiles.getPointIcon();
+        if (pointIcon != null) {
+            result.append('|').append(pointIcon.getWidth()).append('x').append(pointIcon.getHeight())
+                    .append('|').append(pointIcon.getXOffset()).append('x').append(pointIcon.getYOffset());
+            final Bitmap icon = pointIcon.getIcon();
+            if (icon != null) {
+                final int[] pixels = new int[icon.getWidth() * icon.getHeight()];
+                icon.getPixels(pixels, 0, icon.getWidth(), 0, 0, icon.getWidth(), icon.getHeight());
+                result.append('|').append(Arrays.hashCode(pixels));
+            }
+        }
+        result.append('|').append(pFeatureTiles.getLineColor())
+                .append('|').append(pFeatureTiles.getLineAlpha())
+                .append('|').append(pFeatureTiles.getLineStrokeWidth())
+                .append('|').append(pFeatureTiles.getPolygonColor())
+                .append('|').append(pFeatureTiles.getPolygonAlpha())
+                .append('|').append(pFeatureTiles.getPolygonStrokeWidth())
+                .append('|').append(pFeatureTiles.isFillPolygon())
+                .append('|').append(pFeatureTiles.getPolygonFillColor())
+                .append('|').append(pFeatureTiles.getPolygonFillAlpha())
+                .append('|').append(pFeatureTiles.getMaxFeaturesPerTile());
+        final CustomFeaturesTile maxFeaturesTileDraw = pFeatureTiles.getMaxFeaturesTileDraw();
+        if (maxFeaturesTileDraw != null) {
+            result.append('|').append(maxFeaturesTileDraw.getClass().getName());
+        }
+        return result.toString();
     }
 
 
@@ -83,5 +177,6 @@ public class GeoPackageFeatureTileProvider extends MapTileProviderBase {
     public void detach() {
         super.detach();
         featureTiles = null;
+        mCacheTileSource = null;
     }
 }
\ No newline at end of file
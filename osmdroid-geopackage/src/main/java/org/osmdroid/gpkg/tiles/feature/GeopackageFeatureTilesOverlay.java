@@ -1,12 +1,15 @@
 package org.osmdroid.gpkg.tiles.feature;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Handler;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.TilesOverlay;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +24,10 @@ import mil.nga.geopackage.tiles.features.custom.NumberFeaturesTile;
 
 /**
  * created on 8/19/2017.
+ * <p>
+ * Since 6.2.0 the feature tiles are rendered in the background: when drawn, the overlay registers
+ * the tile request complete handler of its {@link MapView} on the provider, so that the map is redrawn
+ * when the tiles are ready, and unregisters it when detached.
  *
  * @author Alex O'Ree
  */
@@ -34,6 +41,15 @@ public class GeopackageFeatureTilesOverlay extends TilesOverlay {
     protected FeatureDao featureDao = null;
     protected FeatureTiles featureTiles = null;
 
+    /**
+     * @since 6.2.0
+     */
+    private Handler mTileRequestCompleteHandler;
+
+    /**
+     * @param provider the provider of the feature tiles; the map is redrawn when its tiles are rendered,
+     *                 once the overlay is drawn on the {@link MapView}
+     */
     public GeopackageFeatureTilesOverlay(GeoPackageFeatureTileProvider provider, final Context pContext) {
         super(provider, pContext);
         Log.i(IMapView.LOGTAG, "Geopackage support is BETA. Please report any issues");
@@ -91,12 +107,33 @@ public class GeopackageFeatureTilesOverlay extends TilesOverlay {
         featureTiles.setMaxFeaturesTileDraw(numberFeaturesTile); // Draw feature count tiles when max features passed
         featureTiles.setIndexManager(indexer); // Set index manager to query feature indices
 
-        provider.set(featureDao.getZoomLevel(), featureTiles);
+        // the rendered tiles are cached until the GeoPackage file changes
+        final String path = geoPackage.getPath();
+        provider.set(featureDao.getZoomLevel(), featureTiles, path == null ? null : new File(path));
     }
 
 
+    @Override
+    public void draw(final Canvas pCanvas, final MapView pMapView, final boolean pShadow) {
+        final Handler handler = pMapView.getTileRequestCompleteHandler();
+        if (handler != mTileRequestCompleteHandler) {
+            if (mTileRequestCompleteHandler != null) {
+                provider.getTileRequestCompleteHandlers().remove(mTileRequestCompleteHandler);
+            }
+            mTileRequestCompleteHandler = handler;
+            if (handler != null) {
+                provider.getTileRequestCompleteHandlers().add(handler);
+            }
+        }
+        super.draw(pCanvas, pMapView, pShadow);
+    }
+
     @Override
     public void onDetach(final MapView pMapView) {
+        if (mTileRequestCompleteHandler != null) {
+            provider.getTileRequestCompleteHandlers().remove(mTileRequestCompleteHandler);
+            mTileRequestCompleteHandler = null;
+        }
         super.onDetach(pMapView);
         if (geoPackage != null) {
 
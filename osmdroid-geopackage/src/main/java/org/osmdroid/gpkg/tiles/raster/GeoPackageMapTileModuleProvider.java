@@ -1,35 +1,40 @@
 package org.osmdroid.gpkg.tiles.raster;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 
 import org.locationtech.proj4j.ProjCoordinate;
 import org.osmdroid.api.IMapView;
 import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.CantContinueException;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.MapTileBatch;
 import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.BitmapTileSourceBase;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.MapTileIndex;
 import org.osmdroid.util.TileSystem;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.GeoPackageFactory;
 import mil.nga.geopackage.GeoPackageManager;
+import mil.nga.geopackage.tiles.TileGrid;
 import mil.nga.geopackage.tiles.retriever.GeoPackageTile;
 import mil.nga.geopackage.tiles.retriever.GeoPackageTileRetriever;
+import mil.nga.geopackage.tiles.user.TileCursor;
 import mil.nga.geopackage.tiles.user.TileDao;
+import mil.nga.geopackage.tiles.user.TileRow;
 import mil.nga.proj.ProjectionConstants;
 import mil.nga.proj.ProjectionTransform;
 
@@ -48,6 +53,35 @@ public class GeoPackageMapTileModuleProvider extends MapTileModuleProviderBase {
     protected GeopackageRasterTileSource currentTileSource;
     protected Set<GeoPackage> tileSources = new HashSet<>();
 
+    /**
+     * Max number of tiles read in one query: beyond that, the pending tiles are not "the visible ones"
+     *
+     * @since 6.2.0
+     */
+    public static final int MAX_BATCH_TILES = 256;
+
+    /**
+     * The open databases, by name, kept open until detach
+     *
+     * @since 6.2.0
+     */
+    private final Map<String, GeoPackage> mGeoPackages = new HashMap<>();
+
+    /**
+     * The tile DAOs and retrievers, by tile source name (database:table)
+     *
+     * @since 6.2.0
+     */
+    private final Map<String, TileTable> mTileTables = new HashMap<>();
+
+    /**
+     * Image data read by a batch query for pending tiles, not loaded yet; an empty array means no tile
+     *
+     * @since 6.2.0
+     */
+    private final MapTileBatch<byte[]> mBatchedTiles = new MapTileBatch<>(MAX_BATCH_TILES);
+    private static final byte[] NO_TILE = new byte[0];
+
     public GeoPackageMapTileModuleProvider(File[] pFile,
                                            final Context context, IFilesystemCache cache) {
         //int pThreadPoolSize, final int pPendingQueueSize
@@ -72,46 +106,129 @@ public class GeoPackageMapTileModuleProvider extends MapTileModuleProviderBase {
         List<String> databases = manager.databases();
         // Open database
         for (int i = 0; i < databases.size(); i++) {
-            tileSources.add(manager.open(databases.get(i)));
+            final GeoPackage geoPackage = manager.open(databases.get(i));
+            tileSources.add(geoPackage);
+            mGeoPackages.put(databases.get(i), geoPackage);
         }
 
     }
 
 
     public Drawable getMapTile(final long pMapTileIndex) {
-        Drawable tile = null;
-
-        String database = currentTileSource.getDatabase();
-        String table = currentTileSource.getTableDao();
-        GeoPackage next = manager.open(database);
-
-        TileDao tileDao = next.getTileDao(table);
-        GeoPackageTileRetriever retriever = new GeoPackageTileRetriever(tileDao);
-
-        int zoom = MapTileIndex.getZoom(pMapTileIndex);
-        int x = MapTileIndex.getX(pMapTileIndex);
-        int y = MapTileIndex.getY(pMapTileIndex);
+        try {
+            return loadMapTile(pMapTileIndex);
+        } catch (CantContinueException e) {
+            Log.w(IMapView.LOGTAG, "LowMemoryException loading GeoPackage tile: " + MapTileIndex.toString(pMapTileIndex), e);
+            return null;
+        }
+    }
 
+    /**
+     * Reads the tile with the pooled database handles, and decodes it with a reusable bitmap.
+     * Tiles in XYZ format are read together with the other pending tiles of the same zoom level.
+     *
+     * @since 6.2.0
+     */
+    protected Drawable loadMapTile(final long pMapTileIndex) throws CantContinueException {
+        final GeopackageRasterTileSource tileSource = currentTileSource;
+        if (tileSource == null) {
+            return null;
+        }
+        final TileTable tileTable = getTileTable(tileSource);
+        if (tileTable == null) {
+            return null;
+        }
 
-        GeoPackageTile geoPackageTile = retriever.getTile(x, y, zoom);
-        if (geoPackageTile != null && geoPackageTile.data != null) {
-            byte[] image = geoPackageTile.data;
-            if (image != null) {
-                BitmapFactory.Options opt = new BitmapFactory.Options();
-                opt.outHeight = 256; //360
-                opt.outWidth = 256;//248
-                Bitmap imageBitmap = BitmapFactory.decodeByteArray(image, 0, image.length, opt);
-                tile = new BitmapDrawable(imageBitmap);
+        final byte[] image;
+        if (tileTable.mXYZTiles) {
+            image = getBatchedTile(tileSource.name(), tileTable.mTileDao, pMapTileIndex);
+        } else {
+            final GeoPackageTile geoPackageTile = tileTable.mRetriever.getTile(
+                    MapTileIndex.getX(pMapTileIndex), MapTileIndex.getY(pMapTileIndex), MapTileIndex.getZoom(pMapTileIndex));
+            image = geoPackageTile == null ? null : geoPackageTile.data;
+        }
+        if (image == null || image.length == 0) {
+            return null;
+        }
+        try {
+            return tileSource.getDrawable(new ByteArrayInputStream(image));
+        } catch (final BitmapTileSourceBase.LowMemoryException e) {
+            throw new CantContinueException(e);
+        }
+    }
 
+    /**
+     * @return the pooled tile DAO and retriever for that database and table, opened if needed
+     * @since 6.2.0
+     */
+    private TileTable getTileTable(final GeopackageRasterTileSource pTileSource) {
+        synchronized (mTileTables) {
+            final String key = pTileSource.name();
+            TileTable result = mTileTables.get(key);
+            if (result != null) {
+                return result;
+            }
+            if (manager == null) { // detached
+                return null;
             }
+            GeoPackage geoPackage = mGeoPackages.get(pTileSource.getDatabase());
+            if (geoPackage == null) {
+                geoPackage = manager.open(pTileSource.getDatabase());
+                tileSources.add(geoPackage);
+                mGeoPackages.put(pTileSource.getDatabase(), geoPackage);
+            }
+            final TileDao tileDao = geoPackage.getTileDao(pTileSource.getTableDao());
+            result = new TileTable(tileDao);
+            mTileTables.put(key, result);
+            return result;
         }
-        next.close();
+    }
 
-        return tile;
+    /**
+     * @return the image data of the tile, read in one query with the other pending tiles
+     * of the same zoom level, or null if there is no such tile
+     * @since 6.2.0
+     */
+    private byte[] getBatchedTile(final String pTable, final TileDao pTileDao, final long pMapTileIndex) {
+        final byte[] batched = mBatchedTiles.remove(pTable, pMapTileIndex);
+        if (batched != null) {
+            return batched;
+        }
+        final MapTileBatch.Window window = new MapTileBatch.Window(pMapTileIndex, MAX_BATCH_TILES);
+        synchronized (mQueueLockObject) {
+            for (final long pending : mPending.keySet()) {
+                if (!mWorking.containsKey(pending)) {
+                    window.add(pending);
+                }
+            }
+        }
 
+        byte[] result = null;
+        final Map<Long, byte[]> others = new HashMap<>();
+        final TileCursor cursor = pTileDao.queryByTileGrid(
+                new TileGrid(window.getLeft(), window.getTop(), window.getRight(), window.getBottom()), window.getZoom());
+        try {
+            while (cursor.moveToNext()) {
+                final TileRow tileRow = cursor.getRow();
+                final long index = MapTileIndex.getTileIndex(window.getZoom(), (int) tileRow.getTileColumn(), (int) tileRow.getTileRow());
+                if (index == pMapTileIndex) {
+                    result = tileRow.getTileData();
+                } else if (window.getOthers().contains(index)) {
+                    others.put(index, tileRow.getTileData());
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        for (final long index : window.getOthers()) { // no need to query them again
+            if (!others.containsKey(index)) {
+                others.put(index, NO_TILE);
+            }
+        }
+        mBatchedTiles.putAll(pTable, others);
+        return result;
     }
 
-
     /**
      * returns ALL available raster tile sources for all "imported" geopackage databases
      *
@@ -176,6 +293,11 @@ public class GeoPackageMapTileModuleProvider extends MapTileModuleProviderBase {
     @Override
     public void detach() {
 
+        synchronized (mTileTables) {
+            mTileTables.clear();
+            mGeoPackages.clear();
+        }
+        mBatchedTiles.clear();
         if (tileSources != null) {
             for (GeoPackage tileSource : tileSources) {
                 tileSource.close();
@@ -189,9 +311,11 @@ public class GeoPackageMapTileModuleProvider extends MapTileModuleProviderBase {
     protected class TileLoader extends MapTileModuleProviderBase.TileLoader {
 
         @Override
-        public Drawable loadTile(final long pMapTileIndex) {
+        public Drawable loadTile(final long pMapTileIndex) throws CantContinueException {
             try {
-                return getMapTile(pMapTileIndex);
+                return loadMapTile(pMapTileIndex);
+            } catch (final CantContinueException e) {
+                throw e;
             } catch (final Throwable e) {
                 Log.e(IMapView.LOGTAG, "Error loading tile", e);
             }
@@ -238,7 +362,29 @@ public class GeoPackageMapTileModuleProvider extends MapTileModuleProviderBase {
     public void setTileSource(ITileSource tileSource) {
         if (tileSource instanceof GeopackageRasterTileSource)
             currentTileSource = (GeopackageRasterTileSource) tileSource;
+        // the tiles read from another table are dropped, even by the queries still running
+        mBatchedTiles.setTable(currentTileSource == null ? null : currentTileSource.name());
+
+    }
 
+    /**
+     * A tile table, with its DAO and retriever kept for all the tiles
+     *
+     * @since 6.2.0
+     */
+    private static class TileTable {
+        private final TileDao mTileDao;
+        private final GeoPackageTileRetriever mRetriever;
+        /**
+         * Tiles stored with the same z/x/y as the map: they can be queried directly, by batch
+         */
+        private final boolean mXYZTiles;
+
+        private TileTable(final TileDao pTileDao) {
+            mTileDao = pTileDao;
+            mRetriever = new GeoPackageTileRetriever(pTileDao);
+            mXYZTiles = pTileDao.isXYZTiles();
+        }
     }
 
 
@@ -1,22 +1,26 @@
 package org.osmdroid.mapsforge;
 
-import android.graphics.Bitmap;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 
 import org.osmdroid.api.IMapView;
 import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.ExpirableBitmapDrawable;
 import org.osmdroid.tileprovider.IRegisterReceiver;
+import org.osmdroid.tileprovider.MapTileCache;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
 import org.osmdroid.tileprovider.modules.MapTileFileStorageProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileExecutors;
 import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileRenderedCacheProvider;
 import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.util.RenderedTileUtils;
 import org.osmdroid.util.MapTileIndex;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Adapted from code from here: https://github.com/MKergall/osmbonuspack, which is LGPL
@@ -30,6 +34,20 @@ public class MapsForgeTileModuleProvider extends MapTileFileStorageProviderBase
     protected MapsForgeTileSource tileSource;
     protected IFilesystemCache tilewriter;
 
+    /**
+     * In metatile mode, where the neighbours of the requested tiles go, and where they are looked for
+     *
+     * @since 6.2.0
+     */
+    private MapTileCache mTileCache;
+
+    /**
+     * In metatile mode, the metatiles being rendered, by index of their upper left tile
+     *
+     * @since 6.2.0
+     */
+    private final Set<Long> mMetatilesInProgress = new HashSet<>();
+
     /**
      * Constructor
      *
@@ -62,6 +80,36 @@ public class MapsForgeTileModuleProvider extends MapTileFileStorageProviderBase
         return new TileLoader();
     }
 
+    /**
+     * Rendering is CPU-bound
+     *
+     * @since 6.2.0
+     */
+    @Override
+    protected Executor getExecutor() {
+        return MapTileExecutors.getInstance().getCpuExecutor();
+    }
+
+    /**
+     * No more tile loaders than tiles the tile source can render at the same time
+     *
+     * @since 6.2.0
+     */
+    @Override
+    protected int getMaxConcurrent() {
+        return Math.min(super.getMaxConcurrent(), tileSource.getMaxConcurrentRenders());
+    }
+
+    /**
+     * In metatile mode, the neighbours of the requested tiles are put there
+     *
+     * @see MapsForgeTileSource#setMetatileSize(int)
+     * @since 6.2.0
+     */
+    public void setTileCache(final MapTileCache pTileCache) {
+        mTileCache = pTileCache;
+    }
+
     @Override
     public boolean getUsesDataConnection() {
         return false;
@@ -85,51 +133,101 @@ public class MapsForgeTileModuleProvider extends MapTileFileStorageProviderBase
         }
     }
 
+    /**
+     * Saves the tile in the file-system cache, under the cache tile source, whose name changes with
+     * everything the rendering depends on; the tiles are read back by a {@link MapTileRenderedCacheProvider}
+     *
+     * @see MapsForgeTileSource#getCacheTileSource()
+     * @since 6.2.0
+     */
+    private void save(final long pMapTileIndex, final Drawable pImage, final String pDbgPrefix) {
+        final ITileSource cacheTileSource = tileSource.getCacheTileSource();
+        if (pImage == null || cacheTileSource == null) {
+            return;
+        }
+        if (pDbgPrefix != null) {
+            Log.d(IMapView.LOGTAG, pDbgPrefix +
+                    "save tile to " + cacheTileSource.name() + "/" + cacheTileSource.getTileRelativeFilenameString(pMapTileIndex));
+        }
+        RenderedTileUtils.save(tilewriter, cacheTileSource, pMapTileIndex, pImage);
+    }
+
+    /**
+     * Renders the whole metatile of the tile, unless already done or in progress,
+     * and saves all its tiles in the file-system cache and its other tiles in the memory cache,
+     * the only place where they are kept until requested
+     *
+     * @since 6.2.0
+     */
+    private Drawable loadMetatile(final long pMapTileIndex, final String pDbgPrefix) throws InterruptedException {
+        final long metatileIndex = tileSource.getMetatileIndex(pMapTileIndex);
+        final MapTileCache tileCache = mTileCache;
+        synchronized (mMetatilesInProgress) {
+            while (true) {
+                if (tileCache != null) {
+                    final Drawable drawable = tileCache.getMapTile(pMapTileIndex);
+                    if (drawable != null && ExpirableBitmapDrawable.getState(drawable) != ExpirableBitmapDrawable.EXPIRED) {
+                        return drawable; // rendered with a previous tile of its metatile
+                    }
+                }
+                if (mMetatilesInProgress.add(metatileIndex)) {
+                    break;
+                }
+                // another thread is rendering the metatile, our tile included
+                mMetatilesInProgress.wait();
+            }
+        }
+        Map<Long, Drawable> tiles = null;
+        try {
+            if (pDbgPrefix != null) {
+                Log.d(IMapView.LOGTAG, pDbgPrefix + "tileSource.renderMetatile");
+            }
+            tiles = tileSource.renderMetatile(pMapTileIndex);
+            if (tiles != null && tileCache != null) {
+                for (final Map.Entry<Long, Drawable> entry : tiles.entrySet()) {
+                    if (entry.getKey() != pMapTileIndex) {
+                        tileCache.putTile(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        } finally {
+            synchronized (mMetatilesInProgress) {
+                mMetatilesInProgress.remove(metatileIndex);
+                mMetatilesInProgress.notifyAll();
+            }
+        }
+        if (tiles == null) {
+            return null;
+        }
+        for (final Map.Entry<Long, Drawable> entry : tiles.entrySet()) {
+            save(entry.getKey(), entry.getValue(), pDbgPrefix);
+        }
+        return tiles.get(pMapTileIndex);
+    }
+
     private class TileLoader extends MapTileModuleProviderBase.TileLoader {
 
         @Override
         public Drawable loadTile(final long pMapTileIndex) {
-            //TODO find a more efficient want to do this, seems overly complicated
             String dbgPrefix = null;
             if (Configuration.getInstance().isDebugTileProviders()) {
                 dbgPrefix = "MapsForgeTileModuleProvider.TileLoader.loadTile(" + MapTileIndex.toString(pMapTileIndex) + "): ";
-                Log.d(IMapView.LOGTAG, dbgPrefix + "tileSource.renderTile");
             }
-            Drawable image = tileSource.renderTile(pMapTileIndex);
-            if (image != null && image instanceof BitmapDrawable) {
-                ByteArrayOutputStream stream = new ByteArrayOutputStream();
-                ((BitmapDrawable) image).getBitmap().compress(Bitmap.CompressFormat.PNG, 100, stream);
-                byte[] bitmapdata = stream.toByteArray();
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    //NO OP
-                }
-
-                if (Configuration.getInstance().isDebugTileProviders()) {
-                    Log.d(IMapView.LOGTAG, dbgPrefix +
-                            "save tile " + bitmapdata.length +
-                            " bytes to " + tileSource.getTileRelativeFilenameString(pMapTileIndex));
-                }
-
-                ByteArrayInputStream bais = null;
+            if (tileSource.getMetatileSize() > 1) {
                 try {
-                    bais = new ByteArrayInputStream(bitmapdata);
-                    tilewriter.saveFile(tileSource, pMapTileIndex, bais, null);
-                } catch (Exception ex) {
-                    Log.w(IMapView.LOGTAG, "forge error storing tile cache", ex);
-                } finally {
-                    if (bais != null)
-                        try {
-                            bais.close();
-                        } catch (IOException e) {
-                            //NO OP
-                        }
+                    return loadMetatile(pMapTileIndex, dbgPrefix);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
                 }
-
             }
+            if (dbgPrefix != null) {
+                Log.d(IMapView.LOGTAG, dbgPrefix + "tileSource.renderTile");
+            }
+            Drawable image = tileSource.renderTile(pMapTileIndex);
+            save(pMapTileIndex, image, dbgPrefix);
             return image;
         }
     }
 
-}
\ No newline at end of file
+}
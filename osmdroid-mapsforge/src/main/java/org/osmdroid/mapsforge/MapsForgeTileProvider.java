@@ -8,7 +8,9 @@ import org.osmdroid.tileprovider.MapTileProviderArray;
 import org.osmdroid.tileprovider.modules.IFilesystemCache;
 import org.osmdroid.tileprovider.modules.MapTileFileArchiveProvider;
 import org.osmdroid.tileprovider.modules.MapTileFilesystemProvider;
+import org.osmdroid.tileprovider.modules.MapTileRenderedCacheProvider;
 import org.osmdroid.tileprovider.modules.SqlTileWriter;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
 import org.osmdroid.util.MapTileIndex;
 
 /**
@@ -45,10 +47,23 @@ public class MapsForgeTileProvider extends MapTileProviderArray {
             tileWriter = new SqlTileWriter();
         }
 
+        // the tiles previously rendered are read from the cache on the I/O threads, not on the rendering ones
+        final MapTileRenderedCacheProvider cacheProvider = new MapTileRenderedCacheProvider(tileWriter, null) {
+            @Override
+            public ITileSource getCacheTileSource() {
+                final ITileSource tileSource = MapsForgeTileProvider.this.getTileSource();
+                return tileSource instanceof MapsForgeTileSource
+                        ? ((MapsForgeTileSource) tileSource).getCacheTileSource() : null;
+            }
+        };
+        mTileProviderList.add(cacheProvider);
+
         // Create the module provider; this class provides a TileLoader that
-        // actually loads the tile from the map file.
+        // renders the tiles from the map file, and saves them in the cache.
         MapsForgeTileModuleProvider moduleProvider = new MapsForgeTileModuleProvider(pRegisterReceiver, (MapsForgeTileSource) getTileSource(), tileWriter);
         //this is detached by super
+        // in metatile mode, the neighbours of the requested tiles go straight to the memory cache
+        moduleProvider.setTileCache(getTileCache());
 
 
         // Add the module provider to the array of providers; mTileProviderList
@@ -60,6 +75,11 @@ public class MapsForgeTileProvider extends MapTileProviderArray {
             @Override
             public void refresh(final Tile pTile) {
                 final long index = MapTileIndex.getTileIndex(pTile.zoomLevel, pTile.tileX, pTile.tileY);
+                // the cached version lacks the labels of the neighbours
+                final IFilesystemCache writer = tileWriter;
+                final ITileSource cacheTileSource = pTileSource.getCacheTileSource();
+                if (writer != null && cacheTileSource != null)
+                    writer.remove(cacheTileSource, index);
                 expireInMemoryCache(index);
             }
         });
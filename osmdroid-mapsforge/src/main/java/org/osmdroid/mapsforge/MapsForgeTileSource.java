@@ -11,21 +11,33 @@ import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
 import org.mapsforge.map.android.graphics.AndroidTileBitmap;
 import org.mapsforge.map.datastore.MultiMapDataStore;
 import org.mapsforge.map.layer.hills.HillsRenderConfig;
+import org.mapsforge.map.layer.hills.MemoryCachingHgtReaderTileSource;
+import org.mapsforge.map.layer.hills.ShadeTileSource;
 import org.mapsforge.map.layer.renderer.DirectRenderer;
 import org.mapsforge.map.layer.renderer.RendererJob;
 import org.mapsforge.map.model.DisplayModel;
 import org.mapsforge.map.reader.MapFile;
 import org.mapsforge.map.rendertheme.InternalRenderTheme;
+import org.mapsforge.map.rendertheme.StreamRenderTheme;
 import org.mapsforge.map.rendertheme.XmlRenderTheme;
 import org.mapsforge.map.rendertheme.rule.RenderThemeFuture;
 import org.osmdroid.api.IMapView;
 import org.osmdroid.tileprovider.tilesource.BitmapTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+import org.osmdroid.tileprovider.util.RenderedTileUtils;
+import org.osmdroid.tileprovider.util.StreamUtils;
 import org.osmdroid.util.MapTileIndex;
 import org.osmdroid.views.MapView;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Adapted from code from here: https://github.com/MKergall/osmbonuspack, which is LGPL
@@ -49,6 +61,36 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
 
     private MultiMapDataStore mapDatabase;
 
+    /**
+     * The map files, if known: then each concurrent rendering opens its own read handles
+     *
+     * @since 6.2.0
+     */
+    private final File[] mFiles;
+    private final MultiMapDataStore.DataPolicy mDataPolicy;
+    private final String mLanguage;
+
+    /**
+     * Data stores and renderers, each used by one rendering thread at a time
+     *
+     * @since 6.2.0
+     */
+    private final List<RenderContext> mRenderContexts = new ArrayList<>();
+    private final ArrayDeque<RenderContext> mIdleRenderContexts = new ArrayDeque<>();
+    private final List<DirectRenderer.TileRefresher> mTileRefreshers = new ArrayList<>();
+    private int mMaxConcurrentRenders = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private volatile int mMetatileSize = 1;
+    private boolean mDisposed;
+
+    /**
+     * The rendered tiles are cached under a name that changes with everything the rendering depends on
+     *
+     * @since 6.2.0
+     */
+    private final String mCacheTileSourceName;
+    private final String mThemeKey;
+    private volatile ITileSource mCacheTileSource;
+
     /**
      * The reason this constructor is protected is because all parameters,
      * except file should be determined from the archive file. Therefore a
@@ -64,11 +106,39 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
      * @param language            preferred language for map labels as defined in ISO 639-1 or ISO 639-2 (can be null)
      */
     protected MapsForgeTileSource(String cacheTileSourceName, int minZoom, int maxZoom, int tileSizePixels, FileInputStream[] fileInputStream, XmlRenderTheme xmlRenderTheme, MultiMapDataStore.DataPolicy dataPolicy, HillsRenderConfig hillsRenderConfig, final String language) {
+        this(cacheTileSourceName, minZoom, maxZoom, tileSizePixels, fileInputStream, null, xmlRenderTheme, dataPolicy, hillsRenderConfig, language);
+    }
+
+    /**
+     * As the map files are known, tiles are rendered in parallel, each rendering thread
+     * with its own read handles on the files, and all of them sharing the render theme.
+     *
+     * @param files             the map files
+     * @param xmlRenderTheme    the theme to render tiles with
+     * @param hillsRenderConfig the hillshading setup to be used (can be null)
+     * @param language          preferred language for map labels as defined in ISO 639-1 or ISO 639-2 (can be null)
+     * @since 6.2.0
+     */
+    protected MapsForgeTileSource(String cacheTileSourceName, int minZoom, int maxZoom, int tileSizePixels, File[] files, XmlRenderTheme xmlRenderTheme, MultiMapDataStore.DataPolicy dataPolicy, HillsRenderConfig hillsRenderConfig, final String language) {
+        this(cacheTileSourceName, minZoom, maxZoom, tileSizePixels, null, files, xmlRenderTheme, dataPolicy, hillsRenderConfig, language);
+    }
+
+    private MapsForgeTileSource(String cacheTileSourceName, int minZoom, int maxZoom, int tileSizePixels, FileInputStream[] fileInputStream, File[] files, XmlRenderTheme xmlRenderTheme, MultiMapDataStore.DataPolicy dataPolicy, HillsRenderConfig hillsRenderConfig, final String language) {
         super(cacheTileSourceName, minZoom, maxZoom, tileSizePixels, ".png", "© OpenStreetMap contributors");
 
-        mapDatabase = new MultiMapDataStore(dataPolicy);
-        for (int i = 0; i < fileInputStream.length; i++)
-            mapDatabase.addMapDataStore(new MapFile(fileInputStream[i], language), false, false);
+        mCacheTileSourceName = cacheTileSourceName;
+        mFiles = files;
+        mDataPolicy = dataPolicy;
+        mLanguage = language;
+        this.hillsRenderConfig = hillsRenderConfig;
+
+        if (files != null) {
+            mapDatabase = createMapDataStore();
+        } else {
+            mapDatabase = new MultiMapDataStore(dataPolicy);
+            for (int i = 0; i < fileInputStream.length; i++)
+                mapDatabase.addMapDataStore(new MapFile(fileInputStream[i], language), false, false);
+        }
 
         if (AndroidGraphicFactory.INSTANCE == null) {
             throw new RuntimeException("Must call MapsForgeTileSource.createInstance(context.getApplication()); once before MapsForgeTileSource.createFromFiles().");
@@ -85,7 +155,12 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         //renderer = new DatabaseRenderer(mapDatabase, AndroidGraphicFactory.INSTANCE, tileCache,
         //        new TileBasedLabelStore(tileCache.getCapacityFirstLevel()), true, true, hillsRenderConfig);
         // mapsforge0.11.0
-        renderer = new DirectRenderer(mapDatabase, AndroidGraphicFactory.INSTANCE, true, hillsRenderConfig);
+        final MetatileMapDataStore metatileMapDataStore = new MetatileMapDataStore(mapDatabase);
+        renderer = new DirectRenderer(metatileMapDataStore, AndroidGraphicFactory.INSTANCE, true, hillsRenderConfig);
+        final RenderContext renderContext = new RenderContext(metatileMapDataStore, renderer);
+        mRenderContexts.add(renderContext);
+        mIdleRenderContexts.push(renderContext);
+        model.setFixedTileSize(256);
 
         minZoom = MIN_ZOOM;
         maxZoom = renderer.getZoomLevelMax();
@@ -100,6 +175,92 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
             //super important!! without the following line, all rendering activities will block until the theme is created.
             new Thread(theme).start();
         }
+        mThemeKey = getThemeKey(xmlRenderTheme);
+        updateCacheTileSource();
+    }
+
+    /**
+     * @return a key that changes with the theme content, or null if the content can't be read
+     * @since 6.2.0
+     */
+    private static String getThemeKey(final XmlRenderTheme pXmlRenderTheme) {
+        if (pXmlRenderTheme instanceof StreamRenderTheme) {
+            return null; // the stream can only be read once, by the render theme
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = pXmlRenderTheme.getRenderThemeAsStream();
+            final byte[] buffer = new byte[StreamUtils.IO_BUFFER_SIZE];
+            int hash = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    hash = 31 * hash + buffer[i];
+                }
+            }
+            return pXmlRenderTheme.getClass().getName() + "|" + hash;
+        } catch (Exception e) {
+            Log.w(IMapView.LOGTAG, "Unable to read the render theme", e);
+            return null;
+        } finally {
+            StreamUtils.closeStream(inputStream);
+        }
+    }
+
+    /**
+     * @return a key that changes with the hillshading setup: shading source, algorithm and magnitude.
+     * The DEM files aren't reachable from the setup, and therefore not part of the key
+     * @since 6.2.0
+     */
+    private static String getHillsKey(final HillsRenderConfig pHillsRenderConfig) {
+        if (pHillsRenderConfig == null) {
+            return "";
+        }
+        final StringBuilder result = new StringBuilder();
+        result.append(pHillsRenderConfig.getMaginuteScaleFactor());
+        final ShadeTileSource shadeTileSource = pHillsRenderConfig.getTileSource();
+        if (shadeTileSource != null) {
+            result.append('|').append(shadeTileSource.getClass().getName());
+            if (shadeTileSource instanceof MemoryCachingHgtReaderTileSource) {
+                final MemoryCachingHgtReaderTileSource hgtReaderTileSource = (MemoryCachingHgtReaderTileSource) shadeTileSource;
+                result.append('|').append(hgtReaderTileSource.getAlgorithm())
+                        .append('|').append(hgtReaderTileSource.isEnableInterpolationOverlap());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * The cache key changes with the map files, the theme, the scale, the language, the data policy
+     * and the hillshading.
+     * No file-system cache without the map files (created from streams) or without the theme content
+     * (stream render theme): the key couldn't tell a new version from the previous one.
+     *
+     * @since 6.2.0
+     */
+    private void updateCacheTileSource() {
+        if (mFiles == null || mThemeKey == null) {
+            mCacheTileSource = null;
+            return;
+        }
+        final String style = mThemeKey
+                + "|" + model.getUserScaleFactor()
+                + "|" + mLanguage
+                + "|" + mDataPolicy
+                + "|" + getHillsKey(hillsRenderConfig);
+        mCacheTileSource = new XYTileSource(
+                RenderedTileUtils.getTileSourceName(mCacheTileSourceName, style, mFiles),
+                getMinimumZoomLevel(), getMaximumZoomLevel(), getTileSizePixels(), ".png", new String[0]);
+    }
+
+    /**
+     * @return the tile source the rendered tiles are saved to and read from in the file-system cache,
+     * whose name changes with everything the rendering depends on,
+     * or null if the rendered tiles are not to be kept in the file-system cache
+     * @since 6.2.0
+     */
+    public ITileSource getCacheTileSource() {
+        return mCacheTileSource;
     }
 
     /**
@@ -147,9 +308,8 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         int minZoomLevel = MIN_ZOOM;
         int maxZoomLevel = MAX_ZOOM;
         int tileSizePixels = TILE_SIZE_PIXELS;
-        FileInputStream[] fileInputStream = convertFilesToInputStreams(file);
 
-        return new MapsForgeTileSource(InternalRenderTheme.OSMARENDER.name(), minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, InternalRenderTheme.OSMARENDER, MultiMapDataStore.DataPolicy.RETURN_ALL, null, null);
+        return new MapsForgeTileSource(InternalRenderTheme.OSMARENDER.name(), minZoomLevel, maxZoomLevel, tileSizePixels, file, InternalRenderTheme.OSMARENDER, MultiMapDataStore.DataPolicy.RETURN_ALL, null, null);
     }
 
     /**
@@ -169,9 +329,8 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         int minZoomLevel = MIN_ZOOM;
         int maxZoomLevel = MAX_ZOOM;
         int tileSizePixels = TILE_SIZE_PIXELS;
-        FileInputStream[] fileInputStream = convertFilesToInputStreams(file);
 
-        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, theme, MultiMapDataStore.DataPolicy.RETURN_ALL, null, null);
+        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, file, theme, MultiMapDataStore.DataPolicy.RETURN_ALL, null, null);
     }
 
     /**
@@ -192,9 +351,8 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         int minZoomLevel = MIN_ZOOM;
         int maxZoomLevel = MAX_ZOOM;
         int tileSizePixels = TILE_SIZE_PIXELS;
-        FileInputStream[] fileInputStream = convertFilesToInputStreams(file);
 
-        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, theme, MultiMapDataStore.DataPolicy.RETURN_ALL, null, language);
+        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, file, theme, MultiMapDataStore.DataPolicy.RETURN_ALL, null, language);
     }
 
     /**
@@ -216,9 +374,8 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         int minZoomLevel = MIN_ZOOM;
         int maxZoomLevel = MAX_ZOOM;
         int tileSizePixels = TILE_SIZE_PIXELS;
-        FileInputStream[] fileInputStream = convertFilesToInputStreams(file);
 
-        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, theme, dataPolicy, hillsRenderConfig, null);
+        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, file, theme, dataPolicy, hillsRenderConfig, null);
     }
 
     /**
@@ -241,9 +398,8 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         int minZoomLevel = MIN_ZOOM;
         int maxZoomLevel = MAX_ZOOM;
         int tileSizePixels = TILE_SIZE_PIXELS;
-        FileInputStream[] fileInputStream = convertFilesToInputStreams(file);
 
-        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, theme, dataPolicy, hillsRenderConfig, language);
+        return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, file, theme, dataPolicy, hillsRenderConfig, language);
     }
 
     /**
@@ -355,11 +511,14 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         return new MapsForgeTileSource(themeName, minZoomLevel, maxZoomLevel, tileSizePixels, fileInputStream, theme, dataPolicy, hillsRenderConfig, language);
     }
 
-    //The synchronized here is VERY important.  If missing, the mapDatabase read gets corrupted by multiple threads reading the file at once.
-    public synchronized Drawable renderTile(final long pMapTileIndex) {
+    /**
+     * Not synchronized anymore: the map data store gets corrupted by multiple threads reading the file
+     * at once, therefore each rendering thread borrows its own data store and renderer.
+     * Tile sources created from input streams have only one of them, and render one tile at a time.
+     */
+    public Drawable renderTile(final long pMapTileIndex) {
 
         Tile tile = new Tile(MapTileIndex.getX(pMapTileIndex), MapTileIndex.getY(pMapTileIndex), (byte) MapTileIndex.getZoom(pMapTileIndex), 256);
-        model.setFixedTileSize(256);
 
         //You could try something like this to load a custom theme
         //try{
@@ -370,12 +529,105 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         //}
 
 
-        if (mapDatabase == null)
+        final RenderContext renderContext;
+        try {
+            renderContext = acquireRenderContext();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (renderContext == null)
+            return null;
+        try {
+            return renderTile(renderContext, tile);
+        } finally {
+            releaseRenderContext(renderContext);
+        }
+    }
+
+    /**
+     * Renders the metatile that contains the tile: the NxN block of tiles aligned on multiples
+     * of the metatile size, cropped to the world at low zoom levels.
+     * The map data of the whole block are read once and shared by its tiles, and its tiles are
+     * rendered back-to-back by the same renderer.
+     *
+     * @return the rendered tiles of the metatile, by tile index, or null if disposed
+     * @see #setMetatileSize(int)
+     * @since 6.2.0
+     */
+    public Map<Long, Drawable> renderMetatile(final long pMapTileIndex) {
+        final int size = getMetatileSize();
+        final int zoom = MapTileIndex.getZoom(pMapTileIndex);
+        final int worldSize = 1 << zoom;
+        final int left = MapTileIndex.getX(pMapTileIndex) / size * size;
+        final int top = MapTileIndex.getY(pMapTileIndex) / size * size;
+        final int right = Math.min(left + size, worldSize) - 1;
+        final int bottom = Math.min(top + size, worldSize) - 1;
+
+        final RenderContext renderContext;
+        try {
+            renderContext = acquireRenderContext();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (renderContext == null)
             return null;
+        final Map<Long, Drawable> result = new LinkedHashMap<>();
+        try {
+            renderContext.mMapDataStore.setArea(
+                    new Tile(left, top, (byte) zoom, 256), new Tile(right, bottom, (byte) zoom, 256));
+            for (int y = top; y <= bottom; y++) {
+                for (int x = left; x <= right; x++) {
+                    final Drawable drawable = renderTile(renderContext, new Tile(x, y, (byte) zoom, 256));
+                    if (drawable != null)
+                        result.put(MapTileIndex.getTileIndex(zoom, x, y), drawable);
+                }
+            }
+        } finally {
+            renderContext.mMapDataStore.clearArea();
+            releaseRenderContext(renderContext);
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the upper left tile of the metatile that contains the tile
+     * @since 6.2.0
+     */
+    public long getMetatileIndex(final long pMapTileIndex) {
+        final int size = getMetatileSize();
+        return MapTileIndex.getTileIndex(MapTileIndex.getZoom(pMapTileIndex),
+                MapTileIndex.getX(pMapTileIndex) / size * size,
+                MapTileIndex.getY(pMapTileIndex) / size * size);
+    }
+
+    /**
+     * Number of tiles on each side of the metatiles: with 4, a tile request renders the 16 tiles
+     * of its 4x4 block, that will probably be needed soon during a pan.
+     * Default is 1, that is to say no metatile: one tile rendered at a time.
+     *
+     * @since 6.2.0
+     */
+    public void setMetatileSize(final int pMetatileSize) {
+        mMetatileSize = Math.max(1, pMetatileSize);
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    public int getMetatileSize() {
+        return mMetatileSize;
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private Drawable renderTile(final RenderContext pRenderContext, final Tile pTile) {
         try {
             //Draw the tile
-            RendererJob mapGeneratorJob = new RendererJob(tile, mapDatabase, theme, model, scale, false, false);
-            AndroidTileBitmap bmp = (AndroidTileBitmap) renderer.executeJob(mapGeneratorJob);
+            RendererJob mapGeneratorJob = new RendererJob(pTile, pRenderContext.mMapDataStore, theme, model, scale, false, false);
+            AndroidTileBitmap bmp = (AndroidTileBitmap) pRenderContext.mRenderer.executeJob(mapGeneratorJob);
             if (bmp != null)
                 return new BitmapDrawable(AndroidGraphicFactory.getBitmap(bmp));
         } catch (Exception ex) {
@@ -384,6 +636,79 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         return null;
     }
 
+    /**
+     * @return an idle data store and renderer, possibly created for the occasion, or null if disposed
+     * @since 6.2.0
+     */
+    private RenderContext acquireRenderContext() throws InterruptedException {
+        synchronized (mIdleRenderContexts) {
+            while (true) {
+                if (mDisposed) {
+                    return null;
+                }
+                if (!mIdleRenderContexts.isEmpty()) {
+                    return mIdleRenderContexts.pop();
+                }
+                if (mFiles != null && mRenderContexts.size() < mMaxConcurrentRenders) {
+                    final MetatileMapDataStore mapDataStore = new MetatileMapDataStore(createMapDataStore());
+                    final DirectRenderer directRenderer = new DirectRenderer(mapDataStore, AndroidGraphicFactory.INSTANCE, true, hillsRenderConfig);
+                    for (final DirectRenderer.TileRefresher tileRefresher : mTileRefreshers) {
+                        directRenderer.addTileRefresher(tileRefresher);
+                    }
+                    final RenderContext result = new RenderContext(mapDataStore, directRenderer);
+                    mRenderContexts.add(result);
+                    return result;
+                }
+                mIdleRenderContexts.wait();
+            }
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private void releaseRenderContext(final RenderContext pRenderContext) {
+        synchronized (mIdleRenderContexts) {
+            if (mDisposed) {
+                pRenderContext.mMapDataStore.close();
+                return;
+            }
+            mIdleRenderContexts.push(pRenderContext);
+            mIdleRenderContexts.notify();
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    private MultiMapDataStore createMapDataStore() {
+        final MultiMapDataStore result = new MultiMapDataStore(mDataPolicy);
+        for (final File file : mFiles)
+            result.addMapDataStore(new MapFile(file, mLanguage), false, false);
+        return result;
+    }
+
+    /**
+     * Max number of tiles rendered at the same time, each with its own read handles on the map files.
+     * Default is the number of cores. Irrelevant for tile sources created from input streams.
+     *
+     * @since 6.2.0
+     */
+    public void setMaxConcurrentRenders(final int pMaxConcurrentRenders) {
+        synchronized (mIdleRenderContexts) {
+            mMaxConcurrentRenders = Math.max(1, pMaxConcurrentRenders);
+        }
+    }
+
+    /**
+     * @since 6.2.0
+     */
+    public int getMaxConcurrentRenders() {
+        synchronized (mIdleRenderContexts) {
+            return mFiles == null ? 1 : mMaxConcurrentRenders;
+        }
+    }
+
     public static void createInstance(Application app) {
         AndroidGraphicFactory.createInstance(app);
     }
@@ -393,8 +718,15 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
         theme.decrementRefCount();
         theme = null;
         renderer = null;
-        if (mapDatabase != null)
-            mapDatabase.close();
+        synchronized (mIdleRenderContexts) {
+            mDisposed = true;
+            // the data stores being used are closed when released
+            for (final RenderContext renderContext : mIdleRenderContexts)
+                renderContext.mMapDataStore.close();
+            mIdleRenderContexts.clear();
+            mRenderContexts.clear();
+            mIdleRenderContexts.notifyAll();
+        }
         mapDatabase = null;
     }
 
@@ -403,26 +735,33 @@ public class MapsForgeTileSource extends BitmapTileSourceBase {
      */
     public void addTileRefresher(DirectRenderer.TileRefresher pDirectTileRefresher) {
         if (pDirectTileRefresher != null) {
-            renderer.addTileRefresher(pDirectTileRefresher);
+            synchronized (mIdleRenderContexts) {
+                mTileRefreshers.add(pDirectTileRefresher);
+                for (final RenderContext renderContext : mRenderContexts)
+                    renderContext.mRenderer.addTileRefresher(pDirectTileRefresher);
+            }
         }
     }
 
     // for example a scaleFactor of .6F
     public void setUserScaleFactor(float scaleFactor){
         model.setUserScaleFactor(scaleFactor);
+        updateCacheTileSource();
     }
 
 
-    private static FileInputStream[] convertFilesToInputStreams(File[] files) {
-        FileInputStream[] fileInputStreams = new FileInputStream[files.length];
-        for (int i = 0; i < files.length; i++) {
-            try {
-                fileInputStreams[i] = new FileInputStream(files[i]);
-            } catch (FileNotFoundException ex) {
-                Log.d(IMapView.LOGTAG, "###################### Mapsforge file input stream conversion failed", ex);
-            }
+    /**
+     * A data store and its renderer, used by one thread at a time
+     *
+     * @since 6.2.0
+     */
+    private static class RenderContext {
+        private final MetatileMapDataStore mMapDataStore;
+        private final DirectRenderer mRenderer;
+
+        private RenderContext(final MetatileMapDataStore pMapDataStore, final DirectRenderer pRenderer) {
+            mMapDataStore = pMapDataStore;
+            mRenderer = pRenderer;
         }
-        return fileInputStreams;
     }
-
 }
@@ -0,0 +1,188 @@
+package org.osmdroid.mapsforge;
+
+import org.mapsforge.core.model.BoundingBox;
+import org.mapsforge.core.model.LatLong;
+import org.mapsforge.core.model.Tile;
+import org.mapsforge.map.datastore.MapDataStore;
+import org.mapsforge.map.datastore.MapReadResult;
+import org.mapsforge.map.datastore.PointOfInterest;
+import org.mapsforge.map.datastore.Way;
+import org.mapsforge.map.reader.MapFile;
+
+/**
+ * Wraps a data store so that the tiles of a metatile share the same read:
+ * the map data of the whole block is read once, the first time one of its tiles needs it.
+ * Each tile then only gets the ways and POIs of the block that a read of that single tile would return,
+ * so that the rendering work stays the same as with one read per tile.
+ * Used by one rendering thread at a time, as its renderer.
+ *
+ * @author Fabrice Fontaine
+ * @since 6.2.0
+ */
+class MetatileMapDataStore extends MapDataStore {
+
+    private final MapDataStore mMapDataStore;
+    private Tile mUpperLeft;
+    private Tile mLowerRight;
+    private MapReadResult mMapReadResult;
+
+    /**
+     * Bounding boxes of the ways of the block read: min latitude, min longitude, max latitude, max longitude
+     */
+    private double[] mWayBounds;
+
+    MetatileMapDataStore(final MapDataStore pMapDataStore) {
+        mMapDataStore = pMapDataStore;
+    }
+
+    /**
+     * Starts a metatile: the tiles in that area will share the same map data
+     */
+    void setArea(final Tile pUpperLeft, final Tile pLowerRight) {
+        mUpperLeft = pUpperLeft;
+        mLowerRight = pLowerRight;
+        mMapReadResult = null;
+        mWayBounds = null;
+    }
+
+    /**
+     * Ends the metatile: back to one read per tile
+     */
+    void clearArea() {
+        setArea(null, null);
+    }
+
+    private boolean isInArea(final Tile pTile) {
+        return mUpperLeft != null
+                && pTile.zoomLevel == mUpperLeft.zoomLevel
+                && pTile.tileX >= mUpperLeft.tileX && pTile.tileX <= mLowerRight.tileX
+                && pTile.tileY >= mUpperLeft.tileY && pTile.tileY <= mLowerRight.tileY;
+    }
+
+    @Override
+    public MapReadResult readMapData(final Tile pTile) {
+        if (!isInArea(pTile)) {
+            return mMapDataStore.readMapData(pTile);
+        }
+        if (mMapReadResult == null) {
+            mMapReadResult = mMapDataStore.readMapData(mUpperLeft, mLowerRight);
+            if (mMapReadResult == null) {
+                return null;
+            }
+            mWayBounds = getWayBounds(mMapReadResult);
+        }
+        return clip(mMapReadResult, pTile);
+    }
+
+    /**
+     * @return the ways and POIs that a read of that single tile would return:
+     * the POIs in the tile, and the ways close enough to the tile, as filtered by {@link MapFile}
+     */
+    private MapReadResult clip(final MapReadResult pMapReadResult, final Tile pTile) {
+        final BoundingBox tile = pTile.getBoundingBox();
+        final BoundingBox ways = MapFile.wayFilterEnabled ? tile.extendMeters(MapFile.wayFilterDistance) : tile;
+        final MapReadResult result = new MapReadResult();
+        result.isWater = pMapReadResult.isWater;
+        for (final PointOfInterest pointOfInterest : pMapReadResult.pointOfInterests) {
+            if (tile.contains(pointOfInterest.position)) {
+                result.pointOfInterests.add(pointOfInterest);
+            }
+        }
+        int index = 0;
+        for (final Way way : pMapReadResult.ways) {
+            if (mWayBounds[index] <= ways.maxLatitude && mWayBounds[index + 2] >= ways.minLatitude
+                    && mWayBounds[index + 1] <= ways.maxLongitude && mWayBounds[index + 3] >= ways.minLongitude) {
+                result.ways.add(way);
+            }
+            index += 4;
+        }
+        return result;
+    }
+
+    private static double[] getWayBounds(final MapReadResult pMapReadResult) {
+        final double[] result = new double[4 * pMapReadResult.ways.size()];
+        int index = 0;
+        for (final Way way : pMapReadResult.ways) {
+            double minLatitude = Double.MAX_VALUE;
+            double minLongitude = Double.MAX_VALUE;
+            double maxLatitude = -Double.MAX_VALUE;
+            double maxLongitude = -Double.MAX_VALUE;
+            for (final LatLong[] latLongs : way.latLongs) {
+                for (final LatLong latLong : latLongs) {
+                    minLatitude = Math.min(minLatitude, latLong.latitude);
+                    minLongitude = Math.min(minLongitude, latLong.longitude);
+                    maxLatitude = Math.max(maxLatitude, latLong.latitude);
+                    maxLongitude = Math.max(maxLongitude, latLong.longitude);
+                }
+            }
+            if (way.labelPosition != null) {
+                minLatitude = Math.min(minLatitude, way.labelPosition.latitude);
+                minLongitude = Math.min(minLongitude, way.labelPosition.longitude);
+                maxLatitude = Math.max(maxLatitude, way.labelPosition.latitude);
+                maxLongitude = Math.max(maxLongitude, way.labelPosition.longitude);
+            }
+            result[index++] = minLatitude;
+            result[index++] = minLongitude;
+            result[index++] = maxLatitude;
+            result[index++] = maxLongitude;
+        }
+        return result;
+    }
+
+    @Override
+    public MapReadResult readMapData(final Tile pUpperLeft, final Tile pLowerRight) {
+        return mMapDataStore.readMapData(pUpperLeft, pLowerRight);
+    }
+
+    @Override
+    public MapReadResult readLabels(final Tile pTile) {
+        return mMapDataStore.readLabels(pTile);
+    }
+
+    @Override
+    public MapReadResult readLabels(final Tile pUpperLeft, final Tile pLowerRight) {
+        return mMapDataStore.readLabels(pUpperLeft, pLowerRight);
+    }
+
+    @Override
+    public MapReadResult readPoiData(final Tile pTile) {
+        return mMapDataStore.readPoiData(pTile);
+    }
+
+    @Override
+    public MapReadResult readPoiData(final Tile pUpperLeft, final Tile pLowerRight) {
+        return mMapDataStore.readPoiData(pUpperLeft, pLowerRight);
+    }
+
+    @Override
+    public BoundingBox boundingBox() {
+        return mMapDataStore.boundingBox();
+    }
+
+    @Override
+    public long getDataTimestamp(final Tile pTile) {
+        return mMapDataStore.getDataTimestamp(pTile);
+    }
+
+    @Override
+    public LatLong startPosition() {
+        return mMapDataStore.startPosition();
+    }
+
+    @Override
+    public Byte startZoomLevel() {
+        return mMapDataStore.startZoomLevel();
+    }
+
+    @Override
+    public boolean supportsTile(final Tile pTile) {
+        return mMapDataStore.supportsTile(pTile);
+    }
+
+    @Override
+    public void close() {
+        mMapReadResult = null;
+        mWayBounds = null;
+        mMapDataStore.close();
+    }
+}